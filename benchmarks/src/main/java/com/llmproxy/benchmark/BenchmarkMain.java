@@ -0,0 +1,55 @@
+package com.llmproxy.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Entry point of {@code benchmarks.jar}. Takes the usual JMH command line (a benchmark
+ * regex, {@code -f}, {@code -wi}, {@code -prof}, ...) but unless told otherwise runs with
+ * the GC profiler, so every result carries allocation rates, and writes the results as
+ * JSON to {@code results/jmh-<timestamp>.json} for comparison with earlier runs.
+ */
+public final class BenchmarkMain {
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    
+    private BenchmarkMain() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+        
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (commandLine.shouldList() || commandLine.shouldListWithParams()) {
+            new Runner(commandLine).list();
+            return;
+        }
+        if (commandLine.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            options.resultFormat(commandLine.getResultFormat().orElse(ResultFormatType.JSON))
+                    .result(resultFile(commandLine.getResultFormat().orElse(ResultFormatType.JSON)));
+        }
+        new Runner(options.build()).run();
+    }
+    
+    private static String resultFile(ResultFormatType format) throws IOException {
+        Path dir = Files.createDirectories(Path.of("results"));
+        String name = "jmh-" + LocalDateTime.now().format(TIMESTAMP) + "." + format.name().toLowerCase();
+        return dir.resolve(name).toString();
+    }
+}
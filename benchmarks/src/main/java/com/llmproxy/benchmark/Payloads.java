@@ -0,0 +1,28 @@
+package com.llmproxy.benchmark;
+
+/**
+ * Realistic request and response text shared by the benchmarks, so that hashing,
+ * tokenizing and JSON handling see prompt and answer sizes like production's.
+ */
+public final class Payloads {
+    public static final String SHORT_QUERY = "What is the capital of France?";
+    
+    public static final String LONG_QUERY = "Summarize the following incident report for an executive audience "
+            + "in three bullet points, keeping the customer impact and the remediation steps:\n\n"
+            + "At 09:12 UTC the payment gateway began returning intermittent 502 responses after a "
+            + "configuration change increased the connection pool timeout on the upstream load balancer. "
+            + "Roughly 4% of checkout attempts failed over a 37 minute window, concentrated in the EU region. "
+            + "The on-call engineer rolled back the change at 09:49 UTC and error rates returned to baseline "
+            + "within two minutes. Follow-up actions include adding a canary stage for load balancer "
+            + "configuration, alerting on 5xx ratios per region, and a runbook entry for pool exhaustion.";
+    
+    public static final String ANSWER = "- **Impact:** For 37 minutes (09:12-09:49 UTC), about 4% of checkout "
+            + "attempts failed, mostly for customers in the EU region, because the payment gateway returned "
+            + "intermittent 502 errors.\n- **Cause and fix:** A load balancer configuration change that raised "
+            + "the connection pool timeout triggered the failures; rolling it back restored normal error rates "
+            + "within two minutes.\n- **Prevention:** Load balancer changes will go through a canary stage, "
+            + "per-region 5xx alerting is being added, and the runbook now covers connection pool exhaustion.";
+    
+    private Payloads() {
+    }
+}
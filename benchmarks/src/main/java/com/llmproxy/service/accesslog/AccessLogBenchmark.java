@@ -0,0 +1,67 @@
+package com.llmproxy.service.accesslog;
+
+import com.llmproxy.model.ModelType;
+import com.llmproxy.model.QueryRequest;
+import com.llmproxy.model.QueryResponse;
+import com.llmproxy.model.TaskType;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request-thread cost of recording an access log entry; the GC profiler's
+ * {@code gc.alloc.rate.norm} confirms the ring buffer path allocates nothing. The SLF4J
+ * baseline is the per-request {@code log.info} line it replaces.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class AccessLogBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(AccessLogBenchmark.class);
+
+    private AccessLog accessLog;
+    private QueryRequest request;
+    private QueryResponse response;
+
+    @Setup
+    public void setUp() throws IOException {
+        Path dir = Files.createTempDirectory("access-log-bench");
+        accessLog = new AccessLog(true, dir.resolve("access.log"), 1 << 16, 1024 * 1024 * 1024, 1);
+        accessLog.start();
+        request = QueryRequest.builder()
+                .query("What is the capital of France?")
+                .taskType(TaskType.QUESTION_ANSWERING)
+                .requestId("5f0c6a4e-8d3b-4a53-9d0c-2f6b1e7a9c11")
+                .build();
+        response = QueryResponse.builder()
+                .model(ModelType.OPENAI)
+                .inputTokens(12)
+                .outputTokens(48)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        accessLog.close();
+    }
+
+    @Benchmark
+    public void ringBuffer() {
+        accessLog.record(request, "10.0.0.1", 200, response, 1_234_567);
+    }
+
+    @Benchmark
+    public void slf4jBaseline() {
+        logger.info("Query completed: model={}, responseTime={}ms, tokens={}, requestId={}",
+                response.getModel(), 1, response.getTotalTokens(), request.getRequestId());
+    }
+}
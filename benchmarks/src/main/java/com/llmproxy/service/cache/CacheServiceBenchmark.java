@@ -0,0 +1,89 @@
+package com.llmproxy.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llmproxy.benchmark.Payloads;
+import com.llmproxy.model.ModelType;
+import com.llmproxy.model.QueryRequest;
+import com.llmproxy.model.QueryResponse;
+import com.llmproxy.model.TaskType;
+import com.llmproxy.service.llm.ModelVersionValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a cache lookup and insert, including the SHA-256 key over the canonicalized
+ * query, for short and long prompts. Hits and misses are both measured since most
+ * requests in production miss.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class CacheServiceBenchmark {
+    private static final int ENTRIES = 1024;
+    
+    @Param({"short", "long"})
+    public String query;
+    
+    private CacheService cacheService;
+    private QueryRequest[] cached;
+    private QueryRequest[] uncached;
+    private QueryResponse response;
+    
+    @Setup
+    public void setUp() {
+        cacheService = new CacheService(true, 300, ENTRIES * 4, new ObjectMapper(), new ModelVersionValidator(),
+                new DefaultQueryCanonicalizer(""));
+        String text = query.equals("long") ? Payloads.LONG_QUERY : Payloads.SHORT_QUERY;
+        response = QueryResponse.builder()
+                .response(Payloads.ANSWER)
+                .model(ModelType.OPENAI)
+                .inputTokens(140)
+                .outputTokens(120)
+                .totalTokens(260)
+                .timestamp(Instant.now())
+                .build();
+        cached = new QueryRequest[ENTRIES];
+        uncached = new QueryRequest[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            cached[i] = request(text + " #" + i);
+            uncached[i] = request(text + " ~" + i);
+            cacheService.set(cached[i], response);
+        }
+    }
+    
+    @Benchmark
+    public QueryResponse getHit() {
+        return cacheService.get(cached[ThreadLocalRandom.current().nextInt(ENTRIES)]);
+    }
+    
+    @Benchmark
+    public QueryResponse getMiss() {
+        return cacheService.get(uncached[ThreadLocalRandom.current().nextInt(ENTRIES)]);
+    }
+    
+    @Benchmark
+    public void set() {
+        cacheService.set(cached[ThreadLocalRandom.current().nextInt(ENTRIES)], response);
+    }
+    
+    @Benchmark
+    public String generateCacheKey() {
+        return cacheService.generateCacheKey(cached[ThreadLocalRandom.current().nextInt(ENTRIES)]);
+    }
+    
+    private static QueryRequest request(String text) {
+        return QueryRequest.builder()
+                .query(text)
+                .model(ModelType.OPENAI)
+                .modelVersion("gpt-4o")
+                .taskType(TaskType.SUMMARIZATION)
+                .build();
+    }
+}
@@ -0,0 +1,40 @@
+package com.llmproxy.service.llm;
+
+import com.llmproxy.model.ModelType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalog lookups done for every request: a supported version, an omitted one (default)
+ * and an unsupported one (falls back to the default).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelVersionValidatorBenchmark {
+    private ModelVersionValidator validator;
+    
+    @Setup
+    public void setUp() {
+        validator = new ModelVersionValidator();
+    }
+    
+    @Benchmark
+    public String supportedVersion() {
+        return validator.validateModelVersion(ModelType.OPENAI, "gpt-4o");
+    }
+    
+    @Benchmark
+    public String defaultVersion() {
+        return validator.validateModelVersion(ModelType.CLAUDE, null);
+    }
+    
+    @Benchmark
+    public String unsupportedVersion() {
+        return validator.validateModelVersion(ModelType.GEMINI, "gemini-0.1-nonexistent");
+    }
+}
@@ -0,0 +1,150 @@
+package com.llmproxy.service.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.llmproxy.benchmark.Payloads;
+import com.llmproxy.model.ModelSpec;
+import com.llmproxy.model.ModelType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON work each provider client does per call: building the request body and parsing a
+ * response shaped like the provider's real one (ids, metadata and a paragraph-sized
+ * answer), without the HTTP round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProviderClientBenchmark {
+    @Param({"openai", "gemini", "mistral", "claude", "self_hosted"})
+    public String provider;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ModelSpec spec;
+    private String responseBody;
+    private RequestBuilder requestBuilder;
+    private ResponseParser responseParser;
+    
+    @Setup
+    public void setUp() {
+        ModelVersionValidator validator = new ModelVersionValidator();
+        TokenEstimator tokenEstimator = new TokenEstimator();
+        UpstreamRateLimiter upstreamRateLimiter = new UpstreamRateLimiter();
+        switch (provider) {
+            case "openai" -> {
+                OpenAiClient client = new OpenAiClient(objectMapper, validator, tokenEstimator, upstreamRateLimiter, null, null);
+                spec = validator.resolveModelSpec(ModelType.OPENAI, null);
+                requestBuilder = client::buildRequestBody;
+                responseParser = (query, body, result) -> client.parseResponse(body, result);
+                responseBody = chatCompletion("chatcmpl-9aBcDeFgHiJkLmNoPqRsTuVwXyZ");
+            }
+            case "mistral" -> {
+                MistralClient client = new MistralClient(objectMapper, validator, tokenEstimator, upstreamRateLimiter, null, null);
+                spec = validator.resolveModelSpec(ModelType.MISTRAL, null);
+                requestBuilder = client::buildRequestBody;
+                responseParser = (query, body, result) -> client.parseResponse(body, result);
+                responseBody = chatCompletion("cmpl-e5cc70bb28c444948073e77776eb30ef");
+            }
+            case "self_hosted" -> {
+                SelfHostedClient client = new SelfHostedClient(objectMapper, validator, tokenEstimator,
+                        upstreamRateLimiter, null, null, true, "http://localhost:8000", "", "/v1/models");
+                spec = validator.resolveModelSpec(ModelType.SELF_HOSTED, null);
+                requestBuilder = client::buildRequestBody;
+                responseParser = client::parseResponse;
+                responseBody = chatCompletion("chat-6f1c2d0e8b7a4c39");
+            }
+            case "claude" -> {
+                ClaudeClient client = new ClaudeClient(objectMapper, validator, tokenEstimator, upstreamRateLimiter, null, null);
+                spec = validator.resolveModelSpec(ModelType.CLAUDE, null);
+                requestBuilder = client::buildRequestBody;
+                responseParser = (query, body, result) -> client.parseResponse(body, result);
+                responseBody = claudeMessage();
+            }
+            case "gemini" -> {
+                GeminiClient client = new GeminiClient(objectMapper, validator, tokenEstimator, upstreamRateLimiter, null, null);
+                spec = validator.resolveModelSpec(ModelType.GEMINI, null);
+                requestBuilder = client::buildRequestBody;
+                responseParser = client::parseResponse;
+                responseBody = geminiResponse();
+            }
+            default -> throw new IllegalArgumentException("Unknown provider: " + provider);
+        }
+    }
+    
+    @Benchmark
+    public String buildRequest() {
+        return requestBuilder.build(Payloads.LONG_QUERY, spec);
+    }
+    
+    @Benchmark
+    public QueryResult parseResponse() throws IOException {
+        QueryResult result = new QueryResult();
+        responseParser.parse(Payloads.LONG_QUERY, responseBody, result);
+        return result;
+    }
+    
+    private String chatCompletion(String id) {
+        ObjectNode response = objectMapper.createObjectNode()
+                .put("id", id)
+                .put("object", "chat.completion")
+                .put("created", 1718000000L)
+                .put("model", spec.getVersion())
+                .put("system_fingerprint", "fp_3aa7262c27");
+        ObjectNode choice = response.putArray("choices").addObject();
+        choice.put("index", 0);
+        choice.putObject("message").put("role", "assistant").put("content", Payloads.ANSWER);
+        choice.putNull("logprobs");
+        choice.put("finish_reason", "stop");
+        response.putObject("usage")
+                .put("prompt_tokens", 142)
+                .put("completion_tokens", 118)
+                .put("total_tokens", 260);
+        return response.toString();
+    }
+    
+    private String claudeMessage() {
+        ObjectNode response = objectMapper.createObjectNode()
+                .put("id", "msg_01XFDUDYJgAACzvnptvVoYEL")
+                .put("type", "message")
+                .put("role", "assistant")
+                .put("model", spec.getVersion());
+        response.putArray("content").addObject().put("type", "text").put("text", Payloads.ANSWER);
+        response.put("stop_reason", "end_turn").putNull("stop_sequence");
+        response.putObject("usage").put("input_tokens", 142).put("output_tokens", 118);
+        return response.toString();
+    }
+    
+    private String geminiResponse() {
+        ObjectNode response = objectMapper.createObjectNode();
+        ObjectNode candidate = response.putArray("candidates").addObject();
+        ObjectNode content = candidate.putObject("content");
+        content.putArray("parts").addObject().put("text", Payloads.ANSWER);
+        content.put("role", "model");
+        candidate.put("finishReason", "STOP").put("index", 0);
+        for (String category : new String[] {"HARM_CATEGORY_SEXUALLY_EXPLICIT", "HARM_CATEGORY_HATE_SPEECH",
+                "HARM_CATEGORY_HARASSMENT", "HARM_CATEGORY_DANGEROUS_CONTENT"}) {
+            candidate.withArray("safetyRatings").addObject().put("category", category).put("probability", "NEGLIGIBLE");
+        }
+        response.putObject("usageMetadata")
+                .put("promptTokenCount", 142)
+                .put("candidatesTokenCount", 118)
+                .put("totalTokenCount", 260);
+        return response.toString();
+    }
+    
+    @FunctionalInterface
+    private interface RequestBuilder {
+        String build(String query, ModelSpec spec);
+    }
+    
+    @FunctionalInterface
+    private interface ResponseParser {
+        void parse(String query, String responseBody, QueryResult result) throws IOException;
+    }
+}
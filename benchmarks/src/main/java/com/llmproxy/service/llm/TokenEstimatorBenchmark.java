@@ -0,0 +1,41 @@
+package com.llmproxy.service.llm;
+
+import com.llmproxy.benchmark.Payloads;
+import com.llmproxy.model.ModelType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request token estimation: the prompt once per model family for context-window
+ * checks, and the prompt and answer for a provider that reports no usage. Uses the
+ * vocabularies on the classpath or under {@code -Dtokenizer.vocabulary-dir=...}, else the
+ * heuristic counter; see {@code BpeTokenizerBenchmark} for the tokenizer alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenEstimatorBenchmark {
+    private TokenEstimator tokenEstimator;
+    
+    @Setup
+    public void setUp() {
+        tokenEstimator = new TokenEstimator(System.getProperty("tokenizer.vocabulary-dir", ""), 10_000);
+    }
+    
+    @Benchmark
+    public Map<ModelType, Integer> estimateTokenCounts() {
+        return tokenEstimator.estimateTokenCounts(Payloads.LONG_QUERY);
+    }
+    
+    @Benchmark
+    public QueryResult estimateTokens() {
+        QueryResult result = new QueryResult();
+        tokenEstimator.estimateTokens(result, Payloads.LONG_QUERY, Payloads.ANSWER, ModelType.GEMINI);
+        return result;
+    }
+}
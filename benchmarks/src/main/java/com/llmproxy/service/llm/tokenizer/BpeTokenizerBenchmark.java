@@ -0,0 +1,149 @@
+package com.llmproxy.service.llm.tokenizer;
+
+import com.llmproxy.service.llm.TokenEstimator;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+
+/**
+ * Tokenizer throughput in tokens per second, reported through the {@code tokens} counter.
+ * With {@code -Dtokenizer.vocabulary-dir=...} pointing at real tiktoken files the production
+ * vocabulary is measured; otherwise a vocabulary of a few thousand merges is trained on
+ * the benchmark corpus. The length / 4 baseline is the previous estimator.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BpeTokenizerBenchmark {
+    private static final String PROSE = "The proxy routes each query to the model best suited to the task, "
+            + "retrying transient failures and caching responses so that repeated questions are answered "
+            + "without another round trip. Operators tune rate limits per client and per token budget. ";
+    private static final String CODE = "public int countTokens(CharSequence text) {\n"
+            + "    Matcher matcher = pattern.matcher(text);\n    int count = 0;\n"
+            + "    while (matcher.find()) { count += countChunk(text, matcher.start(), matcher.end()); }\n"
+            + "    return count;\n}\n";
+    private static final String CJK = "大規模言語モデルのプロキシは、各クエリを最適なモデルに振り分けます。応答はキャッシュされます。";
+    
+    @Param({"prose", "code", "cjk"})
+    public String corpus;
+    
+    private TokenCounter tokenizer;
+    private String[] texts;
+    
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class TokenCounters {
+        public long tokens;
+    }
+    
+    @Setup
+    public void setUp() {
+        String sample = switch (corpus) {
+            case "code" -> CODE;
+            case "cjk" -> CJK;
+            default -> PROSE;
+        };
+        
+        String vocabularyDir = System.getProperty("tokenizer.vocabulary-dir", "");
+        if (vocabularyDir.isEmpty()) {
+            tokenizer = train(PROSE.repeat(4) + CODE.repeat(4) + CJK.repeat(4), 3000);
+        } else {
+            TokenEstimator estimator = new TokenEstimator(vocabularyDir, 10_000);
+            tokenizer = text -> estimator.estimateTokenCount(text.toString());
+        }
+        
+        // Vary the texts so the chunk cache sees a realistic mix of hits and misses
+        texts = new String[64];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = sample.repeat(1 + i % 4) + " request " + i + " id" + Integer.toHexString(i * 7919);
+        }
+    }
+    
+    @Benchmark
+    public int countTokens(TokenCounters counters) {
+        int count = tokenizer.countTokens(texts[ThreadLocalRandom.current().nextInt(texts.length)]);
+        counters.tokens += count;
+        return count;
+    }
+    
+    @Benchmark
+    public int lengthQuarterBaseline(TokenCounters counters) {
+        int count = texts[ThreadLocalRandom.current().nextInt(texts.length)].length() / 4;
+        counters.tokens += count;
+        return count;
+    }
+    
+    /**
+     * Minimal byte-level BPE training: repeatedly merge the most frequent adjacent pair
+     * within the pre-tokenized chunks of the corpus.
+     */
+    static BpeTokenizer train(String corpus, int merges) {
+        RankTable.Builder builder = new RankTable.Builder();
+        for (int b = 0; b < 256; b++) {
+            builder.add(new byte[] {(byte) b}, b);
+        }
+        
+        Map<String, Integer> chunkCounts = new HashMap<>();
+        Matcher matcher = BpeEncoding.CL100K_BASE.getPattern().matcher(corpus);
+        while (matcher.find()) {
+            chunkCounts.merge(matcher.group(), 1, Integer::sum);
+        }
+        List<List<byte[]>> words = new ArrayList<>();
+        List<Integer> frequencies = new ArrayList<>();
+        chunkCounts.forEach((chunk, count) -> {
+            List<byte[]> symbols = new ArrayList<>();
+            for (byte b : chunk.getBytes(StandardCharsets.UTF_8)) {
+                symbols.add(new byte[] {b});
+            }
+            words.add(symbols);
+            frequencies.add(count);
+        });
+        
+        for (int rank = 256; rank < 256 + merges; rank++) {
+            Map<String, Integer> pairCounts = new HashMap<>();
+            Map<String, byte[]> pairBytes = new HashMap<>();
+            for (int w = 0; w < words.size(); w++) {
+                List<byte[]> symbols = words.get(w);
+                for (int i = 0; i + 1 < symbols.size(); i++) {
+                    byte[] joined = concat(symbols.get(i), symbols.get(i + 1));
+                    String key = new String(joined, StandardCharsets.ISO_8859_1);
+                    pairCounts.merge(key, frequencies.get(w), Integer::sum);
+                    pairBytes.putIfAbsent(key, joined);
+                }
+            }
+            if (pairCounts.isEmpty()) {
+                break;
+            }
+            
+            String best = pairCounts.entrySet().stream().max(Map.Entry.comparingByValue()).get().getKey();
+            byte[] merged = pairBytes.get(best);
+            builder.add(merged, rank);
+            for (List<byte[]> symbols : words) {
+                for (int i = 0; i + 1 < symbols.size(); i++) {
+                    if (Arrays.equals(concat(symbols.get(i), symbols.get(i + 1)), merged)) {
+                        symbols.set(i, merged);
+                        symbols.remove(i + 1);
+                    }
+                }
+            }
+        }
+        return new BpeTokenizer(BpeEncoding.CL100K_BASE, builder.build(), 10_000);
+    }
+    
+    private static byte[] concat(byte[] left, byte[] right) {
+        byte[] joined = Arrays.copyOf(left, left.length + right.length);
+        System.arraycopy(right, 0, joined, left.length, right.length);
+        return joined;
+    }
+}
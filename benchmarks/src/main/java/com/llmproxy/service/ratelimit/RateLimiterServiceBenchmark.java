@@ -0,0 +1,81 @@
+package com.llmproxy.service.ratelimit;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contention benchmark for the rate limiter hot path. The synchronized baseline
+ * reproduces the previous implementation for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+public class RateLimiterServiceBenchmark {
+    private static final int CLIENTS = 1024;
+    
+    private RateLimiterService rateLimiterService;
+    private SynchronizedBucket synchronizedBucket;
+    private String[] clientIds;
+    
+    @Setup
+    public void setUp() {
+        rateLimiterService = new RateLimiterService(6_000_000, 1_000_000);
+        synchronizedBucket = new SynchronizedBucket(100_000.0, 1_000_000);
+        clientIds = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            clientIds[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+    
+    @Benchmark
+    public boolean allowGlobal() {
+        return rateLimiterService.allow();
+    }
+    
+    @Benchmark
+    public boolean allowSingleHotClient() {
+        return rateLimiterService.allowClient("10.0.0.1");
+    }
+    
+    @Benchmark
+    public boolean allowManyClients() {
+        return rateLimiterService.allowClient(clientIds[ThreadLocalRandom.current().nextInt(CLIENTS)]);
+    }
+    
+    @Benchmark
+    public boolean synchronizedBaseline() {
+        return synchronizedBucket.allow();
+    }
+    
+    static final class SynchronizedBucket {
+        private final double refillRate;
+        private final double maxTokens;
+        private double tokens;
+        private Instant lastRefill = Instant.now();
+        
+        SynchronizedBucket(double refillRate, double maxTokens) {
+            this.refillRate = refillRate;
+            this.maxTokens = maxTokens;
+            this.tokens = maxTokens;
+        }
+        
+        synchronized boolean allow() {
+            Instant now = Instant.now();
+            double elapsed = (now.toEpochMilli() - lastRefill.toEpochMilli()) / 1000.0;
+            tokens = Math.min(maxTokens, tokens + elapsed * refillRate);
+            lastRefill = now;
+            if (tokens >= 1.0) {
+                tokens -= 1.0;
+                return true;
+            }
+            return false;
+        }
+    }
+}
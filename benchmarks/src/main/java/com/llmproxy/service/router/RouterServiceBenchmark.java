@@ -0,0 +1,56 @@
+package com.llmproxy.service.router;
+
+import com.llmproxy.model.ModelType;
+import com.llmproxy.model.QueryRequest;
+import com.llmproxy.model.TaskType;
+import com.llmproxy.service.llm.LlmClientFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routing decision cost for each way a request can be routed. Availability is pinned
+ * (test mode), so this measures the steady state between refreshes rather than the
+ * provider round trips of a refresh.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class RouterServiceBenchmark {
+    private RouterService routerService;
+    private QueryRequest requestedModel;
+    private QueryRequest byTaskType;
+    private QueryRequest unpinned;
+    
+    @Setup
+    public void setUp() {
+        routerService = new RouterService(new LlmClientFactory(List.of()));
+        routerService.setTestMode(true);
+        for (ModelType model : ModelType.values()) {
+            routerService.setModelAvailability(model, true);
+        }
+        requestedModel = QueryRequest.builder().query("q").model(ModelType.CLAUDE).build();
+        byTaskType = QueryRequest.builder().query("q").taskType(TaskType.SUMMARIZATION).build();
+        unpinned = QueryRequest.builder().query("q").build();
+    }
+    
+    @Benchmark
+    public ModelType requestedModel() {
+        return routerService.routeRequest(requestedModel);
+    }
+    
+    @Benchmark
+    public ModelType taskType() {
+        return routerService.routeRequest(byTaskType);
+    }
+    
+    @Benchmark
+    public ModelType random() {
+        return routerService.routeRequest(unpinned);
+    }
+}
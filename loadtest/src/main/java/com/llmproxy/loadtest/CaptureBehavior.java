@@ -0,0 +1,58 @@
+package com.llmproxy.loadtest;
+
+import com.llmproxy.model.CapturedRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Answers each query after the upstream latency recorded for the same query text in a
+ * traffic capture, with the recorded token usage; recorded upstream failures are
+ * answered as failures. Repeated queries cycle through their recorded samples. Queries
+ * that never reached an upstream in the capture (e.g. cache hits) get the median
+ * recorded latency.
+ */
+class CaptureBehavior implements MockUpstream.Behavior {
+    private static final long DEFAULT_LATENCY_MS = 200;
+    
+    private final Map<String, Samples> samplesByQuery = new HashMap<>();
+    private final MockUpstream.Sample fallback;
+    
+    CaptureBehavior(List<CapturedRequest> capture) {
+        List<Long> latencies = new ArrayList<>();
+        for (CapturedRequest captured : capture) {
+            // Upstream errors surface as ModelError; other failures never reached a provider
+            boolean failed = "ModelError".equals(captured.getErrorType());
+            if (captured.isCached() || captured.getServedModel() == null && !failed) {
+                continue;
+            }
+            MockUpstream.Sample sample = failed
+                    ? MockUpstream.Sample.failure(captured.getUpstreamLatencyMs())
+                    : MockUpstream.Sample.success(captured.getUpstreamLatencyMs(), captured.getInputTokens(),
+                            captured.getOutputTokens());
+            samplesByQuery.computeIfAbsent(captured.getQuery(), q -> new Samples()).samples.add(sample);
+            latencies.add(captured.getUpstreamLatencyMs());
+        }
+        latencies.sort(null);
+        fallback = MockUpstream.Sample.success(
+                latencies.isEmpty() ? DEFAULT_LATENCY_MS : latencies.get(latencies.size() / 2), 0, 0);
+    }
+    
+    @Override
+    public MockUpstream.Sample respond(String provider, String query) {
+        Samples samples = samplesByQuery.get(query);
+        return samples == null ? fallback : samples.next();
+    }
+    
+    private static final class Samples {
+        final List<MockUpstream.Sample> samples = new ArrayList<>();
+        final AtomicInteger next = new AtomicInteger();
+        
+        MockUpstream.Sample next() {
+            return samples.get(Math.floorMod(next.getAndIncrement(), samples.size()));
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.llmproxy.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llmproxy.model.QueryRequest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator: sends a {@link Scenario}'s requests at a constant arrival
+ * rate, whatever the proxy's response times, to a proxy whose providers are all served
+ * by a {@link MockUpstream}, and reports throughput, latency percentiles and errors:
+ *
+ * <pre>
+ * java -jar loadtest/target/loadtest.jar --scenario all-miss --rate 50,100,200 --duration 30
+ * </pre>
+ *
+ * <p>Latency is measured from when a request was due, not from when it was sent, so a
+ * proxy that stalls is charged for every request it delayed (no coordinated omission).
+ * Each comma-separated rate is a step of {@code --duration} seconds after one warm-up of
+ * {@code --warmup} seconds at the first rate; raising the rate until latency or errors
+ * climb finds the throughput ceiling.
+ *
+ * <p>By default the proxy is started in a separate JVM ({@code --app-jvm-args}, optionally
+ * pinned with {@code --app-cpus}) with per-client rate limits lifted, so the limits
+ * measured are the proxy's own: admission, load shedding, retries and fallbacks.
+ * Arguments starting with {@code --spring.} override proxy settings; {@code --target}
+ * drives an already running proxy instead. Results are also written as JSON to
+ * {@code results/}.
+ */
+public class LoadGenerator {
+    private static final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final List<String> LOAD_TEST_DEFAULTS = List.of(
+            "--rate-limit.requests-per-minute=100000000",
+            "--rate-limit.burst=1000000");
+    
+    private final Scenario scenario;
+    private final int clients;
+    private final HttpClient httpClient;
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+    
+    LoadGenerator(Scenario scenario, int clients, int maxInFlight) {
+        this.scenario = scenario;
+        this.clients = clients;
+        this.executor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+    
+    public static void main(String[] args) throws Exception {
+        if (Arrays.asList(args).contains("--help")) {
+            System.err.println("Usage: LoadGenerator [--scenario cache-heavy|all-miss|provider-outage|fallback-storm] "
+                    + "[--rate 100[,200...]] [--duration 30] [--warmup 10] [--clients 100] [--seed 1] "
+                    + "[--upstream-latency-ms 200] [--max-in-flight 4096] [--app-jvm-args \"-Xms1g -Xmx1g\"] "
+                    + "[--app-cpus 0-3] [--target <proxy url>] [--mock-port 0] [--spring.<property>=<value>...]");
+            System.exit(2);
+        }
+        Map<String, String> options = new HashMap<>();
+        List<String> springArgs = new ArrayList<>();
+        ReplayTool.parseArguments(args, options, springArgs);
+        
+        Scenario scenario = Scenario.parse(options.getOrDefault("scenario", "all-miss"));
+        double[] rates = Arrays.stream(options.getOrDefault("rate", "100").split(","))
+                .mapToDouble(Double::parseDouble)
+                .toArray();
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        long upstreamLatencyMs = Long.parseLong(options.getOrDefault("upstream-latency-ms", "200"));
+        List<String> jvmArgs = List.of(options.getOrDefault("app-jvm-args", "-Xms1g -Xmx1g -XX:+AlwaysPreTouch")
+                .trim().split("\\s+"));
+        String cpus = options.get("app-cpus");
+        String timestamp = LocalDateTime.now().format(TIMESTAMP);
+        Path results = Files.createDirectories(Path.of(options.getOrDefault("results", "results")));
+        
+        LoadGenerator generator = new LoadGenerator(scenario,
+                Integer.parseInt(options.getOrDefault("clients", "100")),
+                Integer.parseInt(options.getOrDefault("max-in-flight", "4096")));
+        List<String> proxyOverrides = new ArrayList<>(LOAD_TEST_DEFAULTS);
+        proxyOverrides.addAll(springArgs);
+        
+        try (MockUpstream upstream = new MockUpstream(scenario.behavior(upstreamLatencyMs),
+                Integer.parseInt(options.getOrDefault("mock-port", "0")))) {
+            upstream.start();
+            URI target;
+            ProxyProcess proxy = null;
+            if (options.containsKey("target")) {
+                target = URI.create(options.get("target"));
+                for (String provider : List.of("openai", "gemini", "mistral", "claude")) {
+                    System.out.printf("Start the proxy with %s_BASE_URL=%s%n",
+                            provider.toUpperCase(), upstream.baseUrl(provider));
+                }
+            } else {
+                Path log = results.resolve("loadtest-" + timestamp + "-proxy.log");
+                System.out.printf("Starting proxy (log: %s)%n", log);
+                proxy = ProxyProcess.start(jvmArgs, cpus, ProxyProcess.arguments(upstream, proxyOverrides), log);
+                target = proxy.getBaseUri();
+            }
+            
+            try {
+                URI queryUri = target.resolve("/api/query");
+                Random random = new Random(seed);
+                long index = 0;
+                if (!warmup.isZero()) {
+                    System.out.printf("Warming up at %.0f req/s for %ds%n", rates[0], warmup.getSeconds());
+                    index += generator.runStep(queryUri, rates[0], warmup, index, random).getCount();
+                }
+                
+                List<Map<String, Object>> steps = new ArrayList<>();
+                StringBuilder table = new StringBuilder(String.format("%n%10s %10s %8s %8s %8s %8s %8s%n",
+                        "rate", "achieved", "p50", "p99", "p99.9", "max", "errors"));
+                for (double rate : rates) {
+                    System.out.printf("%n%s at %.0f req/s for %ds%n", scenario.getName(), rate, duration.getSeconds());
+                    LoadReport report = generator.runStep(queryUri, rate, duration, index, random);
+                    index += report.getCount();
+                    System.out.print(report.format());
+                    
+                    Map<String, Object> step = new LinkedHashMap<>();
+                    step.put("targetRate", rate);
+                    step.putAll(report.summary());
+                    steps.add(step);
+                    table.append(String.format("%10.0f %10.1f %8d %8d %8d %8d %7.2f%%%n", rate, report.getThroughput(),
+                            report.latencyPercentileMillis(50), report.latencyPercentileMillis(99),
+                            report.latencyPercentileMillis(99.9), report.latencyPercentileMillis(100),
+                            report.getErrorRate() * 100));
+                }
+                System.out.print(table);
+                
+                Map<String, Object> run = new LinkedHashMap<>();
+                run.put("scenario", scenario.getName());
+                run.put("seed", seed);
+                run.put("durationSeconds", duration.getSeconds());
+                run.put("warmupSeconds", warmup.getSeconds());
+                run.put("clients", generator.clients);
+                run.put("upstreamLatencyMs", upstreamLatencyMs);
+                run.put("proxyArgs", proxyOverrides);
+                run.put("proxyJvmArgs", proxy == null ? List.of() : jvmArgs);
+                run.put("proxyCpus", cpus);
+                run.put("javaVersion", System.getProperty("java.version"));
+                run.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+                run.put("steps", steps);
+                Path json = results.resolve("loadtest-" + scenario.getName() + "-" + timestamp + ".json");
+                objectMapper.writerWithDefaultPrettyPrinter().writeValue(json.toFile(), run);
+                System.out.printf("%nResults written to %s%n", json);
+            } finally {
+                if (proxy != null) {
+                    proxy.close();
+                }
+                generator.executor.shutdownNow();
+            }
+        }
+    }
+    
+    /**
+     * Sends {@code rate * duration} requests at evenly spaced due times and waits for all
+     * of them to complete.
+     */
+    LoadReport runStep(URI queryUri, double rate, Duration duration, long firstIndex, Random random)
+            throws InterruptedException {
+        int total = (int) Math.round(rate * duration.toMillis() / 1000.0);
+        LoadReport report = new LoadReport(total);
+        CountDownLatch done = new CountDownLatch(total);
+        double periodNanos = 1e9 / rate;
+        long startNanos = System.nanoTime();
+        report.start(startNanos);
+        
+        for (int i = 0; i < total; i++) {
+            long dueNanos = startNanos + (long) (i * periodNanos);
+            HttpRequest request = request(queryUri, firstIndex + i, scenario.request(firstIndex + i, random));
+            long wait;
+            while ((wait = dueNanos - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            // Waiting here delays sending, but not the due time latency is measured from
+            inFlight.acquire();
+            long sentNanos = System.nanoTime();
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, error) -> {
+                        long latencyNanos = System.nanoTime() - dueNanos;
+                        int status = response == null ? 0 : response.statusCode();
+                        JsonNode body = ReplayTool.parse(response);
+                        String errorType = response == null ? error.getClass().getSimpleName()
+                                : status >= 400 ? body.path("errorType").asText("unknown") : null;
+                        report.record(status, errorType, body.path("cached").asBoolean(), false,
+                                latencyNanos, sentNanos - dueNanos);
+                        inFlight.release();
+                        done.countDown();
+                    });
+        }
+        done.await();
+        return report;
+    }
+    
+    private HttpRequest request(URI queryUri, long index, QueryRequest body) {
+        int client = (int) (index % clients);
+        try {
+            return HttpRequest.newBuilder(queryUri)
+                    .timeout(Duration.ofMinutes(2))
+                    .header("Content-Type", "application/json")
+                    .header("X-Forwarded-For", "10.1." + (client / 256) + "." + (client % 256))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.llmproxy.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of one replay or load step: throughput, latency percentiles, status codes,
+ * error types and cache hits, plus how closely the send schedule was kept. Latencies are
+ * whatever the caller measures; the load generator measures from the intended send time,
+ * so that a stalled proxy cannot hide the requests it delayed.
+ */
+class LoadReport {
+    private final long[] latenciesNanos;
+    private final long[] lagsNanos;
+    private final Map<Integer, Integer> statusCounts = new TreeMap<>();
+    private final Map<String, Integer> errorCounts = new TreeMap<>();
+    private int count;
+    private int failures;
+    private int cacheHits;
+    private int recordedCacheHits;
+    private long startNanos;
+    private long endNanos;
+    
+    LoadReport(int capacity) {
+        this.latenciesNanos = new long[capacity];
+        this.lagsNanos = new long[capacity];
+    }
+    
+    synchronized void start(long nanos) {
+        startNanos = nanos;
+        endNanos = nanos;
+    }
+    
+    /**
+     * @param errorType the proxy's {@code errorType} for failed requests, otherwise null
+     * @param lagNanos how much later than scheduled the request was sent
+     */
+    synchronized void record(int status, String errorType, boolean cached, boolean recordedCached,
+                             long latencyNanos, long lagNanos) {
+        latenciesNanos[count] = latencyNanos;
+        lagsNanos[count] = lagNanos;
+        count++;
+        statusCounts.merge(status, 1, Integer::sum);
+        if (status < 200 || status >= 300) {
+            failures++;
+        }
+        if (errorType != null) {
+            errorCounts.merge(errorType, 1, Integer::sum);
+        }
+        if (cached) {
+            cacheHits++;
+        }
+        if (recordedCached) {
+            recordedCacheHits++;
+        }
+        endNanos = Math.max(endNanos, System.nanoTime());
+    }
+    
+    synchronized int getCount() {
+        return count;
+    }
+    
+    synchronized Map<Integer, Integer> getStatusCounts() {
+        return new TreeMap<>(statusCounts);
+    }
+    
+    synchronized Map<String, Integer> getErrorCounts() {
+        return new TreeMap<>(errorCounts);
+    }
+    
+    synchronized double getErrorRate() {
+        return count == 0 ? 0 : (double) failures / count;
+    }
+    
+    synchronized double getThroughput() {
+        double seconds = (endNanos - startNanos) / 1e9;
+        return seconds <= 0 ? 0 : count / seconds;
+    }
+    
+    /**
+     * @param percentile between 0 and 100
+     */
+    synchronized long latencyPercentileMillis(double percentile) {
+        return TimeUnit.NANOSECONDS.toMillis(percentile(latenciesNanos, percentile));
+    }
+    
+    synchronized String format() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("Requests:     %d in %.1fs (%.1f req/s)%n",
+                count, (endNanos - startNanos) / 1e9, getThroughput()));
+        out.append(String.format("Latency (ms): p50=%d p90=%d p99=%d p99.9=%d max=%d%n",
+                latencyPercentileMillis(50), latencyPercentileMillis(90), latencyPercentileMillis(99),
+                latencyPercentileMillis(99.9), latencyPercentileMillis(100)));
+        out.append("Status:       ").append(statusCounts).append(String.format("%n"));
+        if (!errorCounts.isEmpty()) {
+            out.append(String.format("Errors:       %.2f%% %s%n", getErrorRate() * 100, errorCounts));
+        }
+        out.append(recordedCacheHits > 0
+                ? String.format("Cache hits:   %d (recorded: %d)%n", cacheHits, recordedCacheHits)
+                : String.format("Cache hits:   %d%n", cacheHits));
+        out.append(String.format("Send lag (ms): p50=%d p99=%d max=%d%n",
+                TimeUnit.NANOSECONDS.toMillis(percentile(lagsNanos, 50)),
+                TimeUnit.NANOSECONDS.toMillis(percentile(lagsNanos, 99)),
+                TimeUnit.NANOSECONDS.toMillis(percentile(lagsNanos, 100))));
+        return out.toString();
+    }
+    
+    /**
+     * The report as plain maps and numbers, for JSON output.
+     */
+    synchronized Map<String, Object> summary() {
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("p50", latencyPercentileMillis(50));
+        latency.put("p90", latencyPercentileMillis(90));
+        latency.put("p99", latencyPercentileMillis(99));
+        latency.put("p999", latencyPercentileMillis(99.9));
+        latency.put("max", latencyPercentileMillis(100));
+        
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", count);
+        summary.put("throughput", getThroughput());
+        summary.put("latencyMs", latency);
+        summary.put("statuses", new TreeMap<>(statusCounts));
+        summary.put("errorRate", getErrorRate());
+        summary.put("errors", new TreeMap<>(errorCounts));
+        summary.put("cacheHits", cacheHits);
+        summary.put("maxSendLagMs", TimeUnit.NANOSECONDS.toMillis(percentile(lagsNanos, 100)));
+        return summary;
+    }
+    
+    private long percentile(long[] values, double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+}
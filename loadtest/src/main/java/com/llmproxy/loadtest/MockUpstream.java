@@ -0,0 +1,196 @@
+package com.llmproxy.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformerV2;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import com.github.tomakehurst.wiremock.stubbing.ServeEvent;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.any;
+import static com.github.tomakehurst.wiremock.client.WireMock.anyUrl;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+/**
+ * A WireMock server that stands in for every provider. Each provider gets its own path
+ * prefix ({@link #baseUrl(String)}), and completions are answered in that provider's wire
+ * format (OpenAI/Mistral/self-hosted chat completions, Claude messages, Gemini
+ * generateContent) after the latency, with the token usage, that the {@link Behavior}
+ * picks for the query; failures are answered with a 503. Availability checks (requests
+ * without a body) always succeed.
+ */
+class MockUpstream implements AutoCloseable {
+    static final List<String> PROVIDERS = List.of("openai", "gemini", "mistral", "claude", "self-hosted");
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Behavior behavior;
+    private final WireMockServer server;
+    
+    MockUpstream(Behavior behavior, int port) {
+        this.behavior = behavior;
+        this.server = new WireMockServer(wireMockConfig()
+                .port(port)
+                .containerThreads(256)
+                .asynchronousResponseEnabled(true)
+                .asynchronousResponseThreads(64)
+                .disableRequestJournal()
+                .extensions(new Transformer()));
+        server.stubFor(any(anyUrl()).willReturn(ok()));
+    }
+    
+    /**
+     * Starts the server and serves one request, so that WireMock's own first-request
+     * initialization is not mistaken for upstream latency.
+     */
+    void start() throws IOException, InterruptedException {
+        server.start();
+        HttpClient.newHttpClient().send(HttpRequest.newBuilder(URI.create(baseUrl("openai") + "/v1/models")).build(),
+                HttpResponse.BodyHandlers.discarding());
+    }
+    
+    String baseUrl(String provider) {
+        return server.baseUrl() + "/" + provider;
+    }
+    
+    /**
+     * Proxy arguments that point every provider, and a self-hosted replica, at this mock.
+     */
+    List<String> proxyArgs() {
+        return List.of(
+                "--api.openai.key=mock", "--api.openai.base-url=" + baseUrl("openai"),
+                "--api.gemini.key=mock", "--api.gemini.base-url=" + baseUrl("gemini"),
+                "--api.mistral.key=mock", "--api.mistral.base-url=" + baseUrl("mistral"),
+                "--api.claude.key=mock", "--api.claude.base-url=" + baseUrl("claude"),
+                "--self-hosted.replicas=" + baseUrl("self-hosted"));
+    }
+    
+    @Override
+    public void close() {
+        server.stop();
+    }
+    
+    ResponseDefinition respond(String url, String body) throws IOException {
+        int slash = url.indexOf('/', 1);
+        String provider = slash < 0 ? "" : url.substring(1, slash);
+        String path = slash < 0 ? url : url.substring(slash);
+        if (body == null || body.isEmpty()) {
+            // Availability checks (GET /v1/models, self-hosted health probes)
+            return ResponseDefinitionBuilder.okForJson(Map.of("data", List.of())).build();
+        }
+        JsonNode request = objectMapper.readTree(body);
+        String query;
+        if (path.contains(":generateContent")) {
+            query = request.path("contents").path("parts").path(0).path("text").asText();
+        } else {
+            query = request.path("messages").path(0).path("content").asText();
+        }
+        
+        Sample sample = behavior.respond(provider, query);
+        if (sample.failed) {
+            return ResponseDefinitionBuilder.responseDefinition()
+                    .withStatus(503)
+                    .withHeader("Content-Type", "application/json")
+                    .withBody("{\"error\":{\"message\":\"Simulated upstream failure\"}}")
+                    .withFixedDelay((int) sample.latencyMs)
+                    .build();
+        }
+        int inputTokens = sample.inputTokens > 0 ? sample.inputTokens : Math.max(1, query.length() / 4);
+        int outputTokens = sample.outputTokens > 0 ? sample.outputTokens : 32;
+        String text = "simulated ".repeat(outputTokens).trim();
+        return ResponseDefinitionBuilder.responseDefinition()
+                .withStatus(200)
+                .withHeader("Content-Type", "application/json")
+                .withBody(responseBody(path, text, inputTokens, outputTokens))
+                .withFixedDelay((int) sample.latencyMs)
+                .build();
+    }
+    
+    private String responseBody(String path, String text, int inputTokens, int outputTokens) {
+        ObjectNode response = objectMapper.createObjectNode();
+        if (path.contains(":generateContent")) {
+            response.putArray("candidates").addObject()
+                    .putObject("content").putArray("parts").addObject().put("text", text);
+            response.putObject("usageMetadata")
+                    .put("promptTokenCount", inputTokens)
+                    .put("candidatesTokenCount", outputTokens)
+                    .put("totalTokenCount", inputTokens + outputTokens);
+        } else if (path.startsWith("/v1/messages")) {
+            response.putArray("content").addObject().put("type", "text").put("text", text);
+            response.putObject("usage")
+                    .put("input_tokens", inputTokens)
+                    .put("output_tokens", outputTokens);
+        } else {
+            response.putArray("choices").addObject()
+                    .putObject("message").put("role", "assistant").put("content", text);
+            response.putObject("usage")
+                    .put("prompt_tokens", inputTokens)
+                    .put("completion_tokens", outputTokens)
+                    .put("total_tokens", inputTokens + outputTokens);
+        }
+        return response.toString();
+    }
+    
+    /**
+     * Decides how a provider answers a completion request.
+     */
+    interface Behavior {
+        Sample respond(String provider, String query);
+    }
+    
+    static final class Sample {
+        final long latencyMs;
+        final int inputTokens;
+        final int outputTokens;
+        final boolean failed;
+        
+        private Sample(long latencyMs, int inputTokens, int outputTokens, boolean failed) {
+            this.latencyMs = latencyMs;
+            this.inputTokens = inputTokens;
+            this.outputTokens = outputTokens;
+            this.failed = failed;
+        }
+        
+        /**
+         * @param inputTokens or 0 to derive usage from the query length
+         */
+        static Sample success(long latencyMs, int inputTokens, int outputTokens) {
+            return new Sample(latencyMs, inputTokens, outputTokens, false);
+        }
+        
+        static Sample failure(long latencyMs) {
+            return new Sample(latencyMs, 0, 0, true);
+        }
+    }
+    
+    private final class Transformer implements ResponseDefinitionTransformerV2 {
+        @Override
+        public ResponseDefinition transform(ServeEvent serveEvent) {
+            LoggedRequest request = serveEvent.getRequest();
+            try {
+                return respond(request.getUrl(), request.getBodyAsString());
+            } catch (IOException e) {
+                return ResponseDefinitionBuilder.responseDefinition()
+                        .withStatus(400)
+                        .withBody(e.getMessage())
+                        .build();
+            }
+        }
+        
+        @Override
+        public String getName() {
+            return "mock-upstream";
+        }
+    }
+}
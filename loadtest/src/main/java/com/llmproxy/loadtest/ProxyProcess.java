@@ -0,0 +1,125 @@
+package com.llmproxy.loadtest;
+
+import com.llmproxy.LlmProxyApplication;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The proxy under test, run in its own JVM from this module's classpath so that the load
+ * it serves does not compete with the load generator for heap, GC or JIT threads. The
+ * process can be pinned to CPUs with {@code taskset} to keep runs on one box comparable.
+ */
+final class ProxyProcess implements AutoCloseable {
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    
+    private final Process process;
+    private final URI baseUri;
+    
+    private ProxyProcess(Process process, URI baseUri) {
+        this.process = process;
+        this.baseUri = baseUri;
+    }
+    
+    /**
+     * Arguments for a proxy whose providers are all served by {@code upstream}, with the
+     * disk writers that would otherwise record the synthetic traffic turned off. Later
+     * arguments win, so {@code overrides} can change any of these.
+     */
+    static List<String> arguments(MockUpstream upstream, List<String> overrides) {
+        List<String> args = new ArrayList<>(upstream.proxyArgs());
+        args.addAll(List.of(
+                "--self-hosted.enabled=true",
+                "--capture.enabled=false",
+                "--history.enabled=false",
+                "--access-log.enabled=false",
+                "--cache.snapshot.enabled=false"));
+        args.addAll(overrides);
+        return args;
+    }
+    
+    /**
+     * Starts the proxy and waits until it reports healthy.
+     *
+     * @param cpus a {@code taskset} CPU list such as {@code 0-3}, or null to run unpinned
+     * @param log file receiving the proxy's output
+     */
+    static ProxyProcess start(List<String> jvmArgs, String cpus, List<String> args, Path log)
+            throws IOException, InterruptedException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        
+        List<String> command = new ArrayList<>();
+        if (cpus != null) {
+            command.addAll(List.of("taskset", "-c", cpus));
+        }
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), LlmProxyApplication.class.getName(),
+                "--server.port=" + port));
+        command.addAll(args);
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        
+        ProxyProcess proxy = new ProxyProcess(process, URI.create("http://localhost:" + port));
+        try {
+            proxy.awaitHealthy(log);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            proxy.close();
+            throw e;
+        }
+        return proxy;
+    }
+    
+    URI getBaseUri() {
+        return baseUri;
+    }
+    
+    @Override
+    public void close() {
+        process.destroy();
+        try {
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void awaitHealthy(Path log) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest health = HttpRequest.newBuilder(baseUri.resolve("/actuator/health"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Proxy exited with status " + process.exitValue() + ", see " + log);
+            }
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(200);
+        }
+        throw new IllegalStateException("Proxy not healthy after " + STARTUP_TIMEOUT + ", see " + log);
+    }
+}
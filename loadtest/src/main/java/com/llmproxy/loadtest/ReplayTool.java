@@ -0,0 +1,223 @@
+package com.llmproxy.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.llmproxy.model.CapturedRequest;
+import com.llmproxy.model.QueryRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Replays a traffic capture (see {@code capture.enabled}) against the proxy, with the
+ * recorded inter-arrival times divided by {@code --speed}, and prints throughput, latency
+ * percentiles, status codes and cache hits:
+ *
+ * <pre>
+ * java -cp loadtest/target/loadtest.jar com.llmproxy.loadtest.ReplayTool \
+ *     --capture data/capture.jsonl.gz --speed 2
+ * </pre>
+ *
+ * <p>Providers are replaced by a {@link MockUpstream} that answers with the recorded
+ * latencies and token counts. By default a proxy is started with every provider (and the
+ * self-hosted backend) pointed at the mock; with {@code --target} an already running
+ * proxy is driven instead, which must be started with the {@code *_BASE_URL} variables
+ * printed at startup. Arguments starting with {@code --spring.} are passed to the started
+ * proxy, e.g. {@code --spring.cache.enabled=false}.
+ *
+ * <p>Requests are sent open-loop at their scheduled times, each from the recorded
+ * (pseudonymous) client address via {@code X-Forwarded-For}, at most {@code --max-in-flight}
+ * at a time.
+ */
+public class ReplayTool {
+    private static final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    
+    private final List<CapturedRequest> capture;
+    private final double speed;
+    private final int maxInFlight;
+    
+    ReplayTool(List<CapturedRequest> capture, double speed, int maxInFlight) {
+        this.capture = capture;
+        this.speed = speed;
+        this.maxInFlight = maxInFlight;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        List<String> springArgs = new ArrayList<>();
+        parseArguments(args, options, springArgs);
+        if (!options.containsKey("capture")) {
+            System.err.println("Usage: ReplayTool --capture <file> [--speed 1.0] [--max-in-flight 256] "
+                    + "[--limit <requests>] [--target <proxy url>] [--mock-port 0] [--spring.<property>=<value>...]");
+            System.exit(2);
+        }
+        
+        List<CapturedRequest> capture = read(Path.of(options.get("capture")));
+        if (options.containsKey("limit")) {
+            capture = capture.subList(0, Math.min(capture.size(), Integer.parseInt(options.get("limit"))));
+        }
+        ReplayTool tool = new ReplayTool(capture,
+                Double.parseDouble(options.getOrDefault("speed", "1")),
+                Integer.parseInt(options.getOrDefault("max-in-flight", "256")));
+        
+        try (MockUpstream upstream = new MockUpstream(new CaptureBehavior(capture),
+                Integer.parseInt(options.getOrDefault("mock-port", "0")))) {
+            upstream.start();
+            String target = options.get("target");
+            ProxyProcess proxy = null;
+            if (target == null) {
+                proxy = ProxyProcess.start(List.of(), null, ProxyProcess.arguments(upstream, springArgs),
+                        Files.createTempFile("replay-proxy", ".log"));
+                target = proxy.getBaseUri().toString();
+            } else {
+                for (String provider : List.of("openai", "gemini", "mistral", "claude")) {
+                    System.out.printf("Start the proxy with %s_BASE_URL=%s%n",
+                            provider.toUpperCase(), upstream.baseUrl(provider));
+                }
+            }
+            try {
+                System.out.printf("Replaying %d requests against %s at %sx speed%n", capture.size(), target, tool.speed);
+                LoadReport report = tool.run(URI.create(target + "/api/query"));
+                System.out.print(report.format());
+            } finally {
+                if (proxy != null) {
+                    proxy.close();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Splits {@code --name value} options from {@code --spring.property=value} overrides,
+     * which are returned as {@code --property=value}.
+     */
+    static void parseArguments(String[] args, Map<String, String> options, List<String> springArgs) {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].startsWith("--spring.")) {
+                springArgs.add("--" + args[i].substring("--spring.".length()));
+            } else if (args[i].startsWith("--") && i + 1 < args.length) {
+                options.put(args[i].substring(2), args[++i]);
+            } else {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+        }
+    }
+    
+    /**
+     * Reads a capture file, oldest request first.
+     */
+    static List<CapturedRequest> read(Path path) throws IOException {
+        List<CapturedRequest> capture = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(path)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    capture.add(objectMapper.readValue(line, CapturedRequest.class));
+                }
+            }
+        }
+        capture.sort(Comparator.comparingLong(CapturedRequest::getArrivalMillis));
+        return capture;
+    }
+    
+    LoadReport run(URI queryUri) throws InterruptedException {
+        LoadReport report = new LoadReport(capture.size());
+        if (capture.isEmpty()) {
+            return report;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxInFlight, 64));
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        CountDownLatch done = new CountDownLatch(capture.size());
+        long firstArrival = capture.get(0).getArrivalMillis();
+        long startNanos = System.nanoTime();
+        report.start(startNanos);
+        
+        try {
+            for (CapturedRequest captured : capture) {
+                long dueNanos = startNanos + (speed <= 0 ? 0
+                        : (long) (TimeUnit.MILLISECONDS.toNanos(captured.getArrivalMillis() - firstArrival) / speed));
+                long wait;
+                while ((wait = dueNanos - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                inFlight.acquire();
+                long sentNanos = System.nanoTime();
+                client.sendAsync(request(queryUri, captured), HttpResponse.BodyHandlers.ofString())
+                        .whenComplete((response, error) -> {
+                            long latencyNanos = System.nanoTime() - sentNanos;
+                            int status = response == null ? 0 : response.statusCode();
+                            JsonNode body = parse(response);
+                            String errorType = response == null ? error.getClass().getSimpleName()
+                                    : status >= 400 ? body.path("errorType").asText("unknown") : null;
+                            report.record(status, errorType, body.path("cached").asBoolean(), captured.isCached(),
+                                    latencyNanos, sentNanos - dueNanos);
+                            inFlight.release();
+                            done.countDown();
+                        });
+            }
+            done.await();
+        } finally {
+            executor.shutdownNow();
+        }
+        return report;
+    }
+    
+    static JsonNode parse(HttpResponse<String> response) {
+        if (response == null) {
+            return MissingNode.getInstance();
+        }
+        try {
+            return objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            return MissingNode.getInstance();
+        }
+    }
+    
+    private HttpRequest request(URI queryUri, CapturedRequest captured) {
+        QueryRequest body = QueryRequest.builder()
+                .query(captured.getQuery())
+                .model(captured.getModel())
+                .modelVersion(captured.getModelVersion())
+                .taskType(captured.getTaskType())
+                .build();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(queryUri)
+                .timeout(Duration.ofMinutes(2))
+                .header("Content-Type", "application/json");
+        if (captured.getClient() != null) {
+            builder.header("X-Forwarded-For", captured.getClient());
+        }
+        try {
+            return builder.POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body))).build();
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.llmproxy.loadtest;
+
+import com.llmproxy.model.ModelType;
+import com.llmproxy.model.QueryRequest;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Workloads for the load generator: which requests are sent and how the mock providers
+ * answer them. Requests are derived from a seeded {@link Random} and upstream latencies
+ * from the query text (log-normal around the configured median), so a scenario sends
+ * the same requests and sees the same upstream latencies on every run.
+ */
+enum Scenario {
+    /**
+     * Requests drawn, heavily skewed, from a couple of hundred popular questions: after
+     * warm-up nearly everything is a cache hit.
+     */
+    CACHE_HEAVY {
+        @Override
+        QueryRequest request(long index, Random random) {
+            int question = (int) (Math.pow(random.nextDouble(), 3) * POPULAR_QUESTIONS);
+            return QueryRequest.builder()
+                    .query("Popular question " + question + ": " + QUESTION)
+                    .model(MODELS[question % MODELS.length])
+                    .build();
+        }
+    },
+    /**
+     * Every request is distinct, so every request is routed to a provider.
+     */
+    ALL_MISS,
+    /**
+     * Like {@link #ALL_MISS}, but OpenAI fails every completion immediately while still
+     * answering availability checks, so its share of the traffic is retried and falls back.
+     */
+    PROVIDER_OUTAGE {
+        @Override
+        MockUpstream.Behavior behavior(long medianLatencyMs) {
+            return failing(Set.of("openai"), 5, medianLatencyMs);
+        }
+    },
+    /**
+     * Like {@link #ALL_MISS}, but every provider except Claude fails after the usual
+     * latency, so most requests go through retries and fallbacks before being served.
+     */
+    FALLBACK_STORM {
+        @Override
+        MockUpstream.Behavior behavior(long medianLatencyMs) {
+            return failing(Set.of("openai", "gemini", "mistral"), medianLatencyMs, medianLatencyMs);
+        }
+    };
+    
+    private static final ModelType[] MODELS = {ModelType.OPENAI, ModelType.GEMINI, ModelType.MISTRAL, ModelType.CLAUDE};
+    private static final int POPULAR_QUESTIONS = 200;
+    private static final String QUESTION = "How should I size the connection pool of a service that calls "
+            + "a slow upstream API, and what should happen when the pool is exhausted?";
+    private static final double LATENCY_SIGMA = 0.35;
+    private static final int OUTPUT_TOKENS = 150;
+    
+    static Scenario parse(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+    
+    String getName() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+    
+    QueryRequest request(long index, Random random) {
+        return QueryRequest.builder()
+                .query("Question " + index + "/" + random.nextInt(1_000_000) + ": " + QUESTION)
+                .model(MODELS[(int) (index % MODELS.length)])
+                .build();
+    }
+    
+    MockUpstream.Behavior behavior(long medianLatencyMs) {
+        return (provider, query) -> MockUpstream.Sample.success(latency(query, medianLatencyMs), 0, OUTPUT_TOKENS);
+    }
+    
+    static long latency(String query, long medianLatencyMs) {
+        double gaussian = new Random(query.hashCode()).nextGaussian();
+        return Math.round(medianLatencyMs * Math.exp(LATENCY_SIGMA * gaussian));
+    }
+    
+    private static MockUpstream.Behavior failing(Set<String> providers, long failureLatencyMs, long medianLatencyMs) {
+        return (provider, query) -> providers.contains(provider)
+                ? MockUpstream.Sample.failure(failureLatencyMs)
+                : MockUpstream.Sample.success(latency(query, medianLatencyMs), 0, OUTPUT_TOKENS);
+    }
+}
@@ -0,0 +1,44 @@
+package com.llmproxy.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadReportTest {
+
+    @Test
+    void format_recordedRequests_reportsPercentilesAndErrors() {
+        LoadReport report = new LoadReport(100);
+        report.start(System.nanoTime());
+        for (int i = 1; i <= 100; i++) {
+            report.record(i % 10 == 0 ? 429 : 200, i % 10 == 0 ? "rate_limit" : null, i % 4 == 0, false,
+                    i * 1_000_000L, 0);
+        }
+
+        assertEquals(50, report.latencyPercentileMillis(50));
+        assertEquals(99, report.latencyPercentileMillis(99));
+        assertEquals(100, report.latencyPercentileMillis(100));
+        assertEquals(90, report.getStatusCounts().get(200));
+        assertEquals(10, report.getStatusCounts().get(429));
+        assertEquals(10, report.getErrorCounts().get("rate_limit"));
+        assertEquals(0.1, report.getErrorRate(), 1e-9);
+        assertTrue(report.format().contains("Cache hits:   25"));
+    }
+
+    @Test
+    void summary_recordedRequests_containsLatencyPercentiles() {
+        LoadReport report = new LoadReport(2);
+        report.start(System.nanoTime());
+        report.record(200, null, false, false, 5_000_000L, 0);
+        report.record(503, "overloaded", false, false, 1_000_000L, 0);
+
+        Map<String, Object> summary = report.summary();
+
+        assertEquals(2, summary.get("requests"));
+        assertEquals(0.5, summary.get("errorRate"));
+        assertEquals(5L, ((Map<?, ?>) summary.get("latencyMs")).get("p999"));
+        assertEquals(Map.of("overloaded", 1), summary.get("errors"));
+    }
+}
@@ -0,0 +1,113 @@
+package com.llmproxy.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llmproxy.model.CapturedRequest;
+import com.llmproxy.model.ModelType;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MockUpstreamTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void chatCompletion_recordedQuery_answersWithRecordedLatencyAndUsage() throws Exception {
+        List<CapturedRequest> capture = List.of(
+                captured("What is Kafka?", 300, 10, 40),
+                captured("Other question", 50, 5, 5));
+        try (MockUpstream upstream = new MockUpstream(new CaptureBehavior(capture), 0)) {
+            upstream.start();
+            long start = System.nanoTime();
+
+            HttpResponse<String> response = post(upstream.baseUrl("openai") + "/v1/chat/completions",
+                    "{\"model\":\"gpt-4o\",\"messages\":[{\"role\":\"user\",\"content\":\"What is Kafka?\"}]}");
+
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            assertEquals(200, response.statusCode());
+            assertTrue(elapsedMs >= 300, "elapsed " + elapsedMs);
+            JsonNode body = objectMapper.readTree(response.body());
+            assertEquals(10, body.path("usage").path("prompt_tokens").asInt());
+            assertEquals(40, body.path("usage").path("completion_tokens").asInt());
+            assertFalse(body.path("choices").path(0).path("message").path("content").asText().isEmpty());
+        }
+    }
+
+    @Test
+    void respond_providerFormats_matchWhatTheClientsParse() throws Exception {
+        MockUpstream upstream = new MockUpstream(new CaptureBehavior(List.of(captured("hi", 0, 3, 4))), 0);
+
+        JsonNode claude = objectMapper.readTree(upstream.respond("/claude/v1/messages",
+                "{\"messages\":[{\"role\":\"user\",\"content\":\"hi\"}]}").getBody());
+        JsonNode gemini = objectMapper.readTree(upstream.respond("/gemini/v1/models/gemini-pro:generateContent?key=k",
+                "{\"contents\":{\"parts\":[{\"text\":\"hi\"}]}}").getBody());
+
+        assertEquals(3, claude.path("usage").path("input_tokens").asInt());
+        assertFalse(claude.path("content").path(0).path("text").asText().isEmpty());
+        assertEquals(4, gemini.path("usageMetadata").path("candidatesTokenCount").asInt());
+        assertFalse(gemini.path("candidates").path(0).path("content").path("parts").path(0).path("text").asText().isEmpty());
+    }
+
+    @Test
+    void respond_behaviorPerProvider_seesProviderFromPath() throws Exception {
+        MockUpstream upstream = new MockUpstream((provider, query) -> provider.equals("mistral")
+                ? MockUpstream.Sample.failure(0)
+                : MockUpstream.Sample.success(0, 1, 1), 0);
+        String body = "{\"messages\":[{\"role\":\"user\",\"content\":\"hi\"}]}";
+
+        assertEquals(503, upstream.respond("/mistral/v1/chat/completions", body).getStatus());
+        assertEquals(200, upstream.respond("/openai/v1/chat/completions", body).getStatus());
+        assertEquals(200, upstream.respond("/mistral/v1/models", null).getStatus());
+    }
+
+    @Test
+    void respond_recordedUpstreamFailure_answersServiceUnavailable() throws Exception {
+        CapturedRequest failed = CapturedRequest.builder()
+                .query("flaky")
+                .status(503)
+                .errorType("ModelError")
+                .upstreamLatencyMs(10)
+                .build();
+        MockUpstream upstream = new MockUpstream(new CaptureBehavior(List.of(failed, captured("flaky", 20, 1, 1))), 0);
+        String body = "{\"messages\":[{\"role\":\"user\",\"content\":\"flaky\"}]}";
+
+        assertEquals(503, upstream.respond("/openai/v1/chat/completions", body).getStatus());
+        assertEquals(200, upstream.respond("/openai/v1/chat/completions", body).getStatus());
+        assertEquals(503, upstream.respond("/openai/v1/chat/completions", body).getStatus());
+    }
+
+    @Test
+    void respond_unknownQuery_usesMedianLatency() throws Exception {
+        MockUpstream upstream = new MockUpstream(new CaptureBehavior(List.of(
+                captured("a", 100, 1, 1), captured("b", 200, 1, 1), captured("c", 900, 1, 1))), 0);
+
+        assertEquals(200, upstream.respond("/openai/v1/chat/completions",
+                "{\"messages\":[{\"role\":\"user\",\"content\":\"never seen\"}]}").getFixedDelayMilliseconds());
+    }
+
+    private CapturedRequest captured(String query, long latencyMs, int inputTokens, int outputTokens) {
+        return CapturedRequest.builder()
+                .query(query)
+                .status(200)
+                .servedModel(ModelType.OPENAI)
+                .upstreamLatencyMs(latencyMs)
+                .inputTokens(inputTokens)
+                .outputTokens(outputTokens)
+                .build();
+    }
+
+    private HttpResponse<String> post(String url, String body) throws Exception {
+        return HttpClient.newHttpClient().send(HttpRequest.newBuilder(URI.create(url))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,62 @@
+package com.llmproxy.loadtest;
+
+import com.llmproxy.model.QueryRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScenarioTest {
+
+    @Test
+    void request_sameSeed_sameRequests() {
+        Random first = new Random(7);
+        Random second = new Random(7);
+
+        List<String> a = IntStream.range(0, 50).mapToObj(i -> Scenario.ALL_MISS.request(i, first).getQuery()).toList();
+        List<String> b = IntStream.range(0, 50).mapToObj(i -> Scenario.ALL_MISS.request(i, second).getQuery()).toList();
+
+        assertEquals(a, b);
+        assertEquals(50, new HashSet<>(a).size());
+    }
+
+    @Test
+    void request_cacheHeavy_repeatsFewQueries() {
+        Random random = new Random(1);
+        Set<String> distinct = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            QueryRequest request = Scenario.CACHE_HEAVY.request(i, random);
+            distinct.add(request.getModel() + request.getQuery());
+        }
+
+        assertTrue(distinct.size() <= 200, "distinct " + distinct.size());
+    }
+
+    @Test
+    void behavior_fallbackStorm_onlyClaudeSucceeds() {
+        MockUpstream.Behavior behavior = Scenario.FALLBACK_STORM.behavior(100);
+
+        assertTrue(behavior.respond("openai", "q").failed);
+        assertTrue(behavior.respond("gemini", "q").failed);
+        assertTrue(behavior.respond("mistral", "q").failed);
+        assertFalse(behavior.respond("claude", "q").failed);
+    }
+
+    @Test
+    void latency_sameQuery_reproducibleAroundMedian() {
+        assertEquals(Scenario.latency("q1", 200), Scenario.latency("q1", 200));
+        double mean = IntStream.range(0, 2000).mapToLong(i -> Scenario.latency("query " + i, 200)).average().orElse(0);
+        assertTrue(mean > 180 && mean < 260, "mean " + mean);
+    }
+
+    @Test
+    void parse_kebabCaseName_returnsScenario() {
+        assertEquals(Scenario.PROVIDER_OUTAGE, Scenario.parse("provider-outage"));
+        assertEquals("fallback-storm", Scenario.FALLBACK_STORM.getName());
+    }
+}
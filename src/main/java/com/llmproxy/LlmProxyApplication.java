@@ -1,11 +1,16 @@
 package com.llmproxy;
 
+import com.llmproxy.config.NativeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableCaching
+@EnableScheduling
+@ImportRuntimeHints(NativeHints.class)
 public class LlmProxyApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,44 @@
+package com.llmproxy.config;
+
+import com.llmproxy.model.CapturedRequest;
+import com.llmproxy.model.ClientQueueStats;
+import com.llmproxy.model.ErrorResponse;
+import com.llmproxy.model.HistoryEntry;
+import com.llmproxy.model.HistoryPage;
+import com.llmproxy.model.HistorySearchHit;
+import com.llmproxy.model.HistorySearchResult;
+import com.llmproxy.model.ModelSpec;
+import com.llmproxy.model.ModelType;
+import com.llmproxy.model.QueryRequest;
+import com.llmproxy.model.QueryResponse;
+import com.llmproxy.model.ReplicaStats;
+import com.llmproxy.model.StatusResponse;
+import com.llmproxy.model.TaskType;
+import com.llmproxy.service.llm.QueryResult;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reflection and resource hints for the native image. Spring AOT covers controller
+ * request and response bodies on its own, but not the models the services read and
+ * write with the {@code ObjectMapper} directly (history segments, cache snapshots and
+ * peers, traffic capture, the model catalog), so every model is registered here.
+ */
+public class NativeHints implements RuntimeHintsRegistrar {
+    private static final Class<?>[] MODELS = {
+            CapturedRequest.class, ClientQueueStats.class, ErrorResponse.class, HistoryEntry.class,
+            HistoryPage.class, HistorySearchHit.class, HistorySearchResult.class, ModelSpec.class,
+            ModelType.class, QueryRequest.class, QueryResponse.class, ReplicaStats.class,
+            StatusResponse.class, TaskType.class, QueryResult.class};
+    
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), MODELS);
+        
+        hints.resources()
+                .registerPattern("model-catalog.json")
+                .registerPattern("tokenizer/*")
+                .registerPattern("templates/*");
+    }
+}
@@ -0,0 +1,35 @@
+package com.llmproxy.config;
+
+import com.llmproxy.service.ratelimit.ClientLimiterStore;
+import com.llmproxy.service.ratelimit.ExactClientLimiterStore;
+import com.llmproxy.service.ratelimit.GcraClientLimiterStore;
+import com.llmproxy.service.ratelimit.SketchClientLimiterStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RateLimitConfig {
+    
+    /**
+     * Local per-JVM limiter store. With {@code rate-limit.cluster.enabled} the
+     * {@link com.llmproxy.service.ratelimit.ClusterClientLimiterStore} component is used instead.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "rate-limit.cluster.enabled", havingValue = "false", matchIfMissing = true)
+    public ClientLimiterStore clientLimiterStore(
+            @Value("${rate-limit.requests-per-minute:60}") int requestsPerMinute,
+            @Value("${rate-limit.burst:10}") int burst,
+            @Value("${rate-limit.store:exact}") String store,
+            @Value("${rate-limit.sketch.memory-budget-bytes:4194304}") long memoryBudgetBytes,
+            @Value("${rate-limit.sketch.heavy-hitter-threshold:0.5}") double heavyHitterThreshold) {
+        
+        return switch (store.toLowerCase()) {
+            case "exact" -> new ExactClientLimiterStore(requestsPerMinute / 60.0, burst);
+            case "gcra" -> new GcraClientLimiterStore(requestsPerMinute, burst);
+            case "sketch" -> new SketchClientLimiterStore(requestsPerMinute, burst, memoryBudgetBytes, heavyHitterThreshold);
+            default -> throw new IllegalArgumentException("Unknown rate-limit.store: " + store);
+        };
+    }
+}
@@ -1,5 +1,7 @@
 package com.llmproxy.config;
 
+import com.llmproxy.service.tracing.ProxyTracer;
+import io.github.resilience4j.micrometer.tagged.TaggedRetryMetrics;
 import io.github.resilience4j.retry.RetryRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -24,6 +26,18 @@ public class RetryConfig {
                 .retryExceptions(Exception.class)
                 .build();
         
-        return RetryRegistry.of(config);
+        RetryRegistry registry = RetryRegistry.of(config);
+        registry.getEventPublisher().onEntryAdded(event ->
+                event.getAddedEntry().getEventPublisher().onRetry(ProxyTracer::recordRetry));
+        return registry;
+    }
+    
+    /**
+     * Publishes {@code resilience4j.retry.calls} for the registry above; the starter only
+     * instruments the registry it creates itself.
+     */
+    @Bean
+    public TaggedRetryMetrics retryMetrics(RetryRegistry retryRegistry) {
+        return TaggedRetryMetrics.ofRetryRegistry(retryRegistry);
     }
 }
@@ -0,0 +1,59 @@
+package com.llmproxy.controller;
+
+import com.llmproxy.model.QueryResponse;
+import com.llmproxy.service.cache.CacheService;
+import com.llmproxy.service.cluster.ClusterMembership;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Peer-to-peer endpoint used by other replicas to read and write the cache entries
+ * this node owns. Not intended for external clients.
+ */
+@RestController
+@RequestMapping("/internal/cache")
+@ConditionalOnProperty(name = "cache.cluster.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class CachePeerController {
+    
+    private final CacheService cacheService;
+    private final ClusterMembership membership;
+    
+    @GetMapping("/{key}")
+    public ResponseEntity<QueryResponse> get(
+            @PathVariable String key,
+            @RequestHeader(value = ClusterMembership.SECRET_HEADER, required = false) String secret) {
+        if (!membership.isAuthorized(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        QueryResponse response = cacheService.getLocal(key);
+        if (response == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(response);
+    }
+    
+    @PutMapping("/{key}")
+    public ResponseEntity<Void> put(
+            @PathVariable String key,
+            @RequestBody QueryResponse response,
+            @RequestHeader(value = ClusterMembership.SECRET_HEADER, required = false) String secret) {
+        if (!membership.isAuthorized(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        if (!membership.isLocal(key)) {
+            log.warn("Rejecting cache write for key not owned by this node: {}", key);
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        
+        cacheService.setLocal(key, response);
+        return ResponseEntity.noContent().build();
+    }
+}
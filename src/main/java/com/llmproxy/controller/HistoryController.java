@@ -0,0 +1,96 @@
+package com.llmproxy.controller;
+
+import com.llmproxy.model.HistoryEntry;
+import com.llmproxy.model.HistoryPage;
+import com.llmproxy.model.HistorySearchResult;
+import com.llmproxy.service.history.HistoryStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+
+/**
+ * Completed queries from the persistent history, newest first.
+ *
+ * <p>The history holds every client's prompts and answers, so it is only served to callers
+ * presenting {@code history.api-token} as a bearer token. Without a configured token the
+ * endpoints are off.
+ */
+@RestController
+@RequestMapping("/api/history")
+public class HistoryController {
+    private static final String BEARER = "Bearer ";
+    
+    private final HistoryStore historyStore;
+    private final byte[] apiToken;
+    
+    public HistoryController(HistoryStore historyStore, @Value("${history.api-token:}") String apiToken) {
+        this.historyStore = historyStore;
+        this.apiToken = apiToken.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @GetMapping
+    public ResponseEntity<HistoryPage> list(
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant since,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant until,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        HttpStatus denied = checkAccess(authorization);
+        if (denied != null) {
+            return ResponseEntity.status(denied).build();
+        }
+        return ResponseEntity.ok(historyStore.list(before, since, until, limit));
+    }
+    
+    @GetMapping("/search")
+    public ResponseEntity<HistorySearchResult> search(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        HttpStatus denied = checkAccess(authorization);
+        if (denied != null) {
+            return ResponseEntity.status(denied).build();
+        }
+        if (!historyStore.isSearchEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (query.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(historyStore.search(query, limit));
+    }
+    
+    @GetMapping("/{requestId}")
+    public ResponseEntity<HistoryEntry> get(
+            @PathVariable String requestId,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        HttpStatus denied = checkAccess(authorization);
+        if (denied != null) {
+            return ResponseEntity.status(denied).build();
+        }
+        return historyStore.get(requestId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * @return the status to refuse the request with, or null if it may proceed
+     */
+    private HttpStatus checkAccess(String authorization) {
+        if (apiToken.length == 0) {
+            return HttpStatus.NOT_FOUND;
+        }
+        if (authorization == null || !authorization.startsWith(BEARER) || !MessageDigest.isEqual(apiToken,
+                authorization.substring(BEARER.length()).getBytes(StandardCharsets.UTF_8))) {
+            return HttpStatus.UNAUTHORIZED;
+        }
+        return null;
+    }
+}
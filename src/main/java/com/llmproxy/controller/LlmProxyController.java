@@ -1,25 +1,42 @@
 package com.llmproxy.controller;
 
 import com.llmproxy.exception.ModelError;
+import com.llmproxy.model.ClientQueueStats;
 import com.llmproxy.model.ModelType;
 import com.llmproxy.model.QueryRequest;
 import com.llmproxy.model.QueryResponse;
 import com.llmproxy.model.StatusResponse;
+import com.llmproxy.service.accesslog.AccessLog;
+import com.llmproxy.service.admission.AdaptiveConcurrencyLimiter;
+import com.llmproxy.service.admission.AdmissionScheduler;
 import com.llmproxy.service.cache.CacheService;
+import com.llmproxy.service.capture.TrafficCapture;
+import com.llmproxy.service.history.HistoryStore;
 import com.llmproxy.service.llm.LlmClient;
 import com.llmproxy.service.llm.LlmClientFactory;
 import com.llmproxy.service.llm.QueryResult;
+import com.llmproxy.service.metrics.ProxyMetrics;
+import com.llmproxy.service.ratelimit.RateLimitDecision;
 import com.llmproxy.service.ratelimit.RateLimiterService;
+import com.llmproxy.service.ratelimit.TokenQuotaService;
+import com.llmproxy.service.router.PreflightPlan;
+import com.llmproxy.service.router.PreflightService;
 import com.llmproxy.service.router.RouterService;
+import com.llmproxy.service.tracing.ProxyTracer;
+import com.llmproxy.service.warmup.WarmupContext;
+import com.llmproxy.service.warmup.WarmupService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -29,25 +46,67 @@ import java.util.UUID;
 @Slf4j
 public class LlmProxyController {
     private static final int MAX_QUERY_LENGTH = 32000;
+    static final String RATE_LIMIT_LIMIT = "RateLimit-Limit";
+    static final String RATE_LIMIT_REMAINING = "RateLimit-Remaining";
+    static final String RATE_LIMIT_RESET = "RateLimit-Reset";
+    private static final String WARMUP_CLIENT = "warmup";
     
     private final RouterService routerService;
     private final LlmClientFactory clientFactory;
     private final CacheService cacheService;
     private final RateLimiterService rateLimiterService;
+    private final TokenQuotaService tokenQuotaService;
+    private final AdmissionScheduler admissionScheduler;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final PreflightService preflightService;
+    private final ProxyMetrics metrics;
+    private final ProxyTracer tracer;
+    private final AccessLog accessLog;
+    private final HistoryStore historyStore;
+    private final TrafficCapture trafficCapture;
+    private final WarmupService warmupService;
     
     @PostMapping("/query")
     public ResponseEntity<QueryResponse> query(@RequestBody QueryRequest request, HttpServletRequest httpRequest) {
+        if (warmupService.isWarmupRequest(httpRequest)) {
+            // Synthetic requests from this instance's warm-up: same path, no rate limit or records
+            return WarmupContext.run(() -> processQuery(request, WARMUP_CLIENT));
+        }
+        
+        long startNanos = System.nanoTime();
+        long arrivalMillis = System.currentTimeMillis();
         String clientIp = getClientIp(httpRequest);
-        if (!rateLimiterService.allowClient(clientIp)) {
+        RateLimitDecision decision = rateLimiterService.checkClient(clientIp);
+        if (!decision.isAllowed()) {
+            // With admission scheduling, a client over its limit waits for its next token
+            // instead of being turned away
+            decision = admissionScheduler.awaitRateLimit(clientIp, decision,
+                    () -> rateLimiterService.checkClient(clientIp));
+        }
+        ResponseEntity<QueryResponse> response;
+        if (!decision.isAllowed()) {
             log.warn("Rate limit exceeded for client: {}", clientIp);
-            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            metrics.recordRejection("rate_limit");
+            response = withRateLimitHeaders(decision, ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
                     .body(QueryResponse.builder()
                             .error("Rate limit exceeded. Please try again later.")
                             .errorType("rate_limit")
                             .timestamp(Instant.now())
-                            .build());
+                            .build()));
+        } else {
+            response = withRateLimitHeaders(decision, processQuery(request, clientIp));
         }
         
+        accessLog.record(request, clientIp, response.getStatusCode().value(), response.getBody(),
+                System.nanoTime() - startNanos);
+        trafficCapture.record(request, clientIp, arrivalMillis, response.getStatusCode().value(), response.getBody());
+        if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+            historyStore.record(request, response.getBody());
+        }
+        return response;
+    }
+    
+    private ResponseEntity<QueryResponse> processQuery(QueryRequest request, String clientIp) {
         if (request.getQuery() == null || request.getQuery().isEmpty()) {
             return ResponseEntity.badRequest()
                     .body(QueryResponse.builder()
@@ -72,22 +131,113 @@ public class LlmProxyController {
         
         request.setQuery(request.getQuery().trim());
         
-        log.info("Processing query request: model={}, taskType={}, requestId={}",
+        log.debug("Processing query request: model={}, taskType={}, requestId={}",
                 request.getModel(), request.getTaskType(), request.getRequestId());
         
-        QueryResponse cachedResponse = cacheService.get(request);
+        QueryResponse cachedResponse = tracer.call("llm.cache.lookup", span -> {
+            QueryResponse hit = cacheService.get(request);
+            span.setAttribute(ProxyTracer.CACHE_HIT, hit != null);
+            return hit;
+        });
         if (cachedResponse != null) {
-            log.info("Returning cached response for requestId={}", request.getRequestId());
-            return ResponseEntity.ok(cachedResponse);
+            log.debug("Returning cached response for requestId={}", request.getRequestId());
+            // Entries are stored as the original, uncached response
+            return ResponseEntity.ok(cachedResponse.isCached() ? cachedResponse
+                    : cachedResponse.toBuilder().cached(true).build());
+        }
+        
+        PreflightPlan plan = tracer.call("llm.preflight", span -> {
+            PreflightPlan preflight = preflightService.plan(request);
+            span.setAttribute(ProxyTracer.PROMPT_TOKENS, (long) preflight.getPromptTokens(request.getModel()));
+            return preflight;
+        });
+        if (!plan.fits()) {
+            // Reject before spending quota, queue time or an upstream round trip on a prompt
+            // no model can accept
+            metrics.recordRejection("context_length_exceeded");
+            return ResponseEntity.badRequest()
+                    .body(QueryResponse.builder()
+                            .error("Query of about " + plan.getPromptTokens(request.getModel())
+                                    + " tokens exceeds the largest available context window of "
+                                    + plan.getLargestContextWindow() + " tokens")
+                            .errorType("context_length_exceeded")
+                            .timestamp(Instant.now())
+                            .requestId(request.getRequestId())
+                            .build());
         }
         
+        return queryUpstream(request, clientIp, plan);
+    }
+    
+    private ResponseEntity<QueryResponse> queryUpstream(QueryRequest request, String clientIp, PreflightPlan plan) {
+        int estimatedTokens = plan.getPromptTokens(request.getModel());
+        TokenQuotaService.Reservation reservation = tokenQuotaService.reserve(clientIp, estimatedTokens);
+        if (reservation == null) {
+            log.warn("Token quota exceeded for client: {}", clientIp);
+            metrics.recordRejection("token_quota");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER,
+                            String.valueOf(tokenQuotaService.getRetryAfterSeconds(clientIp, estimatedTokens)))
+                    .body(QueryResponse.builder()
+                            .error("Token quota exceeded. Please try again later.")
+                            .errorType("token_quota")
+                            .timestamp(Instant.now())
+                            .requestId(request.getRequestId())
+                            .build());
+        }
+        
+        AdmissionScheduler.Permit permit = tracer.call("llm.admission", span -> {
+            AdmissionScheduler.Permit admitted = admissionScheduler.admit(clientIp, estimatedTokens);
+            span.setAttribute(ProxyTracer.OUTCOME, admitted.getOutcome().name());
+            return admitted;
+        });
+        if (!permit.isGranted()) {
+            tokenQuotaService.reconcile(reservation, 0);
+            return admissionRejected(permit, request, clientIp);
+        }
+        
+        // With admission scheduling the permit was granted under the adaptive limit already;
+        // without it the limit sheds here. Either way only the upstream call is measured.
+        AdaptiveConcurrencyLimiter.Listener listener = admissionScheduler.isEnabled()
+                ? concurrencyLimiter.acquire()
+                : concurrencyLimiter.tryAcquire();
+        if (listener == null) {
+            permit.close();
+            tokenQuotaService.reconcile(reservation, 0);
+            log.warn("Shedding request {}: concurrency limit {} reached",
+                    request.getRequestId(), concurrencyLimiter.getLimit());
+            metrics.recordRejection("overloaded");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(QueryResponse.builder()
+                            .error("Server is overloaded. Please try again later.")
+                            .errorType("overloaded")
+                            .timestamp(Instant.now())
+                            .requestId(request.getRequestId())
+                            .build());
+        }
+        
+        ResponseEntity<QueryResponse> response = null;
+        try {
+            response = callUpstream(request, plan);
+            return response;
+        } finally {
+            recordOutcome(listener, response);
+            permit.close();
+            QueryResponse body = response != null && response.getStatusCode().is2xxSuccessful() ? response.getBody() : null;
+            tokenQuotaService.reconcile(reservation, body != null ? body.getTotalTokens() : 0);
+        }
+    }
+    
+    private ResponseEntity<QueryResponse> callUpstream(QueryRequest request, PreflightPlan plan) {
         long startTime = Instant.now().toEpochMilli();
         
         try {
-            ModelType modelType = routerService.routeRequest(request);
-            LlmClient client = clientFactory.getClient(modelType);
-            
-            QueryResult result = client.query(request.getQuery(), request.getModelVersion());
+            ModelType modelType = tracer.call("llm.route", span -> {
+                ModelType routed = routerService.routeRequest(request, plan.getCandidates());
+                span.setAttribute(ProxyTracer.MODEL, routed.toString());
+                return routed;
+            });
+            QueryResult result = callModel(modelType, plan.getVersion(modelType), request.getQuery(), null);
             
             QueryResponse response = QueryResponse.builder()
                     .response(result.getResponse())
@@ -103,26 +253,33 @@ public class LlmProxyController {
                     .numRetries(result.getNumRetries())
                     .build();
             
-            cacheService.set(request, response);
+            if (!WarmupContext.isActive()) {
+                tracer.run("llm.cache.store", span -> cacheService.set(request, response));
+            }
             
-            log.info("Query completed: model={}, responseTime={}ms, tokens={}, requestId={}",
+            log.debug("Query completed: model={}, responseTime={}ms, tokens={}, requestId={}",
                     modelType, response.getResponseTimeMs(), response.getTotalTokens(), request.getRequestId());
             
             return ResponseEntity.ok(response);
-            
+        
         } catch (ModelError e) {
             if (e.isRetryable()) {
                 try {
-                    ModelType fallbackModel = routerService.fallbackOnError(
-                            ModelType.fromString(e.getModel()), request, e);
+                    ModelType originalModel = ModelType.fromString(e.getModel());
+                    ModelType fallbackModel = tracer.call("llm.route", span -> {
+                        ModelType routed = routerService.fallbackOnError(originalModel, request, e, plan.getCandidates());
+                        span.setAttribute(ProxyTracer.MODEL, routed.toString());
+                        span.setAttribute(ProxyTracer.FALLBACK, true);
+                        return routed;
+                    });
                     
-                    LlmClient fallbackClient = clientFactory.getClient(fallbackModel);
-                    QueryResult result = fallbackClient.query(request.getQuery(), request.getModelVersion());
+                    QueryResult result = callModel(fallbackModel, plan.getVersion(fallbackModel), request.getQuery(),
+                            originalModel);
                     
                     QueryResponse response = QueryResponse.builder()
                             .response(result.getResponse())
                             .model(fallbackModel)
-                            .originalModel(ModelType.fromString(e.getModel()))
+                            .originalModel(originalModel)
                             .responseTimeMs(Instant.now().toEpochMilli() - startTime)
                             .timestamp(Instant.now())
                             .cached(false)
@@ -134,13 +291,15 @@ public class LlmProxyController {
                             .numRetries(result.getNumRetries())
                             .build();
                     
-                    cacheService.set(request, response);
+                    if (!WarmupContext.isActive()) {
+                        tracer.run("llm.cache.store", span -> cacheService.set(request, response));
+                    }
                     
-                    log.info("Fallback query completed: originalModel={}, fallbackModel={}, responseTime={}ms, requestId={}",
+                    log.debug("Fallback query completed: originalModel={}, fallbackModel={}, responseTime={}ms, requestId={}",
                             e.getModel(), fallbackModel, response.getResponseTimeMs(), request.getRequestId());
                     
                     return ResponseEntity.ok(response);
-                    
+                
                 } catch (Exception fallbackError) {
                     log.error("Fallback failed: {}", fallbackError.getMessage());
                 }
@@ -164,7 +323,7 @@ public class LlmProxyController {
                             .timestamp(Instant.now())
                             .requestId(request.getRequestId())
                             .build());
-            
+        
         } catch (Exception e) {
             log.error("Unexpected error processing query: {}", e.getMessage(), e);
             
@@ -178,40 +337,129 @@ public class LlmProxyController {
         }
     }
     
+    /**
+     * @param originalModel the model that failed when this is a fallback call, otherwise null
+     */
+    private QueryResult callModel(ModelType modelType, String version, String query, ModelType originalModel) {
+        LlmClient client = clientFactory.getClient(modelType);
+        return tracer.call("llm.upstream", span -> {
+            span.setAttribute(ProxyTracer.MODEL, modelType.toString());
+            if (version != null) {
+                span.setAttribute(ProxyTracer.MODEL_VERSION, version);
+            }
+            span.setAttribute(ProxyTracer.FALLBACK, originalModel != null);
+            if (originalModel != null) {
+                span.setAttribute(ProxyTracer.ORIGINAL_MODEL, originalModel.toString());
+            }
+            
+            if (WarmupContext.isActive()) {
+                return client.query(query, version);
+            }
+            
+            long startNanos = System.nanoTime();
+            try {
+                QueryResult result = client.query(query, version);
+                metrics.recordUpstreamCall(modelType, version, System.nanoTime() - startNanos, null);
+                metrics.recordTokens(modelType, version, result.getInputTokens(), result.getOutputTokens());
+                span.setAttribute(ProxyTracer.INPUT_TOKENS, (long) result.getInputTokens());
+                span.setAttribute(ProxyTracer.OUTPUT_TOKENS, (long) result.getOutputTokens());
+                return result;
+            } catch (RuntimeException e) {
+                metrics.recordUpstreamCall(modelType, version, System.nanoTime() - startNanos, e);
+                throw e;
+            }
+        });
+    }
+    
+    /**
+     * Only overload signals should shrink the concurrency limit; client mistakes such as a
+     * missing API key or an exhausted quota say nothing about capacity.
+     */
+    private void recordOutcome(AdaptiveConcurrencyLimiter.Listener listener, ResponseEntity<QueryResponse> response) {
+        if (WarmupContext.isActive()) {
+            // Simulated latencies would drag the latency baseline far below the real one
+            listener.onIgnore();
+            return;
+        }
+        
+        if (response == null) {
+            listener.onDropped();
+            return;
+        }
+        
+        HttpStatusCode status = response.getStatusCode();
+        if (status.is2xxSuccessful()) {
+            listener.onSuccess();
+        } else if (status.is5xxServerError() || status.value() == HttpStatus.REQUEST_TIMEOUT.value()) {
+            listener.onDropped();
+        } else {
+            listener.onIgnore();
+        }
+    }
+    
+    private ResponseEntity<QueryResponse> admissionRejected(AdmissionScheduler.Permit permit, QueryRequest request,
+                                                            String clientIp) {
+        boolean queueFull = permit.getOutcome() == AdmissionScheduler.Outcome.QUEUE_FULL;
+        log.warn("Request not admitted for client {}: {}", clientIp, permit.getOutcome());
+        metrics.recordRejection(queueFull ? "queue_full" : "queue_timeout");
+        return ResponseEntity.status(queueFull ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(admissionScheduler.getRetryAfterSeconds()))
+                .body(QueryResponse.builder()
+                        .error(queueFull
+                                ? "Too many queued requests. Please try again later."
+                                : "Timed out waiting for capacity. Please try again later.")
+                        .errorType(queueFull ? "queue_full" : "queue_timeout")
+                        .timestamp(Instant.now())
+                        .requestId(request.getRequestId())
+                        .build());
+    }
+    
+    @GetMapping("/admission/queues")
+    public ResponseEntity<List<ClientQueueStats>> admissionQueues() {
+        return ResponseEntity.ok(admissionScheduler.getQueueStats());
+    }
+    
     @GetMapping("/status")
     public ResponseEntity<StatusResponse> status(HttpServletRequest httpRequest) {
         String clientIp = getClientIp(httpRequest);
-        if (!rateLimiterService.allowClient(clientIp)) {
+        RateLimitDecision decision = rateLimiterService.checkClient(clientIp);
+        if (!decision.isAllowed()) {
             log.warn("Rate limit exceeded for status check from client: {}", clientIp);
-            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+            return withRateLimitHeaders(decision, ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build());
         }
         
         StatusResponse status = routerService.getAvailability();
-        return ResponseEntity.ok(status);
+        return withRateLimitHeaders(decision, ResponseEntity.ok(status));
     }
     
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> health(HttpServletRequest httpRequest) {
         String clientIp = getClientIp(httpRequest);
-        if (!rateLimiterService.allowClient(clientIp)) {
+        RateLimitDecision decision = rateLimiterService.checkClient(clientIp);
+        if (!decision.isAllowed()) {
             log.warn("Rate limit exceeded for health check from client: {}", clientIp);
-            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+            return withRateLimitHeaders(decision, ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build());
         }
         
-        return ResponseEntity.ok(Map.of(
+        return withRateLimitHeaders(decision, ResponseEntity.ok(Map.of(
                 "status", "ok",
                 "timestamp", Instant.now()
-        ));
+        )));
     }
     
     @PostMapping("/download")
     public ResponseEntity<byte[]> download(@RequestBody Map<String, String> request, HttpServletRequest httpRequest) {
         String clientIp = getClientIp(httpRequest);
-        if (!rateLimiterService.allowClient(clientIp)) {
+        RateLimitDecision decision = rateLimiterService.checkClient(clientIp);
+        if (!decision.isAllowed()) {
             log.warn("Rate limit exceeded for download from client: {}", clientIp);
-            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+            return withRateLimitHeaders(decision, ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build());
         }
         
+        return withRateLimitHeaders(decision, buildDownload(request));
+    }
+    
+    private ResponseEntity<byte[]> buildDownload(Map<String, String> request) {
         String response = request.get("response");
         String format = request.get("format");
         
@@ -250,6 +498,29 @@ public class LlmProxyController {
                 .body(response.getBytes());
     }
     
+    /**
+     * Adds the IETF {@code RateLimit-*} headers to every rate-limited response, and
+     * {@code Retry-After} to every 429 so well-behaved clients know when to come back.
+     */
+    private <T> ResponseEntity<T> withRateLimitHeaders(RateLimitDecision decision, ResponseEntity<T> response) {
+        if (!decision.hasQuotaInfo() && response.getStatusCode() != HttpStatus.TOO_MANY_REQUESTS) {
+            return response;
+        }
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(response.getHeaders());
+        if (decision.hasQuotaInfo()) {
+            headers.set(RATE_LIMIT_LIMIT, String.valueOf(decision.getLimit()));
+            headers.set(RATE_LIMIT_REMAINING, String.valueOf(decision.getRemaining()));
+            headers.set(RATE_LIMIT_RESET, String.valueOf(decision.getResetSeconds()));
+        }
+        // The token quota and admission queue set their own; an upstream 429 carries no hint
+        if (response.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS && !headers.containsKey(HttpHeaders.RETRY_AFTER)) {
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, decision.getRetryAfterSeconds())));
+        }
+        return new ResponseEntity<>(response.getBody(), headers, response.getStatusCode());
+    }
+    
     private String getClientIp(HttpServletRequest request) {
         String xff = request.getHeader("X-Forwarded-For");
         if (xff != null && !xff.isEmpty()) {
@@ -0,0 +1,25 @@
+package com.llmproxy.controller;
+
+import com.llmproxy.model.ModelSpec;
+import com.llmproxy.service.llm.ModelCatalog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Lists the model versions of the current model catalog with their limits and prices.
+ */
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class ModelCatalogController {
+    
+    private final ModelCatalog modelCatalog;
+    
+    @GetMapping("/models")
+    public ResponseEntity<List<ModelSpec>> models() {
+        return ResponseEntity.ok(modelCatalog.getSpecs());
+    }
+}
@@ -0,0 +1,35 @@
+package com.llmproxy.controller;
+
+import com.llmproxy.service.cluster.ClusterMembership;
+import com.llmproxy.service.ratelimit.ClusterClientLimiterStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Peer-to-peer endpoint through which other replicas lease tokens for the clients this
+ * node owns. Not intended for external clients.
+ */
+@RestController
+@RequestMapping("/internal/rate-limit")
+@ConditionalOnProperty(name = "rate-limit.cluster.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class RateLimitPeerController {
+    
+    private final ClusterClientLimiterStore limiterStore;
+    private final ClusterMembership membership;
+    
+    @PostMapping("/acquire")
+    public ResponseEntity<Integer> acquire(
+            @RequestParam String clientId,
+            @RequestParam int permits,
+            @RequestHeader(value = ClusterMembership.SECRET_HEADER, required = false) String secret) {
+        if (!membership.isAuthorized(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        return ResponseEntity.ok(limiterStore.grant(clientId, permits));
+    }
+}
@@ -0,0 +1,25 @@
+package com.llmproxy.controller;
+
+import com.llmproxy.model.ReplicaStats;
+import com.llmproxy.service.llm.SelfHostedClient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Health and load of the self-hosted backend's replicas.
+ */
+@RestController
+@RequestMapping("/api/self-hosted")
+@RequiredArgsConstructor
+public class SelfHostedController {
+    
+    private final SelfHostedClient selfHostedClient;
+    
+    @GetMapping("/replicas")
+    public ResponseEntity<List<ReplicaStats>> replicas() {
+        return ResponseEntity.ok(selfHostedClient.getReplicaStats());
+    }
+}
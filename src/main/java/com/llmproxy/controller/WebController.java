@@ -22,6 +22,7 @@ public class WebController {
         model.addAttribute("geminiAvailable", status.isGemini());
         model.addAttribute("mistralAvailable", status.isMistral());
         model.addAttribute("claudeAvailable", status.isClaude());
+        model.addAttribute("selfHostedAvailable", status.isSelfHosted());
         
         model.addAttribute("modelTypes", ModelType.values());
         
@@ -0,0 +1,31 @@
+package com.llmproxy.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One captured {@code /api/query} request and how it was served, for replay.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_DEFAULT)
+public class CapturedRequest {
+    private long arrivalMillis; // Epoch millis
+    private String client; // Stable pseudonym of the client IP within one capture
+    private String query; // Redacted
+    private ModelType model;
+    private String modelVersion;
+    private TaskType taskType;
+    private int status;
+    private ModelType servedModel;
+    private boolean cached;
+    private long upstreamLatencyMs;
+    private int inputTokens;
+    private int outputTokens;
+    private String errorType;
+}
@@ -0,0 +1,21 @@
+package com.llmproxy.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientQueueStats {
+    private String clientId;
+    private int queueDepth;
+    private long admitted;
+    private long queued;
+    private long rejected;
+    private long expired;
+    private double averageWaitMs;
+    private double maxWaitMs;
+}
@@ -0,0 +1,32 @@
+package com.llmproxy.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A completed query as kept in the query history.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryEntry {
+    private long sequence;
+    private String requestId;
+    private Instant timestamp;
+    private String query;
+    private TaskType taskType;
+    private ModelType requestedModel;
+    private String modelVersion;
+    private ModelType model;
+    private ModelType originalModel; // If fallback occurred
+    private String response;
+    private boolean cached;
+    private int inputTokens;
+    private int outputTokens;
+    private long responseTimeMs;
+}
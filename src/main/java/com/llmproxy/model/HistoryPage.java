@@ -0,0 +1,20 @@
+package com.llmproxy.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of query history, newest first.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryPage {
+    private List<HistoryEntry> entries;
+    private Long nextBefore; // Pass as "before" to fetch the next page; null on the last page
+}
@@ -0,0 +1,15 @@
+package com.llmproxy.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistorySearchHit {
+    private double score;
+    private HistoryEntry entry;
+}
@@ -0,0 +1,21 @@
+package com.llmproxy.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The best matches of a history search, highest score first.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistorySearchResult {
+    private String query;
+    private int totalHits;
+    private List<HistorySearchHit> hits;
+}
@@ -0,0 +1,32 @@
+package com.llmproxy.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+/**
+ * One model version as described by the model catalog.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ModelSpec {
+    private ModelType modelType;
+    private String version;
+    private int contextWindow; // Prompt + completion, in tokens
+    @Builder.Default
+    private int maxOutputTokens = 150;
+    @Builder.Default
+    private double temperature = 0.7;
+    private double inputPricePerMillion; // USD per million prompt tokens
+    private double outputPricePerMillion; // USD per million completion tokens
+    private int requestsPerMinute; // Upstream limit for this version, 0 for none
+    @Builder.Default
+    private Set<String> capabilities = Set.of();
+}
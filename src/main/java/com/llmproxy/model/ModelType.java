@@ -4,7 +4,8 @@ public enum ModelType {
     OPENAI("openai"),
     GEMINI("gemini"),
     MISTRAL("mistral"),
-    CLAUDE("claude");
+    CLAUDE("claude"),
+    SELF_HOSTED("self_hosted");
     
     private final String value;
     
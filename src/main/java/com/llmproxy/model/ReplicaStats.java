@@ -0,0 +1,18 @@
+package com.llmproxy.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplicaStats {
+    private String baseUrl;
+    private boolean healthy;
+    private int outstanding;
+    private long requests;
+    private long failures;
+}
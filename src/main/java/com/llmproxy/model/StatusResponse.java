@@ -14,4 +14,5 @@ public class StatusResponse {
     private boolean gemini;
     private boolean mistral;
     private boolean claude;
+    private boolean selfHosted;
 }
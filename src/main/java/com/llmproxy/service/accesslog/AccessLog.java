@@ -0,0 +1,236 @@
+package com.llmproxy.service.accesslog;
+
+import com.llmproxy.model.ModelType;
+import com.llmproxy.model.QueryRequest;
+import com.llmproxy.model.QueryResponse;
+import com.llmproxy.model.TaskType;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One JSON line per {@code /api/query} request, written off the request thread.
+ *
+ * <p>Requests copy a handful of fields and references into a preallocated slot of a ring
+ * buffer; nothing is formatted or allocated on the request path, which costs a CAS and a
+ * few stores. A single writer thread drains the ring in order, encodes the records into a
+ * reusable byte buffer and appends them to a size-rotated file. When the writer falls a
+ * whole ring behind (e.g. a stalled disk) new records are dropped and counted rather than
+ * making requests wait.
+ */
+@Component
+@Slf4j
+public class AccessLog implements MeterBinder {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    
+    private final boolean enabled;
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final AccessLogEncoder encoder = new AccessLogEncoder();
+    private final RollingFile file;
+    private volatile long consumed;
+    private volatile boolean running;
+    private Thread writer;
+    
+    @Autowired
+    public AccessLog(
+            @Value("${access-log.enabled:true}") boolean enabled,
+            @Value("${access-log.path:logs/access.log}") String path,
+            @Value("${access-log.buffer-size:8192}") int bufferSize,
+            @Value("${access-log.max-file-size-mb:100}") long maxFileSizeMb,
+            @Value("${access-log.max-files:5}") int maxFiles) {
+        this(enabled, Path.of(path), bufferSize, maxFileSizeMb * 1024 * 1024, maxFiles);
+    }
+    
+    AccessLog(boolean enabled, Path path, int bufferSize, long maxFileSizeBytes, int maxFiles) {
+        this.enabled = enabled;
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1;
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = capacity - 1;
+        this.file = new RollingFile(path, maxFileSizeBytes, maxFiles);
+    }
+    
+    @PostConstruct
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::drainLoop, "access-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Access log initialized: path={}, bufferSize={}", file.getPath(), slots.length);
+    }
+    
+    /**
+     * Stops the writer after everything already recorded has been written.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    public void record(QueryRequest request, String clientIp, int status, QueryResponse response, long latencyNanos) {
+        if (!enabled) {
+            return;
+        }
+        
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= slots.length) {
+                dropped.increment();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+        
+        Slot slot = slots[(int) sequence & mask];
+        slot.timestampMillis = System.currentTimeMillis();
+        slot.requestId = request.getRequestId();
+        slot.clientIp = clientIp;
+        slot.status = status;
+        slot.taskType = request.getTaskType();
+        slot.latencyNanos = latencyNanos;
+        if (response != null) {
+            slot.model = response.getModel();
+            slot.originalModel = response.getOriginalModel();
+            slot.cached = response.isCached();
+            slot.inputTokens = response.getInputTokens();
+            slot.outputTokens = response.getOutputTokens();
+            slot.errorType = response.getErrorType();
+        }
+        // Publishes the slot: the writer reads the fields only after seeing its sequence
+        slot.sequence = sequence;
+    }
+    
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+    
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("llm.access.log.dropped", dropped, LongAdder::sum)
+                .description("Access log records dropped because the writer fell behind")
+                .register(registry);
+    }
+    
+    private void drainLoop() {
+        while (true) {
+            boolean stopping = !running;
+            int drained = drain();
+            if (drained == 0) {
+                if (stopping) {
+                    break;
+                }
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            log.warn("Failed to close access log {}: {}", file.getPath(), e.getMessage());
+        }
+    }
+    
+    /**
+     * Writes every published record in sequence order.
+     *
+     * @return the number of records written
+     */
+    int drain() {
+        long next = consumed;
+        int drained = 0;
+        while (true) {
+            Slot slot = slots[(int) next & mask];
+            if (slot.sequence != next) {
+                break;
+            }
+            if (!encoder.encode(slot)) {
+                flush();
+                encoder.encode(slot);
+            }
+            slot.clear();
+            next++;
+            drained++;
+            // Hand slots back in batches so producers see free space without a volatile
+            // write per record
+            if ((drained & 63) == 0) {
+                consumed = next;
+            }
+        }
+        if (drained > 0) {
+            flush();
+            consumed = next;
+        }
+        return drained;
+    }
+    
+    private void flush() {
+        try {
+            file.write(encoder.getBuffer());
+        } catch (IOException e) {
+            log.warn("Failed to write access log {}: {}", file.getPath(), e.getMessage());
+        } finally {
+            encoder.reset();
+        }
+    }
+    
+    /**
+     * A reusable record. Fields are plain; {@link #sequence} is written last by the producer
+     * and read first by the writer, which orders the other fields.
+     */
+    static final class Slot {
+        volatile long sequence = -1;
+        long timestampMillis;
+        String requestId;
+        String clientIp;
+        int status;
+        ModelType model;
+        ModelType originalModel;
+        TaskType taskType;
+        boolean cached;
+        int inputTokens;
+        int outputTokens;
+        long latencyNanos;
+        String errorType;
+        
+        void clear() {
+            requestId = null;
+            clientIp = null;
+            model = null;
+            originalModel = null;
+            taskType = null;
+            cached = false;
+            inputTokens = 0;
+            outputTokens = 0;
+            errorType = null;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.llmproxy.service.accesslog;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes access log records as JSON lines straight into a reusable UTF-8 byte buffer,
+ * without intermediate strings. Owned by the writer thread.
+ */
+class AccessLogEncoder {
+    static final int BUFFER_SIZE = 64 * 1024;
+    /** Longer strings (request ids and error types come from clients) are cut to this many chars. */
+    static final int MAX_STRING_LENGTH = 128;
+    private static final int MAX_RECORD_BYTES = 4 * MAX_STRING_LENGTH * 6 + 512;
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    
+    private final byte[] bytes = new byte[BUFFER_SIZE];
+    private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    private int position;
+    
+    /**
+     * Appends one record.
+     *
+     * @return false, without writing anything, if the buffer may not have room for it
+     */
+    boolean encode(AccessLog.Slot slot) {
+        if (BUFFER_SIZE - position < MAX_RECORD_BYTES) {
+            return false;
+        }
+        
+        ascii("{\"ts\":");
+        number(slot.timestampMillis);
+        field("requestId", slot.requestId);
+        field("client", slot.clientIp);
+        ascii(",\"status\":");
+        number(slot.status);
+        if (slot.model != null) {
+            field("model", slot.model.toString());
+        }
+        if (slot.originalModel != null) {
+            field("originalModel", slot.originalModel.toString());
+        }
+        if (slot.taskType != null) {
+            field("taskType", slot.taskType.name());
+        }
+        ascii(slot.cached ? ",\"cached\":true" : ",\"cached\":false");
+        ascii(",\"inputTokens\":");
+        number(slot.inputTokens);
+        ascii(",\"outputTokens\":");
+        number(slot.outputTokens);
+        ascii(",\"latencyMs\":");
+        long micros = slot.latencyNanos / 1000;
+        number(micros / 1000);
+        bytes[position++] = '.';
+        long fraction = micros % 1000;
+        bytes[position++] = (byte) ('0' + fraction / 100);
+        bytes[position++] = (byte) ('0' + fraction / 10 % 10);
+        bytes[position++] = (byte) ('0' + fraction % 10);
+        field("errorType", slot.errorType);
+        bytes[position++] = '}';
+        bytes[position++] = '\n';
+        return true;
+    }
+    
+    /**
+     * @return the encoded records, ready to be written
+     */
+    ByteBuffer getBuffer() {
+        buffer.limit(position).position(0);
+        return buffer;
+    }
+    
+    void reset() {
+        position = 0;
+        buffer.clear();
+    }
+    
+    private void field(String name, String value) {
+        if (value == null) {
+            return;
+        }
+        bytes[position++] = ',';
+        bytes[position++] = '"';
+        ascii(name);
+        ascii("\":\"");
+        string(value);
+        bytes[position++] = '"';
+    }
+    
+    private void ascii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            bytes[position++] = (byte) value.charAt(i);
+        }
+    }
+    
+    private void string(String value) {
+        int length = Math.min(value.length(), MAX_STRING_LENGTH);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                bytes[position++] = '\\';
+                bytes[position++] = (byte) c;
+            } else if (c < 0x20) {
+                bytes[position++] = '\\';
+                bytes[position++] = 'u';
+                bytes[position++] = '0';
+                bytes[position++] = '0';
+                bytes[position++] = HEX[c >> 4];
+                bytes[position++] = HEX[c & 0xF];
+            } else if (c < 0x80) {
+                bytes[position++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[position++] = (byte) (0xC0 | c >> 6);
+                bytes[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                bytes[position++] = (byte) (0xF0 | codePoint >> 18);
+                bytes[position++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                bytes[position++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                bytes[position++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                bytes[position++] = '?';
+            } else {
+                bytes[position++] = (byte) (0xE0 | c >> 12);
+                bytes[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[position++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+    }
+    
+    private void number(long value) {
+        if (value < 0) {
+            bytes[position++] = '-';
+            value = -value;
+        }
+        if (value == 0) {
+            bytes[position++] = '0';
+            return;
+        }
+        int start = position;
+        while (value > 0) {
+            bytes[position++] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        for (int left = start, right = position - 1; left < right; left++, right--) {
+            byte tmp = bytes[left];
+            bytes[left] = bytes[right];
+            bytes[right] = tmp;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.llmproxy.service.accesslog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An append-only file rotated by size: {@code access.log} becomes {@code access.log.1},
+ * the previous {@code .1} becomes {@code .2}, and so on up to {@code maxFiles} old files.
+ * Opened lazily on the first write. Not thread-safe; used by the access log writer only.
+ */
+class RollingFile {
+    private final Path path;
+    private final long maxSizeBytes;
+    private final int maxFiles;
+    private FileChannel channel;
+    private long size;
+    
+    RollingFile(Path path, long maxSizeBytes, int maxFiles) {
+        this.path = path;
+        this.maxSizeBytes = Math.max(1, maxSizeBytes);
+        this.maxFiles = Math.max(0, maxFiles);
+    }
+    
+    Path getPath() {
+        return path;
+    }
+    
+    void write(ByteBuffer data) throws IOException {
+        if (!data.hasRemaining()) {
+            return;
+        }
+        if (channel == null) {
+            open();
+        }
+        if (size > 0 && size + data.remaining() > maxSizeBytes) {
+            rotate();
+        }
+        while (data.hasRemaining()) {
+            size += channel.write(data);
+        }
+    }
+    
+    void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+    
+    private void open() throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        size = channel.size();
+    }
+    
+    private void rotate() throws IOException {
+        close();
+        if (maxFiles == 0) {
+            Files.deleteIfExists(path);
+        } else {
+            Files.deleteIfExists(rotated(maxFiles));
+            for (int i = maxFiles - 1; i >= 1; i--) {
+                Path source = rotated(i);
+                if (Files.exists(source)) {
+                    Files.move(source, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(path, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        open();
+    }
+    
+    private Path rotated(int index) {
+        return path.resolveSibling(path.getFileName() + "." + index);
+    }
+}
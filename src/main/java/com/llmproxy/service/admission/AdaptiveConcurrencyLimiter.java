@@ -0,0 +1,207 @@
+package com.llmproxy.service.admission;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Inbound load shedding with a concurrency limit learned from latency, in the style of
+ * the gradient and Vegas TCP congestion algorithms.
+ *
+ * <p>A slow exponential average of request latency serves as the baseline. Whenever recent
+ * requests take longer than that baseline, requests are queueing somewhere downstream and
+ * the limit is scaled down by the ratio; while latency holds steady the limit grows by
+ * roughly {@code sqrt(limit)} per sample. Timeouts and upstream 5xx responses back the
+ * limit off multiplicatively.
+ *
+ * <p>With admission scheduling the limit is the {@link AdmissionScheduler}'s concurrency
+ * cap: excess requests wait in its bounded queue and are turned away at once when that is
+ * full, and admitted requests are only {@linkplain #acquire() tracked} here. Without it,
+ * requests arriving while the limit is reached are {@linkplain #tryAcquire() rejected}
+ * straight away rather than tying up a servlet thread.
+ */
+@Service
+@Slf4j
+public class AdaptiveConcurrencyLimiter implements MeterBinder {
+    static final double TOLERANCE = 1.5;
+    static final double BACKOFF_RATIO = 0.9;
+    
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double longRttAlpha;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    
+    private volatile double limit;
+    private double longRttNanos;
+    
+    @Autowired
+    public AdaptiveConcurrencyLimiter(
+            @Value("${load-shedding.enabled:true}") boolean enabled,
+            @Value("${load-shedding.initial-limit:32}") int initialLimit,
+            @Value("${load-shedding.min-limit:4}") int minLimit,
+            @Value("${load-shedding.max-limit:200}") int maxLimit,
+            @Value("${load-shedding.smoothing:0.2}") double smoothing,
+            @Value("${load-shedding.long-window:600}") int longWindow) {
+        this(enabled, initialLimit, minLimit, maxLimit, smoothing, longWindow, System::nanoTime);
+    }
+    
+    AdaptiveConcurrencyLimiter(boolean enabled, int initialLimit, int minLimit, int maxLimit,
+                               double smoothing, int longWindow, LongSupplier nanoClock) {
+        this.enabled = enabled;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit));
+        this.smoothing = smoothing;
+        this.longRttAlpha = 2.0 / (Math.max(1, longWindow) + 1);
+        this.nanoClock = nanoClock;
+        
+        log.info("Adaptive concurrency limiter initialized: enabled={}, initialLimit={}, minLimit={}, maxLimit={}",
+                enabled, (int) limit, this.minLimit, this.maxLimit);
+    }
+    
+    /**
+     * Claims an in-flight slot.
+     *
+     * @return a listener that must be told how the request ended, or {@code null} if the
+     *         request should be shed
+     */
+    public Listener tryAcquire() {
+        if (!enabled) {
+            return Listener.NOOP;
+        }
+        
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Listener(this, nanoClock.getAsLong(), current + 1);
+            }
+        }
+    }
+    
+    /**
+     * Claims an in-flight slot for a request the {@link AdmissionScheduler} has already
+     * admitted under this limit, so its latency still drives the limit.
+     */
+    public Listener acquire() {
+        if (!enabled) {
+            return Listener.NOOP;
+        }
+        return new Listener(this, nanoClock.getAsLong(), inFlight.incrementAndGet());
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public int getLimit() {
+        return (int) limit;
+    }
+    
+    public int getInFlight() {
+        return inFlight.get();
+    }
+    
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("llm.concurrency.in.flight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Requests past load shedding and not yet answered")
+                .register(registry);
+        Gauge.builder("llm.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .register(registry);
+    }
+    
+    private synchronized void onSample(long rttNanos, int inFlightAtStart) {
+        double shortRtt = Math.max(1, rttNanos);
+        longRttNanos = longRttNanos == 0 ? shortRtt : longRttNanos + longRttAlpha * (shortRtt - longRttNanos);
+        
+        // After a sustained drop in latency, let the baseline catch up quickly
+        if (longRttNanos / shortRtt > 2) {
+            longRttNanos *= 0.95;
+        }
+        
+        double current = limit;
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / shortRtt));
+        double target = current * gradient + Math.sqrt(current);
+        
+        // Do not grow a limit the traffic is not even close to using
+        if (target > current && inFlightAtStart < current / 2) {
+            return;
+        }
+        
+        double next = current * (1 - smoothing) + target * smoothing;
+        setLimit(next);
+    }
+    
+    private synchronized void onDropped() {
+        setLimit(limit * BACKOFF_RATIO);
+    }
+    
+    private void setLimit(double next) {
+        double clamped = Math.max(minLimit, Math.min(maxLimit, next));
+        if ((int) clamped != (int) limit) {
+            log.debug("Concurrency limit changed: {} -> {}", (int) limit, (int) clamped);
+        }
+        limit = clamped;
+    }
+    
+    /**
+     * Completion callback for one admitted request. Exactly one of the methods should be
+     * called; further calls are ignored.
+     */
+    public static final class Listener {
+        static final Listener NOOP = new Listener(null, 0, 0);
+        
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final long startNanos;
+        private final int inFlightAtStart;
+        private boolean completed;
+        
+        private Listener(AdaptiveConcurrencyLimiter limiter, long startNanos, int inFlightAtStart) {
+            this.limiter = limiter;
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+        
+        /** The request completed normally; its latency is a valid sample. */
+        public void onSuccess() {
+            if (release()) {
+                limiter.onSample(limiter.nanoClock.getAsLong() - startNanos, inFlightAtStart);
+            }
+        }
+        
+        /** The request timed out or the upstream was overloaded. */
+        public void onDropped() {
+            if (release()) {
+                limiter.onDropped();
+            }
+        }
+        
+        /** The request failed for reasons unrelated to load, e.g. a bad API key. */
+        public void onIgnore() {
+            release();
+        }
+        
+        private boolean release() {
+            if (limiter == null || completed) {
+                return false;
+            }
+            completed = true;
+            limiter.inFlight.decrementAndGet();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,483 @@
+package com.llmproxy.service.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.llmproxy.model.ClientQueueStats;
+import com.llmproxy.service.ratelimit.RateLimitDecision;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Admission control in front of the upstream providers.
+ *
+ * <p>At most {@code max-concurrent} requests are in flight at once, or with load shedding
+ * enabled the current limit of the {@link AdaptiveConcurrencyLimiter}, so there is one gate
+ * in front of the upstreams rather than two. While there is spare
+ * capacity requests pass straight through; once it is used up they wait in a bounded
+ * per-client queue and freed slots are handed out by deficit round robin. Each client
+ * earns {@code quantum * weight} estimated tokens of credit per round, so a client sending
+ * large prompts or many requests gets its weighted share and no more, however deep its
+ * queue. A request that waits longer than its deadline gives up its place.
+ *
+ * <p>Every waiting request parks a servlet thread, and client ids come from a header any
+ * caller can set, so besides the per-client bound at most {@code max-queued} requests
+ * wait in total, whether queued for a slot or held for the rate limit. Beyond that they
+ * are rejected straight away.
+ *
+ * <p>Clients over their rate limit are held until the limiter lets them through rather
+ * than turned away, see {@link #awaitRateLimit}.
+ */
+@Service
+@Slf4j
+public class AdmissionScheduler implements MeterBinder {
+    private static final long MIN_RATE_LIMIT_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    
+    private final boolean enabled;
+    private final IntSupplier maxConcurrent;
+    private final int maxQueuePerClient;
+    private final int maxQueued;
+    private final long queueTimeoutNanos;
+    private final long quantum;
+    private final Map<String, Integer> weights;
+    private final LongSupplier nanoClock;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, ClientQueue> queues = new HashMap<>();
+    private final Deque<ClientQueue> activeQueues = new ArrayDeque<>();
+    private final Map<String, Integer> rateLimited = new HashMap<>();
+    private int inFlight;
+    // Requests parked in admit or awaitRateLimit
+    private int waiting;
+    
+    private final Cache<String, ClientStats> stats = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(10, TimeUnit.MINUTES)
+            .build();
+    
+    @Autowired
+    public AdmissionScheduler(
+            AdaptiveConcurrencyLimiter concurrencyLimiter,
+            @Value("${admission.enabled:true}") boolean enabled,
+            @Value("${admission.max-concurrent:32}") int maxConcurrent,
+            @Value("${admission.max-queue-per-client:16}") int maxQueuePerClient,
+            @Value("${admission.max-queued:100}") int maxQueued,
+            @Value("${admission.queue-timeout-ms:10000}") long queueTimeoutMs,
+            @Value("${admission.quantum-tokens:1000}") long quantum,
+            @Value("${admission.client-weights:}") String clientWeights) {
+        this(enabled, concurrencyLimiter.isEnabled() ? concurrencyLimiter::getLimit : () -> maxConcurrent,
+                maxQueuePerClient, maxQueued, queueTimeoutMs, quantum, parseWeights(clientWeights), System::nanoTime);
+    }
+    
+    AdmissionScheduler(boolean enabled, IntSupplier maxConcurrent, int maxQueuePerClient, int maxQueued, long queueTimeoutMs,
+                       long quantum, Map<String, Integer> weights, LongSupplier nanoClock) {
+        this.enabled = enabled;
+        this.maxConcurrent = () -> Math.max(1, maxConcurrent.getAsInt());
+        this.maxQueuePerClient = maxQueuePerClient;
+        this.maxQueued = maxQueued;
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMs);
+        this.quantum = Math.max(1, quantum);
+        this.weights = Map.copyOf(weights);
+        this.nanoClock = nanoClock;
+        
+        log.info("Admission scheduler initialized: enabled={}, maxConcurrent={}, maxQueuePerClient={}, maxQueued={}, queueTimeout={}ms",
+                enabled, this.maxConcurrent.getAsInt(), maxQueuePerClient, maxQueued, queueTimeoutMs);
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Holds a request from a client over its rate limit until the limiter lets it through:
+     * the request sleeps for the decision's retry-after and asks the limiter again, for at
+     * most the queue timeout and with at most {@code max-queue-per-client} requests of one
+     * client, and {@code max-queued} in all, held at once. A request only takes a token when it is let through, so the
+     * client still gets no more than its limit; short bursts see delay instead of 429s.
+     *
+     * @param limiter checks the client's limit again, taking a token if the request is allowed
+     * @return the first decision that allows the request, or the last one that did not
+     */
+    public RateLimitDecision awaitRateLimit(String clientId, RateLimitDecision decision,
+                                            Supplier<RateLimitDecision> limiter) {
+        // Without quota information there is no telling how long to wait
+        if (!enabled || decision.isAllowed() || !decision.hasQuotaInfo()) {
+            return decision;
+        }
+        
+        ClientStats clientStats = stats.get(clientId, id -> new ClientStats());
+        lock.lock();
+        try {
+            int held = rateLimited.getOrDefault(clientId, 0);
+            if (held >= maxQueuePerClient || waiting >= maxQueued) {
+                clientStats.rejected.increment();
+                return decision;
+            }
+            rateLimited.put(clientId, held + 1);
+            waiting++;
+        } finally {
+            lock.unlock();
+        }
+        
+        clientStats.queued.increment();
+        long start = nanoClock.getAsLong();
+        long deadline = start + queueTimeoutNanos;
+        try {
+            while (!decision.isAllowed()) {
+                long wait = Math.max(decision.getRetryAfterNanos(), MIN_RATE_LIMIT_WAIT_NANOS);
+                if (nanoClock.getAsLong() + wait - deadline > 0) {
+                    break;
+                }
+                LockSupport.parkNanos(wait);
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+                decision = limiter.get();
+            }
+        } finally {
+            lock.lock();
+            try {
+                rateLimited.computeIfPresent(clientId, (id, held) -> held > 1 ? held - 1 : null);
+                waiting--;
+            } finally {
+                lock.unlock();
+            }
+            clientStats.recordWait(nanoClock.getAsLong() - start);
+        }
+        
+        if (!decision.isAllowed()) {
+            clientStats.expired.increment();
+        }
+        return decision;
+    }
+    
+    /**
+     * Waits for an upstream slot on behalf of a client.
+     *
+     * @param cost estimated size of the request in tokens, used for fair sharing
+     * @return a permit that must be closed once the upstream call has finished;
+     *         check {@link Permit#isGranted()} before proceeding
+     */
+    public Permit admit(String clientId, long cost) {
+        if (!enabled) {
+            return Permit.UNLIMITED;
+        }
+        
+        ClientStats clientStats = stats.get(clientId, id -> new ClientStats());
+        long enqueuedAt = nanoClock.getAsLong();
+        Ticket ticket;
+        
+        lock.lock();
+        try {
+            if (inFlight < maxConcurrent.getAsInt() && activeQueues.isEmpty()) {
+                inFlight++;
+                clientStats.admitted.increment();
+                return new Permit(this, Outcome.GRANTED);
+            }
+            
+            ClientQueue queue = queues.get(clientId);
+            if (waiting >= maxQueued || queue != null && queue.tickets.size() >= maxQueuePerClient) {
+                clientStats.rejected.increment();
+                return new Permit(this, Outcome.QUEUE_FULL);
+            }
+            if (queue == null) {
+                queue = new ClientQueue(clientId, quantum * weights.getOrDefault(clientId, 1));
+                queues.put(clientId, queue);
+                activeQueues.addLast(queue);
+            }
+            ticket = new Ticket(queue, Math.max(1, cost));
+            queue.tickets.addLast(ticket);
+            waiting++;
+            clientStats.queued.increment();
+        } finally {
+            lock.unlock();
+        }
+        
+        boolean granted = await(ticket);
+        lock.lock();
+        try {
+            waiting--;
+        } finally {
+            lock.unlock();
+        }
+        clientStats.recordWait(nanoClock.getAsLong() - enqueuedAt);
+        if (granted) {
+            clientStats.admitted.increment();
+            return new Permit(this, Outcome.GRANTED);
+        }
+        clientStats.expired.increment();
+        return new Permit(this, Outcome.TIMED_OUT);
+    }
+    
+    private boolean await(Ticket ticket) {
+        try {
+            return ticket.granted.get(queueTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return withdraw(ticket);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return withdraw(ticket);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+    
+    /**
+     * Removes a ticket whose deadline passed. A slot may have been handed to it in the
+     * meantime, in which case the caller keeps it.
+     */
+    private boolean withdraw(Ticket ticket) {
+        lock.lock();
+        try {
+            if (ticket.granted.isDone()) {
+                return true;
+            }
+            ClientQueue queue = ticket.queue;
+            queue.tickets.remove(ticket);
+            if (queue.tickets.isEmpty()) {
+                deactivate(queue);
+            }
+            ticket.granted.complete(false);
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            // A limit that has shrunk takes effect as requests finish
+            while (inFlight < maxConcurrent.getAsInt()) {
+                Ticket next = nextTicket();
+                if (next == null) {
+                    break;
+                }
+                inFlight++;
+                next.granted.complete(true);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Deficit round robin: the queue at the head of the round gets its quantum once per
+     * turn and is served while its credit covers the cost of its next request.
+     */
+    private Ticket nextTicket() {
+        while (!activeQueues.isEmpty()) {
+            ClientQueue queue = activeQueues.peekFirst();
+            if (!queue.inTurn) {
+                queue.deficit += queue.quantum;
+                queue.inTurn = true;
+            }
+            
+            Ticket ticket = queue.tickets.peekFirst();
+            if (ticket.cost <= queue.deficit) {
+                queue.deficit -= ticket.cost;
+                queue.tickets.pollFirst();
+                if (queue.tickets.isEmpty()) {
+                    deactivate(queue);
+                }
+                return ticket;
+            }
+            
+            queue.inTurn = false;
+            activeQueues.addLast(activeQueues.pollFirst());
+        }
+        return null;
+    }
+    
+    private void deactivate(ClientQueue queue) {
+        // An idle client does not bank credit for later
+        activeQueues.remove(queue);
+        queues.remove(queue.clientId);
+    }
+    
+    /**
+     * A rejected client's queued requests are all served or timed out within the queue
+     * timeout, so that is when it is worth trying again.
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(queueTimeoutNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+    
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public int getQueuedCount() {
+        lock.lock();
+        try {
+            int queued = 0;
+            for (ClientQueue queue : activeQueues) {
+                queued += queue.tickets.size();
+            }
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("llm.admission.in.flight", this, AdmissionScheduler::getInFlight)
+                .description("Upstream calls holding an admission slot")
+                .register(registry);
+        Gauge.builder("llm.admission.queued", this, AdmissionScheduler::getQueuedCount)
+                .description("Requests waiting for an admission slot")
+                .register(registry);
+    }
+    
+    public List<ClientQueueStats> getQueueStats() {
+        Map<String, Integer> depths = new HashMap<>();
+        lock.lock();
+        try {
+            queues.forEach((clientId, queue) -> depths.put(clientId, queue.tickets.size()));
+        } finally {
+            lock.unlock();
+        }
+        
+        List<ClientQueueStats> result = new ArrayList<>();
+        stats.asMap().forEach((clientId, clientStats) -> result.add(clientStats.snapshot(
+                clientId, depths.getOrDefault(clientId, 0))));
+        return result;
+    }
+    
+    static Map<String, Integer> parseWeights(String clientWeights) {
+        Map<String, Integer> weights = new HashMap<>();
+        if (clientWeights == null || clientWeights.isBlank()) {
+            return weights;
+        }
+        for (String entry : clientWeights.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid admission.client-weights entry: " + entry);
+            }
+            weights.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+    
+    public enum Outcome {
+        GRANTED,
+        QUEUE_FULL,
+        TIMED_OUT
+    }
+    
+    /**
+     * Result of {@link #admit(String, long)}. Closing a granted permit frees its slot for
+     * the next queued request; closing it more than once has no further effect.
+     */
+    public static final class Permit implements AutoCloseable {
+        static final Permit UNLIMITED = new Permit(null, Outcome.GRANTED);
+        
+        private final AdmissionScheduler scheduler;
+        private final Outcome outcome;
+        private boolean released;
+        
+        private Permit(AdmissionScheduler scheduler, Outcome outcome) {
+            this.scheduler = scheduler;
+            this.outcome = outcome;
+        }
+        
+        public boolean isGranted() {
+            return outcome == Outcome.GRANTED;
+        }
+        
+        public Outcome getOutcome() {
+            return outcome;
+        }
+        
+        @Override
+        public void close() {
+            if (scheduler != null && isGranted() && !released) {
+                released = true;
+                scheduler.release();
+            }
+        }
+    }
+    
+    private static final class ClientQueue {
+        private final String clientId;
+        private final long quantum;
+        private final Deque<Ticket> tickets = new ArrayDeque<>();
+        private long deficit;
+        private boolean inTurn;
+        
+        private ClientQueue(String clientId, long quantum) {
+            this.clientId = clientId;
+            this.quantum = quantum;
+        }
+    }
+    
+    private static final class Ticket {
+        private final ClientQueue queue;
+        private final long cost;
+        private final CompletableFuture<Boolean> granted = new CompletableFuture<>();
+        
+        private Ticket(ClientQueue queue, long cost) {
+            this.queue = queue;
+            this.cost = cost;
+        }
+    }
+    
+    private static final class ClientStats {
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder queued = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder expired = new LongAdder();
+        private final LongAdder waits = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        
+        private void recordWait(long nanos) {
+            waits.increment();
+            totalWaitNanos.add(nanos);
+            maxWaitNanos.accumulateAndGet(nanos, Math::max);
+        }
+        
+        private ClientQueueStats snapshot(String clientId, int queueDepth) {
+            long waitCount = waits.sum();
+            return ClientQueueStats.builder()
+                    .clientId(clientId)
+                    .queueDepth(queueDepth)
+                    .admitted(admitted.sum())
+                    .queued(queued.sum())
+                    .rejected(rejected.sum())
+                    .expired(expired.sum())
+                    .averageWaitMs(waitCount == 0 ? 0 : totalWaitNanos.sum() / 1e6 / waitCount)
+                    .maxWaitMs(maxWaitNanos.get() / 1e6)
+                    .build();
+        }
+    }
+}
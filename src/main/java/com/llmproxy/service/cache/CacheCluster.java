@@ -0,0 +1,106 @@
+package com.llmproxy.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.llmproxy.model.QueryResponse;
+import com.llmproxy.service.cluster.ClusterMembership;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spreads the response cache across replicas. Each key is owned by exactly one node
+ * on the consistent hash ring; reads and writes for keys owned by another node are
+ * forwarded to it, and remote hits are kept in a small short-lived near-cache so hot
+ * keys do not cost a network hop on every request.
+ */
+@Component
+@ConditionalOnProperty(name = "cache.cluster.enabled", havingValue = "true")
+@Slf4j
+public class CacheCluster {
+    private final ClusterMembership membership;
+    private final CachePeerClient peerClient;
+    private final Cache<String, QueryResponse> nearCache;
+    private final Executor replicationExecutor;
+    
+    @Autowired
+    public CacheCluster(
+            ClusterMembership membership,
+            CachePeerClient peerClient,
+            @Value("${cache.cluster.near-cache.ttl.seconds:30}") int nearCacheTtlSeconds,
+            @Value("${cache.cluster.near-cache.max-items:200}") int nearCacheMaxItems) {
+        this(membership, peerClient, nearCacheTtlSeconds, nearCacheMaxItems, newReplicationExecutor());
+    }
+    
+    public CacheCluster(
+            ClusterMembership membership,
+            CachePeerClient peerClient,
+            int nearCacheTtlSeconds,
+            int nearCacheMaxItems,
+            Executor replicationExecutor) {
+        this.membership = membership;
+        this.peerClient = peerClient;
+        this.replicationExecutor = replicationExecutor;
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(nearCacheMaxItems)
+                .expireAfterWrite(nearCacheTtlSeconds, TimeUnit.SECONDS)
+                .build();
+        
+        log.info("Cache cluster initialized: self={}, nearCacheTtl={}s, nearCacheMaxItems={}",
+                membership.getSelf(), nearCacheTtlSeconds, nearCacheMaxItems);
+    }
+    
+    public boolean isLocal(String key) {
+        return membership.isLocal(key);
+    }
+    
+    public QueryResponse get(String key) {
+        QueryResponse nearHit = nearCache.getIfPresent(key);
+        if (nearHit != null) {
+            return nearHit;
+        }
+        
+        String owner = membership.ownerOf(key);
+        QueryResponse remoteHit = peerClient.fetch(owner, key);
+        if (remoteHit != null) {
+            nearCache.put(key, remoteHit);
+        }
+        return remoteHit;
+    }
+    
+    public void put(String key, QueryResponse response) {
+        nearCache.put(key, response);
+        
+        String owner = membership.ownerOf(key);
+        replicationExecutor.execute(() -> peerClient.store(owner, key, response));
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (replicationExecutor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+    
+    private static ExecutorService newReplicationExecutor() {
+        // Forwarded writes are best-effort: when peers fall behind we drop them rather
+        // than queue unboundedly or push the cost back onto the request thread.
+        return new ThreadPoolExecutor(1, 2, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1000),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-cluster-replication");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+}
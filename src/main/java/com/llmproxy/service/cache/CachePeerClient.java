@@ -0,0 +1,8 @@
+package com.llmproxy.service.cache;
+
+import com.llmproxy.model.QueryResponse;
+
+public interface CachePeerClient {
+    QueryResponse fetch(String peer, String key);
+    void store(String peer, String key, QueryResponse response);
+}
@@ -4,50 +4,102 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy;
 import com.llmproxy.model.QueryRequest;
 import com.llmproxy.model.QueryResponse;
+import com.llmproxy.service.llm.ModelVersionValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.OptionalLong;
 import java.util.concurrent.TimeUnit;
 
 @Service
 @Slf4j
-public class CacheService {
+public class CacheService implements MeterBinder {
     private final Cache<String, QueryResponse> cache;
     private final ObjectMapper objectMapper;
+    private final ModelVersionValidator modelVersionValidator;
+    private final QueryCanonicalizer queryCanonicalizer;
     private final boolean enabled;
+    private final long ttlNanos;
+    private CacheCluster cluster;
     
     public CacheService(
             @Value("${cache.enabled:true}") boolean enabled,
             @Value("${cache.ttl.seconds:300}") int ttlSeconds,
             @Value("${cache.max-items:1000}") int maxItems,
-            ObjectMapper objectMapper) {
+            ObjectMapper objectMapper,
+            ModelVersionValidator modelVersionValidator,
+            QueryCanonicalizer queryCanonicalizer) {
         
         this.enabled = enabled;
         this.objectMapper = objectMapper;
+        this.modelVersionValidator = modelVersionValidator;
+        this.queryCanonicalizer = queryCanonicalizer;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
         
+        // Variable expiry behaves like expireAfterWrite for normal puts, but also lets
+        // entries restored from a snapshot keep only their remaining lifetime.
         this.cache = Caffeine.newBuilder()
                 .maximumSize(maxItems)
-                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .expireAfter(new Expiry<String, QueryResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, QueryResponse value, long currentTime) {
+                        return ttlNanos;
+                    }
+                    
+                    @Override
+                    public long expireAfterUpdate(String key, QueryResponse value, long currentTime, long currentDuration) {
+                        return ttlNanos;
+                    }
+                    
+                    @Override
+                    public long expireAfterRead(String key, QueryResponse value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
                 .build();
         
         log.info("Cache initialized: enabled={}, ttl={}s, maxItems={}", enabled, ttlSeconds, maxItems);
     }
     
+    /**
+     * Exposes hits, misses, evictions and size of the locally owned entries as
+     * {@code cache.*} meters tagged {@code cache=responses}.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "responses");
+    }
+    
+    @Autowired(required = false)
+    public void setCluster(CacheCluster cluster) {
+        this.cluster = cluster;
+    }
+    
     public QueryResponse get(QueryRequest request) {
         if (!enabled) {
             return null;
         }
         
         String cacheKey = generateCacheKey(request);
-        QueryResponse cachedResponse = cache.getIfPresent(cacheKey);
+        QueryResponse cachedResponse = isOwnedLocally(cacheKey)
+                ? cache.getIfPresent(cacheKey)
+                : cluster.get(cacheKey);
         
         if (cachedResponse != null) {
             log.debug("Cache hit for key: {}", cacheKey);
@@ -64,15 +116,66 @@ public class CacheService {
         }
         
         String cacheKey = generateCacheKey(request);
-        cache.put(cacheKey, response);
+        if (isOwnedLocally(cacheKey)) {
+            cache.put(cacheKey, response);
+        } else {
+            cluster.put(cacheKey, response);
+        }
         
         log.debug("Added response to cache with key: {}, model: {}", cacheKey, response.getModel());
     }
     
-    private String generateCacheKey(QueryRequest request) {
+    public QueryResponse getLocal(String cacheKey) {
+        return enabled ? cache.getIfPresent(cacheKey) : null;
+    }
+    
+    public void setLocal(String cacheKey, QueryResponse response) {
+        if (enabled) {
+            cache.put(cacheKey, response);
+        }
+    }
+    
+    /**
+     * Visits every entry owned by this node together with its remaining time to live.
+     */
+    public void forEachLocalEntry(EntryVisitor visitor) throws IOException {
+        Policy.VarExpiration<String, QueryResponse> expiration = varExpiration();
+        for (Map.Entry<String, QueryResponse> entry : cache.asMap().entrySet()) {
+            OptionalLong remaining = expiration.getExpiresAfter(entry.getKey(), TimeUnit.MILLISECONDS);
+            if (remaining.isPresent() && remaining.getAsLong() > 0) {
+                visitor.visit(entry.getKey(), entry.getValue(), remaining.getAsLong());
+            }
+        }
+    }
+    
+    /**
+     * Inserts an entry that expires after the given remaining lifetime instead of the full TTL.
+     */
+    public void restoreLocal(String cacheKey, QueryResponse response, long remainingTtlMillis) {
+        if (!enabled || remainingTtlMillis <= 0) {
+            return;
+        }
+        long remainingNanos = Math.min(TimeUnit.MILLISECONDS.toNanos(remainingTtlMillis), ttlNanos);
+        varExpiration().put(cacheKey, response, remainingNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    public long getLocalEntryCount() {
+        return cache.estimatedSize();
+    }
+    
+    private Policy.VarExpiration<String, QueryResponse> varExpiration() {
+        return cache.policy().expireVariably().orElseThrow();
+    }
+    
+    private boolean isOwnedLocally(String cacheKey) {
+        return cluster == null || cluster.isLocal(cacheKey);
+    }
+    
+    String generateCacheKey(QueryRequest request) {
         Map<String, String> data = new HashMap<>();
-        data.put("query", request.getQuery());
+        data.put("query", queryCanonicalizer.canonicalize(request.getQuery(), request.getTaskType()));
         data.put("model", request.getModel() != null ? request.getModel().toString() : "");
+        data.put("model_version", resolveModelVersion(request));
         data.put("task_type", request.getTaskType() != null ? request.getTaskType().toString() : "");
         
         try {
@@ -89,13 +192,29 @@ public class CacheService {
                 hexString.append(hex);
             }
             return hexString.toString();
-            
+        
         } catch (JsonProcessingException | NoSuchAlgorithmException e) {
             log.error("Error generating cache key: {}", e.getMessage());
-            return String.format("%s:%s:%s", 
-                request.getQuery(), 
-                request.getModel(), 
-                request.getTaskType());
+            return String.format("%s:%s:%s:%s", 
+                data.get("query"), 
+                data.get("model"), 
+                data.get("model_version"), 
+                data.get("task_type"));
         }
     }
+    
+    private String resolveModelVersion(QueryRequest request) {
+        // With a pinned model, key on the version that will actually be called so that an
+        // omitted or unsupported version shares entries with the model's default version.
+        // Without one the router decides later, so the requested version is kept verbatim.
+        if (request.getModel() != null) {
+            return modelVersionValidator.validateModelVersion(request.getModel(), request.getModelVersion());
+        }
+        return request.getModelVersion() != null ? request.getModelVersion().trim() : "";
+    }
+    
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void visit(String cacheKey, QueryResponse response, long remainingTtlMillis) throws IOException;
+    }
 }
@@ -0,0 +1,160 @@
+package com.llmproxy.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llmproxy.model.QueryResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Persists the locally owned cache entries to a gzip'd snapshot file periodically and on
+ * shutdown, and restores them at startup so a restarted replica does not begin cold.
+ * Loading happens during context initialization, i.e. before the application reports ready.
+ *
+ * <p>Snapshot layout: magic, version, then one record per entry
+ * ({@code 1, key, expiresAtEpochMillis, length, json}) and a terminating {@code 0}.
+ * Entries are streamed one at a time in both directions; the file is written to a
+ * temporary sibling and atomically moved into place. A record whose length is negative or
+ * above {@value #MAX_ENTRY_BYTES} bytes is treated as corruption and ends the restore.
+ */
+@Service
+@ConditionalOnProperty(name = "cache.snapshot.enabled", havingValue = "true")
+@Slf4j
+public class CacheSnapshotService {
+    private static final int MAGIC = 0x4C50_4353; // "LPCS"
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    static final int MAX_ENTRY_BYTES = 16 * 1024 * 1024;
+    
+    private final CacheService cacheService;
+    private final ObjectMapper objectMapper;
+    private final Path snapshotPath;
+    
+    public CacheSnapshotService(
+            CacheService cacheService,
+            ObjectMapper objectMapper,
+            @Value("${cache.snapshot.path:data/cache-snapshot.bin}") String snapshotPath) {
+        this.cacheService = cacheService;
+        this.objectMapper = objectMapper;
+        this.snapshotPath = Paths.get(snapshotPath);
+    }
+    
+    @PostConstruct
+    public void restore() {
+        if (!Files.exists(snapshotPath)) {
+            log.info("No cache snapshot found at {}, starting with an empty cache", snapshotPath);
+            return;
+        }
+        
+        try {
+            int restored = load();
+            log.info("Restored {} cache entries from snapshot {}", restored, snapshotPath);
+        } catch (IOException e) {
+            log.warn("Failed to restore cache snapshot {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+    
+    @Scheduled(
+            initialDelayString = "${cache.snapshot.interval-seconds:60}",
+            fixedDelayString = "${cache.snapshot.interval-seconds:60}",
+            timeUnit = TimeUnit.SECONDS)
+    public void scheduledSnapshot() {
+        snapshot();
+    }
+    
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        snapshot();
+    }
+    
+    public synchronized void snapshot() {
+        try {
+            long startTime = System.nanoTime();
+            int written = write();
+            log.debug("Wrote {} cache entries to snapshot {} in {}ms",
+                    written, snapshotPath, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        } catch (IOException e) {
+            log.warn("Failed to write cache snapshot {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+    
+    int write() throws IOException {
+        Path parent = snapshotPath.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tempFile = Files.createTempFile(parent, snapshotPath.getFileName().toString(), ".tmp");
+        
+        int[] count = {0};
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(tempFile), BUFFER_SIZE), BUFFER_SIZE))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                
+                long now = System.currentTimeMillis();
+                cacheService.forEachLocalEntry((key, response, remainingTtlMillis) -> {
+                    byte[] json = objectMapper.writeValueAsBytes(response);
+                    out.writeByte(1);
+                    out.writeUTF(key);
+                    out.writeLong(now + remainingTtlMillis);
+                    out.writeInt(json.length);
+                    out.write(json);
+                    count[0]++;
+                });
+                out.writeByte(0);
+            }
+            Files.move(tempFile, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        return count[0];
+    }
+    
+    int load() throws IOException {
+        int restored = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(snapshotPath), BUFFER_SIZE), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unrecognized snapshot format");
+            }
+            
+            while (in.readByte() == 1) {
+                String key = in.readUTF();
+                long expiresAt = in.readLong();
+                int length = in.readInt();
+                if (length < 0 || length > MAX_ENTRY_BYTES) {
+                    throw new IOException("Invalid entry length " + length + " after " + restored + " entries");
+                }
+                byte[] json = new byte[length];
+                in.readFully(json);
+                
+                long remainingTtlMillis = expiresAt - System.currentTimeMillis();
+                if (remainingTtlMillis > 0) {
+                    cacheService.restoreLocal(key, objectMapper.readValue(json, QueryResponse.class), remainingTtlMillis);
+                    restored++;
+                }
+            }
+        } catch (EOFException e) {
+            // A truncated snapshot (e.g. crash while copying) still yields every complete record
+            log.warn("Cache snapshot {} is truncated, restored {} entries", snapshotPath, restored);
+        }
+        return restored;
+    }
+}
@@ -0,0 +1,105 @@
+package com.llmproxy.service.cache;
+
+import com.llmproxy.model.TaskType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Applies Unicode NFC normalization, collapses runs of whitespace into a single space and,
+ * for the configured task types, folds case. Each stage returns its input unchanged when
+ * there is nothing to do, so already-canonical queries are not copied.
+ */
+@Component
+@Slf4j
+public class DefaultQueryCanonicalizer implements QueryCanonicalizer {
+    private final Set<TaskType> caseFoldTaskTypes;
+    
+    @Autowired
+    public DefaultQueryCanonicalizer(
+            @Value("${cache.canonicalization.case-fold-task-types:}") String caseFoldTaskTypes) {
+        this(parseTaskTypes(caseFoldTaskTypes));
+    }
+    
+    public DefaultQueryCanonicalizer(Set<TaskType> caseFoldTaskTypes) {
+        this.caseFoldTaskTypes = caseFoldTaskTypes.isEmpty()
+                ? EnumSet.noneOf(TaskType.class)
+                : EnumSet.copyOf(caseFoldTaskTypes);
+        
+        log.info("Query canonicalization initialized: caseFoldTaskTypes={}", this.caseFoldTaskTypes);
+    }
+    
+    @Override
+    public String canonicalize(String query, TaskType taskType) {
+        if (query == null) {
+            return null;
+        }
+        
+        String canonical = query;
+        if (!Normalizer.isNormalized(canonical, Normalizer.Form.NFC)) {
+            canonical = Normalizer.normalize(canonical, Normalizer.Form.NFC);
+        }
+        canonical = collapseWhitespace(canonical);
+        if (taskType != null && caseFoldTaskTypes.contains(taskType)) {
+            canonical = canonical.toLowerCase(Locale.ROOT);
+        }
+        return canonical;
+    }
+    
+    static String collapseWhitespace(String text) {
+        int length = text.length();
+        if (!needsCollapsing(text)) {
+            return text;
+        }
+        
+        StringBuilder builder = new StringBuilder(length);
+        boolean pendingSpace = false;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                pendingSpace = builder.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    builder.append(' ');
+                    pendingSpace = false;
+                }
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+    
+    private static boolean needsCollapsing(String text) {
+        int length = text.length();
+        boolean previousWasSpace = true; // leading whitespace must be stripped
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            boolean whitespace = Character.isWhitespace(c) || Character.isSpaceChar(c);
+            if (whitespace && (previousWasSpace || c != ' ')) {
+                return true;
+            }
+            previousWasSpace = whitespace;
+        }
+        return previousWasSpace && length > 0;
+    }
+    
+    private static Set<TaskType> parseTaskTypes(String value) {
+        if (value == null || value.isBlank()) {
+            return EnumSet.noneOf(TaskType.class);
+        }
+        
+        Set<TaskType> taskTypes = EnumSet.noneOf(TaskType.class);
+        Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .forEach(name -> taskTypes.add(TaskType.valueOf(name.toUpperCase(Locale.ROOT))));
+        return taskTypes;
+    }
+}
@@ -0,0 +1,81 @@
+package com.llmproxy.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llmproxy.model.QueryResponse;
+import com.llmproxy.service.cluster.ClusterMembership;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+/**
+ * Talks to the {@code /internal/cache} endpoint of peer replicas. Uses its own
+ * short-timeout client: a slow peer must degrade into a cache miss, never into
+ * a slow query.
+ */
+@Component
+@ConditionalOnProperty(name = "cache.cluster.enabled", havingValue = "true")
+@Slf4j
+public class HttpCachePeerClient implements CachePeerClient {
+    static final String CACHE_PATH = "/internal/cache/";
+    
+    private final RestClient restClient;
+    private final ObjectMapper objectMapper;
+    private final ClusterMembership membership;
+    
+    public HttpCachePeerClient(
+            ObjectMapper objectMapper,
+            ClusterMembership membership,
+            @Value("${cache.cluster.timeout-ms:200}") int timeoutMs) {
+        this.objectMapper = objectMapper;
+        this.membership = membership;
+        
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(timeoutMs);
+        factory.setReadTimeout(timeoutMs);
+        this.restClient = RestClient.builder()
+                .requestFactory(factory)
+                .build();
+    }
+    
+    @Override
+    public QueryResponse fetch(String peer, String key) {
+        try {
+            ResponseEntity<String> response = restClient.get()
+                    .uri(peer + CACHE_PATH + key)
+                    .header(ClusterMembership.SECRET_HEADER, membership.getSecret())
+                    .retrieve()
+                    .onStatus(status -> status.value() == HttpStatus.NOT_FOUND.value(), (request, resp) -> { })
+                    .toEntity(String.class);
+            
+            if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null) {
+                return null;
+            }
+            return objectMapper.readValue(response.getBody(), QueryResponse.class);
+        } catch (Exception e) {
+            log.debug("Cache fetch from peer {} failed: {}", peer, e.getMessage());
+            return null;
+        }
+    }
+    
+    @Override
+    public void store(String peer, String key, QueryResponse response) {
+        try {
+            restClient.put()
+                    .uri(peer + CACHE_PATH + key)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .header(ClusterMembership.SECRET_HEADER, membership.getSecret())
+                    .body(objectMapper.writeValueAsString(response))
+                    .retrieve()
+                    .toBodilessEntity();
+        } catch (Exception e) {
+            log.debug("Cache store to peer {} failed: {}", peer, e.getMessage());
+        }
+    }
+}
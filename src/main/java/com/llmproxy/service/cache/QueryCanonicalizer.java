@@ -0,0 +1,12 @@
+package com.llmproxy.service.cache;
+
+import com.llmproxy.model.TaskType;
+
+/**
+ * Maps a query onto the canonical form used for cache keys, so that queries which
+ * are equivalent for the given task share a cache entry. Only the key is derived
+ * from the canonical form; the query sent upstream is left untouched.
+ */
+public interface QueryCanonicalizer {
+    String canonicalize(String query, TaskType taskType);
+}
@@ -0,0 +1,220 @@
+package com.llmproxy.service.capture;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llmproxy.model.CapturedRequest;
+import com.llmproxy.model.QueryRequest;
+import com.llmproxy.model.QueryResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Captures {@code /api/query} traffic for the replay tool: when each request arrived, what
+ * it asked for, and how it was served (status, model, cache hit, upstream latency, tokens).
+ *
+ * <p>Requests are sanitized before they are written: client IPs are replaced by a
+ * pseudonym that is stable within one capture (so per-client rate limits replay the same)
+ * but salted per process, request ids are dropped, and e-mail addresses, long digit runs
+ * (phone, card and account numbers) and secret-looking tokens in the query are masked.
+ * Identical queries stay identical, which keeps cache hit ratios intact.
+ *
+ * <p>As with the access log, requests only enqueue; a writer thread sanitizes and appends
+ * gzip'd JSON lines, flushing whenever the queue runs dry. A full queue drops records.
+ */
+@Component
+@Slf4j
+public class TrafficCapture implements MeterBinder {
+    private static final Pattern EMAIL = Pattern.compile("[\\w.+-]+@[\\w-]+(\\.[\\w-]+)+");
+    private static final Pattern SECRET = Pattern.compile(
+            "\\b(?:sk|pk|rk|api|key|token)[-_][A-Za-z0-9_-]{12,}|\\bBearer\\s+\\S+|\\bAKIA[0-9A-Z]{16}\\b");
+    private static final Pattern LONG_NUMBER = Pattern.compile("\\+?\\d(?:[ -]?\\d){6,}");
+    private static final HexFormat HEX = HexFormat.of();
+    private static final long IDLE_WAIT_MILLIS = 100;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Path path;
+    private final BlockingQueue<CapturedRequest> pending;
+    private final LongAdder dropped = new LongAdder();
+    private final byte[] salt = new byte[16];
+    private volatile boolean running;
+    private Thread writer;
+    
+    @Autowired
+    public TrafficCapture(
+            ObjectMapper objectMapper,
+            @Value("${capture.enabled:false}") boolean enabled,
+            @Value("${capture.path:data/capture.jsonl.gz}") String path,
+            @Value("${capture.queue-size:4096}") int queueSize) {
+        this(objectMapper, enabled, Path.of(path), queueSize);
+    }
+    
+    TrafficCapture(ObjectMapper objectMapper, boolean enabled, Path path, int queueSize) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.path = path;
+        this.pending = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+        new SecureRandom().nextBytes(salt);
+    }
+    
+    @PostConstruct
+    public synchronized void start() throws IOException {
+        if (!enabled || running) {
+            return;
+        }
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        // Each run appends a new gzip member; readers see the members as one stream
+        OutputStream out = new GZIPOutputStream(Files.newOutputStream(path,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), BUFFER_SIZE, true);
+        running = true;
+        writer = new Thread(() -> writeLoop(out), "traffic-capture-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Traffic capture enabled: path={}", path);
+    }
+    
+    /**
+     * Stops the writer after everything already recorded has been written.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    public void record(QueryRequest request, String clientIp, long arrivalMillis, int status, QueryResponse response) {
+        if (!enabled) {
+            return;
+        }
+        CapturedRequest.CapturedRequestBuilder captured = CapturedRequest.builder()
+                .arrivalMillis(arrivalMillis)
+                .client(clientIp)
+                .query(request.getQuery())
+                .model(request.getModel())
+                .modelVersion(request.getModelVersion())
+                .taskType(request.getTaskType())
+                .status(status);
+        if (response != null) {
+            captured.servedModel(response.getModel())
+                    .cached(response.isCached())
+                    .upstreamLatencyMs(response.getResponseTimeMs())
+                    .inputTokens(response.getInputTokens())
+                    .outputTokens(response.getOutputTokens())
+                    .errorType(response.getErrorType());
+        }
+        if (!pending.offer(captured.build())) {
+            dropped.increment();
+        }
+    }
+    
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+    
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("llm.capture.dropped", dropped, LongAdder::sum)
+                .description("Captured requests dropped because the writer fell behind")
+                .register(registry);
+    }
+    
+    /**
+     * Masks personal data and secrets in a query.
+     */
+    static String redact(String query) {
+        if (query == null) {
+            return null;
+        }
+        String redacted = EMAIL.matcher(query).replaceAll("<email>");
+        redacted = SECRET.matcher(redacted).replaceAll("<secret>");
+        return LONG_NUMBER.matcher(redacted).replaceAll("<number>");
+    }
+    
+    /**
+     * Maps a client IP to a private address derived from a salted hash of it.
+     */
+    String pseudonymize(String clientIp) {
+        if (clientIp == null) {
+            return null;
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            byte[] hash = digest.digest(clientIp.getBytes(StandardCharsets.UTF_8));
+            // A unique local IPv6 address (fd00::/8) still replays as X-Forwarded-For but keeps
+            // 120 bits of the hash, so distinct clients do not collide into one pseudonym
+            StringBuilder pseudonym = new StringBuilder("fd");
+            for (int i = 0; i < 15; i++) {
+                if (i % 2 == 1) {
+                    pseudonym.append(':');
+                }
+                pseudonym.append(HEX.toHexDigits(hash[i]));
+            }
+            return pseudonym.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    void write(CapturedRequest captured, OutputStream out) throws IOException {
+        captured.setClient(pseudonymize(captured.getClient()));
+        captured.setQuery(redact(captured.getQuery()));
+        out.write(objectMapper.writeValueAsBytes(captured));
+        out.write('\n');
+    }
+    
+    private void writeLoop(OutputStream out) {
+        boolean dirty = false;
+        try (out) {
+            while (running || !pending.isEmpty()) {
+                CapturedRequest captured = pending.poll(IDLE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                if (captured != null) {
+                    write(captured, out);
+                    dirty = true;
+                } else if (dirty) {
+                    out.flush();
+                    dirty = false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Traffic capture to {} stopped: {}", path, e.getMessage());
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.llmproxy.service.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Static cluster membership built from the configured peer list. Every replica is
+ * configured with the same peer list and its own {@code cluster.self} URL, so all
+ * replicas compute identical ownership without any coordination.
+ *
+ * <p>The {@code /internal} endpoints are served on the public port, so peers must present
+ * the shared {@code cluster.secret}; startup fails without one. The bean is also created
+ * when a clustered feature is enabled without {@code cluster.enabled}, only to fail startup
+ * with a message saying so.
+ */
+@Component
+@Conditional(ClusterMembership.ClusterFeatureEnabled.class)
+@Slf4j
+public class ClusterMembership {
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+    
+    private final String self;
+    private final String secret;
+    private final ConsistentHashRing ring;
+    
+    @Autowired
+    public ClusterMembership(
+            @Value("${cluster.enabled:false}") boolean enabled,
+            @Value("${cluster.self:}") String self,
+            @Value("${cluster.peers:}") String peers,
+            @Value("${cluster.virtual-nodes:128}") int virtualNodes,
+            @Value("${cluster.secret:}") String secret) {
+        this(requireClusterEnabled(enabled, self), Arrays.asList(peers.split(",")), virtualNodes, secret);
+    }
+    
+    public ClusterMembership(String self, List<String> peers, int virtualNodes, String secret) {
+        if (self == null || self.isBlank()) {
+            throw new IllegalArgumentException("cluster.self must be set when clustering is enabled");
+        }
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalArgumentException("cluster.secret must be set when clustering is enabled");
+        }
+        
+        this.self = normalize(self);
+        this.secret = secret;
+        
+        Set<String> nodes = new LinkedHashSet<>();
+        nodes.add(this.self);
+        for (String peer : peers) {
+            if (peer != null && !peer.isBlank()) {
+                nodes.add(normalize(peer));
+            }
+        }
+        this.ring = new ConsistentHashRing(nodes, virtualNodes);
+        
+        log.info("Cluster membership initialized: self={}, nodes={}", this.self, nodes);
+    }
+    
+    public String getSelf() {
+        return self;
+    }
+    
+    public String getSecret() {
+        return secret;
+    }
+    
+    public String ownerOf(String key) {
+        return ring.nodeFor(key);
+    }
+    
+    public boolean isLocal(String key) {
+        return self.equals(ownerOf(key));
+    }
+    
+    public List<String> getNodes() {
+        return ring.getNodes();
+    }
+    
+    public boolean isAuthorized(String presentedSecret) {
+        return presentedSecret != null && MessageDigest.isEqual(
+                secret.getBytes(StandardCharsets.UTF_8), presentedSecret.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String requireClusterEnabled(boolean enabled, String self) {
+        if (!enabled) {
+            throw new IllegalStateException("cache.cluster.enabled and rate-limit.cluster.enabled require cluster.enabled=true");
+        }
+        return self;
+    }
+    
+    private static String normalize(String url) {
+        String trimmed = url.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+    
+    static final class ClusterFeatureEnabled extends AnyNestedCondition {
+        ClusterFeatureEnabled() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+        
+        @ConditionalOnProperty(name = "cluster.enabled", havingValue = "true")
+        static final class Cluster {
+        }
+        
+        @ConditionalOnProperty(name = "cache.cluster.enabled", havingValue = "true")
+        static final class Cache {
+        }
+        
+        @ConditionalOnProperty(name = "rate-limit.cluster.enabled", havingValue = "true")
+        static final class RateLimit {
+        }
+    }
+}
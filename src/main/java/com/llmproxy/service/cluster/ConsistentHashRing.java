@@ -0,0 +1,48 @@
+package com.llmproxy.service.cluster;
+
+import com.llmproxy.util.Hashing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Immutable consistent hash ring mapping arbitrary keys onto a fixed set of nodes.
+ * Each node is placed on the ring several times (virtual nodes) so that keys spread
+ * evenly and only ~1/N of them move when a node joins or leaves.
+ */
+public class ConsistentHashRing {
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+    private final List<String> nodes;
+    
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("Hash ring requires at least one node");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("Virtual nodes must be positive");
+        }
+        
+        this.nodes = List.copyOf(nodes);
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(Hashing.hash64(node + "#" + i), node);
+            }
+        }
+    }
+    
+    public String nodeFor(String key) {
+        Map.Entry<Long, String> entry = ring.ceilingEntry(Hashing.hash64(key));
+        if (entry == null) {
+            entry = ring.firstEntry();
+        }
+        return entry.getValue();
+    }
+    
+    public List<String> getNodes() {
+        return new ArrayList<>(nodes);
+    }
+}
@@ -0,0 +1,377 @@
+package com.llmproxy.service.history;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory positional inverted index over the query and response text of history
+ * entries, keyed by sequence number. Entries are added in sequence order by the history
+ * writer, which keeps every {@link PostingList} delta-encoded and append-only; entries
+ * removed by retention are dropped from the front of the lists.
+ *
+ * <p>Searches evaluate a {@link SearchQuery} over the decoded posting lists of its terms
+ * and rank the matches with BM25. They hold the lock only to snapshot those lists.
+ */
+class HistoryIndex {
+    static final int MAX_TERM_LENGTH = 64;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    /** Positions skipped between the query and the response so phrases do not span both. */
+    private static final int FIELD_GAP = 16;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private long firstDoc = -1; // Document of lengths[0]
+    private int[] lengths = new int[1024]; // Document length + 1; 0 for sequence numbers never indexed
+    private int lengthCount;
+    private int documentCount;
+    private long totalLength;
+    
+    /**
+     * Lower-cased runs of letters and digits, longer ones cut to {@link #MAX_TERM_LENGTH}.
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int codePoint = text.codePointAt(i);
+            if (!Character.isLetterOrDigit(codePoint)) {
+                i += Character.charCount(codePoint);
+                continue;
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(codePoint = text.codePointAt(i))) {
+                i += Character.charCount(codePoint);
+            }
+            String term = text.substring(start, Math.min(i, start + MAX_TERM_LENGTH)).toLowerCase(Locale.ROOT);
+            terms.add(term);
+        }
+        return terms;
+    }
+    
+    /**
+     * Indexes a document. Documents must be added in increasing order.
+     */
+    void add(long doc, String query, String response) {
+        Map<String, int[]> positions = new HashMap<>();
+        int position = 0;
+        for (String text : new String[]{query, response}) {
+            for (String term : tokenize(text)) {
+                int[] termPositions = positions.computeIfAbsent(term, t -> new int[2]);
+                int count = termPositions[0];
+                if (count + 1 == termPositions.length) {
+                    termPositions = Arrays.copyOf(termPositions, termPositions.length * 2);
+                    positions.put(term, termPositions);
+                }
+                // Slot 0 holds the count
+                termPositions[count + 1] = position++;
+                termPositions[0] = count + 1;
+            }
+            position += FIELD_GAP;
+        }
+        int documentLength = position - 2 * FIELD_GAP;
+        
+        lock.writeLock().lock();
+        try {
+            if (firstDoc < 0 || lengthCount == 0) {
+                firstDoc = doc;
+                lengthCount = 0;
+            } else if (doc < firstDoc + lengthCount) {
+                throw new IllegalArgumentException("Document " + doc + " added out of order");
+            }
+            int slot = (int) (doc - firstDoc);
+            if (slot >= lengths.length) {
+                lengths = Arrays.copyOf(lengths, Math.max(lengths.length * 2, slot + 1));
+            }
+            Arrays.fill(lengths, lengthCount, slot, 0);
+            lengths[slot] = documentLength + 1;
+            lengthCount = slot + 1;
+            documentCount++;
+            totalLength += documentLength;
+            for (Map.Entry<String, int[]> entry : positions.entrySet()) {
+                int[] termPositions = entry.getValue();
+                postings.computeIfAbsent(entry.getKey(), t -> new PostingList())
+                        .add(doc, Arrays.copyOfRange(termPositions, 1, termPositions[0] + 1), termPositions[0]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Drops every document before {@code doc}.
+     */
+    void removeBefore(long doc) {
+        lock.writeLock().lock();
+        try {
+            if (firstDoc < 0 || doc <= firstDoc) {
+                return;
+            }
+            int removed = (int) Math.min(lengthCount, doc - firstDoc);
+            for (int i = 0; i < removed; i++) {
+                if (lengths[i] > 0) {
+                    documentCount--;
+                    totalLength -= lengths[i] - 1;
+                }
+            }
+            lengths = Arrays.copyOfRange(lengths, removed, Math.max(removed + 1024, lengthCount));
+            lengthCount -= removed;
+            firstDoc = doc;
+            
+            Iterator<Map.Entry<String, PostingList>> iterator = postings.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, PostingList> entry = iterator.next();
+                PostingList retained = entry.getValue().retainFrom(doc);
+                if (retained == null) {
+                    iterator.remove();
+                } else {
+                    entry.setValue(retained);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * @return the best {@code limit} matches, highest score first, and the total number of
+     * matches
+     */
+    SearchResult search(SearchQuery query, int limit) {
+        // Only taking the snapshot needs the lock; decoding and scoring run without it so a
+        // search for a common term does not hold up the history writer
+        View view;
+        lock.readLock().lock();
+        try {
+            view = new View(query);
+        } finally {
+            lock.readLock().unlock();
+        }
+        
+        Map<Long, Double> scores = new HashMap<>();
+        for (List<SearchQuery.Clause> clauses : query.getAlternatives()) {
+            long[] matches = null;
+            for (SearchQuery.Clause clause : clauses) {
+                if (!clause.isNegated()) {
+                    long[] clauseMatches = view.match(clause);
+                    matches = matches == null ? clauseMatches : intersect(matches, clauseMatches);
+                }
+            }
+            if (matches == null) {
+                continue;
+            }
+            for (SearchQuery.Clause clause : clauses) {
+                if (clause.isNegated()) {
+                    matches = subtract(matches, view.match(clause));
+                }
+            }
+            for (long doc : matches) {
+                double score = view.score(doc, clauses);
+                scores.merge(doc, score, Math::max);
+            }
+        }
+        
+        PriorityQueue<ScoredDoc> top = new PriorityQueue<>(ScoredDoc.ORDER);
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            top.add(new ScoredDoc(entry.getKey(), entry.getValue()));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<ScoredDoc> hits = new ArrayList<>(top);
+        hits.sort(ScoredDoc.ORDER.reversed());
+        return new SearchResult(hits, scores.size());
+    }
+    
+    int getDocumentCount() {
+        lock.readLock().lock();
+        try {
+            return documentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * @return the compressed size of all posting lists
+     */
+    long getSizeBytes() {
+        lock.readLock().lock();
+        try {
+            long total = 0;
+            for (PostingList list : postings.values()) {
+                total += list.getSizeBytes();
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private static long[] intersect(long[] a, long[] b) {
+        long[] result = new long[Math.min(a.length, b.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+    
+    private static long[] subtract(long[] a, long[] b) {
+        long[] result = new long[a.length];
+        int count = 0;
+        int j = 0;
+        for (long doc : a) {
+            while (j < b.length && b[j] < doc) {
+                j++;
+            }
+            if (j == b.length || b[j] != doc) {
+                result[count++] = doc;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+    
+    /**
+     * The posting lists of a query's terms and the document statistics as of one moment.
+     * Posting lists and the length table are append-only, and removal replaces them, so
+     * everything captured here stays valid after the lock is released.
+     */
+    private final class View {
+        private final Map<String, PostingList.Snapshot> snapshots = new HashMap<>();
+        private final Map<String, PostingList.Decoded> decoded = new HashMap<>();
+        private final long firstDoc;
+        private final int[] lengths;
+        private final int documentCount;
+        private final long totalLength;
+        
+        private View(SearchQuery query) {
+            for (List<SearchQuery.Clause> clauses : query.getAlternatives()) {
+                for (SearchQuery.Clause clause : clauses) {
+                    for (String term : clause.getTerms()) {
+                        PostingList list = postings.get(term);
+                        if (list != null) {
+                            snapshots.putIfAbsent(term, list.snapshot());
+                        }
+                    }
+                }
+            }
+            this.firstDoc = HistoryIndex.this.firstDoc;
+            this.lengths = HistoryIndex.this.lengths;
+            this.documentCount = HistoryIndex.this.documentCount;
+            this.totalLength = HistoryIndex.this.totalLength;
+        }
+        
+        private long[] match(SearchQuery.Clause clause) {
+            List<String> terms = clause.getTerms();
+            long[] candidates = decode(terms.get(0)).docs;
+            if (terms.size() == 1) {
+                return candidates;
+            }
+            for (int i = 1; i < terms.size(); i++) {
+                candidates = intersect(candidates, decode(terms.get(i)).docs);
+            }
+            long[] matches = new long[candidates.length];
+            int count = 0;
+            for (long doc : candidates) {
+                if (containsPhrase(doc, terms)) {
+                    matches[count++] = doc;
+                }
+            }
+            return Arrays.copyOf(matches, count);
+        }
+        
+        /**
+         * Positions are only decoded here, for documents that contain every term of a phrase.
+         */
+        private boolean containsPhrase(long doc, List<String> terms) {
+            for (int start : decode(terms.get(0)).positionsIn(doc)) {
+                boolean matched = true;
+                for (int i = 1; i < terms.size() && matched; i++) {
+                    matched = Arrays.binarySearch(decode(terms.get(i)).positionsIn(doc), start + i) >= 0;
+                }
+                if (matched) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        private double score(long doc, List<SearchQuery.Clause> clauses) {
+            double averageLength = documentCount == 0 ? 1 : Math.max(1, (double) totalLength / documentCount);
+            double lengthNorm = 1 - B + B * (lengths[(int) (doc - firstDoc)] - 1) / averageLength;
+            double score = 0;
+            for (SearchQuery.Clause clause : clauses) {
+                if (clause.isNegated()) {
+                    continue;
+                }
+                for (String term : clause.getTerms()) {
+                    PostingList.Decoded termPostings = decode(term);
+                    int tf = termPostings.frequencyIn(doc);
+                    if (tf == 0) {
+                        continue;
+                    }
+                    int df = termPostings.docs.length;
+                    double idf = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+                    score += idf * tf * (K1 + 1) / (tf + K1 * lengthNorm);
+                }
+            }
+            return score;
+        }
+        
+        private PostingList.Decoded decode(String term) {
+            return decoded.computeIfAbsent(term, t -> {
+                PostingList.Snapshot snapshot = snapshots.get(t);
+                return snapshot == null ? PostingList.Decoded.EMPTY : snapshot.decode();
+            });
+        }
+    }
+    
+    static final class ScoredDoc {
+        /** Lower score first; on ties, the older document first so newer answers win. */
+        static final Comparator<ScoredDoc> ORDER = Comparator
+                .comparingDouble((ScoredDoc d) -> d.score)
+                .thenComparingLong(d -> d.doc);
+        
+        final long doc;
+        final double score;
+        
+        ScoredDoc(long doc, double score) {
+            this.doc = doc;
+            this.score = score;
+        }
+    }
+    
+    static final class SearchResult {
+        final List<ScoredDoc> hits;
+        final int totalHits;
+        
+        SearchResult(List<ScoredDoc> hits, int totalHits) {
+            this.hits = hits;
+            this.totalHits = totalHits;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.llmproxy.service.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One memory-mapped file of the history log. Records are appended back to back:
+ *
+ * <pre>
+ * int    length of the rest of the record (0 = end of data)
+ * long   timestamp, epoch millis
+ * short  request id length, then the request id in UTF-8
+ * byte[] JSON-encoded {@link com.llmproxy.model.HistoryEntry}
+ * </pre>
+ *
+ * <p>The length is written last, so a record torn by a crash reads as the end of data.
+ * The sequence number of a record is the segment's base sequence plus its position.
+ * The index (request id to position, and position to timestamp and offset) lives on the
+ * heap; the records themselves are only read from the mapping, one at a time.
+ *
+ * <p>Not thread-safe: {@link HistoryStore} appends from its writer thread under a write
+ * lock and reads under a read lock.
+ */
+class HistorySegment {
+    static final String PREFIX = "segment-";
+    static final String SUFFIX = ".log";
+    static final int RECORD_HEADER_BYTES = Integer.BYTES + Long.BYTES + Short.BYTES;
+    
+    private final Path path;
+    private final long baseSequence;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int writePosition;
+    private boolean sealed;
+    private final Map<String, Integer> positionsByRequestId = new HashMap<>();
+    private long[] timestamps = new long[64];
+    private int[] offsets = new int[64];
+    private int count;
+    
+    private HistorySegment(Path path, long baseSequence) {
+        this.path = path;
+        this.baseSequence = baseSequence;
+    }
+    
+    /**
+     * Creates a new segment preallocated to {@code capacity} bytes.
+     */
+    static HistorySegment create(Path directory, long baseSequence, int capacity) throws IOException {
+        HistorySegment segment = new HistorySegment(directory.resolve(fileName(baseSequence)), baseSequence);
+        segment.channel = FileChannel.open(segment.path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment.buffer = segment.channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        return segment;
+    }
+    
+    /**
+     * Maps an existing segment, rebuilds its index by scanning the record headers and
+     * seals it, dropping a torn tail if there is one.
+     */
+    static HistorySegment open(Path path) throws IOException {
+        HistorySegment segment = new HistorySegment(path, parseBaseSequence(path));
+        segment.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = segment.channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Segment too large: " + path);
+        }
+        segment.buffer = segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        segment.scan();
+        segment.seal();
+        return segment;
+    }
+    
+    static boolean isSegmentFile(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+    
+    /**
+     * Appends a record if it fits.
+     *
+     * @return false, without writing anything, if the segment does not have room for it
+     */
+    boolean append(long timestamp, byte[] requestId, byte[] payload) {
+        int length = RECORD_HEADER_BYTES - Integer.BYTES + requestId.length + payload.length;
+        if (sealed || buffer.capacity() - writePosition < Integer.BYTES + length + Integer.BYTES) {
+            return false;
+        }
+        int offset = writePosition;
+        buffer.putLong(offset + Integer.BYTES, timestamp);
+        buffer.putShort(offset + Integer.BYTES + Long.BYTES, (short) requestId.length);
+        buffer.put(offset + RECORD_HEADER_BYTES, requestId);
+        buffer.put(offset + RECORD_HEADER_BYTES + requestId.length, payload);
+        buffer.putInt(offset, length);
+        writePosition = offset + Integer.BYTES + length;
+        index(offset, timestamp, new String(requestId, StandardCharsets.UTF_8));
+        return true;
+    }
+    
+    /**
+     * @return a read-only view of the JSON payload of the record at {@code position}
+     */
+    ByteBuffer payload(int position) {
+        int offset = offsets[position];
+        int length = buffer.getInt(offset);
+        int idLength = Short.toUnsignedInt(buffer.getShort(offset + Integer.BYTES + Long.BYTES));
+        int start = offset + RECORD_HEADER_BYTES + idLength;
+        return buffer.slice(start, offset + Integer.BYTES + length - start).asReadOnlyBuffer();
+    }
+    
+    /**
+     * @return the position of the newest record for the request id, or -1
+     */
+    int positionOf(String requestId) {
+        Integer position = positionsByRequestId.get(requestId);
+        return position == null ? -1 : position;
+    }
+    
+    /**
+     * @return the number of records with a timestamp at or before {@code timestamp}
+     */
+    int countAtOrBefore(long timestamp) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] <= timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    long timestampAt(int position) {
+        return timestamps[position];
+    }
+    
+    long getBaseSequence() {
+        return baseSequence;
+    }
+    
+    int getCount() {
+        return count;
+    }
+    
+    long getLastTimestamp() {
+        return count == 0 ? 0 : timestamps[count - 1];
+    }
+    
+    long getSizeBytes() {
+        return sealed ? writePosition : buffer.capacity();
+    }
+    
+    Path getPath() {
+        return path;
+    }
+    
+    /**
+     * Flushes the segment, trims the preallocated tail and remaps it read-only.
+     */
+    void seal() throws IOException {
+        if (sealed) {
+            return;
+        }
+        if (!buffer.isReadOnly()) {
+            buffer.force();
+        }
+        channel.truncate(writePosition);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, writePosition);
+        channel.close();
+        sealed = true;
+        timestamps = Arrays.copyOf(timestamps, count);
+        offsets = Arrays.copyOf(offsets, count);
+    }
+    
+    void force() {
+        if (!sealed) {
+            buffer.force();
+        }
+    }
+    
+    void delete() throws IOException {
+        if (!sealed) {
+            channel.close();
+        }
+        Files.deleteIfExists(path);
+    }
+    
+    private void scan() {
+        int offset = 0;
+        int limit = buffer.capacity();
+        while (limit - offset >= RECORD_HEADER_BYTES) {
+            int length = buffer.getInt(offset);
+            if (length < RECORD_HEADER_BYTES - Integer.BYTES || length > limit - offset - Integer.BYTES) {
+                break;
+            }
+            long timestamp = buffer.getLong(offset + Integer.BYTES);
+            int idLength = Short.toUnsignedInt(buffer.getShort(offset + Integer.BYTES + Long.BYTES));
+            if (idLength > length - (RECORD_HEADER_BYTES - Integer.BYTES)) {
+                break;
+            }
+            byte[] requestId = new byte[idLength];
+            buffer.get(offset + RECORD_HEADER_BYTES, requestId);
+            index(offset, timestamp, new String(requestId, StandardCharsets.UTF_8));
+            offset += Integer.BYTES + length;
+        }
+        writePosition = offset;
+    }
+    
+    private void index(int offset, long timestamp, String requestId) {
+        if (count == timestamps.length) {
+            timestamps = Arrays.copyOf(timestamps, count * 2);
+            offsets = Arrays.copyOf(offsets, count * 2);
+        }
+        timestamps[count] = timestamp;
+        offsets[count] = offset;
+        if (!requestId.isEmpty()) {
+            positionsByRequestId.put(requestId, count);
+        }
+        count++;
+    }
+    
+    private static String fileName(long baseSequence) {
+        return String.format("%s%020d%s", PREFIX, baseSequence, SUFFIX);
+    }
+    
+    private static long parseBaseSequence(Path path) throws IOException {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new IOException("Not a history segment: " + path);
+        }
+    }
+}
@@ -0,0 +1,546 @@
+package com.llmproxy.service.history;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.llmproxy.model.HistoryEntry;
+import com.llmproxy.model.HistoryPage;
+import com.llmproxy.model.HistorySearchHit;
+import com.llmproxy.model.HistorySearchResult;
+import com.llmproxy.model.QueryRequest;
+import com.llmproxy.model.QueryResponse;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Persistent history of completed queries, kept as an append-only log of memory-mapped
+ * {@link HistorySegment segments} under {@code history.path}.
+ *
+ * <p>Requests only hand the finished request/response pair to a bounded queue; a single
+ * writer thread serializes entries and appends them to the active segment, rolling to a
+ * new one when it is full. When the writer falls a whole queue behind, entries are dropped
+ * and counted rather than making requests wait.
+ *
+ * <p>Every entry gets a sequence number, which doubles as the pagination cursor. Reads go
+ * through the per-segment indexes and deserialize only the entries they return, straight
+ * from the mapped files. Whole segments are deleted once they are older than the retention
+ * period or the log exceeds its size budget.
+ *
+ * <p>With {@code history.search.enabled}, the writer also adds each entry to an in-memory
+ * {@link HistoryIndex} for full-text search. The index is rebuilt from the segments at
+ * startup, before the application reports ready.
+ */
+@Service
+@Slf4j
+public class HistoryStore implements MeterBinder {
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_REQUEST_ID_CHARS = 256;
+    private static final long IDLE_WAIT_MILLIS = 100;
+    // A segment is a single MappedByteBuffer, so it cannot exceed Integer.MAX_VALUE bytes
+    static final int MAX_SEGMENT_SIZE_MB = Integer.MAX_VALUE / (1024 * 1024);
+    
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+    private final Duration retention;
+    private final long maxBytes;
+    private final BlockingQueue<HistoryEntry> pending;
+    private final HistoryIndex index;
+    private final LongAdder dropped = new LongAdder();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<HistorySegment> segments = new ArrayList<>(); // Oldest first
+    private HistorySegment active;
+    private long nextSequence;
+    private long lastTimestamp;
+    private boolean dirty;
+    private volatile boolean running;
+    private Thread writer;
+    
+    @Autowired
+    public HistoryStore(
+            ObjectMapper objectMapper,
+            @Value("${history.enabled:false}") boolean enabled,
+            @Value("${history.path:data/history}") String path,
+            @Value("${history.segment-size-mb:64}") int segmentSizeMb,
+            @Value("${history.retention-days:30}") int retentionDays,
+            @Value("${history.max-size-mb:1024}") long maxSizeMb,
+            @Value("${history.queue-size:4096}") int queueSize,
+            @Value("${history.search.enabled:true}") boolean searchEnabled) {
+        this(objectMapper, enabled, Path.of(path), segmentBytes(segmentSizeMb), Duration.ofDays(retentionDays),
+                maxSizeMb * 1024 * 1024, queueSize, searchEnabled);
+    }
+    
+    static int segmentBytes(int segmentSizeMb) {
+        if (segmentSizeMb < 1 || segmentSizeMb > MAX_SEGMENT_SIZE_MB) {
+            throw new IllegalArgumentException("history.segment-size-mb must be between 1 and "
+                    + MAX_SEGMENT_SIZE_MB + ", was " + segmentSizeMb);
+        }
+        return segmentSizeMb * 1024 * 1024;
+    }
+    
+    HistoryStore(ObjectMapper objectMapper, boolean enabled, Path directory, int segmentBytes,
+                 Duration retention, long maxBytes, int queueSize, boolean searchEnabled) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.retention = retention;
+        this.maxBytes = maxBytes;
+        this.pending = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+        this.index = searchEnabled ? new HistoryIndex() : null;
+    }
+    
+    /**
+     * Reopens the existing segments and starts the writer.
+     */
+    @PostConstruct
+    public synchronized void start() throws IOException {
+        if (!enabled || running) {
+            return;
+        }
+        Files.createDirectories(directory);
+        recover();
+        running = true;
+        writer = new Thread(this::writeLoop, "history-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Query history initialized: path={}, segments={}, nextSequence={}",
+                directory, segments.size(), nextSequence);
+    }
+    
+    /**
+     * Stops the writer after everything already recorded has been written.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (running) {
+            running = false;
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            if (active != null) {
+                active.seal();
+                active = null;
+            }
+        } catch (IOException e) {
+            log.warn("Failed to seal history segment: {}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Queues a completed query for the history without blocking.
+     */
+    public void record(QueryRequest request, QueryResponse response) {
+        // A cache hit repeats an answer the history already holds
+        if (!enabled || response.isCached()) {
+            return;
+        }
+        HistoryEntry entry = HistoryEntry.builder()
+                .requestId(request.getRequestId())
+                .timestamp(Instant.now())
+                .query(request.getQuery())
+                .taskType(request.getTaskType())
+                .requestedModel(request.getModel())
+                .modelVersion(request.getModelVersion())
+                .model(response.getModel())
+                .originalModel(response.getOriginalModel())
+                .response(response.getResponse())
+                .cached(response.isCached())
+                .inputTokens(response.getInputTokens())
+                .outputTokens(response.getOutputTokens())
+                .responseTimeMs(response.getResponseTimeMs())
+                .build();
+        if (!pending.offer(entry)) {
+            dropped.increment();
+        }
+    }
+    
+    public Optional<HistoryEntry> get(String requestId) {
+        String key = truncate(requestId);
+        lock.readLock().lock();
+        try {
+            for (int i = segments.size() - 1; i >= 0; i--) {
+                HistorySegment segment = segments.get(i);
+                int position = segment.positionOf(key);
+                if (position >= 0) {
+                    return Optional.ofNullable(read(segment, position));
+                }
+            }
+            return Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Lists entries newest first.
+     *
+     * @param before only entries with a lower sequence number (the previous page's
+     *               {@code nextBefore}), or null to start from the newest
+     * @param since  only entries recorded at or after this time, or null
+     * @param until  only entries recorded at or before this time, or null
+     * @param limit  page size, capped at {@link #MAX_PAGE_SIZE}
+     */
+    public HistoryPage list(Long before, Instant since, Instant until, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        long cursor = before == null ? Long.MAX_VALUE : before;
+        List<HistoryEntry> entries = new ArrayList<>(pageSize);
+        Long nextBefore = null;
+        
+        lock.readLock().lock();
+        try {
+            scan:
+            for (int i = segments.size() - 1; i >= 0; i--) {
+                HistorySegment segment = segments.get(i);
+                if (segment.getBaseSequence() >= cursor) {
+                    continue;
+                }
+                int end = (int) Math.min(segment.getCount(), cursor - segment.getBaseSequence());
+                if (until != null) {
+                    end = Math.min(end, segment.countAtOrBefore(until.toEpochMilli()));
+                }
+                for (int position = end - 1; position >= 0; position--) {
+                    if (since != null && segment.timestampAt(position) < since.toEpochMilli()) {
+                        break scan;
+                    }
+                    if (entries.size() == pageSize) {
+                        nextBefore = entries.get(pageSize - 1).getSequence();
+                        break scan;
+                    }
+                    HistoryEntry entry = read(segment, position);
+                    if (entry != null) {
+                        entries.add(entry);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return HistoryPage.builder()
+                .entries(entries)
+                .nextBefore(nextBefore)
+                .build();
+    }
+    
+    /**
+     * Full-text search over the queries and responses, best matches first.
+     *
+     * @param query see {@link SearchQuery}
+     * @param limit number of hits, capped at {@link #MAX_PAGE_SIZE}
+     */
+    public HistorySearchResult search(String query, int limit) {
+        if (index == null) {
+            throw new IllegalStateException("History search is disabled");
+        }
+        HistoryIndex.SearchResult result = index.search(SearchQuery.parse(query), Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        List<HistorySearchHit> hits = new ArrayList<>(result.hits.size());
+        for (HistoryIndex.ScoredDoc hit : result.hits) {
+            HistoryEntry entry = getBySequence(hit.doc);
+            if (entry != null) {
+                hits.add(HistorySearchHit.builder()
+                        .score(hit.score)
+                        .entry(entry)
+                        .build());
+            }
+        }
+        return HistorySearchResult.builder()
+                .query(query)
+                .totalHits(result.totalHits)
+                .hits(hits)
+                .build();
+    }
+    
+    public boolean isSearchEnabled() {
+        return enabled && index != null;
+    }
+    
+    /**
+     * Deletes the oldest segments while they are past the retention period or the log is
+     * over its size budget. The segment being written is never deleted.
+     */
+    @Scheduled(
+            initialDelayString = "${history.retention.check-interval-seconds:300}",
+            fixedDelayString = "${history.retention.check-interval-seconds:300}",
+            timeUnit = TimeUnit.SECONDS)
+    public void enforceRetention() {
+        long cutoff = System.currentTimeMillis() - retention.toMillis();
+        int removed = 0;
+        long firstSequence;
+        lock.writeLock().lock();
+        try {
+            long totalBytes = getSizeBytes();
+            while (!segments.isEmpty() && segments.get(0) != active) {
+                HistorySegment oldest = segments.get(0);
+                if (oldest.getLastTimestamp() >= cutoff && totalBytes <= maxBytes) {
+                    break;
+                }
+                try {
+                    oldest.delete();
+                } catch (IOException e) {
+                    log.warn("Failed to delete history segment {}: {}", oldest.getPath(), e.getMessage());
+                    break;
+                }
+                segments.remove(0);
+                totalBytes -= oldest.getSizeBytes();
+                removed++;
+            }
+            firstSequence = segments.isEmpty() ? nextSequence : segments.get(0).getBaseSequence();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (removed > 0) {
+            if (index != null) {
+                index.removeBefore(firstSequence);
+            }
+            log.info("Removed {} expired history segments", removed);
+        }
+    }
+    
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+    
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("llm.history.dropped", dropped, LongAdder::sum)
+                .description("History entries dropped because the writer fell behind")
+                .register(registry);
+        Gauge.builder("llm.history.size", this, HistoryStore::getSizeBytesLocked)
+                .description("Disk space used by the query history")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        if (index != null) {
+            Gauge.builder("llm.history.index.size", index, HistoryIndex::getSizeBytes)
+                    .description("Memory used by the compressed posting lists of the history search index")
+                    .baseUnit(BaseUnits.BYTES)
+                    .register(registry);
+        }
+    }
+    
+    /**
+     * Writes every queued entry.
+     *
+     * @return the number of entries taken from the queue
+     */
+    int drain() {
+        int drained = 0;
+        HistoryEntry entry;
+        while ((entry = pending.poll()) != null) {
+            append(entry);
+            drained++;
+        }
+        return drained;
+    }
+    
+    private void writeLoop() {
+        while (running || !pending.isEmpty()) {
+            try {
+                HistoryEntry entry = pending.poll(IDLE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+                if (entry == null) {
+                    flush();
+                    continue;
+                }
+                append(entry);
+                drain();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.warn("History writer error: {}", e.getMessage());
+            }
+        }
+    }
+    
+    private void append(HistoryEntry entry) {
+        // Timestamps are made non-decreasing so each segment's time index stays sorted
+        long timestamp = Math.max(lastTimestamp, entry.getTimestamp().toEpochMilli());
+        entry.setTimestamp(Instant.ofEpochMilli(timestamp));
+        entry.setSequence(nextSequence);
+        byte[] requestId = requestIdBytes(entry.getRequestId());
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(entry);
+        } catch (IOException e) {
+            log.warn("Failed to serialize history entry {}: {}", entry.getRequestId(), e.getMessage());
+            return;
+        }
+        
+        lock.writeLock().lock();
+        try {
+            if (active == null || !active.append(timestamp, requestId, payload)) {
+                if (HistorySegment.RECORD_HEADER_BYTES + requestId.length + payload.length + Integer.BYTES > segmentBytes) {
+                    log.warn("History entry {} of {} bytes does not fit in a segment", entry.getRequestId(), payload.length);
+                    dropped.increment();
+                    return;
+                }
+                roll();
+                active.append(timestamp, requestId, payload);
+            }
+            nextSequence++;
+            lastTimestamp = timestamp;
+            dirty = true;
+        } catch (IOException e) {
+            log.warn("Failed to open history segment in {}: {}", directory, e.getMessage());
+            dropped.increment();
+            return;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (index != null) {
+            index.add(entry.getSequence(), entry.getQuery(), entry.getResponse());
+        }
+    }
+    
+    private void roll() throws IOException {
+        if (active != null) {
+            active.seal();
+            active = null;
+        }
+        active = HistorySegment.create(directory, nextSequence, segmentBytes);
+        segments.add(active);
+    }
+    
+    private void flush() {
+        if (!dirty) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            if (active != null) {
+                active.force();
+            }
+            dirty = false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(HistorySegment::isSegmentFile).sorted().toList();
+        }
+        for (Path file : files) {
+            try {
+                HistorySegment segment = HistorySegment.open(file);
+                if (segment.getCount() == 0) {
+                    segment.delete();
+                    continue;
+                }
+                segments.add(segment);
+                nextSequence = segment.getBaseSequence() + segment.getCount();
+                lastTimestamp = segment.getLastTimestamp();
+            } catch (IOException e) {
+                log.warn("Skipping unreadable history segment {}: {}", file, e.getMessage());
+            }
+        }
+        if (index != null && !segments.isEmpty()) {
+            long startTime = System.nanoTime();
+            for (HistorySegment segment : segments) {
+                for (int position = 0; position < segment.getCount(); position++) {
+                    HistoryEntry entry = read(segment, position);
+                    if (entry != null) {
+                        index.add(segment.getBaseSequence() + position, entry.getQuery(), entry.getResponse());
+                    }
+                }
+            }
+            log.info("Indexed {} history entries for search in {}ms",
+                    index.getDocumentCount(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        }
+    }
+    
+    private HistoryEntry read(HistorySegment segment, int position) {
+        try {
+            return objectMapper.readValue(new ByteBufferBackedInputStream(segment.payload(position)), HistoryEntry.class);
+        } catch (IOException e) {
+            log.warn("Corrupt history entry {} in {}: {}",
+                    segment.getBaseSequence() + position, segment.getPath(), e.getMessage());
+            return null;
+        }
+    }
+    
+    private HistoryEntry getBySequence(long sequence) {
+        lock.readLock().lock();
+        try {
+            int low = 0;
+            int high = segments.size() - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                HistorySegment segment = segments.get(mid);
+                if (sequence < segment.getBaseSequence()) {
+                    high = mid - 1;
+                } else if (sequence >= segment.getBaseSequence() + segment.getCount()) {
+                    low = mid + 1;
+                } else {
+                    return read(segment, (int) (sequence - segment.getBaseSequence()));
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private long getSizeBytes() {
+        long total = 0;
+        for (HistorySegment segment : segments) {
+            total += segment.getSizeBytes();
+        }
+        return total;
+    }
+    
+    private long getSizeBytesLocked() {
+        lock.readLock().lock();
+        try {
+            return getSizeBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private static byte[] requestIdBytes(String requestId) {
+        return requestId == null ? new byte[0] : truncate(requestId).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static String truncate(String requestId) {
+        return requestId.length() > MAX_REQUEST_ID_CHARS ? requestId.substring(0, MAX_REQUEST_ID_CHARS) : requestId;
+    }
+}
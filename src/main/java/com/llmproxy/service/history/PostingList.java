@@ -0,0 +1,188 @@
+package com.llmproxy.service.history;
+
+import java.util.Arrays;
+
+/**
+ * The documents (history sequence numbers) containing one term, with the positions of the
+ * term in each, compressed into a growable byte array. Documents arrive in increasing
+ * order, so each is stored as a variable-length delta from the previous one, followed by
+ * its term frequency, the byte length of its positions and the variable-length deltas
+ * between positions. The byte length lets searches skip positions they do not need.
+ *
+ * <p>The list is only ever appended to, and a full array is replaced rather than
+ * overwritten, so a {@link #snapshot()} taken under the index lock can be read after the
+ * lock is released while the writer keeps adding documents.
+ */
+final class PostingList {
+    private byte[] data = new byte[16];
+    private int size;
+    private long lastDoc;
+    private int documentFrequency;
+    
+    void add(long doc, int[] positions, int count) {
+        int positionBytes = 0;
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            positionBytes += varLongLength(positions[i] - previous);
+            previous = positions[i];
+        }
+        ensureCapacity(10 + 5 + 5 + positionBytes);
+        writeVarLong(doc - lastDoc);
+        writeVarLong(count);
+        writeVarLong(positionBytes);
+        previous = 0;
+        for (int i = 0; i < count; i++) {
+            writeVarLong(positions[i] - previous);
+            previous = positions[i];
+        }
+        lastDoc = doc;
+        documentFrequency++;
+    }
+    
+    int getSizeBytes() {
+        return size;
+    }
+    
+    /**
+     * The documents added so far, readable without holding the index lock.
+     */
+    Snapshot snapshot() {
+        return new Snapshot(data, documentFrequency);
+    }
+    
+    Decoded decode() {
+        return snapshot().decode();
+    }
+    
+    /**
+     * @return the list without the documents before {@code firstDoc}, or null if none remain
+     */
+    PostingList retainFrom(long firstDoc) {
+        if (lastDoc < firstDoc) {
+            return null;
+        }
+        Decoded decoded = decode();
+        if (decoded.docs[0] >= firstDoc) {
+            return this;
+        }
+        PostingList retained = new PostingList();
+        for (int i = 0; i < decoded.docs.length; i++) {
+            if (decoded.docs[i] >= firstDoc) {
+                retained.add(decoded.docs[i], decoded.positions(i), decoded.frequencies[i]);
+            }
+        }
+        return retained;
+    }
+    
+    private void ensureCapacity(int additional) {
+        if (size + additional > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, size + additional));
+        }
+    }
+    
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            data[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[size++] = (byte) value;
+    }
+    
+    private static int varLongLength(long value) {
+        int length = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+    
+    private static long readVarLong(byte[] data, int[] offset) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[offset[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+    
+    static final class Snapshot {
+        private final byte[] data;
+        private final int documentFrequency;
+        
+        private Snapshot(byte[] data, int documentFrequency) {
+            this.data = data;
+            this.documentFrequency = documentFrequency;
+        }
+        
+        /**
+         * Reads the documents and term frequencies, skipping over the positions.
+         */
+        Decoded decode() {
+            long[] docs = new long[documentFrequency];
+            int[] frequencies = new int[documentFrequency];
+            int[] positionOffsets = new int[documentFrequency];
+            int[] offset = {0};
+            long doc = 0;
+            for (int i = 0; i < documentFrequency; i++) {
+                doc += readVarLong(data, offset);
+                frequencies[i] = (int) readVarLong(data, offset);
+                int positionBytes = (int) readVarLong(data, offset);
+                docs[i] = doc;
+                positionOffsets[i] = offset[0];
+                offset[0] += positionBytes;
+            }
+            return new Decoded(data, docs, frequencies, positionOffsets);
+        }
+    }
+    
+    /**
+     * A posting list expanded for one search: documents in increasing order with their
+     * term frequencies. Positions are only decoded when asked for.
+     */
+    static final class Decoded {
+        static final Decoded EMPTY = new Decoded(new byte[0], new long[0], new int[0], new int[0]);
+        
+        private final byte[] data;
+        final long[] docs;
+        final int[] frequencies;
+        private final int[] positionOffsets;
+        
+        private Decoded(byte[] data, long[] docs, int[] frequencies, int[] positionOffsets) {
+            this.data = data;
+            this.docs = docs;
+            this.frequencies = frequencies;
+            this.positionOffsets = positionOffsets;
+        }
+        
+        /**
+         * @return how often the term occurs in {@code doc}, 0 if it does not
+         */
+        int frequencyIn(long doc) {
+            int i = Arrays.binarySearch(docs, doc);
+            return i >= 0 ? frequencies[i] : 0;
+        }
+        
+        /**
+         * @return the positions of the term in {@code doc}, or null if it does not occur
+         */
+        int[] positionsIn(long doc) {
+            int i = Arrays.binarySearch(docs, doc);
+            return i >= 0 ? positions(i) : null;
+        }
+        
+        int[] positions(int index) {
+            int[] positions = new int[frequencies[index]];
+            int[] offset = {positionOffsets[index]};
+            int position = 0;
+            for (int j = 0; j < positions.length; j++) {
+                position += (int) readVarLong(data, offset);
+                positions[j] = position;
+            }
+            return positions;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.llmproxy.service.history;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A parsed history search: alternatives separated by {@code OR}, each a conjunction of
+ * terms and {@code "quoted phrases"}. A leading {@code -} or {@code NOT} excludes the
+ * following term or phrase; {@code AND} is implied and may be omitted.
+ *
+ * <pre>
+ * timeout retry               both terms
+ * "rate limit" OR throttling  the phrase, or the term
+ * kubernetes -helm            kubernetes but not helm
+ * </pre>
+ */
+final class SearchQuery {
+    private final List<List<Clause>> alternatives;
+    
+    private SearchQuery(List<List<Clause>> alternatives) {
+        this.alternatives = alternatives;
+    }
+    
+    static SearchQuery parse(String query) {
+        List<List<Clause>> alternatives = new ArrayList<>();
+        List<Clause> current = new ArrayList<>();
+        boolean negated = false;
+        int i = 0;
+        int length = query.length();
+        while (i < length) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (c == '-') {
+                negated = true;
+                i++;
+                continue;
+            }
+            
+            String text;
+            boolean quoted = c == '"';
+            if (quoted) {
+                int end = query.indexOf('"', i + 1);
+                if (end < 0) {
+                    end = length;
+                }
+                text = query.substring(i + 1, end);
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < length && !Character.isWhitespace(query.charAt(end))) {
+                    end++;
+                }
+                text = query.substring(i, end);
+                i = end;
+            }
+            
+            if (!quoted && text.equals("OR")) {
+                if (!current.isEmpty()) {
+                    alternatives.add(current);
+                    current = new ArrayList<>();
+                }
+                negated = false;
+            } else if (!quoted && text.equals("AND")) {
+                negated = false;
+            } else if (!quoted && text.equals("NOT")) {
+                negated = true;
+            } else {
+                List<String> terms = HistoryIndex.tokenize(text);
+                if (!terms.isEmpty()) {
+                    current.add(new Clause(terms, negated));
+                }
+                negated = false;
+            }
+        }
+        if (!current.isEmpty()) {
+            alternatives.add(current);
+        }
+        return new SearchQuery(alternatives);
+    }
+    
+    List<List<Clause>> getAlternatives() {
+        return alternatives;
+    }
+    
+    /**
+     * A term, or a phrase of consecutive terms, that must (or, if negated, must not) occur.
+     */
+    static final class Clause {
+        private final List<String> terms;
+        private final boolean negated;
+        
+        Clause(List<String> terms, boolean negated) {
+            this.terms = terms;
+            this.negated = negated;
+        }
+        
+        List<String> getTerms() {
+            return terms;
+        }
+        
+        boolean isNegated() {
+            return negated;
+        }
+    }
+}
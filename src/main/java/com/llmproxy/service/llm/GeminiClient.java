@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.llmproxy.exception.ModelError;
+import com.llmproxy.model.ModelSpec;
 import com.llmproxy.model.ModelType;
 import io.github.resilience4j.retry.annotation.Retry;
 import lombok.RequiredArgsConstructor;
@@ -17,21 +18,26 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 
+import java.io.IOException;
 import java.time.Instant;
 
 @Service
 @RequiredArgsConstructor
 public class GeminiClient implements LlmClient {
     private static final Logger logger = LoggerFactory.getLogger(GeminiClient.class);
-    private static final String API_URL = "https://generativelanguage.googleapis.com/v1/models/";
     
     @Value("${api.gemini.key}")
     private String apiKey;
     
+    @Value("${api.gemini.base-url:https://generativelanguage.googleapis.com}")
+    private String baseUrl;
+    
     private final ObjectMapper objectMapper;
     private final ModelVersionValidator modelVersionValidator;
     private final TokenEstimator tokenEstimator;
+    private final UpstreamRateLimiter upstreamRateLimiter;
     private final RestClient restClient;
+    private final ProviderSimulator simulator;
     
     @Override
     public ModelType getModelType() {
@@ -41,51 +47,37 @@ public class GeminiClient implements LlmClient {
     @Override
     @Retry(name = "llmRetry")
     public QueryResult query(String query, String modelVersion) {
-        if (apiKey == null || apiKey.isEmpty()) {
+        if (!simulator.isEnabled() && (apiKey == null || apiKey.isEmpty())) {
             throw ModelError.apiKeyMissingError(ModelType.GEMINI.toString());
         }
         
         long startTime = Instant.now().toEpochMilli();
-        String validModelVersion = modelVersionValidator.validateModelVersion(ModelType.GEMINI, modelVersion);
+        ModelSpec spec = modelVersionValidator.resolveModelSpec(ModelType.GEMINI, modelVersion);
+        String validModelVersion = spec.getVersion();
         
         QueryResult result = QueryResult.builder()
                 .numRetries(0)
                 .build();
         
-        if (apiKey.startsWith("test_")) {
-            logger.info("Using test Gemini key, returning simulated response");
-            
+        if (!upstreamRateLimiter.tryAcquire(spec)) {
+            throw ModelError.rateLimitError(ModelType.GEMINI.toString());
+        }
+        
+        if (simulator.isEnabled()) {
             try {
-                Thread.sleep(300);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+                simulator.complete(ModelType.GEMINI, query, spec, result);
+            } finally {
+                result.setResponseTimeMs(Instant.now().toEpochMilli() - startTime);
             }
-            
-            String response = "This is a simulated response for testing purposes. The actual Gemini model is currently unavailable.";
-            result.setStatusCode(HttpStatus.OK.value());
-            result.setResponse(response);
-            tokenEstimator.estimateTokens(result, query, response);
-            result.setResponseTimeMs(Instant.now().toEpochMilli() - startTime);
-            
             return result;
         }
         
         try {
-            ObjectNode requestBody = objectMapper.createObjectNode();
-            
-            ObjectNode contents = requestBody.putObject("contents");
-            ArrayNode parts = contents.putArray("parts");
-            ObjectNode part = parts.addObject();
-            part.put("text", query);
-            
-            requestBody.put("temperature", 0.7);
-            requestBody.put("maxOutputTokens", 150);
-            
-            String fullUrl = API_URL + validModelVersion + ":generateContent?key=" + apiKey;
+            String fullUrl = baseUrl + "/v1/models/" + validModelVersion + ":generateContent?key=" + apiKey;
             String responseBody = restClient.post()
                 .uri(fullUrl)
                 .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                .body(requestBody.toString())
+                .body(buildRequestBody(query, spec))
                 .retrieve()
                 .onStatus(status -> status.equals(HttpStatus.TOO_MANY_REQUESTS), 
                     (request, response) -> { throw ModelError.rateLimitError(ModelType.GEMINI.toString()); })
@@ -103,32 +95,8 @@ public class GeminiClient implements LlmClient {
                     })
                 .body(String.class);
             
-            JsonNode responseNode = objectMapper.readTree(responseBody);
-            JsonNode candidatesNode = responseNode.path("candidates");
-            
-            if (candidatesNode.isEmpty()) {
-                throw ModelError.emptyResponseError(ModelType.GEMINI.toString());
-            }
-            
-            String responseText = candidatesNode.path(0).path("content").path("parts").path(0).path("text").asText();
-            
-            result.setResponse(responseText);
-            result.setStatusCode(HttpStatus.OK.value());
-            
-            JsonNode usageNode = responseNode.path("usageMetadata");
-            if (!usageNode.isMissingNode()) {
-                int promptTokens = usageNode.path("promptTokenCount").asInt(0);
-                int completionTokens = usageNode.path("candidatesTokenCount").asInt(0);
-                int totalTokens = promptTokens + completionTokens;
-                
-                result.setInputTokens(promptTokens);
-                result.setOutputTokens(completionTokens);
-                result.setTotalTokens(totalTokens);
-                result.setNumTokens(totalTokens); // For backward compatibility
-            } else {
-                tokenEstimator.estimateTokens(result, query, responseText);
-            }
-            
+            parseResponse(query, responseBody, result);
+        
         } catch (ModelError e) {
             throw e;
         } catch (Exception e) {
@@ -141,19 +109,59 @@ public class GeminiClient implements LlmClient {
         return result;
     }
     
+    String buildRequestBody(String query, ModelSpec spec) {
+        ObjectNode requestBody = objectMapper.createObjectNode();
+        
+        ObjectNode contents = requestBody.putObject("contents");
+        ArrayNode parts = contents.putArray("parts");
+        ObjectNode part = parts.addObject();
+        part.put("text", query);
+        
+        requestBody.put("temperature", spec.getTemperature());
+        requestBody.put("maxOutputTokens", spec.getMaxOutputTokens());
+        return requestBody.toString();
+    }
+    
+    void parseResponse(String query, String responseBody, QueryResult result) throws IOException {
+        JsonNode responseNode = objectMapper.readTree(responseBody);
+        JsonNode candidatesNode = responseNode.path("candidates");
+        
+        if (candidatesNode.isEmpty()) {
+            throw ModelError.emptyResponseError(ModelType.GEMINI.toString());
+        }
+        
+        String responseText = candidatesNode.path(0).path("content").path("parts").path(0).path("text").asText();
+        
+        result.setResponse(responseText);
+        result.setStatusCode(HttpStatus.OK.value());
+        
+        JsonNode usageNode = responseNode.path("usageMetadata");
+        if (!usageNode.isMissingNode()) {
+            int promptTokens = usageNode.path("promptTokenCount").asInt(0);
+            int completionTokens = usageNode.path("candidatesTokenCount").asInt(0);
+            int totalTokens = promptTokens + completionTokens;
+            
+            result.setInputTokens(promptTokens);
+            result.setOutputTokens(completionTokens);
+            result.setTotalTokens(totalTokens);
+            result.setNumTokens(totalTokens); // For backward compatibility
+        } else {
+            tokenEstimator.estimateTokens(result, query, responseText, ModelType.GEMINI);
+        }
+    }
+    
     @Override
     public boolean checkAvailability() {
-        if (apiKey == null || apiKey.isEmpty()) {
-            return false;
+        if (simulator.isEnabled()) {
+            return true;
         }
         
-        if (apiKey.startsWith("test_")) {
-            logger.info("Using test Gemini key, assuming service is available");
-            return true;
+        if (apiKey == null || apiKey.isEmpty()) {
+            return false;
         }
         
         try {
-            String url = API_URL + "?key=" + apiKey;
+            String url = baseUrl + "/v1/models/?key=" + apiKey;
             restClient.get()
                 .uri(url)
                 .retrieve()
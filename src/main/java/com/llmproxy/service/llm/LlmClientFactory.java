@@ -4,20 +4,26 @@ import com.llmproxy.exception.ModelError;
 import com.llmproxy.model.ModelType;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Registry of the {@link LlmClient} beans, one per {@link ModelType}. A provider is added
+ * by declaring another client bean; nothing here needs to change.
+ */
 @Service
 public class LlmClientFactory {
-    private final Map<ModelType, LlmClient> clients;
+    private final Map<ModelType, LlmClient> clients = new EnumMap<>(ModelType.class);
     
-    public LlmClientFactory(OpenAiClient openAiClient, GeminiClient geminiClient, 
-                           MistralClient mistralClient, ClaudeClient claudeClient) {
-        clients = new HashMap<>();
-        clients.put(ModelType.OPENAI, openAiClient);
-        clients.put(ModelType.GEMINI, geminiClient);
-        clients.put(ModelType.MISTRAL, mistralClient);
-        clients.put(ModelType.CLAUDE, claudeClient);
+    public LlmClientFactory(List<LlmClient> clients) {
+        for (LlmClient client : clients) {
+            LlmClient previous = this.clients.putIfAbsent(client.getModelType(), client);
+            if (previous != null) {
+                throw new IllegalStateException("Both " + previous.getClass().getSimpleName() + " and "
+                        + client.getClass().getSimpleName() + " serve model " + client.getModelType());
+            }
+        }
     }
     
     public LlmClient getClient(ModelType modelType) {
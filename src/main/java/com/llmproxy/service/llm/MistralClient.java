@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.llmproxy.exception.ModelError;
+import com.llmproxy.model.ModelSpec;
 import com.llmproxy.model.ModelType;
 import io.github.resilience4j.retry.annotation.Retry;
 import lombok.RequiredArgsConstructor;
@@ -17,21 +18,26 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 
+import java.io.IOException;
 import java.time.Instant;
 
 @Service
 @RequiredArgsConstructor
 public class MistralClient implements LlmClient {
     private static final Logger logger = LoggerFactory.getLogger(MistralClient.class);
-    private static final String API_URL = "https://api.mistral.ai/v1/chat/completions";
     
     @Value("${api.mistral.key}")
     private String apiKey;
     
+    @Value("${api.mistral.base-url:https://api.mistral.ai}")
+    private String baseUrl;
+    
     private final ObjectMapper objectMapper;
     private final ModelVersionValidator modelVersionValidator;
     private final TokenEstimator tokenEstimator;
+    private final UpstreamRateLimiter upstreamRateLimiter;
     private final RestClient restClient;
+    private final ProviderSimulator simulator;
     
     @Override
     public ModelType getModelType() {
@@ -41,51 +47,36 @@ public class MistralClient implements LlmClient {
     @Override
     @Retry(name = "llmRetry")
     public QueryResult query(String query, String modelVersion) {
-        if (apiKey == null || apiKey.isEmpty()) {
+        if (!simulator.isEnabled() && (apiKey == null || apiKey.isEmpty())) {
             throw ModelError.apiKeyMissingError(ModelType.MISTRAL.toString());
         }
         
         long startTime = Instant.now().toEpochMilli();
-        String validModelVersion = modelVersionValidator.validateModelVersion(ModelType.MISTRAL, modelVersion);
+        ModelSpec spec = modelVersionValidator.resolveModelSpec(ModelType.MISTRAL, modelVersion);
         
         QueryResult result = QueryResult.builder()
                 .numRetries(0)
                 .build();
         
-        if (apiKey.startsWith("test_")) {
-            logger.info("Using test Mistral key, returning simulated response");
-            
+        if (!upstreamRateLimiter.tryAcquire(spec)) {
+            throw ModelError.rateLimitError(ModelType.MISTRAL.toString());
+        }
+        
+        if (simulator.isEnabled()) {
             try {
-                Thread.sleep(300);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+                simulator.complete(ModelType.MISTRAL, query, spec, result);
+            } finally {
+                result.setResponseTimeMs(Instant.now().toEpochMilli() - startTime);
             }
-            
-            String response = "This is a simulated response for testing purposes. The actual Mistral model is currently unavailable.";
-            result.setStatusCode(HttpStatus.OK.value());
-            result.setResponse(response);
-            tokenEstimator.estimateTokens(result, query, response);
-            result.setResponseTimeMs(Instant.now().toEpochMilli() - startTime);
-            
             return result;
         }
         
         try {
-            ObjectNode requestBody = objectMapper.createObjectNode();
-            requestBody.put("model", validModelVersion);
-            requestBody.put("temperature", 0.7);
-            requestBody.put("max_tokens", 150);
-            
-            ArrayNode messages = requestBody.putArray("messages");
-            ObjectNode message = messages.addObject();
-            message.put("role", "user");
-            message.put("content", query);
-            
             String responseBody = restClient.post()
-                .uri(API_URL)
+                .uri(baseUrl + "/v1/chat/completions")
                 .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
                 .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
-                .body(requestBody.toString())
+                .body(buildRequestBody(query, spec))
                 .retrieve()
                 .onStatus(status -> status.equals(HttpStatus.TOO_MANY_REQUESTS), 
                     (request, response) -> { throw ModelError.rateLimitError(ModelType.MISTRAL.toString()); })
@@ -103,27 +94,8 @@ public class MistralClient implements LlmClient {
                     })
                 .body(String.class);
             
-            JsonNode responseNode = objectMapper.readTree(responseBody);
-            JsonNode choicesNode = responseNode.path("choices");
-            
-            if (choicesNode.isEmpty()) {
-                throw ModelError.emptyResponseError(ModelType.MISTRAL.toString());
-            }
-            
-            String responseText = choicesNode.path(0).path("message").path("content").asText();
-            
-            JsonNode usageNode = responseNode.path("usage");
-            int promptTokens = usageNode.path("prompt_tokens").asInt(0);
-            int completionTokens = usageNode.path("completion_tokens").asInt(0);
-            int totalTokens = usageNode.path("total_tokens").asInt(0);
-            
-            result.setResponse(responseText);
-            result.setStatusCode(HttpStatus.OK.value());
-            result.setInputTokens(promptTokens);
-            result.setOutputTokens(completionTokens);
-            result.setTotalTokens(totalTokens);
-            result.setNumTokens(totalTokens); // For backward compatibility
-            
+            parseResponse(responseBody, result);
+        
         } catch (ModelError e) {
             throw e;
         } catch (Exception e) {
@@ -136,20 +108,55 @@ public class MistralClient implements LlmClient {
         return result;
     }
     
+    String buildRequestBody(String query, ModelSpec spec) {
+        ObjectNode requestBody = objectMapper.createObjectNode();
+        requestBody.put("model", spec.getVersion());
+        requestBody.put("temperature", spec.getTemperature());
+        requestBody.put("max_tokens", spec.getMaxOutputTokens());
+        
+        ArrayNode messages = requestBody.putArray("messages");
+        ObjectNode message = messages.addObject();
+        message.put("role", "user");
+        message.put("content", query);
+        return requestBody.toString();
+    }
+    
+    void parseResponse(String responseBody, QueryResult result) throws IOException {
+        JsonNode responseNode = objectMapper.readTree(responseBody);
+        JsonNode choicesNode = responseNode.path("choices");
+        
+        if (choicesNode.isEmpty()) {
+            throw ModelError.emptyResponseError(ModelType.MISTRAL.toString());
+        }
+        
+        String responseText = choicesNode.path(0).path("message").path("content").asText();
+        
+        JsonNode usageNode = responseNode.path("usage");
+        int promptTokens = usageNode.path("prompt_tokens").asInt(0);
+        int completionTokens = usageNode.path("completion_tokens").asInt(0);
+        int totalTokens = usageNode.path("total_tokens").asInt(0);
+        
+        result.setResponse(responseText);
+        result.setStatusCode(HttpStatus.OK.value());
+        result.setInputTokens(promptTokens);
+        result.setOutputTokens(completionTokens);
+        result.setTotalTokens(totalTokens);
+        result.setNumTokens(totalTokens); // For backward compatibility
+    }
+    
     @Override
     public boolean checkAvailability() {
-        if (apiKey == null || apiKey.isEmpty()) {
-            return false;
+        if (simulator.isEnabled()) {
+            return true;
         }
         
-        if (apiKey.startsWith("test_")) {
-            logger.info("Using test Mistral key, assuming service is available");
-            return true;
+        if (apiKey == null || apiKey.isEmpty()) {
+            return false;
         }
         
         try {
             restClient.get()
-                .uri("https://api.mistral.ai/v1/models")
+                .uri(baseUrl + "/v1/models")
                 .header(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey)
                 .retrieve()
                 .toBodilessEntity();
@@ -0,0 +1,225 @@
+package com.llmproxy.service.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llmproxy.model.ModelSpec;
+import com.llmproxy.model.ModelType;
+import com.llmproxy.model.TaskType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The model versions the proxy may call, with their context windows, prices, default
+ * parameters and upstream rate limits.
+ *
+ * <p>The catalog is a JSON file (see {@code model-catalog.json} on the classpath for the
+ * bundled one and its format). When {@code model-catalog.path} points at a file, that file
+ * is polled for changes and reloaded without a restart; a file that fails to parse or
+ * validate is logged and ignored, and the previous catalog stays in effect. Lookups go
+ * against an immutable snapshot that is swapped in one step, so a request never sees a
+ * half-loaded catalog.
+ */
+@Component
+@Slf4j
+public class ModelCatalog {
+    private static final String BUNDLED_CATALOG = "model-catalog.json";
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path path;
+    private volatile Snapshot snapshot;
+    private volatile FileTime lastModified;
+    
+    public ModelCatalog() {
+        this("");
+    }
+    
+    @Autowired
+    public ModelCatalog(@Value("${model-catalog.path:}") String path) {
+        this.path = path == null || path.isBlank() ? null : Path.of(path);
+        if (this.path != null && Files.isRegularFile(this.path)) {
+            try {
+                this.lastModified = Files.getLastModifiedTime(this.path);
+                this.snapshot = parse(Files.readAllBytes(this.path));
+                log.info("Loaded model catalog {} with {} versions", this.path, snapshot.specs.size());
+                return;
+            } catch (IOException | IllegalArgumentException e) {
+                throw new IllegalStateException("Invalid model catalog " + this.path + ": " + e.getMessage(), e);
+            }
+        }
+        
+        if (this.path != null) {
+            log.warn("Model catalog {} not found, using the bundled catalog until it appears", this.path);
+        }
+        try (InputStream in = ModelCatalog.class.getClassLoader().getResourceAsStream(BUNDLED_CATALOG)) {
+            if (in == null) {
+                throw new IllegalStateException("Bundled model catalog " + BUNDLED_CATALOG + " is missing");
+            }
+            this.snapshot = parse(in.readAllBytes());
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid bundled model catalog: " + e.getMessage(), e);
+        }
+    }
+    
+    @Scheduled(
+            initialDelayString = "${model-catalog.reload-interval-seconds:10}",
+            fixedDelayString = "${model-catalog.reload-interval-seconds:10}",
+            timeUnit = TimeUnit.SECONDS)
+    public void scheduledReload() {
+        reload();
+    }
+    
+    /**
+     * Reloads the catalog file if it changed since it was last read.
+     *
+     * @return whether a new catalog was swapped in
+     */
+    public boolean reload() {
+        if (path == null || !Files.isRegularFile(path)) {
+            return false;
+        }
+        
+        FileTime modified;
+        try {
+            modified = Files.getLastModifiedTime(path);
+            if (modified.equals(lastModified)) {
+                return false;
+            }
+        } catch (IOException e) {
+            log.warn("Failed to check model catalog {}: {}", path, e.getMessage());
+            return false;
+        }
+        
+        // Remember the attempt even if it fails so a broken file is reported once, not every poll
+        lastModified = modified;
+        try {
+            Snapshot loaded = parse(Files.readAllBytes(path));
+            snapshot = loaded;
+            log.info("Reloaded model catalog {} with {} versions", path, loaded.specs.size());
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Failed to reload model catalog {}, keeping the previous one: {}", path, e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * @return the spec of {@code version} if it belongs to {@code modelType}, otherwise
+     *         the spec of the family's default version
+     */
+    public ModelSpec resolve(ModelType modelType, String version) {
+        Snapshot current = snapshot;
+        ModelSpec spec = version == null ? null : current.specs.get(version);
+        if (spec != null && spec.getModelType() == modelType) {
+            return spec;
+        }
+        return current.specs.get(current.defaultVersions.get(modelType));
+    }
+    
+    /**
+     * @return the spec of {@code version}, or null if the catalog does not list it
+     */
+    public ModelSpec getSpec(String version) {
+        return version == null ? null : snapshot.specs.get(version);
+    }
+    
+    public String getDefaultVersion(ModelType modelType) {
+        return snapshot.defaultVersions.get(modelType);
+    }
+    
+    public List<String> getVersions(ModelType modelType) {
+        return snapshot.versions.getOrDefault(modelType, List.of());
+    }
+    
+    /**
+     * @return the model family preferred for a task type, or null if there is none
+     */
+    public ModelType getPreferredModel(TaskType taskType) {
+        return snapshot.taskRouting.get(taskType);
+    }
+    
+    public List<ModelSpec> getSpecs() {
+        return Collections.unmodifiableList(snapshot.ordered);
+    }
+    
+    private Snapshot parse(byte[] json) throws IOException {
+        JsonNode root = objectMapper.readTree(json);
+        JsonNode families = root.path("families");
+        Snapshot parsed = new Snapshot();
+        
+        for (ModelType modelType : ModelType.values()) {
+            JsonNode family = families.path(modelType.name());
+            if (family.isMissingNode()) {
+                throw new IllegalArgumentException("No versions for model " + modelType.name());
+            }
+            
+            List<String> versions = new ArrayList<>();
+            for (JsonNode node : family.path("versions")) {
+                ModelSpec spec = objectMapper.treeToValue(node, ModelSpec.class);
+                spec.setModelType(modelType);
+                validate(spec);
+                if (parsed.specs.putIfAbsent(spec.getVersion(), spec) != null) {
+                    throw new IllegalArgumentException("Duplicate model version " + spec.getVersion());
+                }
+                versions.add(spec.getVersion());
+                parsed.ordered.add(spec);
+            }
+            
+            String defaultVersion = family.path("defaultVersion").asText(null);
+            if (!versions.contains(defaultVersion)) {
+                throw new IllegalArgumentException("Default version " + defaultVersion
+                        + " of " + modelType.name() + " is not among its versions");
+            }
+            parsed.versions.put(modelType, Collections.unmodifiableList(versions));
+            parsed.defaultVersions.put(modelType, defaultVersion);
+        }
+        
+        Iterator<Map.Entry<String, JsonNode>> routes = root.path("taskRouting").fields();
+        while (routes.hasNext()) {
+            Map.Entry<String, JsonNode> route = routes.next();
+            try {
+                parsed.taskRouting.put(TaskType.valueOf(route.getKey()), ModelType.valueOf(route.getValue().asText()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid task route " + route.getKey() + " -> " + route.getValue());
+            }
+        }
+        return parsed;
+    }
+    
+    private static void validate(ModelSpec spec) {
+        if (spec.getVersion() == null || spec.getVersion().isBlank()) {
+            throw new IllegalArgumentException("Model version without a name for " + spec.getModelType().name());
+        }
+        if (spec.getContextWindow() <= 0 || spec.getMaxOutputTokens() <= 0
+                || spec.getMaxOutputTokens() >= spec.getContextWindow()) {
+            throw new IllegalArgumentException("Invalid token limits for " + spec.getVersion());
+        }
+        if (spec.getCapabilities() == null) {
+            spec.setCapabilities(Collections.emptySet());
+        }
+    }
+    
+    private static final class Snapshot {
+        private final Map<String, ModelSpec> specs = new HashMap<>();
+        private final List<ModelSpec> ordered = new ArrayList<>();
+        private final Map<ModelType, List<String>> versions = new EnumMap<>(ModelType.class);
+        private final Map<ModelType, String> defaultVersions = new EnumMap<>(ModelType.class);
+        private final Map<TaskType, ModelType> taskRouting = new EnumMap<>(TaskType.class);
+    }
+}
@@ -1,86 +1,63 @@
 package com.llmproxy.service.llm;
 
+import com.llmproxy.model.ModelSpec;
 import com.llmproxy.model.ModelType;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 @Component
 public class ModelVersionValidator {
+    // Defaults of the bundled model catalog; a catalog file may choose others
     public static final String DEFAULT_OPENAI_VERSION = "gpt-4o";
     public static final String DEFAULT_GEMINI_VERSION = "gemini-1.5-pro";
     public static final String DEFAULT_MISTRAL_VERSION = "mistral-large-latest";
     public static final String DEFAULT_CLAUDE_VERSION = "claude-3-sonnet-20240229";
+    public static final String DEFAULT_SELF_HOSTED_VERSION = "llama-3.1-8b-instruct";
     
-    private final Map<ModelType, List<String>> supportedModelVersions;
+    private final ModelCatalog modelCatalog;
     
     public ModelVersionValidator() {
-        supportedModelVersions = new HashMap<>();
-        supportedModelVersions.put(ModelType.OPENAI, List.of(
-                "gpt-4o",
-                "gpt-4o-mini",
-                "gpt-4-turbo",
-                "gpt-4",
-                "gpt-4-vision-preview",
-                "gpt-3.5-turbo",
-                "gpt-3.5-turbo-16k"
-        ));
-        supportedModelVersions.put(ModelType.GEMINI, List.of(
-                "gemini-2.5-flash-preview-04-17",
-                "gemini-2.5-pro-preview-03-25",
-                "gemini-2.0-flash",
-                "gemini-2.0-flash-lite",
-                "gemini-1.5-flash",
-                "gemini-1.5-flash-8b",
-                "gemini-1.5-pro",
-                "gemini-pro",
-                "gemini-pro-vision"
-        ));
-        supportedModelVersions.put(ModelType.MISTRAL, List.of(
-                "codestral-latest",
-                "mistral-large-latest",
-                "mistral-saba-latest",
-                "mistral-tiny",
-                "mistral-small",
-                "mistral-medium",
-                "mistral-large"
-        ));
-        supportedModelVersions.put(ModelType.CLAUDE, List.of(
-                "claude-3-opus-20240229",
-                "claude-3-sonnet-20240229",
-                "claude-3-haiku-20240307",
-                "claude-3-opus",
-                "claude-3-sonnet",
-                "claude-3-haiku",
-                "claude-2.1",
-                "claude-2.0"
-        ));
+        this(new ModelCatalog());
+    }
+    
+    @Autowired
+    public ModelVersionValidator(ModelCatalog modelCatalog) {
+        this.modelCatalog = modelCatalog;
     }
     
     public String validateModelVersion(ModelType modelType, String version) {
-        if (version == null || version.isBlank()) {
-            return getDefaultVersionForModel(modelType);
-        }
-        
-        List<String> validVersions = supportedModelVersions.get(modelType);
-        return validVersions.stream()
-                .filter(v -> v.equals(version))
-                .findFirst()
-                .orElse(getDefaultVersionForModel(modelType));
+        return resolveModelSpec(modelType, version).getVersion();
+    }
+    
+    /**
+     * @return the catalog entry for a supported version, or for the model's default version
+     */
+    public ModelSpec resolveModelSpec(ModelType modelType, String version) {
+        return modelCatalog.resolve(modelType, version == null || version.isBlank() ? null : version);
+    }
+    
+    /**
+     * @return the catalog entry for a supported version, or null if unknown
+     */
+    public ModelSpec getModelSpec(String version) {
+        return modelCatalog.getSpec(version);
+    }
+    
+    /**
+     * @return the context window of a supported version in tokens, or 0 if unknown
+     */
+    public int getContextWindow(String version) {
+        ModelSpec spec = modelCatalog.getSpec(version);
+        return spec == null ? 0 : spec.getContextWindow();
     }
     
-    private String getDefaultVersionForModel(ModelType modelType) {
-        return switch (modelType) {
-            case OPENAI -> DEFAULT_OPENAI_VERSION;
-            case GEMINI -> DEFAULT_GEMINI_VERSION;
-            case MISTRAL -> DEFAULT_MISTRAL_VERSION;
-            case CLAUDE -> DEFAULT_CLAUDE_VERSION;
-        };
+    public String getDefaultVersionForModel(ModelType modelType) {
+        return modelCatalog.getDefaultVersion(modelType);
     }
     
     public List<String> getSupportedVersionsForModel(ModelType modelType) {
-        return supportedModelVersions.getOrDefault(modelType, List.of());
+        return modelCatalog.getVersions(modelType);
     }
 }
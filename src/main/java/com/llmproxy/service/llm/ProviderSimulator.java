@@ -0,0 +1,194 @@
+package com.llmproxy.service.llm;
+
+import com.llmproxy.exception.ModelError;
+import com.llmproxy.model.ModelSpec;
+import com.llmproxy.model.ModelType;
+import com.llmproxy.service.warmup.WarmupContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * Stands in for the provider APIs when {@code simulator.enabled} is set (the {@code simulator}
+ * profile), so routing, retries, fallbacks and admission control can be exercised under
+ * realistic timing without provider calls or keys. The clients hand the simulator the request
+ * in place of the HTTP call, after upstream rate limiting.
+ *
+ * <p>Each response is timed like a streamed generation: a log-normal time to first token,
+ * then the sampled output tokens at the provider's decode rate. Faults are injected before
+ * that: a 429, a retryable 503, or a timeout after {@code timeout-ms}. Settings are read from
+ * {@code simulator.<provider>.<setting>} (e.g. {@code simulator.self-hosted.ttft-ms}), falling
+ * back to {@code simulator.<setting>} and then to the defaults of {@link Profile}.
+ */
+@Component
+@Slf4j
+public class ProviderSimulator {
+    private static final String[] WORDS = {
+            "the", "request", "was", "handled", "by", "a", "simulated", "model", "and", "this",
+            "text", "stands", "in", "for", "its", "answer", "to", "your", "question", "so"};
+    
+    private final boolean enabled;
+    private final Map<ModelType, Profile> profiles;
+    private final TokenEstimator tokenEstimator;
+    private final Supplier<RandomGenerator> random;
+    private final LongConsumer sleeper;
+    
+    @Autowired
+    public ProviderSimulator(Environment environment, TokenEstimator tokenEstimator) {
+        this(environment.getProperty("simulator.enabled", Boolean.class, false), readProfiles(environment),
+                tokenEstimator, ThreadLocalRandom::current, ProviderSimulator::sleep);
+    }
+    
+    ProviderSimulator(boolean enabled, Map<ModelType, Profile> profiles, TokenEstimator tokenEstimator,
+                      Supplier<RandomGenerator> random, LongConsumer sleeper) {
+        this.enabled = enabled;
+        this.profiles = profiles;
+        this.tokenEstimator = tokenEstimator;
+        this.random = random;
+        this.sleeper = sleeper;
+        
+        if (enabled) {
+            log.warn("Provider simulator enabled: no provider is called, responses are synthetic");
+            profiles.forEach((modelType, profile) -> log.info("Simulating {}: {}", modelType, profile));
+        }
+    }
+    
+    /**
+     * Whether the current call should be simulated: always with {@code simulator.enabled},
+     * and for the synthetic requests of the startup warm-up.
+     */
+    public boolean isEnabled() {
+        return enabled || WarmupContext.isActive();
+    }
+    
+    /**
+     * Waits as long as the provider would and fills in a synthetic response with usage, or
+     * throws the {@link ModelError} the client would have thrown for an injected fault.
+     */
+    public void complete(ModelType modelType, String query, ModelSpec spec, QueryResult result) {
+        Profile profile = profiles.get(modelType);
+        int maxOutputTokens = spec.getMaxOutputTokens() > 0 ? spec.getMaxOutputTokens() : Integer.MAX_VALUE;
+        if (WarmupContext.isActive()) {
+            // Warm-up only needs the code path, not the timing or the faults
+            fill(result, modelType, query, (int) Math.min(maxOutputTokens, Math.round(profile.outputTokens)));
+            return;
+        }
+        
+        RandomGenerator rng = random.get();
+        double fault = rng.nextDouble();
+        if (fault < profile.rateLimitRate) {
+            sleeper.accept(profile.faultLatencyMs);
+            throw ModelError.rateLimitError(modelType.toString());
+        }
+        fault -= profile.rateLimitRate;
+        if (fault < profile.errorRate) {
+            sleeper.accept(profile.faultLatencyMs);
+            throw ModelError.unavailableError(modelType.toString());
+        }
+        fault -= profile.errorRate;
+        if (fault < profile.timeoutRate) {
+            sleeper.accept(profile.timeoutMs);
+            throw ModelError.timeoutError(modelType.toString());
+        }
+        
+        int outputTokens = (int) Math.max(1, Math.min(maxOutputTokens,
+                Math.round(logNormal(rng, profile.outputTokens, profile.outputTokensSigma))));
+        long ttftMs = Math.round(logNormal(rng, profile.ttftMs, profile.ttftSigma));
+        long decodeMs = Math.round(outputTokens * 1000.0 / profile.tokensPerSecond);
+        sleeper.accept(ttftMs + decodeMs);
+        fill(result, modelType, query, outputTokens);
+    }
+    
+    private void fill(QueryResult result, ModelType modelType, String query, int outputTokens) {
+        int inputTokens = tokenEstimator.estimateTokenCount(query, modelType);
+        result.setResponse(text(outputTokens));
+        result.setStatusCode(HttpStatus.OK.value());
+        result.setInputTokens(inputTokens);
+        result.setOutputTokens(outputTokens);
+        result.setTotalTokens(inputTokens + outputTokens);
+        result.setNumTokens(result.getTotalTokens()); // For backward compatibility
+    }
+    
+    /**
+     * Samples a log-normal distribution with the given median and shape.
+     */
+    static double logNormal(RandomGenerator rng, double median, double sigma) {
+        return median * Math.exp(sigma * rng.nextGaussian());
+    }
+    
+    static String text(int words) {
+        StringBuilder text = new StringBuilder(words * 6);
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[i % WORDS.length]);
+        }
+        return text.append('.').toString();
+    }
+    
+    static Map<ModelType, Profile> readProfiles(Environment environment) {
+        Map<ModelType, Profile> profiles = new EnumMap<>(ModelType.class);
+        for (ModelType modelType : ModelType.values()) {
+            String prefix = "simulator." + modelType.getValue().replace('_', '-') + ".";
+            Profile profile = new Profile();
+            profile.ttftMs = setting(environment, prefix, "ttft-ms", profile.ttftMs);
+            profile.ttftSigma = setting(environment, prefix, "ttft-sigma", profile.ttftSigma);
+            profile.tokensPerSecond = setting(environment, prefix, "tokens-per-second", profile.tokensPerSecond);
+            profile.outputTokens = setting(environment, prefix, "output-tokens", profile.outputTokens);
+            profile.outputTokensSigma = setting(environment, prefix, "output-tokens-sigma", profile.outputTokensSigma);
+            profile.rateLimitRate = setting(environment, prefix, "rate-limit-rate", profile.rateLimitRate);
+            profile.errorRate = setting(environment, prefix, "error-rate", profile.errorRate);
+            profile.timeoutRate = setting(environment, prefix, "timeout-rate", profile.timeoutRate);
+            profile.faultLatencyMs = (long) setting(environment, prefix, "fault-latency-ms", profile.faultLatencyMs);
+            profile.timeoutMs = (long) setting(environment, prefix, "timeout-ms", profile.timeoutMs);
+            profiles.put(modelType, profile);
+        }
+        return profiles;
+    }
+    
+    private static double setting(Environment environment, String prefix, String name, double fallback) {
+        Double shared = environment.getProperty("simulator." + name, Double.class, fallback);
+        return environment.getProperty(prefix + name, Double.class, shared);
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Timing, length and fault settings of one simulated provider. Rates are probabilities
+     * per call; latencies are medians in milliseconds, spread by the log-normal sigmas.
+     */
+    static final class Profile {
+        double ttftMs = 400;
+        double ttftSigma = 0.5;
+        double tokensPerSecond = 60;
+        double outputTokens = 150;
+        double outputTokensSigma = 0.5;
+        double rateLimitRate;
+        double errorRate;
+        double timeoutRate;
+        long faultLatencyMs = 50;
+        long timeoutMs = 30_000;
+        
+        @Override
+        public String toString() {
+            return String.format("ttft=%.0fms, %.0f tokens/s, %.0f output tokens, 429=%.1f%%, 503=%.1f%%, timeout=%.1f%% after %dms",
+                    ttftMs, tokensPerSecond, outputTokens, rateLimitRate * 100, errorRate * 100, timeoutRate * 100, timeoutMs);
+        }
+    }
+}
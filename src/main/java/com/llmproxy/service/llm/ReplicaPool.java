@@ -0,0 +1,140 @@
+package com.llmproxy.service.llm;
+
+import com.llmproxy.model.ReplicaStats;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replicas of one backend, balanced by least outstanding requests.
+ *
+ * <p>Each call goes to the healthy replica with the fewest requests in flight, so a
+ * replica that slows down (long generations, a noisy neighbour on its GPU) automatically
+ * receives less work. Ties are broken from a random starting point so idle replicas
+ * share load evenly. A replica that fails a request is ejected until a health check
+ * finds it serving again.
+ */
+@Slf4j
+public class ReplicaPool {
+    private final List<Replica> replicas;
+    
+    public ReplicaPool(List<String> baseUrls) {
+        List<Replica> parsed = new ArrayList<>();
+        for (String baseUrl : baseUrls) {
+            String trimmed = baseUrl.trim();
+            if (!trimmed.isEmpty()) {
+                parsed.add(new Replica(trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed));
+            }
+        }
+        this.replicas = List.copyOf(parsed);
+    }
+    
+    /**
+     * @param baseUrls comma-separated replica base URLs, e.g. {@code http://gpu-1:8000,http://gpu-2:8000}
+     */
+    public static ReplicaPool parse(String baseUrls) {
+        return new ReplicaPool(baseUrls == null ? List.of() : Arrays.asList(baseUrls.split(",")));
+    }
+    
+    /**
+     * Picks the least loaded healthy replica and counts the request against it; the
+     * caller must {@link Replica#release release} it.
+     *
+     * @return the replica, or null if none is healthy
+     */
+    public Replica acquire() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        
+        Replica best = null;
+        int start = ThreadLocalRandom.current().nextInt(size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy && (best == null || replica.outstanding.get() < best.outstanding.get())) {
+                best = replica;
+            }
+        }
+        if (best != null) {
+            best.outstanding.incrementAndGet();
+            best.requests.incrementAndGet();
+        }
+        return best;
+    }
+    
+    public boolean hasHealthyReplica() {
+        for (Replica replica : replicas) {
+            if (replica.healthy) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+    
+    public List<ReplicaStats> getStats() {
+        List<ReplicaStats> stats = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            stats.add(ReplicaStats.builder()
+                    .baseUrl(replica.baseUrl)
+                    .healthy(replica.healthy)
+                    .outstanding(replica.outstanding.get())
+                    .requests(replica.requests.get())
+                    .failures(replica.failures.get())
+                    .build());
+        }
+        return stats;
+    }
+    
+    public static final class Replica {
+        private final String baseUrl;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private volatile boolean healthy = true;
+        
+        Replica(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+        
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+        
+        public int getOutstanding() {
+            return outstanding.get();
+        }
+        
+        public boolean isHealthy() {
+            return healthy;
+        }
+        
+        /**
+         * Ends a request started by {@link ReplicaPool#acquire()}. A failed request
+         * (connection error or server error) ejects the replica.
+         */
+        public void release(boolean succeeded) {
+            outstanding.decrementAndGet();
+            if (!succeeded) {
+                failures.incrementAndGet();
+                setHealthy(false);
+            }
+        }
+        
+        public void setHealthy(boolean healthy) {
+            if (this.healthy != healthy) {
+                log.info("Replica {} is now {}", baseUrl, healthy ? "healthy" : "unhealthy");
+            }
+            this.healthy = healthy;
+        }
+    }
+}
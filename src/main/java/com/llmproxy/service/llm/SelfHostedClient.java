@@ -0,0 +1,248 @@
+package com.llmproxy.service.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.llmproxy.exception.ModelError;
+import com.llmproxy.model.ModelSpec;
+import com.llmproxy.model.ModelType;
+import com.llmproxy.model.ReplicaStats;
+import io.github.resilience4j.retry.annotation.Retry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client for in-house inference servers that speak the OpenAI chat completions API
+ * (vLLM, TGI, llama.cpp and the like). Requests are spread over the replicas listed in
+ * {@code self-hosted.replicas} by least outstanding requests; a replica that fails is
+ * taken out of rotation until the periodic health check reaches it again, and the
+ * failed request is retried on another replica.
+ */
+@Service
+public class SelfHostedClient implements LlmClient, MeterBinder {
+    private static final Logger logger = LoggerFactory.getLogger(SelfHostedClient.class);
+    private static final String CHAT_COMPLETIONS_PATH = "/v1/chat/completions";
+    
+    private final ObjectMapper objectMapper;
+    private final ModelVersionValidator modelVersionValidator;
+    private final TokenEstimator tokenEstimator;
+    private final UpstreamRateLimiter upstreamRateLimiter;
+    private final RestClient restClient;
+    private final ProviderSimulator simulator;
+    private final boolean enabled;
+    private final ReplicaPool replicaPool;
+    private final String apiKey;
+    private final String healthPath;
+    
+    public SelfHostedClient(
+            ObjectMapper objectMapper,
+            ModelVersionValidator modelVersionValidator,
+            TokenEstimator tokenEstimator,
+            UpstreamRateLimiter upstreamRateLimiter,
+            RestClient restClient,
+            ProviderSimulator simulator,
+            @Value("${self-hosted.enabled:false}") boolean enabled,
+            @Value("${self-hosted.replicas:}") String replicas,
+            @Value("${self-hosted.api-key:}") String apiKey,
+            @Value("${self-hosted.health-path:/v1/models}") String healthPath) {
+        this.objectMapper = objectMapper;
+        this.modelVersionValidator = modelVersionValidator;
+        this.tokenEstimator = tokenEstimator;
+        this.upstreamRateLimiter = upstreamRateLimiter;
+        this.restClient = restClient;
+        this.simulator = simulator;
+        this.enabled = enabled;
+        this.replicaPool = ReplicaPool.parse(replicas);
+        this.apiKey = apiKey;
+        this.healthPath = healthPath;
+        
+        if (enabled && replicaPool.getReplicas().isEmpty() && !simulator.isEnabled()) {
+            logger.warn("Self-hosted backend is enabled but no replicas are configured");
+        }
+    }
+    
+    @Override
+    public ModelType getModelType() {
+        return ModelType.SELF_HOSTED;
+    }
+    
+    @Override
+    @Retry(name = "llmRetry")
+    public QueryResult query(String query, String modelVersion) {
+        if (!enabled || (replicaPool.getReplicas().isEmpty() && !simulator.isEnabled())) {
+            throw ModelError.unavailableError(ModelType.SELF_HOSTED.toString());
+        }
+        
+        long startTime = Instant.now().toEpochMilli();
+        ModelSpec spec = modelVersionValidator.resolveModelSpec(ModelType.SELF_HOSTED, modelVersion);
+        
+        if (!upstreamRateLimiter.tryAcquire(spec)) {
+            throw ModelError.rateLimitError(ModelType.SELF_HOSTED.toString());
+        }
+        
+        if (simulator.isEnabled()) {
+            QueryResult result = QueryResult.builder()
+                    .numRetries(0)
+                    .build();
+            try {
+                simulator.complete(ModelType.SELF_HOSTED, query, spec, result);
+            } finally {
+                result.setResponseTimeMs(Instant.now().toEpochMilli() - startTime);
+            }
+            return result;
+        }
+        
+        ReplicaPool.Replica replica = replicaPool.acquire();
+        if (replica == null) {
+            throw ModelError.unavailableError(ModelType.SELF_HOSTED.toString());
+        }
+        
+        QueryResult result = QueryResult.builder()
+                .numRetries(0)
+                .build();
+        boolean replicaHealthy = false;
+        
+        try {
+            String responseBody = restClient.post()
+                .uri(replica.getBaseUrl() + CHAT_COMPLETIONS_PATH)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .headers(headers -> {
+                    if (apiKey != null && !apiKey.isEmpty()) {
+                        headers.setBearerAuth(apiKey);
+                    }
+                })
+                .body(buildRequestBody(query, spec))
+                .retrieve()
+                .onStatus(status -> status.equals(HttpStatus.TOO_MANY_REQUESTS),
+                    (request, response) -> { throw ModelError.rateLimitError(ModelType.SELF_HOSTED.toString()); })
+                .onStatus(status -> status.value() >= 400,
+                    (request, response) -> {
+                        String errorMessage = objectMapper.readTree(response.getBody())
+                                .path("error").path("message").asText("API error");
+                        int statusCode = response.getStatusCode().value();
+                        throw new ModelError(ModelType.SELF_HOSTED.toString(), statusCode, errorMessage, statusCode >= 500);
+                    })
+                .body(String.class);
+            replicaHealthy = true;
+            
+            parseResponse(query, responseBody, result);
+        
+        } catch (ModelError e) {
+            // Only server errors say something about the replica; 4xx are about the request
+            replicaHealthy |= e.getStatusCode() < 500;
+            throw e;
+        } catch (ResourceAccessException e) {
+            logger.warn("Self-hosted replica {} unreachable: {}", replica.getBaseUrl(), e.getMessage());
+            throw ModelError.unavailableError(ModelType.SELF_HOSTED.toString());
+        } catch (Exception e) {
+            logger.error("Error querying self-hosted replica {}: {}", replica.getBaseUrl(), e.getMessage(), e);
+            throw ModelError.invalidResponseError(ModelType.SELF_HOSTED.toString(), e);
+        } finally {
+            replica.release(replicaHealthy);
+            result.setResponseTimeMs(Instant.now().toEpochMilli() - startTime);
+        }
+        
+        return result;
+    }
+    
+    @Override
+    public boolean checkAvailability() {
+        return enabled && (simulator.isEnabled() || replicaPool.hasHealthyReplica());
+    }
+    
+    @Scheduled(
+            initialDelayString = "${self-hosted.health-check-interval-seconds:10}",
+            fixedDelayString = "${self-hosted.health-check-interval-seconds:10}",
+            timeUnit = TimeUnit.SECONDS)
+    public void checkReplicas() {
+        if (!enabled || simulator.isEnabled()) {
+            return;
+        }
+        
+        for (ReplicaPool.Replica replica : replicaPool.getReplicas()) {
+            try {
+                restClient.get()
+                    .uri(replica.getBaseUrl() + healthPath)
+                    .headers(headers -> {
+                        if (apiKey != null && !apiKey.isEmpty()) {
+                            headers.setBearerAuth(apiKey);
+                        }
+                    })
+                    .retrieve()
+                    .toBodilessEntity();
+                replica.setHealthy(true);
+            } catch (Exception e) {
+                logger.debug("Health check of replica {} failed: {}", replica.getBaseUrl(), e.getMessage());
+                replica.setHealthy(false);
+            }
+        }
+    }
+    
+    String buildRequestBody(String query, ModelSpec spec) {
+        ObjectNode requestBody = objectMapper.createObjectNode();
+        requestBody.put("model", spec.getVersion());
+        requestBody.put("temperature", spec.getTemperature());
+        requestBody.put("max_tokens", spec.getMaxOutputTokens());
+        
+        ArrayNode messages = requestBody.putArray("messages");
+        ObjectNode message = messages.addObject();
+        message.put("role", "user");
+        message.put("content", query);
+        return requestBody.toString();
+    }
+    
+    void parseResponse(String query, String responseBody, QueryResult result) throws IOException {
+        JsonNode responseNode = objectMapper.readTree(responseBody);
+        JsonNode choicesNode = responseNode.path("choices");
+        
+        if (choicesNode.isEmpty()) {
+            throw ModelError.emptyResponseError(ModelType.SELF_HOSTED.toString());
+        }
+        
+        String responseText = choicesNode.path(0).path("message").path("content").asText();
+        
+        JsonNode usageNode = responseNode.path("usage");
+        result.setResponse(responseText);
+        result.setStatusCode(HttpStatus.OK.value());
+        result.setInputTokens(usageNode.path("prompt_tokens").asInt(0));
+        result.setOutputTokens(usageNode.path("completion_tokens").asInt(0));
+        result.setTotalTokens(usageNode.path("total_tokens").asInt(0));
+        result.setNumTokens(result.getTotalTokens()); // For backward compatibility
+        tokenEstimator.estimateTokens(result, query, responseText, ModelType.SELF_HOSTED);
+    }
+    
+    public List<ReplicaStats> getReplicaStats() {
+        return replicaPool.getStats();
+    }
+    
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (ReplicaPool.Replica replica : replicaPool.getReplicas()) {
+            Gauge.builder("llm.self.hosted.outstanding", replica, ReplicaPool.Replica::getOutstanding)
+                    .description("Requests in flight to a self-hosted replica")
+                    .tag("replica", replica.getBaseUrl())
+                    .register(registry);
+            Gauge.builder("llm.self.hosted.healthy", replica, r -> r.isHealthy() ? 1 : 0)
+                    .description("Whether a self-hosted replica is in rotation")
+                    .tag("replica", replica.getBaseUrl())
+                    .register(registry);
+        }
+    }
+}
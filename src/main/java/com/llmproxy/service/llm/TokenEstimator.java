@@ -1,23 +1,125 @@
 package com.llmproxy.service.llm;
 
+import com.llmproxy.model.ModelType;
+import com.llmproxy.service.llm.tokenizer.BpeEncoding;
+import com.llmproxy.service.llm.tokenizer.BpeTokenizer;
+import com.llmproxy.service.llm.tokenizer.HeuristicTokenCounter;
+import com.llmproxy.service.llm.tokenizer.TokenCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Counts tokens with the BPE vocabulary of each model family. Vocabularies are tiktoken
+ * files named after their encoding (e.g. {@code cl100k_base.tiktoken}, optionally gzipped),
+ * read from {@code tokenizer.vocabulary-dir} or from {@code tokenizer/} on the classpath.
+ * Anthropic, Google and Mistral do not publish their vocabularies in this form, so those
+ * families are counted with cl100k_base, which is within a few percent for English text.
+ * Without any vocabulary a script-aware heuristic is used.
+ */
 @Component
+@Slf4j
 public class TokenEstimator {
-    public int estimateTokenCount(String text) {
-        if (text == null || text.isEmpty()) {
-            return 0;
+    private static final String CLASSPATH_DIR = "tokenizer/";
+    
+    private final TokenCounter defaultCounter;
+    private final Map<ModelType, TokenCounter> counters = new EnumMap<>(ModelType.class);
+    
+    public TokenEstimator() {
+        this("", 10_000);
+    }
+    
+    @Autowired
+    public TokenEstimator(
+            @Value("${tokenizer.vocabulary-dir:}") String vocabularyDir,
+            @Value("${tokenizer.chunk-cache-size:10000}") int chunkCacheSize) {
+        Map<BpeEncoding, TokenCounter> loaded = new EnumMap<>(BpeEncoding.class);
+        for (BpeEncoding encoding : BpeEncoding.values()) {
+            BpeTokenizer tokenizer = loadTokenizer(encoding, vocabularyDir, chunkCacheSize);
+            if (tokenizer != null) {
+                loaded.put(encoding, tokenizer);
+            }
         }
         
-        return text.length() / 4;
+        TokenCounter heuristic = new HeuristicTokenCounter();
+        this.defaultCounter = loaded.getOrDefault(BpeEncoding.CL100K_BASE, heuristic);
+        for (ModelType modelType : ModelType.values()) {
+            counters.put(modelType, defaultCounter);
+        }
+        counters.put(ModelType.OPENAI, loaded.getOrDefault(BpeEncoding.O200K_BASE, defaultCounter));
+        
+        if (loaded.isEmpty()) {
+            log.warn("No BPE vocabulary found; token counts are heuristic estimates");
+        }
+    }
+    
+    public int estimateTokenCount(String text) {
+        return defaultCounter.countTokens(text);
+    }
+    
+    public int estimateTokenCount(String text, ModelType modelType) {
+        if (modelType == null) {
+            return estimateTokenCount(text);
+        }
+        return counters.get(modelType).countTokens(text);
+    }
+    
+    /**
+     * Counts {@code text} for every model family, tokenizing once per distinct vocabulary.
+     */
+    public Map<ModelType, Integer> estimateTokenCounts(String text) {
+        Map<TokenCounter, Integer> byCounter = new IdentityHashMap<>();
+        Map<ModelType, Integer> counts = new EnumMap<>(ModelType.class);
+        counters.forEach((modelType, counter) ->
+                counts.put(modelType, byCounter.computeIfAbsent(counter, c -> c.countTokens(text))));
+        return counts;
     }
     
     public void estimateTokens(QueryResult result, String query, String response) {
+        estimateTokens(result, query, response, null);
+    }
+    
+    public void estimateTokens(QueryResult result, String query, String response, ModelType modelType) {
         if (result.getTotalTokens() == 0) {
-            result.setInputTokens(estimateTokenCount(query));
-            result.setOutputTokens(estimateTokenCount(response));
+            result.setInputTokens(estimateTokenCount(query, modelType));
+            result.setOutputTokens(estimateTokenCount(response, modelType));
             result.setTotalTokens(result.getInputTokens() + result.getOutputTokens());
             result.setNumTokens(result.getTotalTokens()); // For backward compatibility
         }
     }
+    
+    private static BpeTokenizer loadTokenizer(BpeEncoding encoding, String vocabularyDir, int chunkCacheSize) {
+        for (String fileName : new String[] {encoding.getFileName(), encoding.getFileName() + ".gz"}) {
+            boolean gzip = fileName.endsWith(".gz");
+            try {
+                if (vocabularyDir != null && !vocabularyDir.isBlank()) {
+                    Path path = Path.of(vocabularyDir, fileName);
+                    if (Files.isRegularFile(path)) {
+                        try (InputStream in = Files.newInputStream(path)) {
+                            return BpeTokenizer.load(encoding, in, gzip, chunkCacheSize);
+                        }
+                    }
+                }
+                
+                InputStream resource = TokenEstimator.class.getClassLoader().getResourceAsStream(CLASSPATH_DIR + fileName);
+                if (resource != null) {
+                    try (InputStream in = resource) {
+                        return BpeTokenizer.load(encoding, in, gzip, chunkCacheSize);
+                    }
+                }
+            } catch (IOException | IllegalArgumentException e) {
+                log.error("Failed to load BPE vocabulary {}: {}", fileName, e.getMessage());
+            }
+        }
+        return null;
+    }
 }
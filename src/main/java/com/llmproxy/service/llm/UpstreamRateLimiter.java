@@ -0,0 +1,34 @@
+package com.llmproxy.service.llm;
+
+import com.llmproxy.model.ModelSpec;
+import com.llmproxy.service.ratelimit.TokenBucket;
+import com.llmproxy.service.warmup.WarmupContext;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps calls to each model version under the {@code requestsPerMinute} the catalog
+ * gives for it, so the proxy falls back to another provider instead of collecting 429s.
+ * A version's bucket is replaced when a catalog reload changes its limit.
+ */
+@Component
+public class UpstreamRateLimiter {
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    
+    public boolean tryAcquire(ModelSpec spec) {
+        int limit = spec.getRequestsPerMinute();
+        // Warm-up calls are simulated and never reach the provider
+        if (limit <= 0 || WarmupContext.isActive()) {
+            return true;
+        }
+        
+        TokenBucket bucket = buckets.get(spec.getVersion());
+        if (bucket == null || bucket.getCapacity() != limit) {
+            bucket = buckets.compute(spec.getVersion(), (version, existing) ->
+                    existing != null && existing.getCapacity() == limit ? existing : new TokenBucket(limit / 60.0, limit));
+        }
+        return bucket.tryAcquire();
+    }
+}
@@ -0,0 +1,40 @@
+package com.llmproxy.service.llm.tokenizer;
+
+import java.util.regex.Pattern;
+
+/**
+ * Byte-pair encodings the proxy knows how to load. Each pairs a vocabulary file in
+ * tiktoken format ({@code base64(token) rank} per line) with the regular expression that
+ * splits text into chunks before merging.
+ */
+public enum BpeEncoding {
+    CL100K_BASE("cl100k_base",
+            "(?i:'s|'t|'re|'ve|'m|'ll|'d)|[^\\r\\n\\p{L}\\p{N}]?\\p{L}+|\\p{N}{1,3}| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*"
+                    + "|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+"),
+    O200K_BASE("o200k_base",
+            "[^\\r\\n\\p{L}\\p{N}]?[\\p{Lu}\\p{Lt}\\p{Lm}\\p{Lo}\\p{M}]*[\\p{Ll}\\p{Lm}\\p{Lo}\\p{M}]+(?i:'s|'t|'re|'ve|'m|'ll|'d)?"
+                    + "|[^\\r\\n\\p{L}\\p{N}]?[\\p{Lu}\\p{Lt}\\p{Lm}\\p{Lo}\\p{M}]+[\\p{Ll}\\p{Lm}\\p{Lo}\\p{M}]*(?i:'s|'t|'re|'ve|'m|'ll|'d)?"
+                    + "|\\p{N}{1,3}| ?[^\\s\\p{L}\\p{N}]+[\\r\\n/]*|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+");
+    
+    private final String encodingName;
+    private final Pattern pattern;
+    
+    BpeEncoding(String encodingName, String pattern) {
+        this.encodingName = encodingName;
+        // tiktoken matches \s and case-insensitive contractions over all of Unicode; Java only
+        // does for ASCII unless asked
+        this.pattern = Pattern.compile(pattern, Pattern.UNICODE_CHARACTER_CLASS);
+    }
+    
+    public String getEncodingName() {
+        return encodingName;
+    }
+    
+    public Pattern getPattern() {
+        return pattern;
+    }
+    
+    public String getFileName() {
+        return encodingName + ".tiktoken";
+    }
+}
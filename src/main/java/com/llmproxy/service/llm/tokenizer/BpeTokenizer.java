@@ -0,0 +1,292 @@
+package com.llmproxy.service.llm.tokenizer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Byte-level BPE tokenizer compatible with tiktoken vocabularies.
+ *
+ * <p>Text is split into chunks by the encoding's pattern, each chunk is UTF-8 encoded into
+ * a per-thread scratch buffer and its bytes are merged pairwise, always taking the pair
+ * with the lowest rank first, until no adjacent pair is in the vocabulary. Chunks that
+ * are a single token (most English words with their leading space) never reach the merge
+ * loop; the results of recent merges are kept in a small LRU cache because the same
+ * identifiers and words recur across prompts.
+ *
+ * <p>Chunks longer than {@link #MAX_MERGE_BYTES} are merged window by window and never
+ * cached, so their counts are approximate: a merge that would have crossed a window
+ * boundary is missed. Windows are only cut between UTF-8 characters.
+ */
+@Slf4j
+public class BpeTokenizer implements TokenCounter {
+    // Merging is quadratic in the chunk length, so pathological chunks (minified data,
+    // long runs of symbols) are merged in windows of this many bytes
+    static final int MAX_MERGE_BYTES = 4096;
+    
+    private static final int[] EMPTY = new int[0];
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+    
+    private final BpeEncoding encoding;
+    private final RankTable ranks;
+    private final Pattern pattern;
+    private final Cache<String, int[]> chunkCache;
+    
+    BpeTokenizer(BpeEncoding encoding, RankTable ranks, int chunkCacheSize) {
+        this.encoding = encoding;
+        this.ranks = ranks;
+        this.pattern = encoding.getPattern();
+        this.chunkCache = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, chunkCacheSize))
+                .build();
+    }
+    
+    /**
+     * Reads a vocabulary in tiktoken format, optionally gzip-compressed.
+     */
+    public static BpeTokenizer load(BpeEncoding encoding, InputStream in, boolean gzip, int chunkCacheSize)
+            throws IOException {
+        RankTable.Builder builder = new RankTable.Builder();
+        InputStream source = gzip ? new GZIPInputStream(in, 1 << 16) : in;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(source, StandardCharsets.US_ASCII))) {
+            Base64.Decoder decoder = Base64.getDecoder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                int space = line.indexOf(' ');
+                if (space < 0) {
+                    throw new IOException("Malformed vocabulary line in " + encoding.getFileName() + ": " + line);
+                }
+                builder.add(decoder.decode(line.substring(0, space)), Integer.parseInt(line.substring(space + 1).trim()));
+            }
+        }
+        
+        RankTable table = builder.build();
+        log.info("Loaded BPE vocabulary {} with {} tokens", encoding.getEncodingName(), table.size());
+        return new BpeTokenizer(encoding, table, chunkCacheSize);
+    }
+    
+    public BpeEncoding getEncoding() {
+        return encoding;
+    }
+    
+    @Override
+    public int countTokens(CharSequence text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        
+        Scratch scratch = SCRATCH.get();
+        Matcher matcher = pattern.matcher(text);
+        int count = 0;
+        while (matcher.find()) {
+            int length = scratch.encode(text, matcher.start(), matcher.end());
+            if (ranks.get(scratch.bytes, 0, length) != RankTable.MISSING) {
+                count++;
+            } else {
+                count += mergeCached(text, matcher.start(), matcher.end(), scratch, length).length;
+            }
+        }
+        return count;
+    }
+    
+    public int[] encode(CharSequence text) {
+        if (text == null || text.isEmpty()) {
+            return EMPTY;
+        }
+        
+        Scratch scratch = SCRATCH.get();
+        Matcher matcher = pattern.matcher(text);
+        int[] tokens = new int[Math.max(16, text.length() / 3)];
+        int count = 0;
+        while (matcher.find()) {
+            int length = scratch.encode(text, matcher.start(), matcher.end());
+            int rank = ranks.get(scratch.bytes, 0, length);
+            if (rank != RankTable.MISSING) {
+                if (count == tokens.length) {
+                    tokens = Arrays.copyOf(tokens, tokens.length * 2);
+                }
+                tokens[count++] = rank;
+                continue;
+            }
+            
+            int[] chunk = mergeCached(text, matcher.start(), matcher.end(), scratch, length);
+            if (count + chunk.length > tokens.length) {
+                tokens = Arrays.copyOf(tokens, Math.max(tokens.length * 2, count + chunk.length));
+            }
+            System.arraycopy(chunk, 0, tokens, count, chunk.length);
+            count += chunk.length;
+        }
+        return Arrays.copyOf(tokens, count);
+    }
+    
+    private int[] mergeCached(CharSequence text, int start, int end, Scratch scratch, int length) {
+        if (length > MAX_MERGE_BYTES) {
+            return mergeWindows(scratch, length);
+        }
+        
+        String chunk = text.subSequence(start, end).toString();
+        int[] cached = chunkCache.getIfPresent(chunk);
+        if (cached != null) {
+            return cached;
+        }
+        
+        int[] tokens = merge(scratch, 0, length);
+        chunkCache.put(chunk, tokens);
+        return tokens;
+    }
+    
+    private int[] mergeWindows(Scratch scratch, int length) {
+        int[] tokens = EMPTY;
+        int offset = 0;
+        while (offset < length) {
+            int end = Math.min(offset + MAX_MERGE_BYTES, length);
+            // Back up over continuation bytes (10xxxxxx) so a character is never split
+            while (end < length && (scratch.bytes[end] & 0xc0) == 0x80) {
+                end--;
+            }
+            int[] window = merge(scratch, offset, end - offset);
+            int previous = tokens.length;
+            tokens = Arrays.copyOf(tokens, previous + window.length);
+            System.arraycopy(window, 0, tokens, previous, window.length);
+            offset = end;
+        }
+        return tokens;
+    }
+    
+    /**
+     * Merges {@code scratch.bytes[offset, offset + length)} into tokens. {@code starts}
+     * holds the boundaries of the current parts (plus an end sentinel) and {@code pairRanks[i]}
+     * the rank of parts {@code i} and {@code i + 1} joined together.
+     */
+    private int[] merge(Scratch scratch, int offset, int length) {
+        byte[] bytes = scratch.bytes;
+        int[] starts = scratch.starts(length + 1);
+        int[] pairRanks = scratch.pairRanks(length + 1);
+        
+        int parts = length + 1;
+        for (int i = 0; i < parts; i++) {
+            starts[i] = offset + i;
+        }
+        for (int i = 0; i < parts - 2; i++) {
+            pairRanks[i] = ranks.get(bytes, starts[i], 2);
+        }
+        pairRanks[parts - 2] = RankTable.MISSING;
+        pairRanks[parts - 1] = RankTable.MISSING;
+        
+        while (parts > 2) {
+            int best = RankTable.MISSING;
+            int index = -1;
+            for (int i = 0; i < parts - 2; i++) {
+                if (pairRanks[i] < best) {
+                    best = pairRanks[i];
+                    index = i;
+                }
+            }
+            if (index < 0) {
+                break;
+            }
+            
+            pairRanks[index] = pairRank(bytes, starts, parts, index);
+            if (index > 0) {
+                pairRanks[index - 1] = pairRank(bytes, starts, parts, index - 1);
+            }
+            System.arraycopy(starts, index + 2, starts, index + 1, parts - index - 2);
+            System.arraycopy(pairRanks, index + 2, pairRanks, index + 1, parts - index - 2);
+            parts--;
+        }
+        
+        int[] tokens = new int[parts - 1];
+        for (int i = 0; i < parts - 1; i++) {
+            int rank = ranks.get(bytes, starts[i], starts[i + 1] - starts[i]);
+            if (rank == RankTable.MISSING) {
+                throw new IllegalStateException("Vocabulary " + encoding.getEncodingName()
+                        + " does not cover every byte value");
+            }
+            tokens[i] = rank;
+        }
+        return tokens;
+    }
+    
+    /**
+     * Rank of part {@code i} merged with the two parts after it, i.e. of the pair that
+     * will start at {@code i} once parts {@code i} and {@code i + 1} have been joined.
+     */
+    private int pairRank(byte[] bytes, int[] starts, int parts, int i) {
+        if (i + 3 >= parts) {
+            return RankTable.MISSING;
+        }
+        return ranks.get(bytes, starts[i], starts[i + 3] - starts[i]);
+    }
+    
+    /**
+     * Per-thread buffers reused across calls so the hot path does not allocate.
+     */
+    private static final class Scratch {
+        private byte[] bytes = new byte[256];
+        private int[] starts = new int[256];
+        private int[] pairRanks = new int[256];
+        
+        /**
+         * Encodes {@code text[start, end)} as UTF-8 into {@link #bytes}. Unpaired
+         * surrogates become {@code '?'}, as with {@link String#getBytes}.
+         */
+        private int encode(CharSequence text, int start, int end) {
+            int required = (end - start) * 3;
+            if (bytes.length < required) {
+                bytes = new byte[Math.max(required, bytes.length * 2)];
+            }
+            
+            int length = 0;
+            for (int i = start; i < end; i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    bytes[length++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[length++] = (byte) (0xc0 | (c >> 6));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    bytes[length++] = (byte) (0xf0 | (codePoint >> 18));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    bytes[length++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else if (Character.isSurrogate(c)) {
+                    bytes[length++] = (byte) '?';
+                } else {
+                    bytes[length++] = (byte) (0xe0 | (c >> 12));
+                    bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    bytes[length++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            return length;
+        }
+        
+        private int[] starts(int size) {
+            if (starts.length < size) {
+                starts = new int[Math.max(size, starts.length * 2)];
+            }
+            return starts;
+        }
+        
+        private int[] pairRanks(int size) {
+            if (pairRanks.length < size) {
+                pairRanks = new int[Math.max(size, pairRanks.length * 2)];
+            }
+            return pairRanks;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.llmproxy.service.llm.tokenizer;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Approximate token counts for when no vocabulary is available. Text is split with the
+ * cl100k pattern and each chunk is priced by script: a short Latin word or a run of up to
+ * three digits is usually one token, CJK characters are roughly one token each, and other
+ * non-ASCII text costs about one token per four UTF-8 bytes.
+ */
+public class HeuristicTokenCounter implements TokenCounter {
+    private final Pattern pattern = BpeEncoding.CL100K_BASE.getPattern();
+    
+    @Override
+    public int countTokens(CharSequence text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        
+        Matcher matcher = pattern.matcher(text);
+        int count = 0;
+        while (matcher.find()) {
+            count += countChunk(text, matcher.start(), matcher.end());
+        }
+        return count;
+    }
+    
+    private static int countChunk(CharSequence text, int start, int end) {
+        int ascii = 0;
+        int ideographs = 0;
+        int otherBytes = 0;
+        boolean letters = false;
+        boolean whitespace = true;
+        
+        for (int i = start; i < end; ) {
+            int codePoint = Character.codePointAt(text, i);
+            i += Character.charCount(codePoint);
+            if (Character.isWhitespace(codePoint)) {
+                // A leading space merges into the word that follows it
+                continue;
+            }
+            whitespace = false;
+            if (codePoint < 0x80) {
+                ascii++;
+                letters |= Character.isLetterOrDigit(codePoint);
+            } else if (isIdeographic(codePoint)) {
+                ideographs++;
+            } else {
+                otherBytes += codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+            }
+        }
+        
+        if (whitespace) {
+            return 1;
+        }
+        int tokens = ideographs + (otherBytes + 3) / 4;
+        if (ascii > 0) {
+            // Common words survive as a single token up to about six letters; symbol runs merge less
+            tokens += letters ? 1 + (ascii - 1) / 6 : 1 + (ascii - 1) / 3;
+        }
+        return Math.max(1, tokens);
+    }
+    
+    private static boolean isIdeographic(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
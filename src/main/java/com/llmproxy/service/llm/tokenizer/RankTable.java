@@ -0,0 +1,118 @@
+package com.llmproxy.service.llm.tokenizer;
+
+import java.util.Arrays;
+
+/**
+ * Immutable map from byte sequences to merge ranks, laid out for lookups straight from a
+ * region of a scratch buffer. Tokens are stored back to back in one byte array and found
+ * through an open-addressing table, so a lookup allocates nothing and touches at most a
+ * couple of cache lines.
+ */
+final class RankTable {
+    static final int MISSING = Integer.MAX_VALUE;
+    
+    private final byte[] pool;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final int[] ranks;
+    private final int[] slots;
+    private final int mask;
+    private final int[] singleByteRanks = new int[256];
+    private final int maxTokenLength;
+    
+    private RankTable(byte[] pool, int[] offsets, int[] lengths, int[] ranks, int size) {
+        this.pool = pool;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.ranks = ranks;
+        
+        int capacity = Integer.highestOneBit(Math.max(4, size * 2 - 1)) << 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(singleByteRanks, MISSING);
+        
+        int longest = 0;
+        for (int token = 0; token < size; token++) {
+            longest = Math.max(longest, lengths[token]);
+            if (lengths[token] == 1) {
+                singleByteRanks[pool[offsets[token]] & 0xff] = ranks[token];
+            }
+            int slot = hash(pool, offsets[token], lengths[token]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = token + 1;
+        }
+        this.maxTokenLength = longest;
+    }
+    
+    /**
+     * @return the rank of {@code bytes[offset, offset + length)}, or {@link #MISSING}
+     */
+    int get(byte[] bytes, int offset, int length) {
+        if (length == 1) {
+            return singleByteRanks[bytes[offset] & 0xff];
+        }
+        if (length > maxTokenLength) {
+            return MISSING;
+        }
+        
+        int slot = hash(bytes, offset, length) & mask;
+        while (true) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                return MISSING;
+            }
+            int token = entry - 1;
+            if (lengths[token] == length
+                    && Arrays.equals(pool, offsets[token], offsets[token] + length, bytes, offset, offset + length)) {
+                return ranks[token];
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+    
+    int size() {
+        return ranks.length;
+    }
+    
+    private static int hash(byte[] bytes, int offset, int length) {
+        int hash = 0x811c9dc5;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ (bytes[i] & 0xff)) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+    
+    static final class Builder {
+        private byte[] pool = new byte[1 << 16];
+        private int poolSize;
+        private int[] offsets = new int[1024];
+        private int[] lengths = new int[1024];
+        private int[] ranks = new int[1024];
+        private int size;
+        
+        Builder add(byte[] token, int rank) {
+            if (size == ranks.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+                lengths = Arrays.copyOf(lengths, size * 2);
+                ranks = Arrays.copyOf(ranks, size * 2);
+            }
+            if (poolSize + token.length > pool.length) {
+                pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + token.length));
+            }
+            System.arraycopy(token, 0, pool, poolSize, token.length);
+            offsets[size] = poolSize;
+            lengths[size] = token.length;
+            ranks[size] = rank;
+            poolSize += token.length;
+            size++;
+            return this;
+        }
+        
+        RankTable build() {
+            return new RankTable(Arrays.copyOf(pool, poolSize), Arrays.copyOf(offsets, size),
+                    Arrays.copyOf(lengths, size), Arrays.copyOf(ranks, size), size);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.llmproxy.service.llm.tokenizer;
+
+/**
+ * Counts the tokens a model family would see for a piece of text.
+ */
+public interface TokenCounter {
+    int countTokens(CharSequence text);
+}
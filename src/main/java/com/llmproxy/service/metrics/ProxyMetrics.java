@@ -0,0 +1,121 @@
+package com.llmproxy.service.metrics;
+
+import com.llmproxy.exception.ModelError;
+import com.llmproxy.model.ModelType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for the request path, exported at {@code /actuator/prometheus}.
+ *
+ * <p>Upstream latency is a timer per provider, model version and outcome with client-side
+ * percentiles (kept in HdrHistogram-backed rolling windows) as well as histogram buckets,
+ * so quantiles can also be aggregated across replicas in Prometheus. Cache, admission,
+ * load-shedding and retry meters are registered by their own components.
+ */
+@Component
+public class ProxyMetrics {
+    static final String UPSTREAM_LATENCY = "llm.upstream.latency";
+    static final String TOKENS = "llm.tokens";
+    static final String REJECTIONS = "llm.rejections";
+    static final String ROUTER_DECISIONS = "llm.router.decisions";
+    static final String FALLBACKS = "llm.fallbacks";
+    
+    private final MeterRegistry registry;
+    private final Meter.MeterProvider<Timer> upstreamLatency;
+    private final Meter.MeterProvider<Counter> tokens;
+    private final Meter.MeterProvider<Counter> rejections;
+    private final Meter.MeterProvider<Counter> routerDecisions;
+    private final Meter.MeterProvider<Counter> fallbacks;
+    
+    public ProxyMetrics() {
+        this(new SimpleMeterRegistry());
+    }
+    
+    @Autowired
+    public ProxyMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.upstreamLatency = Timer.builder(UPSTREAM_LATENCY)
+                .description("Time spent calling an upstream model, including retries")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(10))
+                .maximumExpectedValue(Duration.ofMinutes(2))
+                .withRegistry(registry);
+        this.tokens = Counter.builder(TOKENS)
+                .description("Tokens sent to and received from upstream models")
+                .withRegistry(registry);
+        this.rejections = Counter.builder(REJECTIONS)
+                .description("Requests turned away before reaching a model")
+                .withRegistry(registry);
+        this.routerDecisions = Counter.builder(ROUTER_DECISIONS)
+                .description("Models chosen by the router and why")
+                .withRegistry(registry);
+        this.fallbacks = Counter.builder(FALLBACKS)
+                .description("Failed upstream calls retried on another model")
+                .withRegistry(registry);
+    }
+    
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+    
+    /**
+     * @param error the exception the call failed with, or null if it succeeded
+     */
+    public void recordUpstreamCall(ModelType modelType, String version, long durationNanos, Throwable error) {
+        upstreamLatency.withTags("provider", modelType.toString(), "version", versionTag(version),
+                "outcome", outcome(error)).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    public void recordTokens(ModelType modelType, String version, int inputTokens, int outputTokens) {
+        String provider = modelType.toString();
+        String versionTag = versionTag(version);
+        tokens.withTags("provider", provider, "version", versionTag, "direction", "input").increment(inputTokens);
+        tokens.withTags("provider", provider, "version", versionTag, "direction", "output").increment(outputTokens);
+    }
+    
+    /**
+     * @param reason the {@code errorType} of the rejection, e.g. {@code rate_limit} or {@code overloaded}
+     */
+    public void recordRejection(String reason) {
+        rejections.withTags("reason", reason).increment();
+    }
+    
+    /**
+     * @param reason {@code requested}, {@code task_type} or {@code random}
+     */
+    public void recordRouterDecision(ModelType modelType, String reason) {
+        routerDecisions.withTags("provider", modelType.toString(), "reason", reason).increment();
+    }
+    
+    public void recordFallback(ModelType from, ModelType to) {
+        fallbacks.withTags("from", from == null ? "unknown" : from.toString(), "to", to.toString()).increment();
+    }
+    
+    private static String outcome(Throwable error) {
+        if (error == null) {
+            return "success";
+        }
+        if (error instanceof ModelError modelError) {
+            return switch (modelError.getStatusCode()) {
+                case 429 -> "rate_limited";
+                case 408 -> "timeout";
+                default -> "error";
+            };
+        }
+        return "error";
+    }
+    
+    private static String versionTag(String version) {
+        return version == null || version.isEmpty() ? "default" : version;
+    }
+}
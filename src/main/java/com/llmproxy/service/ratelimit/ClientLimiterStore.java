@@ -0,0 +1,9 @@
+package com.llmproxy.service.ratelimit;
+
+/**
+ * Holds per-client rate limiting state and decides whether a client's next request
+ * may proceed.
+ */
+public interface ClientLimiterStore {
+    RateLimitDecision acquire(String clientId);
+}
@@ -0,0 +1,173 @@
+package com.llmproxy.service.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.llmproxy.service.cluster.ClusterMembership;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Enforces {@code rate-limit.requests-per-minute} across all replicas rather than per JVM.
+ *
+ * <p>Every client id is owned by one replica on the consistent hash ring, which holds the
+ * client's authoritative token bucket. Other replicas do not ask the owner on every
+ * request: they lease a small batch of tokens and spend it locally until it runs out or
+ * the lease expires, so the common path never leaves the JVM. Unspent leased tokens are
+ * simply dropped, which errs on the side of limiting.
+ *
+ * <p>If the owner cannot be reached, the replica falls back to a local bucket holding
+ * its 1/N share of the limit, so the cluster-wide rate stays roughly correct. A failed
+ * owner is not asked again for one lease TTL, so an unreachable peer does not add a
+ * network timeout to every request for the clients it owns.
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.cluster.enabled", havingValue = "true")
+@Slf4j
+public class ClusterClientLimiterStore implements ClientLimiterStore {
+    private final ClusterMembership membership;
+    private final RateLimitPeerClient peerClient;
+    private final double refillRate;
+    private final int maxTokens;
+    private final int leaseSize;
+    private final long leaseTtlNanos;
+    private final int clusterSize;
+    private final LongSupplier nanoClock;
+    private final Cache<String, TokenBucket> ownedBuckets;
+    private final Cache<String, Lease> leases;
+    private final Cache<String, TokenBucket> fallbackBuckets;
+    // Owner node -> nanoTime until which it is treated as unreachable
+    private final Map<String, Long> unreachableOwners = new ConcurrentHashMap<>();
+    
+    @Autowired
+    public ClusterClientLimiterStore(
+            ClusterMembership membership,
+            RateLimitPeerClient peerClient,
+            @Value("${rate-limit.requests-per-minute:60}") int requestsPerMinute,
+            @Value("${rate-limit.burst:10}") int burst,
+            @Value("${rate-limit.cluster.lease-size:0}") int leaseSize,
+            @Value("${rate-limit.cluster.lease-ttl-ms:1000}") long leaseTtlMs) {
+        this(membership, peerClient, requestsPerMinute, burst, leaseSize, leaseTtlMs, System::nanoTime);
+    }
+    
+    ClusterClientLimiterStore(ClusterMembership membership, RateLimitPeerClient peerClient,
+                              int requestsPerMinute, int burst, int leaseSize, long leaseTtlMs,
+                              LongSupplier nanoClock) {
+        this.membership = membership;
+        this.peerClient = peerClient;
+        this.refillRate = requestsPerMinute / 60.0;
+        this.maxTokens = burst;
+        this.clusterSize = membership.getNodes().size();
+        // By default a lease is an even share of the burst, so N replicas holding leases
+        // at once cannot together exceed one burst
+        this.leaseSize = leaseSize > 0 ? leaseSize : Math.max(1, burst / clusterSize);
+        this.leaseTtlNanos = TimeUnit.MILLISECONDS.toNanos(leaseTtlMs);
+        this.nanoClock = nanoClock;
+        
+        this.ownedBuckets = Caffeine.newBuilder()
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .build();
+        this.leases = Caffeine.newBuilder()
+                .expireAfterWrite(leaseTtlMs, TimeUnit.MILLISECONDS)
+                .build();
+        this.fallbackBuckets = Caffeine.newBuilder()
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .build();
+        
+        log.info("Cluster rate limiter initialized: nodes={}, leaseSize={}, leaseTtl={}ms",
+                clusterSize, this.leaseSize, leaseTtlMs);
+    }
+    
+    @Override
+    public RateLimitDecision acquire(String clientId) {
+        if (membership.isLocal(clientId)) {
+            return ownedBucket(clientId).acquire();
+        }
+        
+        long now = nanoClock.getAsLong();
+        Lease lease = leases.getIfPresent(clientId);
+        if (lease != null && lease.isValid(now)) {
+            if (lease.tryTake()) {
+                return leaseDecision(true, lease, now);
+            }
+            if (lease.denied) {
+                return leaseDecision(false, lease, now);
+            }
+        }
+        
+        String owner = membership.ownerOf(clientId);
+        Long unreachableUntil = unreachableOwners.get(owner);
+        if (unreachableUntil != null && now - unreachableUntil < 0) {
+            return fallbackBucket(clientId).acquire();
+        }
+        
+        int granted = peerClient.acquire(owner, clientId, leaseSize);
+        if (granted < 0) {
+            unreachableOwners.put(owner, now + leaseTtlNanos);
+            return fallbackBucket(clientId).acquire();
+        }
+        if (unreachableUntil != null) {
+            unreachableOwners.remove(owner, unreachableUntil);
+        }
+        
+        // An empty grant is remembered for a short while too, so a limited client
+        // cannot turn every rejected request into a network round trip
+        Lease newLease = new Lease(Math.max(0, granted - 1), granted == 0, now + leaseTtlNanos);
+        leases.put(clientId, newLease);
+        return leaseDecision(granted > 0, newLease, now);
+    }
+    
+    /**
+     * Owner side of the lease protocol: hands out up to {@code permits} tokens from the
+     * authoritative bucket of a client this node owns.
+     */
+    public int grant(String clientId, int permits) {
+        if (!membership.isLocal(clientId)) {
+            return 0;
+        }
+        return (int) ownedBucket(clientId).acquireUpTo(Math.min(permits, leaseSize));
+    }
+    
+    private RateLimitDecision leaseDecision(boolean allowed, Lease lease, long now) {
+        // Only the owner knows the exact balance; report what this replica can see
+        long refillNanos = refillRate > 0 ? (long) (TimeUnit.SECONDS.toNanos(maxTokens) / refillRate) : 0;
+        return new RateLimitDecision(allowed, maxTokens, lease.remaining.get(), refillNanos, lease.expiresAt - now);
+    }
+    
+    private TokenBucket ownedBucket(String clientId) {
+        return ownedBuckets.get(clientId, id -> new TokenBucket(refillRate, maxTokens, nanoClock));
+    }
+    
+    private TokenBucket fallbackBucket(String clientId) {
+        return fallbackBuckets.get(clientId, id -> new TokenBucket(
+                refillRate / clusterSize, Math.max(1, maxTokens / clusterSize), nanoClock));
+    }
+    
+    private static final class Lease {
+        private final AtomicInteger remaining;
+        private final boolean denied;
+        private final long expiresAt;
+        
+        Lease(int remaining, boolean denied, long expiresAt) {
+            this.remaining = new AtomicInteger(remaining);
+            this.denied = denied;
+            this.expiresAt = expiresAt;
+        }
+        
+        boolean isValid(long now) {
+            return now - expiresAt < 0;
+        }
+        
+        boolean tryTake() {
+            return remaining.getAndUpdate(value -> value > 0 ? value - 1 : 0) > 0;
+        }
+    }
+}
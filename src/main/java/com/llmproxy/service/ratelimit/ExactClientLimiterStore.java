@@ -0,0 +1,30 @@
+package com.llmproxy.service.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One exact {@link TokenBucket} per client. Precise, but memory grows with the number
+ * of distinct clients ever seen.
+ */
+public class ExactClientLimiterStore implements ClientLimiterStore {
+    private final double refillRate;
+    private final int maxTokens;
+    private final Map<String, TokenBucket> clientLimiters = new ConcurrentHashMap<>();
+    
+    public ExactClientLimiterStore(double refillRate, int maxTokens) {
+        this.refillRate = refillRate;
+        this.maxTokens = maxTokens;
+    }
+    
+    @Override
+    public RateLimitDecision acquire(String clientId) {
+        // Plain get first: computeIfAbsent may lock the bin even when the key is present
+        TokenBucket clientLimiter = clientLimiters.get(clientId);
+        if (clientLimiter == null) {
+            clientLimiter = clientLimiters.computeIfAbsent(clientId, id -> new TokenBucket(refillRate, maxTokens));
+        }
+        
+        return clientLimiter.acquire();
+    }
+}
@@ -0,0 +1,69 @@
+package com.llmproxy.service.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Generic Cell Rate Algorithm limiter. The only state per client is its theoretical
+ * arrival time (TAT): the instant at which the client's allowance would be fully used
+ * up if it kept sending at exactly the configured rate. A request at time {@code t} is
+ * allowed when {@code TAT - t <= tolerance} and then advances TAT by one emission interval.
+ *
+ * <p>Because a TAT in the past is equivalent to no state at all, entries are evicted once
+ * they have been idle for longer than the tolerance window without changing any decision.
+ */
+@Slf4j
+public class GcraClientLimiterStore implements ClientLimiterStore {
+    private final long burst;
+    private final long emissionIntervalNanos;
+    private final long toleranceNanos;
+    private final LongSupplier nanoClock;
+    private final Cache<String, AtomicLong> arrivalTimes;
+    
+    public GcraClientLimiterStore(int requestsPerMinute, int burst) {
+        this(requestsPerMinute, burst, System::nanoTime);
+    }
+    
+    GcraClientLimiterStore(int requestsPerMinute, int burst, LongSupplier nanoClock) {
+        this.burst = burst;
+        this.emissionIntervalNanos = requestsPerMinute > 0
+                ? TimeUnit.MINUTES.toNanos(1) / requestsPerMinute
+                : (Long.MAX_VALUE / 4) / (burst + 1);
+        this.toleranceNanos = (burst - 1) * emissionIntervalNanos;
+        this.nanoClock = nanoClock;
+        this.arrivalTimes = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofNanos(Math.max(toleranceNanos, 0) + emissionIntervalNanos))
+                .build();
+        
+        log.info("GCRA rate limiter initialized: emissionInterval={}ms, burst={}",
+                TimeUnit.NANOSECONDS.toMillis(emissionIntervalNanos), burst);
+    }
+    
+    @Override
+    public RateLimitDecision acquire(String clientId) {
+        AtomicLong arrivalTime = arrivalTimes.get(clientId, id -> new AtomicLong(nanoClock.getAsLong()));
+        
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long tat = arrivalTime.get();
+            long effectiveTat = tat - now > 0 ? tat : now;
+            long ahead = effectiveTat - now;
+            
+            if (ahead > toleranceNanos) {
+                return new RateLimitDecision(false, burst, 0, ahead, ahead - toleranceNanos);
+            }
+            
+            long newTat = effectiveTat + emissionIntervalNanos;
+            if (arrivalTime.compareAndSet(tat, newTat)) {
+                long remaining = (toleranceNanos + emissionIntervalNanos - (newTat - now)) / emissionIntervalNanos;
+                return new RateLimitDecision(true, burst, remaining, newTat - now, 0);
+            }
+        }
+    }
+}
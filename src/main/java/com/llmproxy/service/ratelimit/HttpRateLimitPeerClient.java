@@ -0,0 +1,47 @@
+package com.llmproxy.service.ratelimit;
+
+import com.llmproxy.service.cluster.ClusterMembership;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+@Component
+@ConditionalOnProperty(name = "rate-limit.cluster.enabled", havingValue = "true")
+@Slf4j
+public class HttpRateLimitPeerClient implements RateLimitPeerClient {
+    static final String ACQUIRE_PATH = "/internal/rate-limit/acquire";
+    
+    private final RestClient restClient;
+    private final ClusterMembership membership;
+    
+    public HttpRateLimitPeerClient(
+            ClusterMembership membership,
+            @Value("${rate-limit.cluster.timeout-ms:100}") int timeoutMs) {
+        this.membership = membership;
+        
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(timeoutMs);
+        factory.setReadTimeout(timeoutMs);
+        this.restClient = RestClient.builder()
+                .requestFactory(factory)
+                .build();
+    }
+    
+    @Override
+    public int acquire(String peer, String clientId, int permits) {
+        try {
+            Integer granted = restClient.post()
+                    .uri(peer + ACQUIRE_PATH + "?clientId={clientId}&permits={permits}", clientId, permits)
+                    .header(ClusterMembership.SECRET_HEADER, membership.getSecret())
+                    .retrieve()
+                    .body(Integer.class);
+            return granted != null ? granted : -1;
+        } catch (Exception e) {
+            log.debug("Rate limit lease from peer {} failed: {}", peer, e.getMessage());
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.llmproxy.service.ratelimit;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a rate limit check together with the quota state needed for the
+ * {@code RateLimit-*} and {@code Retry-After} response headers.
+ */
+@Getter
+public final class RateLimitDecision {
+    private static final long UNKNOWN = -1;
+    
+    private final boolean allowed;
+    private final long limit;
+    private final long remaining;
+    private final long resetNanos;
+    private final long retryAfterNanos;
+    
+    public RateLimitDecision(boolean allowed, long limit, long remaining, long resetNanos, long retryAfterNanos) {
+        this.allowed = allowed;
+        this.limit = limit;
+        this.remaining = Math.max(0, remaining);
+        this.resetNanos = Math.max(0, resetNanos);
+        this.retryAfterNanos = Math.max(0, retryAfterNanos);
+    }
+    
+    /**
+     * A decision that carries no quota information, e.g. from a custom allow function.
+     */
+    public static RateLimitDecision unmetered(boolean allowed) {
+        return new RateLimitDecision(allowed, UNKNOWN, 0, 0, 0);
+    }
+    
+    public boolean hasQuotaInfo() {
+        return limit != UNKNOWN;
+    }
+    
+    public long getResetSeconds() {
+        return ceilSeconds(resetNanos);
+    }
+    
+    public long getRetryAfterSeconds() {
+        // Never tell a rejected client to retry immediately
+        return allowed ? 0 : Math.max(1, ceilSeconds(retryAfterNanos));
+    }
+    
+    private static long ceilSeconds(long nanos) {
+        long second = TimeUnit.SECONDS.toNanos(1);
+        return nanos / second + (nanos % second == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,10 @@
+package com.llmproxy.service.ratelimit;
+
+public interface RateLimitPeerClient {
+    /**
+     * Asks the owning peer for up to {@code permits} tokens of the client's budget.
+     *
+     * @return the number of tokens granted, or a negative value if the peer could not be reached
+     */
+    int acquire(String peer, String clientId, int permits);
+}
@@ -1,55 +1,51 @@
 package com.llmproxy.service.ratelimit;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.time.Instant;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 @Service
 @Slf4j
 public class RateLimiterService {
-    private double tokens;
-    private Instant lastRefill;
-    private final double refillRate;
-    private final double maxTokens;
-    private final Map<String, RateLimiterService> clientLimiters = new ConcurrentHashMap<>();
+    private final TokenBucket globalBucket;
+    private final ClientLimiterStore clientLimiters;
     private Function<String, Boolean> allowClientFunc;
     
+    public RateLimiterService(int requestsPerMinute, int burst) {
+        this(requestsPerMinute, burst, new ExactClientLimiterStore(requestsPerMinute / 60.0, burst));
+    }
+    
+    @Autowired
     public RateLimiterService(
             @Value("${rate-limit.requests-per-minute:60}") int requestsPerMinute,
-            @Value("${rate-limit.burst:10}") int burst) {
-        this.tokens = burst;
-        this.lastRefill = Instant.now();
-        this.refillRate = (double) requestsPerMinute / 60.0; // Convert to per-second
-        this.maxTokens = burst;
+            @Value("${rate-limit.burst:10}") int burst,
+            ClientLimiterStore clientLimiters) {
+        double refillRate = (double) requestsPerMinute / 60.0; // Convert to per-second
+        this.globalBucket = new TokenBucket(refillRate, burst);
+        this.clientLimiters = clientLimiters;
     }
     
-    public synchronized boolean allow() {
-        Instant now = Instant.now();
-        double elapsed = (now.toEpochMilli() - lastRefill.toEpochMilli()) / 1000.0;
-        tokens = Math.min(maxTokens, tokens + elapsed * refillRate);
-        lastRefill = now;
-        
-        if (tokens >= 1.0) {
-            tokens -= 1.0;
-            return true;
-        }
-        return false;
+    public boolean allow() {
+        return globalBucket.tryAcquire();
     }
     
     public boolean allowClient(String clientId) {
+        return checkClient(clientId).isAllowed();
+    }
+    
+    /**
+     * Like {@link #allowClient(String)}, but also reports the client's quota state so it
+     * can be surfaced in response headers.
+     */
+    public RateLimitDecision checkClient(String clientId) {
         if (allowClientFunc != null) {
-            return allowClientFunc.apply(clientId);
+            return RateLimitDecision.unmetered(allowClientFunc.apply(clientId));
         }
         
-        RateLimiterService clientLimiter = clientLimiters.computeIfAbsent(clientId, 
-            id -> new RateLimiterService((int) (refillRate * 60), (int) maxTokens));
-        
-        return clientLimiter.allow();
+        return clientLimiters.acquire(clientId);
     }
     
     public void setAllowClientFunc(Function<String, Boolean> func) {
@@ -0,0 +1,225 @@
+package com.llmproxy.service.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.llmproxy.util.Hashing;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Fixed-memory client limiter for very large client cardinality.
+ *
+ * <p>Request counts are approximated with a sliding window built from two count-min
+ * sketches (previous and current minute); the previous window is weighted by how much
+ * of it still overlaps the sliding minute. Count-min only ever over-estimates, and
+ * conservative update keeps that error small, so a light client is very unlikely to
+ * be limited by collisions.
+ *
+ * <p>A third sketch rotates with them: while one minute is counted, the sketch retired
+ * from two minutes ago is zeroed in the background for the next one, so no request pays
+ * for clearing a whole sketch at a window boundary.
+ *
+ * <p>Clients whose estimate passes a fraction of the limit are promoted to an exact
+ * {@link TokenBucket}, kept in a size-bounded cache. Memory is therefore fixed by the
+ * configured budget no matter how many distinct addresses send traffic.
+ */
+@Slf4j
+public class SketchClientLimiterStore implements ClientLimiterStore {
+    static final int DEPTH = 4;
+    // Previous, current and the next window being cleared
+    static final int WINDOWS = 3;
+    static final long WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+    // Rough retained size of a promoted client: bucket, key string and cache node
+    static final int HEAVY_HITTER_BYTES = 256;
+    
+    private final double refillRate;
+    private final int maxTokens;
+    private final int windowLimit;
+    private final int promotionThreshold;
+    private final int width;
+    private final AtomicIntegerArray[] windows = new AtomicIntegerArray[WINDOWS];
+    private final AtomicLongArray windowIndexes = new AtomicLongArray(WINDOWS);
+    // The window each sketch has been scheduled to be cleared for
+    private final AtomicLongArray clearsScheduled = new AtomicLongArray(WINDOWS);
+    private final Cache<String, TokenBucket> heavyHitters;
+    private final LongSupplier nanoClock;
+    private final Executor clearExecutor;
+    
+    public SketchClientLimiterStore(int requestsPerMinute, int burst, long memoryBudgetBytes, double heavyHitterThreshold) {
+        this(requestsPerMinute, burst, memoryBudgetBytes, heavyHitterThreshold, System::nanoTime, newClearExecutor());
+    }
+    
+    SketchClientLimiterStore(int requestsPerMinute, int burst, long memoryBudgetBytes,
+                             double heavyHitterThreshold, LongSupplier nanoClock, Executor clearExecutor) {
+        this.refillRate = requestsPerMinute / 60.0;
+        this.maxTokens = burst;
+        this.windowLimit = Math.max(requestsPerMinute, burst);
+        this.promotionThreshold = Math.max(1, (int) Math.ceil(windowLimit * heavyHitterThreshold));
+        this.nanoClock = nanoClock;
+        this.clearExecutor = clearExecutor;
+        
+        // Three quarters of the budget goes to the sketches, the rest to heavy hitters
+        long sketchBytes = memoryBudgetBytes * 3 / 4;
+        this.width = (int) Math.max(64, Math.min(Integer.MAX_VALUE / DEPTH, sketchBytes / ((long) WINDOWS * DEPTH * Integer.BYTES)));
+        long heavyHitterCapacity = Math.max(16, (memoryBudgetBytes - sketchBytes) / HEAVY_HITTER_BYTES);
+        
+        for (int i = 0; i < windows.length; i++) {
+            windows[i] = new AtomicIntegerArray(DEPTH * width);
+        }
+        long currentWindow = Math.floorDiv(nanoClock.getAsLong(), WINDOW_NANOS);
+        for (long window = currentWindow - 1; window <= currentWindow + 1; window++) {
+            windowIndexes.set(slotOf(window), window);
+        }
+        
+        this.heavyHitters = Caffeine.newBuilder()
+                .maximumSize(heavyHitterCapacity)
+                .expireAfterAccess(2, TimeUnit.MINUTES)
+                .build();
+        
+        log.info("Sketch rate limiter initialized: width={}, depth={}, heavyHitterCapacity={}, budget={} bytes",
+                width, DEPTH, heavyHitterCapacity, memoryBudgetBytes);
+    }
+    
+    @Override
+    public RateLimitDecision acquire(String clientId) {
+        TokenBucket exact = heavyHitters.getIfPresent(clientId);
+        if (exact != null) {
+            return exact.acquire();
+        }
+        
+        long now = nanoClock.getAsLong();
+        long windowIndex = Math.floorDiv(now, WINDOW_NANOS);
+        AtomicIntegerArray current = window(windowIndex);
+        AtomicIntegerArray previous = windowIndexes.get(slotOf(windowIndex - 1)) == windowIndex - 1
+                ? windows[slotOf(windowIndex - 1)]
+                : null;
+        long windowOffset = Math.floorMod(now, WINDOW_NANOS);
+        double previousWeight = 1.0 - (double) windowOffset / WINDOW_NANOS;
+        
+        long hash = Hashing.hash64(clientId);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        
+        int currentMin = Integer.MAX_VALUE;
+        int previousMin = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int slot = slot(row, h1, h2);
+            currentMin = Math.min(currentMin, current.get(slot));
+            if (previous != null) {
+                previousMin = Math.min(previousMin, previous.get(slot));
+            }
+        }
+        if (previous == null) {
+            previousMin = 0;
+        }
+        
+        double estimate = previousMin * previousWeight + currentMin;
+        // Everything counted now has aged out of the sliding minute by the end of the next window
+        long resetNanos = 2 * WINDOW_NANOS - windowOffset;
+        if (estimate >= windowLimit) {
+            return new RateLimitDecision(false, windowLimit, 0, resetNanos,
+                    retryAfterNanos(previousMin, currentMin, windowOffset));
+        }
+        
+        // Conservative update: only raise the counters that define the current minimum
+        for (int row = 0; row < DEPTH; row++) {
+            int slot = slot(row, h1, h2);
+            if (current.get(slot) == currentMin) {
+                current.incrementAndGet(slot);
+            }
+        }
+        
+        if (estimate + 1 >= promotionThreshold) {
+            heavyHitters.get(clientId, id -> promotedBucket(estimate + 1));
+        }
+        return new RateLimitDecision(true, windowLimit, windowLimit - (long) Math.ceil(estimate + 1), resetNanos, 0);
+    }
+    
+    /**
+     * Time until the sliding estimate {@code previous * (1 - f) + current} drops below the
+     * limit, where {@code f} is the elapsed fraction of the current window.
+     */
+    private long retryAfterNanos(int previous, int current, long windowOffset) {
+        if (current < windowLimit && previous > 0) {
+            double fraction = 1.0 - (double) (windowLimit - current) / previous;
+            return (long) (fraction * WINDOW_NANOS) - windowOffset;
+        }
+        double nextWindowFraction = current > 0 ? Math.max(0.0, 1.0 - (double) windowLimit / current) : 0.0;
+        return WINDOW_NANOS - windowOffset + (long) (nextWindowFraction * WINDOW_NANOS);
+    }
+    
+    long getHeavyHitterCount() {
+        heavyHitters.cleanUp();
+        return heavyHitters.estimatedSize();
+    }
+    
+    private TokenBucket promotedBucket(double alreadyUsed) {
+        TokenBucket bucket = new TokenBucket(refillRate, maxTokens, nanoClock);
+        // Carry over what the client already spent in this window, up to a full bucket
+        bucket.tryAcquire(Math.min(maxTokens, (long) alreadyUsed));
+        return bucket;
+    }
+    
+    private AtomicIntegerArray window(long windowIndex) {
+        int slot = slotOf(windowIndex);
+        long held = windowIndexes.get(slot);
+        if (held < windowIndex && windowIndexes.compareAndSet(slot, held, windowIndex)) {
+            // Not cleared ahead of time, which only happens when no request arrived during
+            // the whole previous window
+            clear(windows[slot]);
+        }
+        prepare(windowIndex + 1);
+        return windows[slot];
+    }
+    
+    /**
+     * Clears the sketch for {@code windowIndex} in the background. It last counted the window
+     * before the previous one, which no sliding estimate reads any more.
+     */
+    private void prepare(long windowIndex) {
+        int slot = slotOf(windowIndex);
+        long scheduled = clearsScheduled.get(slot);
+        if (windowIndexes.get(slot) < windowIndex && scheduled < windowIndex
+                && clearsScheduled.compareAndSet(slot, scheduled, windowIndex)) {
+            clearExecutor.execute(() -> {
+                clear(windows[slot]);
+                windowIndexes.accumulateAndGet(slot, windowIndex, Math::max);
+            });
+        }
+    }
+    
+    private static void clear(AtomicIntegerArray counters) {
+        // Increments racing with the reset are lost, which only makes the sketch lenient
+        for (int i = 0; i < counters.length(); i++) {
+            counters.lazySet(i, 0);
+        }
+    }
+    
+    private static int slotOf(long windowIndex) {
+        return (int) Math.floorMod(windowIndex, WINDOWS);
+    }
+    
+    private static Executor newClearExecutor() {
+        // One clear per minute at most; a clear that cannot be queued falls back to the request path
+        return new ThreadPoolExecutor(0, 1, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(WINDOWS),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "sketch-limiter-clear");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+    
+    private int slot(int row, int h1, int h2) {
+        int combined = h1 + row * h2;
+        return row * width + Math.floorMod(combined, width);
+    }
+}
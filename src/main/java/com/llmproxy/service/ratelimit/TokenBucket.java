@@ -0,0 +1,153 @@
+package com.llmproxy.service.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket.
+ *
+ * <p>The usual (tokens, lastRefill) pair is folded into a single {@code long}: the
+ * monotonic {@link System#nanoTime()} instant at which the bucket would have been empty.
+ * The token count at any time {@code now} is {@code (now - emptyAt) / nanosPerToken},
+ * capped at the capacity, so refilling and consuming is a single compare-and-set with no
+ * locking and no allocation.
+ */
+public final class TokenBucket {
+    private static final AtomicLongFieldUpdater<TokenBucket> EMPTY_AT =
+            AtomicLongFieldUpdater.newUpdater(TokenBucket.class, "emptyAt");
+    
+    private final long capacity;
+    private final long nanosPerToken;
+    private final long capacityNanos;
+    private final LongSupplier nanoClock;
+    
+    private volatile long emptyAt;
+    
+    public TokenBucket(double tokensPerSecond, long capacity) {
+        this(tokensPerSecond, capacity, System::nanoTime);
+    }
+    
+    TokenBucket(double tokensPerSecond, long capacity, LongSupplier nanoClock) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative");
+        }
+        
+        this.capacity = capacity;
+        this.nanosPerToken = nanosPerToken(tokensPerSecond, capacity);
+        this.capacityNanos = capacity * nanosPerToken;
+        this.nanoClock = nanoClock;
+        this.emptyAt = nanoClock.getAsLong() - capacityNanos;
+    }
+    
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+    
+    /**
+     * Like {@link #tryAcquire()}, additionally reporting the bucket state after the attempt.
+     */
+    public RateLimitDecision acquire() {
+        boolean allowed = tryAcquire();
+        
+        long now = nanoClock.getAsLong();
+        long base = refilledEmptyAt(emptyAt, now);
+        return new RateLimitDecision(
+                allowed,
+                capacity,
+                (now - base) / nanosPerToken,
+                base + capacityNanos - now,
+                base + nanosPerToken - now);
+    }
+    
+    public boolean tryAcquire(long permits) {
+        if (permits > capacity) {
+            return false;
+        }
+        
+        long cost = permits * nanosPerToken;
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long current = emptyAt;
+            long next = refilledEmptyAt(current, now) + cost;
+            if (next - now > 0) {
+                return false;
+            }
+            if (EMPTY_AT.compareAndSet(this, current, next)) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Takes as many tokens as are available, up to {@code maxPermits}, and returns how
+     * many were taken.
+     */
+    public long acquireUpTo(long maxPermits) {
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long current = emptyAt;
+            long base = refilledEmptyAt(current, now);
+            long granted = Math.min(maxPermits, (now - base) / nanosPerToken);
+            if (granted <= 0) {
+                return 0;
+            }
+            if (EMPTY_AT.compareAndSet(this, current, base + granted * nanosPerToken)) {
+                return granted;
+            }
+        }
+    }
+    
+    /**
+     * Takes tokens unconditionally. The balance may go negative, in which case the debt
+     * has to be refilled before the next successful {@link #tryAcquire}.
+     */
+    public void forceAcquire(long permits) {
+        long cost = permits * nanosPerToken;
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long current = emptyAt;
+            if (EMPTY_AT.compareAndSet(this, current, refilledEmptyAt(current, now) + cost)) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Returns previously taken tokens. The balance is still capped at capacity.
+     */
+    public void refund(long permits) {
+        EMPTY_AT.addAndGet(this, -permits * nanosPerToken);
+    }
+    
+    /**
+     * @return how long until {@code permits} tokens are available, 0 if they are now
+     */
+    public long nanosUntilAvailable(long permits) {
+        long now = nanoClock.getAsLong();
+        return Math.max(0, refilledEmptyAt(emptyAt, now) + permits * nanosPerToken - now);
+    }
+    
+    public long availableTokens() {
+        long now = nanoClock.getAsLong();
+        return (now - refilledEmptyAt(emptyAt, now)) / nanosPerToken;
+    }
+    
+    public long getCapacity() {
+        return capacity;
+    }
+    
+    private long refilledEmptyAt(long current, long now) {
+        // A bucket that has been idle long enough is full; never credit more than capacity
+        return now - current > capacityNanos ? now - capacityNanos : current;
+    }
+    
+    private static long nanosPerToken(double tokensPerSecond, long capacity) {
+        if (tokensPerSecond <= 0) {
+            // No refill: make a single token take longer than any realistic uptime while
+            // keeping capacity * nanosPerToken far away from overflow.
+            return (Long.MAX_VALUE / 4) / (capacity + 1);
+        }
+        return Math.max(1L, Math.round(TimeUnit.SECONDS.toNanos(1) / tokensPerSecond));
+    }
+}
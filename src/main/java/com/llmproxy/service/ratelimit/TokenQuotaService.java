@@ -0,0 +1,115 @@
+package com.llmproxy.service.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-client quota expressed in LLM tokens per minute rather than in requests.
+ *
+ * <p>A request is admitted by pre-charging its estimated token cost (prompt estimate plus
+ * the expected completion size). Once the upstream call finishes the reservation is
+ * reconciled against the actual usage: unused tokens are refunded and any overrun is
+ * charged as debt, which the client pays back before its next admission.
+ */
+@Service
+@Slf4j
+public class TokenQuotaService {
+    private final boolean enabled;
+    private final double tokensPerSecond;
+    private final long tokenBurst;
+    private final int expectedOutputTokens;
+    private final Cache<String, TokenBucket> clientBudgets;
+    
+    public TokenQuotaService(
+            @Value("${rate-limit.tokens-per-minute:0}") long tokensPerMinute,
+            @Value("${rate-limit.token-burst:0}") long tokenBurst,
+            @Value("${rate-limit.expected-output-tokens:150}") int expectedOutputTokens) {
+        this.enabled = tokensPerMinute > 0;
+        this.tokensPerSecond = tokensPerMinute / 60.0;
+        this.tokenBurst = tokenBurst > 0 ? tokenBurst : tokensPerMinute;
+        this.expectedOutputTokens = expectedOutputTokens;
+        this.clientBudgets = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .build();
+        
+        log.info("Token quota initialized: enabled={}, tokensPerMinute={}, tokenBurst={}",
+                enabled, tokensPerMinute, this.tokenBurst);
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Pre-charges the estimated cost of a request.
+     *
+     * @return the reservation to reconcile once the request completes, or {@code null}
+     *         if the client's token budget cannot cover the estimate right now
+     */
+    public Reservation reserve(String clientId, int estimatedInputTokens) {
+        if (!enabled) {
+            return Reservation.UNLIMITED;
+        }
+        
+        long estimate = estimate(estimatedInputTokens);
+        TokenBucket budget = clientBudgets.get(clientId, id -> new TokenBucket(tokensPerSecond, tokenBurst));
+        if (!budget.tryAcquire(estimate)) {
+            log.debug("Token quota exhausted for client {}: estimate={}, available={}",
+                    clientId, estimate, budget.availableTokens());
+            return null;
+        }
+        return new Reservation(budget, estimate);
+    }
+    
+    /**
+     * @return whole seconds, at least 1, until the client's budget covers the estimate again
+     */
+    public long getRetryAfterSeconds(String clientId, int estimatedInputTokens) {
+        TokenBucket budget = clientBudgets.getIfPresent(clientId);
+        long nanos = budget == null ? 0 : budget.nanosUntilAvailable(estimate(estimatedInputTokens));
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(nanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+    
+    /**
+     * Settles a reservation against the tokens the request actually consumed. Pass 0 for
+     * requests that failed before consuming upstream capacity.
+     */
+    public void reconcile(Reservation reservation, int actualTokens) {
+        if (reservation == null || reservation.budget == null) {
+            return;
+        }
+        
+        long difference = actualTokens - reservation.chargedTokens;
+        if (difference > 0) {
+            reservation.budget.forceAcquire(difference);
+        } else if (difference < 0) {
+            reservation.budget.refund(-difference);
+        }
+    }
+    
+    private long estimate(int estimatedInputTokens) {
+        // A request larger than the whole burst can only be admitted from a full bucket;
+        // the remainder is settled as debt during reconciliation.
+        return Math.min(tokenBurst, (long) estimatedInputTokens + expectedOutputTokens);
+    }
+    
+    public static final class Reservation {
+        static final Reservation UNLIMITED = new Reservation(null, 0);
+        
+        private final TokenBucket budget;
+        @Getter
+        private final long chargedTokens;
+        
+        private Reservation(TokenBucket budget, long chargedTokens) {
+            this.budget = budget;
+            this.chargedTokens = chargedTokens;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.llmproxy.service.router;
+
+import com.llmproxy.model.ModelType;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Result of the pre-flight check for one request: the prompt size as each model family
+ * counts it and, for every family that can hold the prompt, the model version to call.
+ */
+public class PreflightPlan {
+    private final Map<ModelType, Integer> promptTokens;
+    private final Map<ModelType, String> versions;
+    private final int largestContextWindow;
+    
+    PreflightPlan(Map<ModelType, Integer> promptTokens, Map<ModelType, String> versions, int largestContextWindow) {
+        this.promptTokens = promptTokens;
+        this.versions = versions;
+        this.largestContextWindow = largestContextWindow;
+    }
+    
+    public boolean fits() {
+        return !versions.isEmpty();
+    }
+    
+    /**
+     * @return the model families with a version whose context window fits the prompt
+     */
+    public Set<ModelType> getCandidates() {
+        return versions.isEmpty()
+                ? Collections.emptySet()
+                : Collections.unmodifiableSet(EnumSet.copyOf(versions.keySet()));
+    }
+    
+    public String getVersion(ModelType modelType) {
+        return versions.get(modelType);
+    }
+    
+    /**
+     * @return the prompt size for a model family, or the smallest count over all families
+     *         when the family is not yet known
+     */
+    public int getPromptTokens(ModelType modelType) {
+        if (modelType != null && promptTokens.containsKey(modelType)) {
+            return promptTokens.get(modelType);
+        }
+        return promptTokens.values().stream().mapToInt(Integer::intValue).min().orElse(0);
+    }
+    
+    public int getLargestContextWindow() {
+        return largestContextWindow;
+    }
+}
@@ -0,0 +1,93 @@
+package com.llmproxy.service.router;
+
+import com.llmproxy.model.ModelSpec;
+import com.llmproxy.model.ModelType;
+import com.llmproxy.model.QueryRequest;
+import com.llmproxy.service.llm.ModelVersionValidator;
+import com.llmproxy.service.llm.TokenEstimator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Checks before any upstream call that the prompt plus the completion budget fits the
+ * context window of the model version that would serve it, as given by the model catalog.
+ *
+ * <p>For each model family the requested version is kept if it fits; otherwise the
+ * family's default version, then its version with the largest window, is used instead, and families
+ * where nothing fits are left out of routing altogether. Prompt counts are padded by
+ * {@code preflight.token-margin} because only OpenAI publishes its vocabularies and the
+ * other families are counted approximately.
+ */
+@Service
+@Slf4j
+public class PreflightService {
+    private final TokenEstimator tokenEstimator;
+    private final ModelVersionValidator modelVersionValidator;
+    private final double tokenMargin;
+    
+    public PreflightService(
+            TokenEstimator tokenEstimator,
+            ModelVersionValidator modelVersionValidator,
+            @Value("${preflight.token-margin:0.1}") double tokenMargin) {
+        this.tokenEstimator = tokenEstimator;
+        this.modelVersionValidator = modelVersionValidator;
+        this.tokenMargin = tokenMargin;
+    }
+    
+    public PreflightPlan plan(QueryRequest request) {
+        Map<ModelType, Integer> promptTokens = tokenEstimator.estimateTokenCounts(request.getQuery());
+        Map<ModelType, String> versions = new EnumMap<>(ModelType.class);
+        int largestContextWindow = 0;
+        
+        for (ModelType modelType : ModelType.values()) {
+            int prompt = (int) Math.ceil(promptTokens.get(modelType) * (1 + tokenMargin));
+            String requested = modelVersionValidator.validateModelVersion(modelType, request.getModelVersion());
+            String version = chooseVersion(modelType, requested, prompt);
+            if (version != null) {
+                versions.put(modelType, version);
+                if (!version.equals(requested)) {
+                    log.debug("Prompt of {} tokens does not fit {}; using {} instead", prompt, requested, version);
+                }
+            }
+            largestContextWindow = Math.max(largestContextWindow, modelVersionValidator.getContextWindow(largestVersion(modelType)));
+        }
+        
+        return new PreflightPlan(promptTokens, versions, largestContextWindow);
+    }
+    
+    private String chooseVersion(ModelType modelType, String requested, int prompt) {
+        if (fits(requested, prompt)) {
+            return requested;
+        }
+        
+        String defaultVersion = modelVersionValidator.getDefaultVersionForModel(modelType);
+        if (fits(defaultVersion, prompt)) {
+            return defaultVersion;
+        }
+        
+        String largest = largestVersion(modelType);
+        return fits(largest, prompt) ? largest : null;
+    }
+    
+    private boolean fits(String version, int prompt) {
+        ModelSpec spec = modelVersionValidator.getModelSpec(version);
+        return spec != null && prompt + spec.getMaxOutputTokens() <= spec.getContextWindow();
+    }
+    
+    private String largestVersion(ModelType modelType) {
+        String largest = null;
+        int largestWindow = 0;
+        for (String version : modelVersionValidator.getSupportedVersionsForModel(modelType)) {
+            int window = modelVersionValidator.getContextWindow(version);
+            if (window > largestWindow) {
+                largest = version;
+                largestWindow = window;
+            }
+        }
+        return largest;
+    }
+}
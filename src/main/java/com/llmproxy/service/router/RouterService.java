@@ -7,8 +7,12 @@ import com.llmproxy.model.StatusResponse;
 import com.llmproxy.model.TaskType;
 import com.llmproxy.service.llm.LlmClient;
 import com.llmproxy.service.llm.LlmClientFactory;
-import lombok.RequiredArgsConstructor;
+import com.llmproxy.service.llm.ModelCatalog;
+import com.llmproxy.service.metrics.ProxyMetrics;
+import com.llmproxy.service.tracing.ProxyTracer;
+import com.llmproxy.service.warmup.WarmupContext;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -16,19 +20,23 @@ import java.security.SecureRandom;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class RouterService {
     private static final int DEFAULT_AVAILABILITY_TTL = 300; // 5 minutes
     
     private final LlmClientFactory clientFactory;
+    private final ModelCatalog modelCatalog;
+    private final ProxyMetrics metrics;
+    private final ProxyTracer tracer;
     private final Map<ModelType, Boolean> availableModels = new HashMap<>();
     private final ReadWriteLock availabilityLock = new ReentrantReadWriteLock();
     private Instant lastUpdated = null;
@@ -37,8 +45,24 @@ public class RouterService {
     @Value("${router.availability.ttl:300}")
     private int availabilityTtl;
     
+    @Value("${self-hosted.enabled:false}")
+    private boolean selfHostedEnabled;
+    
     private boolean testMode = false;
     
+    public RouterService(LlmClientFactory clientFactory) {
+        this(clientFactory, new ModelCatalog(), new ProxyMetrics(), new ProxyTracer());
+    }
+    
+    @Autowired
+    public RouterService(LlmClientFactory clientFactory, ModelCatalog modelCatalog, ProxyMetrics metrics,
+                         ProxyTracer tracer) {
+        this.clientFactory = clientFactory;
+        this.modelCatalog = modelCatalog;
+        this.metrics = metrics;
+        this.tracer = tracer;
+    }
+    
     public void setTestMode(boolean enabled) {
         this.testMode = enabled;
     }
@@ -66,14 +90,18 @@ public class RouterService {
             }
             
             log.debug("Updating model availability");
-            for (ModelType modelType : ModelType.values()) {
-                try {
-                    LlmClient client = clientFactory.getClient(modelType);
-                    availableModels.put(modelType, client.checkAvailability());
-                } catch (Exception e) {
-                    availableModels.put(modelType, false);
+            // Availability checks can block on the providers; a separate span shows when a
+            // request paid for the refresh
+            tracer.run("llm.availability.refresh", span -> {
+                for (ModelType modelType : ModelType.values()) {
+                    try {
+                        LlmClient client = clientFactory.getClient(modelType);
+                        availableModels.put(modelType, client.checkAvailability());
+                    } catch (Exception e) {
+                        availableModels.put(modelType, false);
+                    }
                 }
-            }
+            });
             
             lastUpdated = Instant.now();
         } finally {
@@ -111,6 +139,7 @@ public class RouterService {
                 .gemini(availableModels.getOrDefault(ModelType.GEMINI, false))
                 .mistral(availableModels.getOrDefault(ModelType.MISTRAL, false))
                 .claude(availableModels.getOrDefault(ModelType.CLAUDE, false))
+                .selfHosted(availableModels.getOrDefault(ModelType.SELF_HOSTED, false))
                 .build();
         } finally {
             availabilityLock.readLock().unlock();
@@ -118,9 +147,18 @@ public class RouterService {
     }
     
     public ModelType routeRequest(QueryRequest request) {
-        if (request.getModel() != null) {
+        return routeRequest(request, EnumSet.allOf(ModelType.class));
+    }
+    
+    /**
+     * Routes a request to one of the given candidate models, e.g. those whose context
+     * window can hold the prompt.
+     */
+    public ModelType routeRequest(QueryRequest request, Set<ModelType> candidates) {
+        if (request.getModel() != null && candidates.contains(request.getModel())) {
             if (isModelAvailable(request.getModel())) {
                 log.debug("Using user-specified model: {}", request.getModel());
+                metrics.recordRouterDecision(request.getModel(), "requested");
                 return request.getModel();
             }
             log.warn("Requested model {} not available, trying alternatives", request.getModel());
@@ -128,25 +166,33 @@ public class RouterService {
         
         if (request.getTaskType() != null) {
             try {
-                ModelType model = routeByTaskType(request.getTaskType());
+                ModelType model = routeByTaskType(request.getTaskType(), candidates);
                 log.debug("Routed to model {} based on task type {}", model, request.getTaskType());
+                metrics.recordRouterDecision(model, "task_type");
                 return model;
             } catch (Exception e) {
                 log.warn("Failed to route by task type: {}", e.getMessage());
             }
         }
         
-        ModelType model = getRandomAvailableModel();
+        ModelType model = getRandomAvailableModel(candidates);
         log.debug("Using random available model: {}", model);
+        metrics.recordRouterDecision(model, "random");
         return model;
     }
     
     public ModelType fallbackOnError(ModelType originalModel, QueryRequest request, Exception error) {
+        return fallbackOnError(originalModel, request, error, EnumSet.allOf(ModelType.class));
+    }
+    
+    public ModelType fallbackOnError(ModelType originalModel, QueryRequest request, Exception error,
+                                     Set<ModelType> candidates) {
         if (!(error instanceof ModelError) || !((ModelError) error).isRetryable()) {
             throw ModelError.unavailableError("all");
         }
         
         List<ModelType> availableModels = getAvailableModelsExcept(originalModel);
+        availableModels.retainAll(candidates);
         if (availableModels.isEmpty()) {
             throw ModelError.unavailableError("all");
         }
@@ -155,6 +201,7 @@ public class RouterService {
             for (ModelType model : availableModels) {
                 if (model == request.getModel() && isModelAvailable(model)) {
                     log.debug("Falling back to user-specified model: {}", model);
+                    metrics.recordFallback(originalModel, model);
                     return model;
                 }
             }
@@ -164,6 +211,7 @@ public class RouterService {
         ModelType fallbackModel = availableModels.get(fallbackIndex);
         
         log.debug("Falling back from {} to {}", originalModel, fallbackModel);
+        metrics.recordFallback(originalModel, fallbackModel);
         return fallbackModel;
     }
     
@@ -172,48 +220,51 @@ public class RouterService {
         
         availabilityLock.readLock().lock();
         try {
-            return availableModels.getOrDefault(model, false);
+            return isAvailable(model);
         } finally {
             availabilityLock.readLock().unlock();
         }
     }
     
+    /**
+     * Models the startup warm-up exercises: every model whose client is enabled, whether or
+     * not its provider is reachable, since the simulator answers warm-up requests.
+     */
+    public Set<ModelType> getWarmupModels() {
+        Set<ModelType> models = EnumSet.allOf(ModelType.class);
+        if (!selfHostedEnabled) {
+            models.remove(ModelType.SELF_HOSTED);
+        }
+        return models;
+    }
     
-    private ModelType routeByTaskType(TaskType taskType) {
-        switch (taskType) {
-            case TEXT_GENERATION:
-                if (isModelAvailable(ModelType.OPENAI)) {
-                    return ModelType.OPENAI;
-                }
-                break;
-            case SUMMARIZATION:
-                if (isModelAvailable(ModelType.CLAUDE)) {
-                    return ModelType.CLAUDE;
-                }
-                break;
-            case SENTIMENT_ANALYSIS:
-                if (isModelAvailable(ModelType.GEMINI)) {
-                    return ModelType.GEMINI;
-                }
-                break;
-            case QUESTION_ANSWERING:
-                if (isModelAvailable(ModelType.MISTRAL)) {
-                    return ModelType.MISTRAL;
-                }
-                break;
+    /**
+     * Callers hold the read lock.
+     */
+    private boolean isAvailable(ModelType model) {
+        if (WarmupContext.isActive()) {
+            return getWarmupModels().contains(model);
+        }
+        return availableModels.getOrDefault(model, false);
+    }
+    
+    private ModelType routeByTaskType(TaskType taskType, Set<ModelType> candidates) {
+        ModelType preferred = modelCatalog.getPreferredModel(taskType);
+        if (preferred != null && candidates.contains(preferred) && isModelAvailable(preferred)) {
+            return preferred;
         }
         
-        return getRandomAvailableModel();
+        return getRandomAvailableModel(candidates);
     }
     
-    private ModelType getRandomAvailableModel() {
+    private ModelType getRandomAvailableModel(Set<ModelType> candidates) {
         ensureAvailabilityUpdated();
         
         availabilityLock.readLock().lock();
         List<ModelType> availableModelTypes = new ArrayList<>();
         try {
-            for (ModelType modelType : ModelType.values()) {
-                if (availableModels.getOrDefault(modelType, false)) {
+            for (ModelType modelType : candidates) {
+                if (isAvailable(modelType)) {
                     availableModelTypes.add(modelType);
                 }
             }
@@ -236,7 +287,7 @@ public class RouterService {
         List<ModelType> availableModelTypes = new ArrayList<>();
         try {
             for (ModelType modelType : ModelType.values()) {
-                if (modelType != excludeModel && availableModels.getOrDefault(modelType, false)) {
+                if (modelType != excludeModel && isAvailable(modelType)) {
                     availableModelTypes.add(modelType);
                 }
             }
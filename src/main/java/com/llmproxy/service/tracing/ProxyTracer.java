@@ -0,0 +1,86 @@
+package com.llmproxy.service.tracing;
+
+import io.github.resilience4j.retry.event.RetryOnRetryEvent;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Spans for the phases of a request (cache lookup, pre-flight, admission, routing, upstream
+ * call), nested under the server span of the incoming HTTP request. The upstream HTTP call
+ * itself gets a client span from the instrumented {@code RestClient}, which also sends the
+ * W3C {@code traceparent} header. Sampling and export are configured through
+ * {@code management.tracing.*} and {@code management.otlp.tracing.*}.
+ */
+@Component
+public class ProxyTracer {
+    public static final String INSTRUMENTATION_NAME = "com.llmproxy";
+    
+    public static final AttributeKey<String> MODEL = AttributeKey.stringKey("llm.model");
+    public static final AttributeKey<String> MODEL_VERSION = AttributeKey.stringKey("llm.model_version");
+    public static final AttributeKey<String> ORIGINAL_MODEL = AttributeKey.stringKey("llm.original_model");
+    public static final AttributeKey<Boolean> FALLBACK = AttributeKey.booleanKey("llm.fallback");
+    public static final AttributeKey<Boolean> CACHE_HIT = AttributeKey.booleanKey("llm.cache.hit");
+    public static final AttributeKey<Long> RETRY_COUNT = AttributeKey.longKey("llm.retry_count");
+    public static final AttributeKey<Long> PROMPT_TOKENS = AttributeKey.longKey("llm.prompt_tokens");
+    public static final AttributeKey<Long> INPUT_TOKENS = AttributeKey.longKey("llm.input_tokens");
+    public static final AttributeKey<Long> OUTPUT_TOKENS = AttributeKey.longKey("llm.output_tokens");
+    public static final AttributeKey<String> OUTCOME = AttributeKey.stringKey("llm.outcome");
+    
+    private final Tracer tracer;
+    
+    public ProxyTracer() {
+        this(OpenTelemetry.noop());
+    }
+    
+    @Autowired
+    public ProxyTracer(OpenTelemetry openTelemetry) {
+        this.tracer = openTelemetry.getTracer(INSTRUMENTATION_NAME);
+    }
+    
+    /**
+     * Runs {@code body} in a child span of the current span. An exception escaping the body
+     * is recorded on the span and marks it as failed.
+     */
+    public <T> T call(String name, Function<Span, T> body) {
+        Span span = tracer.spanBuilder(name).startSpan();
+        try (Scope ignored = span.makeCurrent()) {
+            return body.apply(span);
+        } catch (RuntimeException e) {
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+    
+    public void run(String name, Consumer<Span> body) {
+        call(name, span -> {
+            body.accept(span);
+            return null;
+        });
+    }
+    
+    /**
+     * Notes a {@code @Retry} attempt on the current span. Retries run on the calling
+     * thread, so that is the span of the upstream call being retried.
+     */
+    public static void recordRetry(RetryOnRetryEvent event) {
+        Span span = Span.current();
+        Throwable error = event.getLastThrowable();
+        span.addEvent("retry", Attributes.of(
+                RETRY_COUNT, (long) event.getNumberOfRetryAttempts(),
+                AttributeKey.stringKey("exception.message"), error == null ? "" : String.valueOf(error.getMessage())));
+        span.setAttribute(RETRY_COUNT, (long) event.getNumberOfRetryAttempts());
+    }
+}
@@ -0,0 +1,28 @@
+package com.llmproxy.service.warmup;
+
+import java.util.function.Supplier;
+
+/**
+ * Marks the current thread as serving a synthetic warm-up request. Provider calls made
+ * while it is set are answered by the simulator without delay, and the controller keeps
+ * the request out of the cache, metrics, history and load-shedding statistics.
+ */
+public final class WarmupContext {
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+    
+    private WarmupContext() {
+    }
+    
+    public static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+    
+    public static <T> T run(Supplier<T> action) {
+        ACTIVE.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            ACTIVE.remove();
+        }
+    }
+}
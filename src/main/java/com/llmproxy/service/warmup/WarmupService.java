@@ -0,0 +1,172 @@
+package com.llmproxy.service.warmup;
+
+import com.llmproxy.model.ModelType;
+import com.llmproxy.model.QueryRequest;
+import com.llmproxy.model.StatusResponse;
+import com.llmproxy.model.TaskType;
+import com.llmproxy.service.router.RouterService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms a new instance up before it reports ready. Spring Boot keeps the readiness state
+ * at {@code REFUSING_TRAFFIC} until application runners have finished, so
+ * {@code /actuator/health/readiness} only turns {@code UP} afterwards.
+ *
+ * <p>The warm-up first refreshes provider availability, which takes the synchronous
+ * checks off the first requests and resolves, connects and TLS-handshakes with every
+ * provider. It then sends synthetic requests through the full {@code /api/query} path
+ * over loopback (servlet container, JSON binding, cache lookup, pre-flight, admission,
+ * routing and the client code) so the JIT has compiled it before real traffic arrives.
+ * Those requests carry a token known only to this process and are answered by the
+ * provider simulator without delay; see {@link WarmupContext}.
+ */
+@Component
+@Slf4j
+public class WarmupService implements ApplicationRunner {
+    public static final String TOKEN_HEADER = "X-Warmup-Token";
+    private static final String[] QUERIES = {
+            "Summarize the following paragraph in two sentences: %s",
+            "Translate to French: %s",
+            "What is the sentiment of this review? %s",
+            "Write a short function that %s",
+            "Explain %s to a new engineer on the team"};
+    private static final String FILLER = "the quick brown fox jumps over the lazy dog while the proxy warms up";
+    
+    private final boolean enabled;
+    private final int requests;
+    private final long timeoutMillis;
+    private final RouterService routerService;
+    private final RestClient restClient;
+    private final ApplicationContext applicationContext;
+    private final String token;
+    private volatile boolean running;
+    
+    @Autowired
+    public WarmupService(
+            @Value("${warmup.enabled:true}") boolean enabled,
+            @Value("${warmup.requests:200}") int requests,
+            @Value("${warmup.timeout-seconds:60}") long timeoutSeconds,
+            RouterService routerService,
+            RestClient restClient,
+            ApplicationContext applicationContext) {
+        this.enabled = enabled;
+        this.requests = requests;
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+        this.routerService = routerService;
+        this.restClient = restClient;
+        this.applicationContext = applicationContext;
+        
+        byte[] secret = new byte[16];
+        new SecureRandom().nextBytes(secret);
+        this.token = HexFormat.of().formatHex(secret);
+    }
+    
+    /**
+     * Whether a request is one of this instance's own warm-up requests. Only true while the
+     * warm-up runs, so the token is worthless afterwards.
+     */
+    public boolean isWarmupRequest(HttpServletRequest request) {
+        String presented = request.getHeader(TOKEN_HEADER);
+        return running && presented != null && MessageDigest.isEqual(
+                presented.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        
+        StatusResponse availability = primeAvailability();
+        long availabilityMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        
+        Map<Integer, Integer> statuses = new TreeMap<>();
+        int port = localPort();
+        if (port > 0 && requests > 0) {
+            running = true;
+            try {
+                ModelType[] models = routerService.getWarmupModels().toArray(new ModelType[0]);
+                for (int i = 0; i < requests && System.nanoTime() < deadline; i++) {
+                    statuses.merge(send(port, models, i), 1, Integer::sum);
+                }
+            } finally {
+                running = false;
+            }
+        }
+        
+        log.info("Warm-up finished in {} ms: availability {} in {} ms, synthetic requests by status {}",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), availability, availabilityMillis, statuses);
+    }
+    
+    private StatusResponse primeAvailability() {
+        try {
+            routerService.updateAvailability();
+            return routerService.getAvailability();
+        } catch (RuntimeException e) {
+            log.warn("Warm-up availability check failed: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    private int localPort() {
+        if (applicationContext instanceof WebServerApplicationContext web && web.getWebServer() != null) {
+            return web.getWebServer().getPort();
+        }
+        return -1;
+    }
+    
+    /**
+     * @return the HTTP status, or 0 if the request could not be sent
+     */
+    private int send(int port, ModelType[] models, int index) {
+        TaskType[] taskTypes = TaskType.values();
+        String text = FILLER.repeat(1 + index % 8) + " #" + index;
+        QueryRequest request = QueryRequest.builder()
+                .query(String.format(QUERIES[index % QUERIES.length], text))
+                .model(models.length == 0 || index % 4 == 3 ? null : models[index % models.length])
+                .taskType(index % 3 == 0 ? taskTypes[index % taskTypes.length] : null)
+                .requestId("warmup-" + index)
+                .build();
+        try {
+            return restClient.post()
+                    .uri("http://127.0.0.1:" + port + "/api/query")
+                    .header(TOKEN_HEADER, token)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(request)
+                    .exchange((clientRequest, response) -> {
+                        int status = response.getStatusCode().value();
+                        try (InputStream body = response.getBody()) {
+                            body.readAllBytes();
+                        } catch (IOException e) {
+                            // Error responses without a body have nothing to read
+                        }
+                        return status;
+                    });
+        } catch (RuntimeException e) {
+            log.debug("Warm-up request {} failed: {}", index, e.getMessage());
+            return 0;
+        }
+    }
+}
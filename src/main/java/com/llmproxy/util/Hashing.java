@@ -0,0 +1,28 @@
+package com.llmproxy.util;
+
+import java.nio.charset.StandardCharsets;
+
+public final class Hashing {
+    
+    private Hashing() {
+    }
+    
+    /**
+     * Fast, well-mixed 64-bit hash of a string: FNV-1a over the UTF-8 bytes finished
+     * with the murmur3 64-bit mixer. Not suitable where an adversary controls collisions
+     * and that matters; used for sharding and sketches.
+     */
+    public static long hash64(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,49 @@
+package com.llmproxy.controller;
+
+import com.llmproxy.model.HistoryEntry;
+import com.llmproxy.model.HistoryPage;
+import com.llmproxy.service.history.HistoryStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class HistoryControllerTest {
+
+    private final HistoryStore historyStore = mock(HistoryStore.class);
+
+    @Test
+    void endpoints_noTokenConfigured_notFound() {
+        HistoryController controller = new HistoryController(historyStore, "");
+
+        assertEquals(HttpStatus.NOT_FOUND, controller.list(null, null, null, 20, "Bearer ").getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, controller.get("req-1", null).getStatusCode());
+        verifyNoInteractions(historyStore);
+    }
+
+    @Test
+    void endpoints_missingOrWrongToken_unauthorized() {
+        HistoryController controller = new HistoryController(historyStore, "s3cret");
+
+        assertEquals(HttpStatus.UNAUTHORIZED, controller.list(null, null, null, 20, null).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, controller.get("req-1", "Bearer guess").getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, controller.get("req-1", "s3cret").getStatusCode());
+        verifyNoInteractions(historyStore);
+    }
+
+    @Test
+    void endpoints_matchingToken_served() {
+        HistoryController controller = new HistoryController(historyStore, "s3cret");
+        when(historyStore.list(any(), any(), any(), anyInt())).thenReturn(HistoryPage.builder().entries(List.of()).build());
+        when(historyStore.get("req-1")).thenReturn(Optional.of(HistoryEntry.builder().requestId("req-1").build()));
+
+        assertEquals(HttpStatus.OK, controller.list(null, null, null, 20, "Bearer s3cret").getStatusCode());
+        assertEquals("req-1", controller.get("req-1", "Bearer s3cret").getBody().getRequestId());
+    }
+}
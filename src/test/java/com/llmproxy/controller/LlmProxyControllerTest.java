@@ -1,22 +1,42 @@
 package com.llmproxy.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.llmproxy.exception.ModelError;
 import com.llmproxy.model.ModelType;
 import com.llmproxy.model.QueryRequest;
 import com.llmproxy.model.QueryResponse;
 import com.llmproxy.model.StatusResponse;
+import com.llmproxy.service.accesslog.AccessLog;
+import com.llmproxy.service.admission.AdaptiveConcurrencyLimiter;
+import com.llmproxy.service.admission.AdmissionScheduler;
 import com.llmproxy.service.cache.CacheService;
+import com.llmproxy.service.capture.TrafficCapture;
+import com.llmproxy.service.history.HistoryStore;
 import com.llmproxy.service.llm.LlmClient;
 import com.llmproxy.service.llm.LlmClientFactory;
 import com.llmproxy.service.llm.QueryResult;
+import com.llmproxy.service.llm.ModelVersionValidator;
+import com.llmproxy.service.llm.TokenEstimator;
+import com.llmproxy.service.metrics.ProxyMetrics;
+import com.llmproxy.service.ratelimit.RateLimitDecision;
 import com.llmproxy.service.ratelimit.RateLimiterService;
+import com.llmproxy.service.ratelimit.TokenQuotaService;
+import com.llmproxy.service.router.PreflightService;
 import com.llmproxy.service.router.RouterService;
+import com.llmproxy.service.tracing.ProxyTracer;
+import com.llmproxy.service.warmup.WarmupService;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
 import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -24,7 +44,13 @@ import org.springframework.mock.web.MockHttpServletRequest;
 import org.junit.jupiter.api.DisplayName;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -49,16 +75,37 @@ class LlmProxyControllerTest {
     @Mock
     private LlmClient llmClient;
     
+    
+    private AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(false, 20, 4, 200, 0.2, 600);
+    private AdmissionScheduler admissionScheduler = new AdmissionScheduler(concurrencyLimiter, false, 32, 16, 100, 10000, 1000, "");
+    
+    private PreflightService preflightService = new PreflightService(new TokenEstimator(), new ModelVersionValidator(), 0.1);
+    
+    private ProxyMetrics metrics = new ProxyMetrics();
+    
+    private ProxyTracer tracer = new ProxyTracer();
+    
+    private AccessLog accessLog = new AccessLog(false, "logs/access.log", 16, 1, 0);
+    
+    @Mock
+    private HistoryStore historyStore;
+    
+    private TrafficCapture trafficCapture = new TrafficCapture(new ObjectMapper(), false, "data/capture.jsonl.gz", 16);
+    
+    @Mock
+    private WarmupService warmupService;
+    
     private LlmProxyController controller;
     private MockHttpServletRequest mockRequest;
     
     @BeforeEach
     void setUp() {
-        controller = new LlmProxyController(routerService, clientFactory, cacheService, rateLimiterService);
+        controller = new LlmProxyController(routerService, clientFactory, cacheService, rateLimiterService,
+                new TokenQuotaService(0, 0, 150), admissionScheduler, concurrencyLimiter, preflightService, metrics, tracer, accessLog, historyStore, trafficCapture, warmupService);
         mockRequest = new MockHttpServletRequest();
         mockRequest.setRemoteAddr("127.0.0.1");
         
-        lenient().when(rateLimiterService.allowClient(anyString())).thenReturn(true);
+        lenient().when(rateLimiterService.checkClient(anyString())).thenReturn(RateLimitDecision.unmetered(true));
         lenient().when(clientFactory.getClient(any(ModelType.class))).thenReturn(llmClient);
     }
 
@@ -80,7 +127,7 @@ class LlmProxyControllerTest {
                 .build();
         
         lenient().when(cacheService.get(any(QueryRequest.class))).thenReturn(null);
-        lenient().when(routerService.routeRequest(any(QueryRequest.class))).thenReturn(ModelType.OPENAI);
+        lenient().when(routerService.routeRequest(any(QueryRequest.class), any())).thenReturn(ModelType.OPENAI);
         lenient().when(llmClient.query(any(), any())).thenReturn(queryResult);
         
         ResponseEntity<QueryResponse> response = controller.query(request, mockRequest);
@@ -92,6 +139,38 @@ class LlmProxyControllerTest {
         assertEquals(10, response.getBody().getInputTokens());
         assertEquals(20, response.getBody().getOutputTokens());
         assertEquals(30, response.getBody().getTotalTokens());
+        assertEquals(1, metrics.getRegistry().get("llm.upstream.latency")
+                .tags("provider", "openai", "outcome", "success").timer().count());
+        assertEquals(20, metrics.getRegistry().get("llm.tokens")
+                .tags("provider", "openai", "direction", "output").counter().count());
+        verify(historyStore).record(request, response.getBody());
+    }
+
+    @Test
+    @DisplayName("Should serve warm-up requests without rate limiting, caching, metrics or history")
+    void query_warmupRequest_leavesNoTrace() {
+        QueryRequest request = QueryRequest.builder()
+                .query("Warm-up query")
+                .build();
+        
+        QueryResult queryResult = QueryResult.builder()
+                .response("Simulated response")
+                .statusCode(HttpStatus.OK.value())
+                .totalTokens(30)
+                .build();
+        
+        when(warmupService.isWarmupRequest(mockRequest)).thenReturn(true);
+        when(routerService.routeRequest(any(QueryRequest.class), any())).thenReturn(ModelType.OPENAI);
+        when(llmClient.query(any(), any())).thenReturn(queryResult);
+        
+        ResponseEntity<QueryResponse> response = controller.query(request, mockRequest);
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("Simulated response", response.getBody().getResponse());
+        assertTrue(metrics.getRegistry().find("llm.upstream.latency").timers().isEmpty());
+        verify(rateLimiterService, never()).checkClient(anyString());
+        verify(cacheService, never()).set(any(), any());
+        verifyNoInteractions(historyStore);
     }
 
     @Test
@@ -116,7 +195,7 @@ class LlmProxyControllerTest {
                 .query("Test query")
                 .build();
         
-        lenient().when(rateLimiterService.allowClient(anyString())).thenReturn(false);
+        lenient().when(rateLimiterService.checkClient(anyString())).thenReturn(RateLimitDecision.unmetered(false));
         
         ResponseEntity<QueryResponse> response = controller.query(request, mockRequest);
         
@@ -124,6 +203,7 @@ class LlmProxyControllerTest {
         assertNotNull(response.getBody());
         assertEquals("Rate limit exceeded. Please try again later.", response.getBody().getError());
         assertEquals("rate_limit", response.getBody().getErrorType());
+        assertEquals(1, metrics.getRegistry().get("llm.rejections").tag("reason", "rate_limit").counter().count());
     }
 
     @Test
@@ -151,6 +231,23 @@ class LlmProxyControllerTest {
         assertTrue(response.getBody().isCached());
     }
 
+    @Test
+    void query_cacheHitOnStoredUpstreamResponse_marksResponseCached() {
+        QueryResponse stored = QueryResponse.builder()
+                .response("Stored response")
+                .model(ModelType.OPENAI)
+                .cached(false)
+                .build();
+        when(cacheService.get(any(QueryRequest.class))).thenReturn(stored);
+        
+        ResponseEntity<QueryResponse> response = controller.query(
+                QueryRequest.builder().query("Test query").build(), mockRequest);
+        
+        assertTrue(response.getBody().isCached());
+        assertEquals("Stored response", response.getBody().getResponse());
+        assertFalse(stored.isCached());
+    }
+
     @Test
     @DisplayName("Should return error response when model error occurs")
     void query_modelError_returnsErrorResponse() {
@@ -161,7 +258,7 @@ class LlmProxyControllerTest {
         ModelError apiKeyError = ModelError.apiKeyMissingError(ModelType.OPENAI.toString());
         
         lenient().when(cacheService.get(any(QueryRequest.class))).thenReturn(null);
-        lenient().when(routerService.routeRequest(any(QueryRequest.class))).thenReturn(ModelType.OPENAI);
+        lenient().when(routerService.routeRequest(any(QueryRequest.class), any())).thenReturn(ModelType.OPENAI);
         lenient().when(llmClient.query(any(), any())).thenThrow(apiKeyError);
         
         ResponseEntity<QueryResponse> response = controller.query(request, mockRequest);
@@ -170,6 +267,7 @@ class LlmProxyControllerTest {
         assertNotNull(response.getBody());
         assertEquals("API key not configured", response.getBody().getError());
         assertEquals("ModelError", response.getBody().getErrorType());
+        verify(historyStore, never()).record(any(), any());
     }
 
     @Test
@@ -241,7 +339,7 @@ class LlmProxyControllerTest {
             "format", "txt"
         );
         
-        lenient().when(rateLimiterService.allowClient(anyString())).thenReturn(false);
+        lenient().when(rateLimiterService.checkClient(anyString())).thenReturn(RateLimitDecision.unmetered(false));
         
         ResponseEntity<byte[]> response = controller.download(request, mockRequest);
         
@@ -265,7 +363,7 @@ class LlmProxyControllerTest {
     @Test
     @DisplayName("Should return too many requests when rate limited for status")
     void status_rateLimited_returnsTooManyRequests() {
-        lenient().when(rateLimiterService.allowClient(anyString())).thenReturn(false);
+        lenient().when(rateLimiterService.checkClient(anyString())).thenReturn(RateLimitDecision.unmetered(false));
         
         ResponseEntity<StatusResponse> response = controller.status(mockRequest);
         
@@ -275,7 +373,7 @@ class LlmProxyControllerTest {
     @Test
     @DisplayName("Should return too many requests when rate limited for health")
     void health_rateLimited_returnsTooManyRequests() {
-        lenient().when(rateLimiterService.allowClient(anyString())).thenReturn(false);
+        lenient().when(rateLimiterService.checkClient(anyString())).thenReturn(RateLimitDecision.unmetered(false));
         
         ResponseEntity<Map<String, Object>> response = controller.health(mockRequest);
         
@@ -297,4 +395,390 @@ class LlmProxyControllerTest {
         assertEquals("Query exceeds maximum length of 32000 characters", response.getBody().getError());
         assertEquals("validation_error", response.getBody().getErrorType());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should return too many requests when the client's token quota is exhausted")
+    void query_tokenQuotaExhausted_returnsTooManyRequests() {
+        controller = new LlmProxyController(routerService, clientFactory, cacheService, rateLimiterService,
+                new TokenQuotaService(1000, 1000, 150), admissionScheduler, concurrencyLimiter, preflightService, metrics, tracer, accessLog, historyStore, trafficCapture, warmupService);
+        QueryRequest request = QueryRequest.builder()
+                .query("a".repeat(4000))
+                .build();
+        
+        QueryResult queryResult = QueryResult.builder()
+                .response("Test response")
+                .totalTokens(1150)
+                .build();
+        
+        lenient().when(cacheService.get(any(QueryRequest.class))).thenReturn(null);
+        lenient().when(routerService.routeRequest(any(QueryRequest.class), any())).thenReturn(ModelType.OPENAI);
+        lenient().when(llmClient.query(any(), any())).thenReturn(queryResult);
+        
+        assertEquals(HttpStatus.OK, controller.query(request, mockRequest).getStatusCode());
+        
+        ResponseEntity<QueryResponse> response = controller.query(
+                QueryRequest.builder().query("Short query").build(), mockRequest);
+        
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals("token_quota", response.getBody().getErrorType());
+        // About 300 tokens of debt and estimate at 1000 tokens per minute
+        long retryAfter = Long.parseLong(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertTrue(retryAfter > 1 && retryAfter <= 60, "Retry-After " + retryAfter);
+    }
+
+    @Test
+    @DisplayName("Should refund the token reservation when the upstream call fails")
+    void query_upstreamFailure_refundsTokenReservation() {
+        controller = new LlmProxyController(routerService, clientFactory, cacheService, rateLimiterService,
+                new TokenQuotaService(1000, 1000, 150), admissionScheduler, concurrencyLimiter, preflightService, metrics, tracer, accessLog, historyStore, trafficCapture, warmupService);
+        QueryRequest request = QueryRequest.builder()
+                .query("a".repeat(3000))
+                .build();
+        
+        lenient().when(cacheService.get(any(QueryRequest.class))).thenReturn(null);
+        lenient().when(routerService.routeRequest(any(QueryRequest.class), any())).thenReturn(ModelType.OPENAI);
+        lenient().when(llmClient.query(any(), any()))
+                .thenThrow(ModelError.apiKeyMissingError(ModelType.OPENAI.toString()));
+        
+        assertEquals(HttpStatus.UNAUTHORIZED, controller.query(request, mockRequest).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, controller.query(request, mockRequest).getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Should send rate limit headers on successful responses")
+    void health_withinLimit_includesRateLimitHeaders() {
+        when(rateLimiterService.checkClient(anyString()))
+                .thenReturn(new RateLimitDecision(true, 10, 7, TimeUnit.SECONDS.toNanos(18), 0));
+        
+        ResponseEntity<Map<String, Object>> response = controller.health(mockRequest);
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("10", response.getHeaders().getFirst("RateLimit-Limit"));
+        assertEquals("7", response.getHeaders().getFirst("RateLimit-Remaining"));
+        assertEquals("18", response.getHeaders().getFirst("RateLimit-Reset"));
+        assertNull(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    @DisplayName("Should send Retry-After when rate limited")
+    void query_rateLimited_includesRetryAfter() {
+        when(rateLimiterService.checkClient(anyString()))
+                .thenReturn(new RateLimitDecision(false, 10, 0, TimeUnit.SECONDS.toNanos(60), TimeUnit.MILLISECONDS.toNanos(5500)));
+        
+        ResponseEntity<QueryResponse> response = controller.query(
+                QueryRequest.builder().query("Test query").build(), mockRequest);
+        
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("6", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals("0", response.getHeaders().getFirst("RateLimit-Remaining"));
+        assertEquals("rate_limit", response.getBody().getErrorType());
+    }
+
+    @Test
+    @DisplayName("Should keep existing headers when adding rate limit headers")
+    void download_withinLimit_keepsContentDisposition() {
+        when(rateLimiterService.checkClient(anyString()))
+                .thenReturn(new RateLimitDecision(true, 10, 9, TimeUnit.SECONDS.toNanos(6), 0));
+        
+        ResponseEntity<byte[]> response = controller.download(Map.of("response", "Test response"), mockRequest);
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("attachment; filename=llm_response.txt", response.getHeaders().getFirst("Content-Disposition"));
+        assertEquals(MediaType.TEXT_PLAIN, response.getHeaders().getContentType());
+        assertEquals("9", response.getHeaders().getFirst("RateLimit-Remaining"));
+    }
+
+    @Test
+    @DisplayName("Should hold a rate limited client until its next token when admission scheduling is enabled")
+    void query_rateLimitedWithAdmissionScheduling_waitsForNextToken() {
+        admissionScheduler = new AdmissionScheduler(concurrencyLimiter, true, 1, 1, 100, 1000, 1000, "");
+        controller = new LlmProxyController(routerService, clientFactory, cacheService, rateLimiterService,
+                new TokenQuotaService(0, 0, 150), admissionScheduler, concurrencyLimiter, preflightService, metrics, tracer, accessLog, historyStore, trafficCapture, warmupService);
+        when(rateLimiterService.checkClient(anyString()))
+                .thenReturn(new RateLimitDecision(false, 10, 0, TimeUnit.SECONDS.toNanos(6), TimeUnit.MILLISECONDS.toNanos(20)))
+                .thenReturn(new RateLimitDecision(true, 10, 0, TimeUnit.SECONDS.toNanos(6), 0));
+        lenient().when(routerService.routeRequest(any(QueryRequest.class), any())).thenReturn(ModelType.OPENAI);
+        lenient().when(llmClient.query(any(), any())).thenReturn(QueryResult.builder().response("Test response").build());
+        
+        ResponseEntity<QueryResponse> response = controller.query(
+                QueryRequest.builder().query("Test query").build(), mockRequest);
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        verify(rateLimiterService, times(2)).checkClient(anyString());
+        assertEquals(0, admissionScheduler.getInFlight());
+    }
+
+    @Test
+    @DisplayName("Should still reject a rate limited client whose next token is beyond the queue timeout")
+    void query_rateLimitedWithAdmissionScheduling_rejectedWhenWaitTooLong() {
+        admissionScheduler = new AdmissionScheduler(concurrencyLimiter, true, 32, 16, 100, 1000, 1000, "");
+        controller = new LlmProxyController(routerService, clientFactory, cacheService, rateLimiterService,
+                new TokenQuotaService(0, 0, 150), admissionScheduler, concurrencyLimiter, preflightService, metrics, tracer, accessLog, historyStore, trafficCapture, warmupService);
+        when(rateLimiterService.checkClient(anyString()))
+                .thenReturn(new RateLimitDecision(false, 10, 0, TimeUnit.SECONDS.toNanos(60), TimeUnit.SECONDS.toNanos(6)));
+        
+        ResponseEntity<QueryResponse> response = controller.query(
+                QueryRequest.builder().query("Test query").build(), mockRequest);
+        
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("6", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        verify(routerService, never()).routeRequest(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should shed requests with 503 once the concurrency limit is reached")
+    void query_concurrencyLimitReached_returnsServiceUnavailable() {
+        concurrencyLimiter = new AdaptiveConcurrencyLimiter(true, 1, 1, 1, 0.2, 600);
+        controller = new LlmProxyController(routerService, clientFactory, cacheService, rateLimiterService,
+                new TokenQuotaService(0, 0, 150), admissionScheduler, concurrencyLimiter, preflightService, metrics, tracer, accessLog, historyStore, trafficCapture, warmupService);
+        AdaptiveConcurrencyLimiter.Listener busy = concurrencyLimiter.tryAcquire();
+        
+        ResponseEntity<QueryResponse> response = controller.query(
+                QueryRequest.builder().query("Test query").build(), mockRequest);
+        
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("overloaded", response.getBody().getErrorType());
+        verify(routerService, never()).routeRequest(any(), any());
+        
+        busy.onIgnore();
+        assertEquals(0, concurrencyLimiter.getInFlight());
+    }
+
+    @Test
+    @DisplayName("Should not count requests queued for admission against the concurrency limit")
+    void query_admissionAndLoadSheddingEnabled_queuedRequestServedNotShed() throws Exception {
+        concurrencyLimiter = new AdaptiveConcurrencyLimiter(true, 1, 1, 1, 0.2, 600);
+        admissionScheduler = new AdmissionScheduler(concurrencyLimiter, true, 1, 4, 100, 5000, 1000, "");
+        controller = new LlmProxyController(routerService, clientFactory, cacheService, rateLimiterService,
+                new TokenQuotaService(0, 0, 150), admissionScheduler, concurrencyLimiter, preflightService, metrics, tracer, accessLog, historyStore, trafficCapture, warmupService);
+        CountDownLatch upstreamEntered = new CountDownLatch(1);
+        CountDownLatch upstreamRelease = new CountDownLatch(1);
+        lenient().when(routerService.routeRequest(any(QueryRequest.class), any())).thenReturn(ModelType.OPENAI);
+        lenient().when(llmClient.query(any(), any())).thenAnswer(invocation -> {
+            upstreamEntered.countDown();
+            upstreamRelease.await(5, TimeUnit.SECONDS);
+            return QueryResult.builder().response("Test response").build();
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<ResponseEntity<QueryResponse>> first = executor.submit(() -> controller.query(
+                    QueryRequest.builder().query("First query").build(), mockRequest));
+            assertTrue(upstreamEntered.await(5, TimeUnit.SECONDS));
+            Future<ResponseEntity<QueryResponse>> second = executor.submit(() -> controller.query(
+                    QueryRequest.builder().query("Second query").build(), mockRequest));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (admissionScheduler.getQueuedCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            
+            assertEquals(1, admissionScheduler.getQueuedCount());
+            assertEquals(1, concurrencyLimiter.getInFlight());
+            
+            upstreamRelease.countDown();
+            assertEquals(HttpStatus.OK, first.get(5, TimeUnit.SECONDS).getStatusCode());
+            assertEquals(HttpStatus.OK, second.get(5, TimeUnit.SECONDS).getStatusCode());
+            assertEquals(0, concurrencyLimiter.getInFlight());
+            assertEquals(0, admissionScheduler.getInFlight());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should cap upstream calls at the adaptive limit and turn excess away at once when the queue is full")
+    void query_admissionQueueFullUnderAdaptiveLimit_shedImmediately() throws Exception {
+        concurrencyLimiter = new AdaptiveConcurrencyLimiter(true, 1, 1, 200, 0.2, 600);
+        admissionScheduler = new AdmissionScheduler(concurrencyLimiter, true, 32, 16, 1, 5000, 1000, "");
+        controller = new LlmProxyController(routerService, clientFactory, cacheService, rateLimiterService,
+                new TokenQuotaService(0, 0, 150), admissionScheduler, concurrencyLimiter, preflightService, metrics, tracer, accessLog, historyStore, trafficCapture, warmupService);
+        CountDownLatch upstreamEntered = new CountDownLatch(1);
+        CountDownLatch upstreamRelease = new CountDownLatch(1);
+        lenient().when(routerService.routeRequest(any(QueryRequest.class), any())).thenReturn(ModelType.OPENAI);
+        lenient().when(llmClient.query(any(), any())).thenAnswer(invocation -> {
+            upstreamEntered.countDown();
+            upstreamRelease.await(5, TimeUnit.SECONDS);
+            return QueryResult.builder().response("Test response").build();
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<ResponseEntity<QueryResponse>> first = executor.submit(() -> controller.query(
+                    QueryRequest.builder().query("First query").build(), mockRequest));
+            assertTrue(upstreamEntered.await(5, TimeUnit.SECONDS));
+            // admission.max-concurrent is 32, but the adaptive limit of 1 is what caps upstream calls
+            Future<ResponseEntity<QueryResponse>> second = executor.submit(() -> controller.query(
+                    QueryRequest.builder().query("Second query").build(), mockRequest));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (admissionScheduler.getQueuedCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(1, admissionScheduler.getQueuedCount());
+            
+            long start = System.nanoTime();
+            ResponseEntity<QueryResponse> shed = controller.query(
+                    QueryRequest.builder().query("Third query").build(), mockRequest);
+            
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, shed.getStatusCode());
+            assertEquals("queue_full", shed.getBody().getErrorType());
+            assertNotNull(shed.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+            assertEquals(1, concurrencyLimiter.getInFlight());
+            
+            upstreamRelease.countDown();
+            assertEquals(HttpStatus.OK, first.get(5, TimeUnit.SECONDS).getStatusCode());
+            assertEquals(HttpStatus.OK, second.get(5, TimeUnit.SECONDS).getStatusCode());
+            assertEquals(0, concurrencyLimiter.getInFlight());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should send Retry-After when the client's admission queue is full")
+    void query_admissionQueueFull_sendsRetryAfter() throws Exception {
+        admissionScheduler = new AdmissionScheduler(concurrencyLimiter, true, 1, 1, 100, 2500, 1000, "");
+        controller = new LlmProxyController(routerService, clientFactory, cacheService, rateLimiterService,
+                new TokenQuotaService(0, 0, 150), admissionScheduler, concurrencyLimiter, preflightService, metrics, tracer, accessLog, historyStore, trafficCapture, warmupService);
+        lenient().when(routerService.routeRequest(any(QueryRequest.class), any())).thenReturn(ModelType.OPENAI);
+        lenient().when(llmClient.query(any(), any())).thenReturn(QueryResult.builder().response("Test response").build());
+        AdmissionScheduler.Permit running = admissionScheduler.admit("other-client", 10);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ResponseEntity<QueryResponse>> queued = executor.submit(() -> controller.query(
+                    QueryRequest.builder().query("Queued query").build(), mockRequest));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (admissionScheduler.getQueuedCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            
+            ResponseEntity<QueryResponse> response = controller.query(
+                    QueryRequest.builder().query("Rejected query").build(), mockRequest);
+            
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+            assertEquals("queue_full", response.getBody().getErrorType());
+            assertEquals("3", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+            
+            running.close();
+            assertEquals(HttpStatus.OK, queued.get(5, TimeUnit.SECONDS).getStatusCode());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should send Retry-After when the upstream provider rate limits")
+    void query_upstreamRateLimited_sendsRetryAfter() {
+        when(routerService.routeRequest(any(QueryRequest.class), any())).thenReturn(ModelType.OPENAI);
+        when(llmClient.query(any(), any())).thenThrow(ModelError.rateLimitError("openai"));
+        when(routerService.fallbackOnError(eq(ModelType.OPENAI), any(), any(), any()))
+                .thenThrow(ModelError.unavailableError("all"));
+        
+        ResponseEntity<QueryResponse> response = controller.query(
+                QueryRequest.builder().query("Test query").build(), mockRequest);
+        
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        verify(routerService).fallbackOnError(eq(ModelType.OPENAI), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should serve cache hits and health checks even when overloaded")
+    void query_overloadedCacheHit_returnsCachedResponse() {
+        concurrencyLimiter = new AdaptiveConcurrencyLimiter(true, 1, 1, 1, 0.2, 600);
+        controller = new LlmProxyController(routerService, clientFactory, cacheService, rateLimiterService,
+                new TokenQuotaService(0, 0, 150), admissionScheduler, concurrencyLimiter, preflightService, metrics, tracer, accessLog, historyStore, trafficCapture, warmupService);
+        concurrencyLimiter.tryAcquire();
+        when(cacheService.get(any(QueryRequest.class))).thenReturn(QueryResponse.builder().response("Cached").cached(true).build());
+        
+        ResponseEntity<QueryResponse> response = controller.query(
+                QueryRequest.builder().query("Test query").build(), mockRequest);
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("Cached", response.getBody().getResponse());
+        assertEquals(HttpStatus.OK, controller.health(mockRequest).getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Should release the concurrency slot whatever the upstream outcome")
+    void query_upstreamError_releasesConcurrencySlot() {
+        concurrencyLimiter = new AdaptiveConcurrencyLimiter(true, 4, 4, 4, 0.2, 600);
+        controller = new LlmProxyController(routerService, clientFactory, cacheService, rateLimiterService,
+                new TokenQuotaService(0, 0, 150), admissionScheduler, concurrencyLimiter, preflightService, metrics, tracer, accessLog, historyStore, trafficCapture, warmupService);
+        lenient().when(routerService.routeRequest(any(QueryRequest.class), any())).thenReturn(ModelType.OPENAI);
+        lenient().when(llmClient.query(any(), any()))
+                .thenThrow(ModelError.apiKeyMissingError(ModelType.OPENAI.toString()));
+        
+        controller.query(QueryRequest.builder().query("Test query").build(), mockRequest);
+        
+        assertEquals(0, concurrencyLimiter.getInFlight());
+        assertEquals(4, concurrencyLimiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Should reject a prompt that fits no context window before calling upstream")
+    void query_promptExceedsContextWindows_returnsBadRequest() {
+        preflightService = new PreflightService(new TokenEstimator(), mock(ModelVersionValidator.class), 0.1);
+        controller = new LlmProxyController(routerService, clientFactory, cacheService, rateLimiterService,
+                new TokenQuotaService(0, 0, 150), admissionScheduler, concurrencyLimiter, preflightService, metrics, tracer, accessLog, historyStore, trafficCapture, warmupService);
+        
+        ResponseEntity<QueryResponse> response = controller.query(
+                QueryRequest.builder().query("Test query").build(), mockRequest);
+        
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("context_length_exceeded", response.getBody().getErrorType());
+        verify(routerService, never()).routeRequest(any(), any());
+        verify(llmClient, never()).query(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should call upstream with a version whose context window holds the prompt")
+    void query_promptOverflowsRequestedVersion_queriesLargerVersion() {
+        when(routerService.routeRequest(any(QueryRequest.class), any())).thenReturn(ModelType.OPENAI);
+        when(llmClient.query(any(), any())).thenReturn(QueryResult.builder().response("Test response").build());
+        
+        ResponseEntity<QueryResponse> response = controller.query(QueryRequest.builder()
+                .query("語".repeat(9000))
+                .modelVersion("gpt-4")
+                .build(), mockRequest);
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(llmClient).query(anyString(), eq(ModelVersionValidator.DEFAULT_OPENAI_VERSION));
+    }
+
+    @Test
+    void query_retryableErrorWithFallback_tracesEachPhase() {
+        InMemorySpanExporter exporter = InMemorySpanExporter.create();
+        tracer = new ProxyTracer(OpenTelemetrySdk.builder()
+                .setTracerProvider(SdkTracerProvider.builder()
+                        .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+                        .build())
+                .build());
+        controller = new LlmProxyController(routerService, clientFactory, cacheService, rateLimiterService,
+                new TokenQuotaService(0, 0, 150), admissionScheduler, concurrencyLimiter, preflightService, metrics, tracer, accessLog, historyStore, trafficCapture, warmupService);
+        LlmClient fallbackClient = mock(LlmClient.class);
+        when(clientFactory.getClient(ModelType.GEMINI)).thenReturn(fallbackClient);
+        when(routerService.routeRequest(any(QueryRequest.class), any())).thenReturn(ModelType.OPENAI);
+        when(llmClient.query(any(), any())).thenThrow(ModelError.unavailableError("openai"));
+        when(routerService.fallbackOnError(eq(ModelType.OPENAI), any(), any(), any())).thenReturn(ModelType.GEMINI);
+        when(fallbackClient.query(any(), any())).thenReturn(QueryResult.builder()
+                .response("Fallback response").inputTokens(3).outputTokens(7).totalTokens(10).build());
+        
+        ResponseEntity<QueryResponse> response = controller.query(
+                QueryRequest.builder().query("Test query").build(), mockRequest);
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<SpanData> spans = exporter.getFinishedSpanItems();
+        assertEquals(List.of("llm.cache.lookup", "llm.preflight", "llm.admission", "llm.route", "llm.upstream",
+                "llm.route", "llm.upstream", "llm.cache.store"), spans.stream().map(SpanData::getName).toList());
+        assertEquals(false, spans.get(0).getAttributes().get(ProxyTracer.CACHE_HIT));
+        SpanData failed = spans.get(4);
+        assertEquals("openai", failed.getAttributes().get(ProxyTracer.MODEL));
+        assertEquals(false, failed.getAttributes().get(ProxyTracer.FALLBACK));
+        SpanData fallback = spans.get(6);
+        assertEquals("gemini", fallback.getAttributes().get(ProxyTracer.MODEL));
+        assertEquals(true, fallback.getAttributes().get(ProxyTracer.FALLBACK));
+        assertEquals("openai", fallback.getAttributes().get(ProxyTracer.ORIGINAL_MODEL));
+        assertEquals(7L, fallback.getAttributes().get(ProxyTracer.OUTPUT_TOKENS));
+    }
+}
@@ -0,0 +1,39 @@
+package com.llmproxy.controller;
+
+import com.llmproxy.service.cluster.ClusterMembership;
+import com.llmproxy.service.ratelimit.ClusterClientLimiterStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class RateLimitPeerControllerTest {
+
+    private final ClusterClientLimiterStore limiterStore = mock(ClusterClientLimiterStore.class);
+    private final RateLimitPeerController controller = new RateLimitPeerController(limiterStore,
+            new ClusterMembership("http://node-a", List.of("http://node-a", "http://node-b"), 64, "s3cret"));
+
+    @Test
+    void acquire_missingOrWrongSecret_forbiddenWithoutTouchingLimits() {
+        assertEquals(HttpStatus.FORBIDDEN, controller.acquire("10.0.0.1", 100, null).getStatusCode());
+        assertEquals(HttpStatus.FORBIDDEN, controller.acquire("10.0.0.1", 100, "guess").getStatusCode());
+
+        verify(limiterStore, never()).grant(anyString(), anyInt());
+    }
+
+    @Test
+    void acquire_matchingSecret_grantsFromOwnedLimiter() {
+        when(limiterStore.grant("10.0.0.1", 5)).thenReturn(3);
+
+        ResponseEntity<Integer> response = controller.acquire("10.0.0.1", 5, "s3cret");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(3, response.getBody());
+    }
+}
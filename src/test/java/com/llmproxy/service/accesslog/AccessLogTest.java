@@ -0,0 +1,166 @@
+package com.llmproxy.service.accesslog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llmproxy.model.ModelType;
+import com.llmproxy.model.QueryRequest;
+import com.llmproxy.model.QueryResponse;
+import com.llmproxy.model.TaskType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessLogTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void record_thenClose_writesOneJsonLinePerRequest() throws IOException {
+        Path path = tempDir.resolve("access.log");
+        AccessLog accessLog = new AccessLog(true, path, 16, 1024 * 1024, 2);
+        accessLog.start();
+        QueryRequest request = QueryRequest.builder()
+                .query("hello")
+                .requestId("req-\"1\"")
+                .taskType(TaskType.SUMMARIZATION)
+                .build();
+        QueryResponse response = QueryResponse.builder()
+                .model(ModelType.GEMINI)
+                .originalModel(ModelType.OPENAI)
+                .cached(true)
+                .inputTokens(12)
+                .outputTokens(34)
+                .build();
+
+        accessLog.record(request, "10.0.0.1", 200, response, 1_234_567);
+        accessLog.record(QueryRequest.builder().requestId("req-2").build(), "10.0.0.2", 429,
+                QueryResponse.builder().errorType("rate_limit").build(), 5_000);
+        accessLog.close();
+
+        List<String> lines = Files.readAllLines(path);
+        assertEquals(2, lines.size());
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertEquals("req-\"1\"", first.get("requestId").asText());
+        assertEquals("10.0.0.1", first.get("client").asText());
+        assertEquals(200, first.get("status").asInt());
+        assertEquals("gemini", first.get("model").asText());
+        assertEquals("openai", first.get("originalModel").asText());
+        assertEquals("SUMMARIZATION", first.get("taskType").asText());
+        assertTrue(first.get("cached").asBoolean());
+        assertEquals(12, first.get("inputTokens").asInt());
+        assertEquals(34, first.get("outputTokens").asInt());
+        assertEquals(1.234, first.get("latencyMs").asDouble());
+        assertTrue(first.get("ts").asLong() > 0);
+        JsonNode second = objectMapper.readTree(lines.get(1));
+        assertEquals(429, second.get("status").asInt());
+        assertEquals("rate_limit", second.get("errorType").asText());
+        assertFalse(second.has("model"));
+        assertEquals(0.005, second.get("latencyMs").asDouble());
+    }
+
+    @Test
+    void record_writerBehind_dropsInsteadOfBlocking() throws IOException {
+        Path path = tempDir.resolve("access.log");
+        AccessLog accessLog = new AccessLog(true, path, 4, 1024 * 1024, 2);
+        QueryRequest request = QueryRequest.builder().requestId("req").build();
+
+        // Writer not started yet: the ring fills up
+        for (int i = 0; i < 6; i++) {
+            accessLog.record(request, "10.0.0.1", 200, null, 1000);
+        }
+        assertEquals(2, accessLog.getDroppedCount());
+
+        accessLog.start();
+        accessLog.close();
+        assertEquals(4, Files.readAllLines(path).size());
+    }
+
+    @Test
+    void record_concurrentProducers_writesEveryRecordOnce() throws Exception {
+        Path path = tempDir.resolve("access.log");
+        AccessLog accessLog = new AccessLog(true, path, 1 << 16, 64 * 1024 * 1024, 1);
+        accessLog.start();
+        int threads = 4;
+        int perThread = 5000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            String client = "client-" + t;
+            executor.execute(() -> {
+                QueryRequest request = QueryRequest.builder().requestId(client).build();
+                for (int i = 0; i < perThread; i++) {
+                    accessLog.record(request, client, 200, null, i);
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        accessLog.close();
+
+        List<String> lines = Files.readAllLines(path);
+        assertEquals(threads * perThread - accessLog.getDroppedCount(), lines.size());
+        for (String line : lines) {
+            assertEquals(200, objectMapper.readTree(line).get("status").asInt());
+        }
+    }
+
+    @Test
+    void record_disabled_writesNothing() {
+        Path path = tempDir.resolve("access.log");
+        AccessLog accessLog = new AccessLog(false, path, 16, 1024, 1);
+        accessLog.start();
+
+        accessLog.record(QueryRequest.builder().build(), "10.0.0.1", 200, null, 1000);
+        accessLog.close();
+
+        assertFalse(Files.exists(path));
+    }
+
+    @Test
+    void encode_nonAsciiAndLongStrings_escapedAndTruncated() throws IOException {
+        AccessLogEncoder encoder = new AccessLogEncoder();
+        AccessLog.Slot slot = new AccessLog.Slot();
+        slot.requestId = "日本語-😀-\n" + "x".repeat(500);
+        slot.clientIp = "10.0.0.1";
+
+        assertTrue(encoder.encode(slot));
+        ByteBuffer buffer = encoder.getBuffer();
+        String line = StandardCharsets.UTF_8.decode(buffer).toString();
+
+        String requestId = objectMapper.readTree(line).get("requestId").asText();
+        assertTrue(requestId.startsWith("日本語-😀-\n"));
+        assertEquals(AccessLogEncoder.MAX_STRING_LENGTH, requestId.length());
+    }
+
+    @Test
+    void write_exceedsMaxSize_rotatesAndKeepsMaxFiles() throws IOException {
+        Path path = tempDir.resolve("access.log");
+        RollingFile file = new RollingFile(path, 10, 2);
+
+        for (int i = 0; i < 4; i++) {
+            file.write(ByteBuffer.wrap(("line-" + i + "\n").getBytes(StandardCharsets.UTF_8)));
+        }
+        file.close();
+
+        assertEquals(List.of("line-3"), Files.readAllLines(path));
+        assertEquals(List.of("line-2"), Files.readAllLines(tempDir.resolve("access.log.1")));
+        assertEquals(List.of("line-1"), Files.readAllLines(tempDir.resolve("access.log.2")));
+        assertFalse(Files.exists(tempDir.resolve("access.log.3")));
+    }
+}
@@ -0,0 +1,124 @@
+package com.llmproxy.service.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void tryAcquire_limitReached_shedsUntilReleased() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 1, 10);
+
+        AdaptiveConcurrencyLimiter.Listener first = limiter.tryAcquire();
+        AdaptiveConcurrencyLimiter.Listener second = limiter.tryAcquire();
+
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNull(limiter.tryAcquire());
+
+        first.onIgnore();
+        first.onIgnore();
+        assertEquals(1, limiter.getInFlight());
+        assertNotNull(limiter.tryAcquire());
+    }
+
+    @Test
+    void acquire_limitReached_stillTracked() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 10);
+        AdaptiveConcurrencyLimiter.Listener first = limiter.acquire();
+
+        AdaptiveConcurrencyLimiter.Listener second = limiter.acquire();
+
+        assertEquals(2, limiter.getInFlight());
+        first.onIgnore();
+        second.onIgnore();
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void tryAcquire_disabled_neverSheds() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(false, 1, 1, 1, 0.2, 600, clock::get);
+
+        for (int i = 0; i < 10; i++) {
+            assertNotNull(limiter.tryAcquire());
+        }
+    }
+
+    @Test
+    void onSuccess_steadyLatencyUnderLoad_growsLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 1, 100);
+
+        for (int round = 0; round < 20; round++) {
+            runBatch(limiter, limiter.getLimit(), 100);
+        }
+
+        assertTrue(limiter.getLimit() > 20, "limit was " + limiter.getLimit());
+    }
+
+    @Test
+    void onSuccess_lightLoad_doesNotGrowLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 1, 100);
+
+        for (int round = 0; round < 50; round++) {
+            runBatch(limiter, 1, 100);
+        }
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void onSuccess_latencyRises_shrinksLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(50, 1, 100);
+        for (int round = 0; round < 20; round++) {
+            runBatch(limiter, limiter.getLimit(), 100);
+        }
+        int before = limiter.getLimit();
+
+        for (int round = 0; round < 10; round++) {
+            runBatch(limiter, limiter.getLimit(), 1000);
+        }
+
+        assertTrue(limiter.getLimit() < before / 2, "limit went from " + before + " to " + limiter.getLimit());
+    }
+
+    @Test
+    void onDropped_backsOffButNotBelowMinimum() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 5, 100);
+
+        limiter.tryAcquire().onDropped();
+        assertEquals(18, limiter.getLimit());
+
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire().onDropped();
+        }
+        assertEquals(5, limiter.getLimit());
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initial, int min, int max) {
+        return new AdaptiveConcurrencyLimiter(true, initial, min, max, 0.2, 600, clock::get);
+    }
+
+    /**
+     * Starts {@code concurrency} requests together and completes them all after the
+     * given latency.
+     */
+    private void runBatch(AdaptiveConcurrencyLimiter limiter, int concurrency, long latencyMs) {
+        List<AdaptiveConcurrencyLimiter.Listener> listeners = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            AdaptiveConcurrencyLimiter.Listener listener = limiter.tryAcquire();
+            if (listener != null) {
+                listeners.add(listener);
+            }
+        }
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyMs));
+        listeners.forEach(AdaptiveConcurrencyLimiter.Listener::onSuccess);
+    }
+}
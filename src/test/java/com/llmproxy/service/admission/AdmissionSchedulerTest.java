@@ -0,0 +1,306 @@
+package com.llmproxy.service.admission;
+
+import com.llmproxy.model.ClientQueueStats;
+import com.llmproxy.service.ratelimit.RateLimitDecision;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionSchedulerTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void admit_spareCapacity_grantedImmediately() {
+        AdmissionScheduler scheduler = scheduler(2, 4, 1000, Map.of());
+
+        AdmissionScheduler.Permit first = scheduler.admit("client1", 10);
+        AdmissionScheduler.Permit second = scheduler.admit("client1", 10);
+
+        assertTrue(first.isGranted());
+        assertTrue(second.isGranted());
+        assertEquals(2, scheduler.getInFlight());
+
+        first.close();
+        first.close();
+        assertEquals(1, scheduler.getInFlight());
+    }
+
+    @Test
+    void admit_disabled_alwaysGranted() {
+        AdmissionScheduler scheduler = new AdmissionScheduler(false, () -> 1, 0, 100, 0, 1000, Map.of(), System::nanoTime);
+
+        assertTrue(scheduler.admit("client1", 10).isGranted());
+        assertTrue(scheduler.admit("client1", 10).isGranted());
+        assertEquals(0, scheduler.getInFlight());
+    }
+
+    @Test
+    void admit_queueFull_rejected() throws Exception {
+        AdmissionScheduler scheduler = scheduler(1, 1, 5000, Map.of());
+        AdmissionScheduler.Permit running = scheduler.admit("client1", 10);
+        Future<AdmissionScheduler.Permit> queued = executor.submit(() -> scheduler.admit("client1", 10));
+        awaitQueueDepth(scheduler, "client1", 1);
+
+        AdmissionScheduler.Permit rejected = scheduler.admit("client1", 10);
+
+        assertEquals(AdmissionScheduler.Outcome.QUEUE_FULL, rejected.getOutcome());
+        running.close();
+        assertTrue(queued.get(5, TimeUnit.SECONDS).isGranted());
+    }
+
+    @Test
+    void admit_deadlinePassed_timesOut() {
+        AdmissionScheduler scheduler = scheduler(1, 4, 50, Map.of());
+        AdmissionScheduler.Permit running = scheduler.admit("client1", 10);
+
+        AdmissionScheduler.Permit waited = scheduler.admit("client2", 10);
+
+        assertEquals(AdmissionScheduler.Outcome.TIMED_OUT, waited.getOutcome());
+        running.close();
+        assertEquals(0, scheduler.getInFlight());
+        ClientQueueStats stats = statsFor(scheduler, "client2");
+        assertEquals(1, stats.getExpired());
+        assertEquals(0, stats.getQueueDepth());
+    }
+
+    @Test
+    void admit_heavyClientBacklog_otherClientsServedInTurn() throws Exception {
+        AdmissionScheduler scheduler = scheduler(1, 16, 5000, Map.of());
+        AdmissionScheduler.Permit running = scheduler.admit("blocker", 10);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        List<Future<?>> waiters = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            waiters.add(submit(scheduler, "heavy", 1000, order));
+            awaitQueueDepth(scheduler, "heavy", i + 1);
+        }
+        waiters.add(submit(scheduler, "light", 1000, order));
+        awaitQueueDepth(scheduler, "light", 1);
+
+        running.close();
+        for (Future<?> waiter : waiters) {
+            waiter.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(List.of("heavy", "light", "heavy", "heavy", "heavy"), order);
+    }
+
+    @Test
+    void admit_weightedClient_getsProportionalShare() throws Exception {
+        AdmissionScheduler scheduler = scheduler(1, 16, 5000, Map.of("gold", 2));
+        AdmissionScheduler.Permit running = scheduler.admit("blocker", 10);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        List<Future<?>> waiters = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            waiters.add(submit(scheduler, "bronze", 1000, order));
+            awaitQueueDepth(scheduler, "bronze", i + 1);
+        }
+        for (int i = 0; i < 4; i++) {
+            waiters.add(submit(scheduler, "gold", 1000, order));
+            awaitQueueDepth(scheduler, "gold", i + 1);
+        }
+
+        running.close();
+        for (Future<?> waiter : waiters) {
+            waiter.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(List.of("bronze", "gold", "gold", "bronze", "gold", "gold", "bronze"), order);
+    }
+
+    @Test
+    void admit_concurrencyLimitLowered_newRequestsQueueUntilBelowIt() throws Exception {
+        AtomicInteger limit = new AtomicInteger(2);
+        AdmissionScheduler scheduler = new AdmissionScheduler(true, limit::get, 16, 100, 5000, 1000, Map.of(), System::nanoTime);
+        AdmissionScheduler.Permit first = scheduler.admit("client1", 10);
+        AdmissionScheduler.Permit second = scheduler.admit("client1", 10);
+
+        limit.set(1);
+        first.close();
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        Future<?> late = submit(scheduler, "client2", 10, order);
+        awaitQueueDepth(scheduler, "client2", 1);
+        assertEquals(1, scheduler.getInFlight());
+
+        second.close();
+        late.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("client2"), order);
+    }
+
+    @Test
+    void admit_largeRequests_needSeveralRoundsOfCredit() throws Exception {
+        AdmissionScheduler scheduler = scheduler(1, 16, 5000, Map.of());
+        AdmissionScheduler.Permit running = scheduler.admit("blocker", 10);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        List<Future<?>> waiters = new ArrayList<>();
+        waiters.add(submit(scheduler, "large", 2500, order));
+        awaitQueueDepth(scheduler, "large", 1);
+        for (int i = 0; i < 3; i++) {
+            waiters.add(submit(scheduler, "small", 1000, order));
+            awaitQueueDepth(scheduler, "small", i + 1);
+        }
+
+        running.close();
+        for (Future<?> waiter : waiters) {
+            waiter.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(List.of("small", "small", "large", "small"), order);
+    }
+
+    @Test
+    void awaitRateLimit_overLimit_waitsUntilLimiterAllows() {
+        AdmissionScheduler scheduler = scheduler(4, 4, 5000, Map.of());
+        AtomicInteger checks = new AtomicInteger();
+
+        RateLimitDecision decision = scheduler.awaitRateLimit("client1", denied(20),
+                () -> checks.incrementAndGet() < 3 ? denied(20) : new RateLimitDecision(true, 10, 0, 0, 0));
+
+        assertTrue(decision.isAllowed());
+        assertEquals(3, checks.get());
+        assertEquals(1, statsFor(scheduler, "client1").getQueued());
+    }
+
+    @Test
+    void awaitRateLimit_retryAfterBeyondDeadline_rejectedWithoutWaiting() {
+        AdmissionScheduler scheduler = scheduler(4, 4, 100, Map.of());
+        long start = System.nanoTime();
+
+        RateLimitDecision decision = scheduler.awaitRateLimit("client1", denied(5000),
+                () -> fail("limiter should not be asked again"));
+
+        assertFalse(decision.isAllowed());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(1, statsFor(scheduler, "client1").getExpired());
+    }
+
+    @Test
+    void awaitRateLimit_tooManyHeld_rejected() throws Exception {
+        AdmissionScheduler scheduler = scheduler(4, 1, 5000, Map.of());
+        CountDownLatch asked = new CountDownLatch(1);
+        CountDownLatch allow = new CountDownLatch(1);
+        Future<RateLimitDecision> held = executor.submit(() -> scheduler.awaitRateLimit("client1", denied(10), () -> {
+            asked.countDown();
+            return awaitQuietly(allow) ? new RateLimitDecision(true, 10, 0, 0, 0) : denied(10);
+        }));
+        assertTrue(asked.await(5, TimeUnit.SECONDS));
+
+        assertFalse(scheduler.awaitRateLimit("client1", denied(10), () -> fail("not held")).isAllowed());
+        assertTrue(scheduler.awaitRateLimit("client2", new RateLimitDecision(true, 10, 5, 0, 0), () -> fail("allowed")).isAllowed());
+
+        allow.countDown();
+        assertTrue(held.get(5, TimeUnit.SECONDS).isAllowed());
+        assertEquals(1, statsFor(scheduler, "client1").getRejected());
+    }
+
+    @Test
+    void admitAndAwaitRateLimit_globalBoundReached_rejectNewClients() throws Exception {
+        AdmissionScheduler scheduler = new AdmissionScheduler(true, () -> 1, 16, 3, 5000, 1000, Map.of(), System::nanoTime);
+        AdmissionScheduler.Permit running = scheduler.admit("blocker", 10);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        List<Future<?>> waiters = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            waiters.add(submit(scheduler, "client-" + i, 10, order));
+            awaitQueueDepth(scheduler, "client-" + i, 1);
+        }
+        CountDownLatch asked = new CountDownLatch(1);
+        CountDownLatch allow = new CountDownLatch(1);
+        Future<RateLimitDecision> held = executor.submit(() -> scheduler.awaitRateLimit("client-2", denied(10), () -> {
+            asked.countDown();
+            return awaitQuietly(allow) ? new RateLimitDecision(true, 10, 0, 0, 0) : denied(10);
+        }));
+        assertTrue(asked.await(5, TimeUnit.SECONDS));
+
+        assertEquals(AdmissionScheduler.Outcome.QUEUE_FULL, scheduler.admit("client-3", 10).getOutcome());
+        assertFalse(scheduler.awaitRateLimit("client-4", denied(10), () -> fail("not held")).isAllowed());
+
+        allow.countDown();
+        assertTrue(held.get(5, TimeUnit.SECONDS).isAllowed());
+        running.close();
+        for (Future<?> waiter : waiters) {
+            waiter.get(5, TimeUnit.SECONDS);
+        }
+        assertTrue(scheduler.admit("client-3", 10).isGranted());
+    }
+
+    @Test
+    void awaitRateLimit_disabled_returnsDecision() {
+        AdmissionScheduler scheduler = new AdmissionScheduler(false, () -> 1, 4, 100, 5000, 1000, Map.of(), System::nanoTime);
+        RateLimitDecision rejected = denied(10);
+
+        assertSame(rejected, scheduler.awaitRateLimit("client1", rejected, () -> fail("disabled")));
+    }
+
+    @Test
+    void parseWeights_invalidEntry_throws() {
+        assertEquals(Map.of("a", 2, "b", 3), AdmissionScheduler.parseWeights("a=2, b=3"));
+        assertEquals(Map.of(), AdmissionScheduler.parseWeights(""));
+        assertThrows(IllegalArgumentException.class, () -> AdmissionScheduler.parseWeights("a"));
+    }
+
+    private RateLimitDecision denied(long retryAfterMs) {
+        return new RateLimitDecision(false, 10, 0, TimeUnit.SECONDS.toNanos(6), TimeUnit.MILLISECONDS.toNanos(retryAfterMs));
+    }
+
+    private boolean awaitQuietly(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+
+    private AdmissionScheduler scheduler(int maxConcurrent, int maxQueue, long timeoutMs, Map<String, Integer> weights) {
+        return new AdmissionScheduler(true, () -> maxConcurrent, maxQueue, 100, timeoutMs, 1000, weights, System::nanoTime);
+    }
+
+    /**
+     * Each waiter records its client when admitted and releases straight away, so the
+     * single slot is handed from one queued request to the next in scheduling order.
+     */
+    private Future<?> submit(AdmissionScheduler scheduler, String clientId, long cost, List<String> order) {
+        return executor.submit(() -> {
+            try (AdmissionScheduler.Permit permit = scheduler.admit(clientId, cost)) {
+                assertTrue(permit.isGranted());
+                order.add(clientId);
+            }
+        });
+    }
+
+    private void awaitQueueDepth(AdmissionScheduler scheduler, String clientId, int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (statsFor(scheduler, clientId).getQueueDepth() < depth) {
+            if (System.nanoTime() > deadline) {
+                fail("Timed out waiting for " + clientId + " to queue " + depth + " requests");
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    private ClientQueueStats statsFor(AdmissionScheduler scheduler, String clientId) {
+        return scheduler.getQueueStats().stream()
+                .filter(stats -> stats.getClientId().equals(clientId))
+                .findFirst()
+                .orElse(ClientQueueStats.builder().clientId(clientId).build());
+    }
+}
@@ -0,0 +1,120 @@
+package com.llmproxy.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llmproxy.model.ModelType;
+import com.llmproxy.model.QueryRequest;
+import com.llmproxy.model.QueryResponse;
+import com.llmproxy.service.llm.ModelVersionValidator;
+import com.llmproxy.service.cluster.ClusterMembership;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheClusterTest {
+    private static final List<String> NODES = List.of("http://node-a", "http://node-b", "http://node-c");
+
+    private final Map<String, CacheService> nodes = new HashMap<>();
+    private final AtomicInteger remoteFetches = new AtomicInteger();
+    private final QueryResponse response = QueryResponse.builder()
+            .response("Test response")
+            .model(ModelType.OPENAI)
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        CachePeerClient inProcessPeers = new CachePeerClient() {
+            @Override
+            public QueryResponse fetch(String peer, String key) {
+                remoteFetches.incrementAndGet();
+                return nodes.get(peer).getLocal(key);
+            }
+
+            @Override
+            public void store(String peer, String key, QueryResponse value) {
+                nodes.get(peer).setLocal(key, value);
+            }
+        };
+        
+        for (String node : NODES) {
+            ClusterMembership membership = new ClusterMembership(node, NODES, 64, "secret");
+            CacheService cacheService = new CacheService(true, 300, 1000, new ObjectMapper(), new ModelVersionValidator(), new DefaultQueryCanonicalizer(""));
+            cacheService.setCluster(new CacheCluster(membership, inProcessPeers, 30, 100, Runnable::run));
+            nodes.put(node, cacheService);
+        }
+    }
+
+    @Test
+    void set_onOneNode_visibleFromEveryNode() {
+        for (int i = 0; i < 20; i++) {
+            QueryRequest request = QueryRequest.builder().query("Query " + i).build();
+            nodes.get("http://node-a").set(request, response);
+            
+            for (CacheService node : nodes.values()) {
+                assertNotNull(node.get(request), "missing on a node for query " + i);
+            }
+        }
+    }
+
+    @Test
+    void get_remoteHit_servedFromNearCacheAfterwards() {
+        QueryRequest request = QueryRequest.builder().query("Hot query").build();
+        nodes.get("http://node-a").set(request, response);
+        
+        for (CacheService node : nodes.values()) {
+            node.get(request);
+        }
+        int fetchesAfterFirstRound = remoteFetches.get();
+        
+        for (CacheService node : nodes.values()) {
+            assertNotNull(node.get(request));
+        }
+        assertEquals(fetchesAfterFirstRound, remoteFetches.get());
+    }
+
+    @Test
+    void set_entryStoredOnlyOnOwner() {
+        QueryRequest request = QueryRequest.builder().query("Owned query").build();
+        nodes.get("http://node-b").set(request, response);
+        
+        long holders = nodes.values().stream()
+                .filter(node -> node.getLocalEntryCount() > 0)
+                .count();
+        assertEquals(1, holders);
+    }
+
+    @Test
+    void get_peerUnavailable_treatedAsMiss() {
+        ClusterMembership membership = new ClusterMembership("http://node-a", NODES, 64, "secret");
+        CachePeerClient deadPeers = new CachePeerClient() {
+            @Override
+            public QueryResponse fetch(String peer, String key) {
+                return null;
+            }
+
+            @Override
+            public void store(String peer, String key, QueryResponse value) {
+            }
+        };
+        CacheService isolated = new CacheService(true, 300, 1000, new ObjectMapper(), new ModelVersionValidator(), new DefaultQueryCanonicalizer(""));
+        isolated.setCluster(new CacheCluster(membership, deadPeers, 0, 100, Runnable::run));
+        
+        for (int i = 0; i < 20; i++) {
+            QueryRequest request = QueryRequest.builder().query("Query " + i).build();
+            isolated.set(request, response);
+        }
+        
+        long misses = 0;
+        for (int i = 0; i < 20; i++) {
+            if (isolated.get(QueryRequest.builder().query("Query " + i).build()) == null) {
+                misses++;
+            }
+        }
+        assertTrue(misses > 0);
+    }
+}
@@ -5,9 +5,14 @@ import com.llmproxy.model.ModelType;
 import com.llmproxy.model.QueryRequest;
 import com.llmproxy.model.QueryResponse;
 import com.llmproxy.model.TaskType;
+import com.llmproxy.service.llm.ModelVersionValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class CacheServiceTest {
@@ -18,7 +23,7 @@ class CacheServiceTest {
 
     @BeforeEach
     void setUp() {
-        cacheService = new CacheService(true, 300, 1000, new ObjectMapper());
+        cacheService = new CacheService(true, 300, 1000, new ObjectMapper(), new ModelVersionValidator(), new DefaultQueryCanonicalizer(""));
         
         request = QueryRequest.builder()
                 .query("Test query")
@@ -34,7 +39,7 @@ class CacheServiceTest {
 
     @Test
     void get_cacheDisabled_returnsNull() {
-        CacheService disabledCache = new CacheService(false, 300, 1000, new ObjectMapper());
+        CacheService disabledCache = new CacheService(false, 300, 1000, new ObjectMapper(), new ModelVersionValidator(), new DefaultQueryCanonicalizer(""));
         disabledCache.set(request, response);
         
         assertNull(disabledCache.get(request));
@@ -45,6 +50,20 @@ class CacheServiceTest {
         assertNull(cacheService.get(request));
     }
 
+    @Test
+    void bindTo_hitsAndMisses_exposedAsCacheMeters() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        cacheService.bindTo(registry);
+        
+        cacheService.get(request);
+        cacheService.set(request, response);
+        cacheService.get(request);
+        cacheService.get(request);
+        
+        assertEquals(2, registry.get("cache.gets").tags("cache", "responses", "result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tags("cache", "responses", "result", "miss").functionCounter().count());
+    }
+
     @Test
     void get_cacheEnabled_cacheHit_returnsResponse() {
         cacheService.set(request, response);
@@ -57,7 +76,7 @@ class CacheServiceTest {
 
     @Test
     void set_cacheDisabled_doesNothing() {
-        CacheService disabledCache = new CacheService(false, 300, 1000, new ObjectMapper());
+        CacheService disabledCache = new CacheService(false, 300, 1000, new ObjectMapper(), new ModelVersionValidator(), new DefaultQueryCanonicalizer(""));
         disabledCache.set(request, response);
         
         assertNull(disabledCache.get(request));
@@ -125,4 +144,83 @@ class CacheServiceTest {
         assertNotNull(cacheService.get(request1));
         assertNull(cacheService.get(request2));
     }
+
+    @Test
+    void generateCacheKey_whitespaceAndNormalizationDifferences_sameKey() {
+        QueryRequest request1 = QueryRequest.builder()
+                .query("What is  the\tcapital of\n\nFrance?")
+                .model(ModelType.OPENAI)
+                .build();
+        
+        QueryRequest request2 = QueryRequest.builder()
+                .query("What is the capital of France?")
+                .model(ModelType.OPENAI)
+                .build();
+        
+        QueryRequest decomposed = QueryRequest.builder()
+                .query("Caf\u0065\u0301 menu")
+                .model(ModelType.OPENAI)
+                .build();
+        
+        QueryRequest composed = QueryRequest.builder()
+                .query("Caf\u00e9 menu")
+                .model(ModelType.OPENAI)
+                .build();
+        
+        cacheService.set(request1, response);
+        cacheService.set(decomposed, response);
+        
+        assertNotNull(cacheService.get(request2));
+        assertNotNull(cacheService.get(composed));
+    }
+
+    @Test
+    void generateCacheKey_differentModelVersions_differentKeys() {
+        QueryRequest request1 = QueryRequest.builder()
+                .query("Test query")
+                .model(ModelType.OPENAI)
+                .modelVersion("gpt-4o")
+                .build();
+        
+        QueryRequest request2 = QueryRequest.builder()
+                .query("Test query")
+                .model(ModelType.OPENAI)
+                .modelVersion("gpt-3.5-turbo")
+                .build();
+        
+        cacheService.set(request1, response);
+        
+        assertNotNull(cacheService.get(request1));
+        assertNull(cacheService.get(request2));
+    }
+
+    @Test
+    void generateCacheKey_omittedVersion_sharesKeyWithDefaultVersion() {
+        QueryRequest request1 = QueryRequest.builder()
+                .query("Test query")
+                .model(ModelType.OPENAI)
+                .build();
+        
+        QueryRequest request2 = QueryRequest.builder()
+                .query("Test query")
+                .model(ModelType.OPENAI)
+                .modelVersion(ModelVersionValidator.DEFAULT_OPENAI_VERSION)
+                .build();
+        
+        cacheService.set(request1, response);
+        
+        assertNotNull(cacheService.get(request2));
+    }
+
+    @Test
+    void generateCacheKey_caseFoldingOnlyForConfiguredTaskTypes() {
+        CacheService foldingCache = new CacheService(true, 300, 1000, new ObjectMapper(),
+                new ModelVersionValidator(), new DefaultQueryCanonicalizer(Set.of(TaskType.SENTIMENT_ANALYSIS)));
+        
+        foldingCache.set(QueryRequest.builder().query("I LOVE it").taskType(TaskType.SENTIMENT_ANALYSIS).build(), response);
+        foldingCache.set(QueryRequest.builder().query("I LOVE it").taskType(TaskType.TEXT_GENERATION).build(), response);
+        
+        assertNotNull(foldingCache.get(QueryRequest.builder().query("i love it").taskType(TaskType.SENTIMENT_ANALYSIS).build()));
+        assertNull(foldingCache.get(QueryRequest.builder().query("i love it").taskType(TaskType.TEXT_GENERATION).build()));
+    }
 }
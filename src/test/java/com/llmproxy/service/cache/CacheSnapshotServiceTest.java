@@ -0,0 +1,126 @@
+package com.llmproxy.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llmproxy.model.ModelType;
+import com.llmproxy.model.QueryRequest;
+import com.llmproxy.model.QueryResponse;
+import com.llmproxy.service.llm.ModelVersionValidator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheSnapshotServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void snapshotAndRestore_roundTripsEntries() throws Exception {
+        Path snapshot = tempDir.resolve("cache.bin");
+        CacheService source = new CacheService(true, 300, 1000, objectMapper, new ModelVersionValidator(), new DefaultQueryCanonicalizer(""));
+        for (int i = 0; i < 50; i++) {
+            source.set(request("Query " + i), response("Response " + i));
+        }
+        
+        assertEquals(50, new CacheSnapshotService(source, objectMapper, snapshot.toString()).write());
+        
+        CacheService target = new CacheService(true, 300, 1000, objectMapper, new ModelVersionValidator(), new DefaultQueryCanonicalizer(""));
+        new CacheSnapshotService(target, objectMapper, snapshot.toString()).restore();
+        
+        for (int i = 0; i < 50; i++) {
+            QueryResponse restored = target.get(request("Query " + i));
+            assertNotNull(restored);
+            assertEquals("Response " + i, restored.getResponse());
+            assertEquals(ModelType.OPENAI, restored.getModel());
+        }
+    }
+
+    @Test
+    void restore_honorsRemainingTtl() throws Exception {
+        Path snapshot = tempDir.resolve("cache.bin");
+        CacheService source = new CacheService(true, 1, 1000, objectMapper, new ModelVersionValidator(), new DefaultQueryCanonicalizer(""));
+        source.set(request("Short lived"), response("Soon expired"));
+        new CacheSnapshotService(source, objectMapper, snapshot.toString()).write();
+        
+        Thread.sleep(1100);
+        
+        CacheService target = new CacheService(true, 300, 1000, objectMapper, new ModelVersionValidator(), new DefaultQueryCanonicalizer(""));
+        assertEquals(0, new CacheSnapshotService(target, objectMapper, snapshot.toString()).load());
+        assertNull(target.get(request("Short lived")));
+    }
+
+    @Test
+    void restore_missingSnapshot_startsEmpty() {
+        CacheService target = new CacheService(true, 300, 1000, objectMapper, new ModelVersionValidator(), new DefaultQueryCanonicalizer(""));
+        new CacheSnapshotService(target, objectMapper, tempDir.resolve("absent.bin").toString()).restore();
+        
+        assertEquals(0, target.getLocalEntryCount());
+    }
+
+    @Test
+    void restore_corruptSnapshot_startsEmpty() throws Exception {
+        Path snapshot = tempDir.resolve("cache.bin");
+        Files.writeString(snapshot, "not a snapshot");
+        
+        CacheService target = new CacheService(true, 300, 1000, objectMapper, new ModelVersionValidator(), new DefaultQueryCanonicalizer(""));
+        new CacheSnapshotService(target, objectMapper, snapshot.toString()).restore();
+        
+        assertEquals(0, target.getLocalEntryCount());
+    }
+
+    @Test
+    void restore_corruptEntryLength_keepsEarlierEntriesAndSkipsRest() throws Exception {
+        Path snapshot = tempDir.resolve("cache.bin");
+        CacheService source = new CacheService(true, 300, 1000, objectMapper, new ModelVersionValidator(), new DefaultQueryCanonicalizer(""));
+        source.set(request("Intact"), response("Kept"));
+        new CacheSnapshotService(source, objectMapper, snapshot.toString()).write();
+        
+        byte[] content;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(snapshot))) {
+            content = in.readAllBytes();
+        }
+        ByteArrayOutputStream corrupted = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(corrupted);
+        out.write(Arrays.copyOf(content, content.length - 1));
+        out.writeByte(1);
+        out.writeUTF("next");
+        out.writeLong(Long.MAX_VALUE);
+        out.writeInt(Integer.MAX_VALUE);
+        out.writeByte(0);
+        try (OutputStream gzip = new GZIPOutputStream(Files.newOutputStream(snapshot))) {
+            gzip.write(corrupted.toByteArray());
+        }
+        
+        CacheService target = new CacheService(true, 300, 1000, objectMapper, new ModelVersionValidator(), new DefaultQueryCanonicalizer(""));
+        new CacheSnapshotService(target, objectMapper, snapshot.toString()).restore();
+        
+        assertEquals(1, target.getLocalEntryCount());
+        assertEquals("Kept", target.get(request("Intact")).getResponse());
+    }
+
+    private QueryRequest request(String query) {
+        return QueryRequest.builder().query(query).model(ModelType.OPENAI).build();
+    }
+
+    private QueryResponse response(String text) {
+        return QueryResponse.builder()
+                .response(text)
+                .model(ModelType.OPENAI)
+                .timestamp(Instant.now())
+                .build();
+    }
+}
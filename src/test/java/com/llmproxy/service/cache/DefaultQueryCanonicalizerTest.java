@@ -0,0 +1,57 @@
+package com.llmproxy.service.cache;
+
+import com.llmproxy.model.TaskType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DefaultQueryCanonicalizerTest {
+
+    private final DefaultQueryCanonicalizer canonicalizer = new DefaultQueryCanonicalizer("summarization");
+
+    @ParameterizedTest
+    @MethodSource("provideWhitespaceCases")
+    void canonicalize_collapsesWhitespace(String input, String expected) {
+        assertEquals(expected, canonicalizer.canonicalize(input, TaskType.TEXT_GENERATION));
+    }
+
+    @Test
+    void canonicalize_alreadyCanonical_returnsSameInstance() {
+        String query = "Already canonical query";
+        
+        assertSame(query, canonicalizer.canonicalize(query, TaskType.TEXT_GENERATION));
+    }
+
+    @Test
+    void canonicalize_appliesNfcNormalization() {
+        assertEquals("Caf\u00e9", canonicalizer.canonicalize("Cafe\u0301", null));
+    }
+
+    @Test
+    void canonicalize_foldsCaseOnlyForConfiguredTaskType() {
+        assertEquals("summarize this", canonicalizer.canonicalize("Summarize THIS", TaskType.SUMMARIZATION));
+        assertEquals("Summarize THIS", canonicalizer.canonicalize("Summarize THIS", TaskType.TEXT_GENERATION));
+    }
+
+    @Test
+    void constructor_unknownTaskType_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new DefaultQueryCanonicalizer("not_a_task"));
+    }
+
+    private static Stream<Arguments> provideWhitespaceCases() {
+        return Stream.of(
+                Arguments.of("a  b", "a b"),
+                Arguments.of("  leading", "leading"),
+                Arguments.of("trailing \n", "trailing"),
+                Arguments.of("tab\tseparated", "tab separated"),
+                Arguments.of("non\u00a0breaking", "non breaking"),
+                Arguments.of("line\r\n\r\nbreaks", "line breaks"),
+                Arguments.of("   ", "")
+        );
+    }
+}
@@ -0,0 +1,152 @@
+package com.llmproxy.service.capture;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llmproxy.model.CapturedRequest;
+import com.llmproxy.model.ModelType;
+import com.llmproxy.model.QueryRequest;
+import com.llmproxy.model.QueryResponse;
+import com.llmproxy.model.TaskType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrafficCaptureTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void record_thenClose_writesSanitizedRequests() throws IOException {
+        Path path = tempDir.resolve("capture.jsonl.gz");
+        TrafficCapture capture = new TrafficCapture(objectMapper, true, path, 16);
+        capture.start();
+        QueryRequest request = QueryRequest.builder()
+                .query("Summarize the mail from jane.doe@example.com")
+                .model(ModelType.OPENAI)
+                .taskType(TaskType.SUMMARIZATION)
+                .requestId("req-1")
+                .build();
+        QueryResponse response = QueryResponse.builder()
+                .model(ModelType.OPENAI)
+                .responseTimeMs(420)
+                .inputTokens(12)
+                .outputTokens(80)
+                .build();
+
+        capture.record(request, "203.0.113.7", 1_700_000_000_000L, 200, response);
+        capture.record(request, "203.0.113.7", 1_700_000_000_250L, 200, response.toBuilder().cached(true).build());
+        capture.record(request, "198.51.100.1", 1_700_000_000_500L, 429, null);
+        capture.close();
+
+        List<CapturedRequest> captured = read(path);
+        assertEquals(3, captured.size());
+        CapturedRequest first = captured.get(0);
+        assertEquals(1_700_000_000_000L, first.getArrivalMillis());
+        assertEquals("Summarize the mail from <email>", first.getQuery());
+        assertEquals(ModelType.OPENAI, first.getModel());
+        assertEquals(TaskType.SUMMARIZATION, first.getTaskType());
+        assertEquals(ModelType.OPENAI, first.getServedModel());
+        assertEquals(420, first.getUpstreamLatencyMs());
+        assertEquals(80, first.getOutputTokens());
+        assertTrue(first.getClient().startsWith("fd"));
+        assertNotEquals("203.0.113.7", first.getClient());
+        assertEquals(first.getClient(), captured.get(1).getClient());
+        assertTrue(captured.get(1).isCached());
+        assertNotEquals(first.getClient(), captured.get(2).getClient());
+        assertEquals(429, captured.get(2).getStatus());
+        assertNull(captured.get(2).getServedModel());
+    }
+
+    @Test
+    void pseudonymize_manyClients_distinctIpv6Addresses() throws IOException {
+        TrafficCapture capture = new TrafficCapture(objectMapper, false, tempDir.resolve("capture.jsonl.gz"), 16);
+        Set<String> pseudonyms = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            pseudonyms.add(capture.pseudonymize("10." + (i >> 16) + "." + ((i >> 8) & 0xff) + "." + (i & 0xff)));
+        }
+
+        assertEquals(100_000, pseudonyms.size());
+        String pseudonym = capture.pseudonymize("203.0.113.7");
+        assertInstanceOf(Inet6Address.class, InetAddress.getByName(pseudonym));
+        assertEquals(pseudonym, capture.pseudonymize("203.0.113.7"));
+    }
+
+    @Test
+    void start_existingCapture_appendsReadableMember() throws IOException {
+        Path path = tempDir.resolve("capture.jsonl.gz");
+        for (int run = 0; run < 2; run++) {
+            TrafficCapture capture = new TrafficCapture(objectMapper, true, path, 16);
+            capture.start();
+            capture.record(QueryRequest.builder().query("run " + run).build(), "10.0.0.1", run, 200, null);
+            capture.close();
+        }
+
+        List<CapturedRequest> captured = read(path);
+
+        assertEquals(List.of("run 0", "run 1"), captured.stream().map(CapturedRequest::getQuery).toList());
+    }
+
+    @Test
+    void redact_personalDataAndSecrets_masked() {
+        assertEquals("Call me at <number> or mail <email>",
+                TrafficCapture.redact("Call me at +1 415-555-0100 or mail a.b@c.io"));
+        assertEquals("Card <number> expires 12/27",
+                TrafficCapture.redact("Card 4111 1111 1111 1111 expires 12/27"));
+        assertEquals("Why does <secret> fail?",
+                TrafficCapture.redact("Why does sk-proj-abcdefghijklmnop1234 fail?"));
+        assertEquals("Header: <secret>", TrafficCapture.redact("Header: Bearer eyJhbGciOi.x.y"));
+        assertEquals("What happened in 1989?", TrafficCapture.redact("What happened in 1989?"));
+    }
+
+    @Test
+    void record_disabled_writesNothing() throws IOException {
+        Path path = tempDir.resolve("capture.jsonl.gz");
+        TrafficCapture capture = new TrafficCapture(objectMapper, false, path, 16);
+        capture.start();
+
+        capture.record(QueryRequest.builder().query("hello").build(), "10.0.0.1", 0, 200, null);
+        capture.close();
+
+        assertFalse(Files.exists(path));
+    }
+
+    @Test
+    void record_writerBehind_dropsInsteadOfBlocking() {
+        TrafficCapture capture = new TrafficCapture(objectMapper, true, tempDir.resolve("capture.jsonl.gz"), 2);
+
+        for (int i = 0; i < 5; i++) {
+            capture.record(QueryRequest.builder().query("hello").build(), "10.0.0.1", i, 200, null);
+        }
+
+        assertEquals(3, capture.getDroppedCount());
+    }
+
+    private List<CapturedRequest> read(Path path) throws IOException {
+        List<CapturedRequest> captured = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(path)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                captured.add(objectMapper.readValue(line, CapturedRequest.class));
+            }
+        }
+        return captured;
+    }
+}
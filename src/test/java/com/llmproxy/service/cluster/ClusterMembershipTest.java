@@ -0,0 +1,60 @@
+package com.llmproxy.service.cluster;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterMembershipTest {
+
+    private static final List<String> NODES = List.of("http://node-a", "http://node-b");
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(ClusterMembership.class);
+
+    @Test
+    void constructor_blankSecret_throws() {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> new ClusterMembership("http://node-a", NODES, 64, " "));
+
+        assertTrue(error.getMessage().contains("cluster.secret"));
+    }
+
+    @Test
+    void isAuthorized_onlyMatchingSecret_true() {
+        ClusterMembership membership = new ClusterMembership("http://node-a", NODES, 64, "s3cret");
+
+        assertTrue(membership.isAuthorized("s3cret"));
+        assertFalse(membership.isAuthorized("s3cre"));
+        assertFalse(membership.isAuthorized(""));
+        assertFalse(membership.isAuthorized(null));
+    }
+
+    @Test
+    void context_cacheClusterWithoutCluster_failsWithClearMessage() {
+        contextRunner.withPropertyValues("cache.cluster.enabled=true")
+                .run(context -> assertStartupFailure(context.getStartupFailure()));
+    }
+
+    @Test
+    void context_rateLimitClusterWithoutCluster_failsWithClearMessage() {
+        contextRunner.withPropertyValues("rate-limit.cluster.enabled=true")
+                .run(context -> assertStartupFailure(context.getStartupFailure()));
+    }
+
+    @Test
+    void context_clusterDisabled_noMembership() {
+        contextRunner.run(context -> assertFalse(context.containsBean("clusterMembership")));
+    }
+
+    private void assertStartupFailure(Throwable failure) {
+        assertNotNull(failure);
+        while (failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        assertEquals("cache.cluster.enabled and rate-limit.cluster.enabled require cluster.enabled=true",
+                failure.getMessage());
+    }
+}
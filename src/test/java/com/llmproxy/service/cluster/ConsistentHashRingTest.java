@@ -0,0 +1,51 @@
+package com.llmproxy.service.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+    @Test
+    void nodeFor_sameKey_returnsSameNode() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c"), 64);
+        
+        assertEquals(ring.nodeFor("some-key"), ring.nodeFor("some-key"));
+    }
+
+    @Test
+    void nodeFor_manyKeys_spreadsAcrossAllNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+        
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 30000; i++) {
+            counts.merge(ring.nodeFor("key-" + i), 1, Integer::sum);
+        }
+        
+        assertEquals(3, counts.size());
+        counts.values().forEach(count -> assertTrue(count > 7000, "unbalanced ring: " + counts));
+    }
+
+    @Test
+    void nodeFor_nodeRemoved_onlyItsKeysMove() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("a", "b"), 128);
+        
+        for (int i = 0; i < 10000; i++) {
+            String key = "key-" + i;
+            String owner = before.nodeFor(key);
+            if (!owner.equals("c")) {
+                assertEquals(owner, after.nodeFor(key));
+            }
+        }
+    }
+
+    @Test
+    void constructor_noNodes_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of(), 16));
+    }
+}
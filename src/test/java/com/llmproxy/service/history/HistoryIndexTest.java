@@ -0,0 +1,155 @@
+package com.llmproxy.service.history;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoryIndexTest {
+
+    @Test
+    void tokenize_mixedText_lowerCasesLettersAndDigits() {
+        assertEquals(List.of("what", "s", "gpt", "4o", "über", "日本語"),
+                HistoryIndex.tokenize("What's GPT-4o? Über, 日本語!"));
+    }
+
+    @Test
+    void search_terms_requireAllByDefault() {
+        HistoryIndex index = indexOf(
+                "kafka retention", "set log.retention.hours",
+                "kafka consumer lag", "check offsets",
+                "redis eviction", "use allkeys-lru");
+
+        assertEquals(List.of(0L), docs(index, "kafka retention"));
+        assertEquals(List.of(0L), docs(index, "kafka AND retention"));
+        assertEquals(2, index.search(SearchQuery.parse("kafka"), 10).totalHits);
+    }
+
+    @Test
+    void search_orAndNot_combinesAlternativesAndExclusions() {
+        HistoryIndex index = indexOf(
+                "kafka retention", "hours",
+                "kafka consumer lag", "offsets",
+                "redis eviction", "lru");
+
+        assertEquals(List.of(1L, 2L), sorted(docs(index, "lag OR redis")));
+        assertEquals(List.of(1L), docs(index, "kafka -retention"));
+        assertEquals(List.of(1L), docs(index, "kafka NOT retention"));
+        assertTrue(docs(index, "-kafka").isEmpty());
+    }
+
+    @Test
+    void search_phrase_matchesConsecutiveTermsOnly() {
+        HistoryIndex index = indexOf(
+                "what is a rate limit", "",
+                "limit the rate", "",
+                "explain", "a rate limit caps requests");
+
+        assertEquals(List.of(0L, 2L), sorted(docs(index, "\"rate limit\"")));
+        assertEquals(List.of(1L), docs(index, "\"limit the rate\""));
+        assertTrue(docs(index, "\"rate limit caps requests explain\"").isEmpty());
+    }
+
+    @Test
+    void search_phraseAcrossQueryAndResponse_doesNotMatch() {
+        HistoryIndex index = indexOf("tell me about rate", "limit is a cap");
+
+        assertTrue(docs(index, "\"rate limit\"").isEmpty());
+        assertEquals(List.of(0L), docs(index, "rate limit"));
+    }
+
+    @Test
+    void search_ranking_prefersRarerAndMoreFrequentTerms() {
+        HistoryIndex index = indexOf(
+                "timeout", "timeout timeout timeout",
+                "timeout", "once",
+                "unrelated", "text");
+
+        List<HistoryIndex.ScoredDoc> hits = index.search(SearchQuery.parse("timeout"), 10).hits;
+
+        assertEquals(0L, hits.get(0).doc);
+        assertEquals(1L, hits.get(1).doc);
+        assertTrue(hits.get(0).score > hits.get(1).score);
+    }
+
+    @Test
+    void search_limit_returnsTopKAndTotal() {
+        HistoryIndex index = new HistoryIndex();
+        for (int i = 0; i < 100; i++) {
+            index.add(i, "question " + i, "answer");
+        }
+
+        HistoryIndex.SearchResult result = index.search(SearchQuery.parse("answer"), 5);
+
+        assertEquals(100, result.totalHits);
+        assertEquals(5, result.hits.size());
+        // Equal scores: newest first
+        assertEquals(99L, result.hits.get(0).doc);
+    }
+
+    @Test
+    void removeBefore_dropsOldDocumentsFromPostings() {
+        HistoryIndex index = indexOf(
+                "kafka", "a",
+                "kafka", "b",
+                "redis", "c");
+
+        index.removeBefore(2);
+        index.add(5, "kafka", "d");
+
+        assertEquals(List.of(5L), docs(index, "kafka"));
+        assertEquals(List.of(2L), docs(index, "redis"));
+        assertEquals(2, index.getDocumentCount());
+    }
+
+    @Test
+    void postingList_manyDocuments_roundTripsCompressed() {
+        PostingList list = new PostingList();
+        for (int i = 0; i < 1000; i++) {
+            list.add(1_000_000L + i * 3, new int[]{i, i + 200}, 2);
+        }
+
+        PostingList.Decoded decoded = list.decode();
+
+        assertEquals(1000, decoded.docs.length);
+        assertEquals(1_000_000L + 999 * 3, decoded.docs[999]);
+        assertArrayEquals(new int[]{999, 1199}, decoded.positionsIn(1_000_000L + 999 * 3));
+        assertNull(decoded.positionsIn(1_000_001L));
+        // Delta-encoded: a few bytes per document instead of 8 + 4 + 2 * 4
+        assertTrue(list.getSizeBytes() < 1000 * 7);
+    }
+
+    @Test
+    void postingList_snapshotThenMoreAdds_snapshotUnchanged() {
+        PostingList list = new PostingList();
+        list.add(1, new int[]{0, 4}, 2);
+        PostingList.Snapshot snapshot = list.snapshot();
+
+        for (int i = 2; i < 100; i++) {
+            list.add(i, new int[]{i}, 1);
+        }
+
+        PostingList.Decoded decoded = snapshot.decode();
+        assertArrayEquals(new long[]{1}, decoded.docs);
+        assertEquals(2, decoded.frequencyIn(1));
+        assertArrayEquals(new int[]{0, 4}, decoded.positionsIn(1));
+        assertEquals(99, list.decode().docs.length);
+    }
+
+    private HistoryIndex indexOf(String... queriesAndResponses) {
+        HistoryIndex index = new HistoryIndex();
+        for (int i = 0; i < queriesAndResponses.length; i += 2) {
+            index.add(i / 2, queriesAndResponses[i], queriesAndResponses[i + 1]);
+        }
+        return index;
+    }
+
+    private List<Long> docs(HistoryIndex index, String query) {
+        return index.search(SearchQuery.parse(query), 100).hits.stream().map(hit -> hit.doc).toList();
+    }
+
+    private List<Long> sorted(List<Long> docs) {
+        return docs.stream().sorted().toList();
+    }
+}
@@ -0,0 +1,269 @@
+package com.llmproxy.service.history;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llmproxy.model.HistoryEntry;
+import com.llmproxy.model.HistoryPage;
+import com.llmproxy.model.HistorySearchResult;
+import com.llmproxy.model.ModelType;
+import com.llmproxy.model.QueryRequest;
+import com.llmproxy.model.QueryResponse;
+import com.llmproxy.model.TaskType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoryStoreTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void get_recordedQuery_returnsEntryByRequestId() throws IOException {
+        HistoryStore store = newStore(1024 * 1024, Duration.ofDays(1), Long.MAX_VALUE);
+        store.start();
+        QueryRequest request = QueryRequest.builder()
+                .query("What is the capital of France?")
+                .requestId("req-1")
+                .taskType(TaskType.QUESTION_ANSWERING)
+                .model(ModelType.OPENAI)
+                .build();
+        QueryResponse response = QueryResponse.builder()
+                .response("Paris")
+                .model(ModelType.GEMINI)
+                .originalModel(ModelType.OPENAI)
+                .inputTokens(8)
+                .outputTokens(1)
+                .responseTimeMs(120)
+                .build();
+
+        store.record(request, response);
+        store.close();
+
+        HistoryEntry entry = store.get("req-1").orElseThrow();
+        assertEquals("What is the capital of France?", entry.getQuery());
+        assertEquals("Paris", entry.getResponse());
+        assertEquals(TaskType.QUESTION_ANSWERING, entry.getTaskType());
+        assertEquals(ModelType.OPENAI, entry.getRequestedModel());
+        assertEquals(ModelType.GEMINI, entry.getModel());
+        assertEquals(ModelType.OPENAI, entry.getOriginalModel());
+        assertEquals(8, entry.getInputTokens());
+        assertEquals(120, entry.getResponseTimeMs());
+        assertEquals(0, entry.getSequence());
+        assertNotNull(entry.getTimestamp());
+        assertTrue(store.get("missing").isEmpty());
+    }
+
+    @Test
+    void list_manyEntries_pagesNewestFirstAcrossSegments() {
+        HistoryStore store = newStore(4096, Duration.ofDays(1), Long.MAX_VALUE);
+        recordQueries(store, 50);
+        store.drain();
+
+        HistoryPage first = store.list(null, null, null, 20);
+        HistoryPage second = store.list(first.getNextBefore(), null, null, 20);
+        HistoryPage third = store.list(second.getNextBefore(), null, null, 20);
+
+        assertEquals(List.of("req-49", "req-30"), endIds(first));
+        assertEquals(30L, first.getNextBefore());
+        assertEquals(List.of("req-29", "req-10"), endIds(second));
+        assertEquals(List.of("req-9", "req-0"), endIds(third));
+        assertEquals(10, third.getEntries().size());
+        assertNull(third.getNextBefore());
+        assertTrue(segmentFiles().size() > 1);
+    }
+
+    @Test
+    void list_timeRange_returnsOnlyEntriesInRange() {
+        HistoryStore store = newStore(4096, Duration.ofDays(1), Long.MAX_VALUE);
+        recordQueries(store, 10);
+        store.drain();
+        Instant fifth = store.get("req-5").orElseThrow().getTimestamp();
+
+        HistoryPage atOrAfter = store.list(null, fifth, null, 100);
+        HistoryPage atOrBefore = store.list(null, null, fifth, 100);
+
+        assertTrue(atOrAfter.getEntries().stream().noneMatch(e -> e.getTimestamp().isBefore(fifth)));
+        assertTrue(atOrAfter.getEntries().stream().anyMatch(e -> e.getRequestId().equals("req-9")));
+        assertTrue(atOrBefore.getEntries().stream().noneMatch(e -> e.getTimestamp().isAfter(fifth)));
+        assertTrue(atOrBefore.getEntries().stream().anyMatch(e -> e.getRequestId().equals("req-0")));
+    }
+
+    @Test
+    void start_existingSegments_recoversIndexAndContinuesSequence() throws IOException {
+        HistoryStore store = newStore(4096, Duration.ofDays(1), Long.MAX_VALUE);
+        recordQueries(store, 30);
+        store.drain();
+        store.close();
+
+        HistoryStore reopened = newStore(4096, Duration.ofDays(1), Long.MAX_VALUE);
+        reopened.start();
+        reopened.record(QueryRequest.builder().query("again").requestId("req-new").build(),
+                QueryResponse.builder().response("ok").build());
+        reopened.close();
+
+        assertEquals("query 12", reopened.get("req-12").orElseThrow().getQuery());
+        assertEquals(30, reopened.get("req-new").orElseThrow().getSequence());
+        assertEquals("req-new", reopened.list(null, null, null, 1).getEntries().get(0).getRequestId());
+    }
+
+    @Test
+    void start_tornTail_dropsIncompleteRecord() throws IOException {
+        HistoryStore store = newStore(1024 * 1024, Duration.ofDays(1), Long.MAX_VALUE);
+        recordQueries(store, 3);
+        store.drain();
+        store.close();
+        // A crash after the payload was written but before its length: garbage past the end
+        Path segment = segmentFiles().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 1, 0, 42, 42}));
+        }
+
+        HistoryStore reopened = newStore(1024 * 1024, Duration.ofDays(1), Long.MAX_VALUE);
+        reopened.start();
+        reopened.close();
+
+        assertEquals(3, reopened.list(null, null, null, 100).getEntries().size());
+    }
+
+    @Test
+    void enforceRetention_overSizeBudget_deletesOldestSegments() {
+        HistoryStore store = newStore(4096, Duration.ofDays(1), 8192);
+        recordQueries(store, 50);
+        store.drain();
+
+        store.enforceRetention();
+
+        assertTrue(store.get("req-0").isEmpty());
+        assertTrue(store.get("req-49").isPresent());
+        assertTrue(segmentFiles().size() <= 3);
+    }
+
+    @Test
+    void enforceRetention_expiredSegments_deletesAllButActive() {
+        HistoryStore store = newStore(4096, Duration.ZERO, Long.MAX_VALUE);
+        recordQueries(store, 50);
+        store.drain();
+
+        store.enforceRetention();
+
+        assertEquals(1, segmentFiles().size());
+        assertTrue(store.get("req-49").isPresent());
+    }
+
+    @Test
+    void search_afterRestart_findsEntriesFromRebuiltIndex() throws IOException {
+        HistoryStore store = newStore(4096, Duration.ofDays(1), Long.MAX_VALUE);
+        store.record(QueryRequest.builder().query("How do I rotate Kafka logs?").requestId("kafka").build(),
+                QueryResponse.builder().response("Set log.retention.hours on the broker.").build());
+        recordQueries(store, 30);
+        store.drain();
+        store.close();
+
+        HistoryStore reopened = newStore(4096, Duration.ofDays(1), Long.MAX_VALUE);
+        reopened.start();
+        reopened.record(QueryRequest.builder().query("Kafka consumer lag").requestId("lag").build(),
+                QueryResponse.builder().response("Check the consumer group offsets.").build());
+        reopened.close();
+
+        HistorySearchResult result = reopened.search("kafka", 10);
+        assertEquals(2, result.getTotalHits());
+        assertEquals(Set.of("kafka", "lag"), result.getHits().stream()
+                .map(hit -> hit.getEntry().getRequestId())
+                .collect(Collectors.toSet()));
+        assertEquals("kafka", reopened.search("\"retention hours\"", 10).getHits().get(0).getEntry().getRequestId());
+    }
+
+    @Test
+    void search_segmentsRemovedByRetention_dropsTheirEntries() {
+        HistoryStore store = newStore(4096, Duration.ofDays(1), 8192);
+        recordQueries(store, 50);
+        store.drain();
+
+        store.enforceRetention();
+
+        assertTrue(store.search("query", 100).getTotalHits() < 50);
+        assertEquals(0, store.search("0", 10).getTotalHits());
+        assertEquals(1, store.search("49", 10).getTotalHits());
+    }
+
+    @Test
+    void record_writerBehind_dropsInsteadOfBlocking() {
+        HistoryStore store = new HistoryStore(objectMapper, true, tempDir, 1024 * 1024, Duration.ofDays(1), Long.MAX_VALUE, 4, true);
+
+        recordQueries(store, 6);
+
+        assertEquals(2, store.getDroppedCount());
+        assertEquals(4, store.drain());
+    }
+
+    @Test
+    void record_cacheHit_notRecordedAgain() {
+        HistoryStore store = newStore(1024 * 1024, Duration.ofDays(1), Long.MAX_VALUE);
+        QueryRequest request = QueryRequest.builder().query("query").requestId("req-1").build();
+        QueryResponse response = QueryResponse.builder().response("response").model(ModelType.OPENAI).build();
+
+        store.record(request, response);
+        store.record(request, response.toBuilder().cached(true).build());
+
+        assertEquals(1, store.drain());
+    }
+
+    @Test
+    void record_disabled_writesNothing() throws IOException {
+        HistoryStore store = new HistoryStore(objectMapper, false, tempDir.resolve("history"), 4096, Duration.ofDays(1), Long.MAX_VALUE, 16, true);
+        store.start();
+
+        recordQueries(store, 3);
+        store.close();
+
+        assertFalse(Files.exists(tempDir.resolve("history")));
+        assertTrue(store.list(null, null, null, 10).getEntries().isEmpty());
+    }
+
+    @Test
+    void segmentBytes_sizeOutOfRange_rejected() {
+        assertEquals(HistoryStore.MAX_SEGMENT_SIZE_MB * 1024 * 1024, HistoryStore.segmentBytes(HistoryStore.MAX_SEGMENT_SIZE_MB));
+        assertThrows(IllegalArgumentException.class, () -> HistoryStore.segmentBytes(HistoryStore.MAX_SEGMENT_SIZE_MB + 1));
+        assertThrows(IllegalArgumentException.class, () -> HistoryStore.segmentBytes(0));
+    }
+
+    private HistoryStore newStore(int segmentBytes, Duration retention, long maxBytes) {
+        return new HistoryStore(objectMapper, true, tempDir, segmentBytes, retention, maxBytes, 1024, true);
+    }
+
+    private void recordQueries(HistoryStore store, int count) {
+        for (int i = 0; i < count; i++) {
+            store.record(QueryRequest.builder().query("query " + i).requestId("req-" + i).build(),
+                    QueryResponse.builder().response("response " + i).model(ModelType.OPENAI).build());
+        }
+    }
+
+    private List<String> endIds(HistoryPage page) {
+        List<HistoryEntry> entries = page.getEntries();
+        return List.of(entries.get(0).getRequestId(), entries.get(entries.size() - 1).getRequestId());
+    }
+
+    private List<Path> segmentFiles() {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(HistorySegment::isSegmentFile).sorted().toList();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.llmproxy.service.llm;
+
+import com.llmproxy.model.ModelSpec;
+import com.llmproxy.model.ModelType;
+import com.llmproxy.model.TaskType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelCatalogTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void bundledCatalog_coversEveryModelWithItsDefault() {
+        ModelCatalog catalog = new ModelCatalog();
+        
+        for (ModelType modelType : ModelType.values()) {
+            String defaultVersion = catalog.getDefaultVersion(modelType);
+            assertTrue(catalog.getVersions(modelType).contains(defaultVersion));
+            assertEquals(modelType, catalog.getSpec(defaultVersion).getModelType());
+            assertTrue(catalog.getSpec(defaultVersion).getContextWindow() > 0);
+        }
+        assertEquals(ModelType.CLAUDE, catalog.getPreferredModel(TaskType.SUMMARIZATION));
+        assertNull(catalog.getPreferredModel(TaskType.OTHER));
+    }
+
+    @Test
+    void resolve_versionOfAnotherModel_returnsDefault() {
+        ModelCatalog catalog = new ModelCatalog();
+        
+        assertEquals("gpt-4", catalog.resolve(ModelType.OPENAI, "gpt-4").getVersion());
+        assertEquals(ModelVersionValidator.DEFAULT_OPENAI_VERSION, catalog.resolve(ModelType.OPENAI, "claude-2.1").getVersion());
+        assertEquals(ModelVersionValidator.DEFAULT_OPENAI_VERSION, catalog.resolve(ModelType.OPENAI, null).getVersion());
+    }
+
+    @Test
+    void reload_changedFile_swapsInNewVersions() throws IOException {
+        Path file = tempDir.resolve("catalog.json");
+        write(file, catalog("gpt-4o", 0), Instant.parse("2024-01-01T00:00:00Z"));
+        ModelCatalog catalog = new ModelCatalog(file.toString());
+        assertNull(catalog.getSpec("gpt-5"));
+        assertFalse(catalog.reload());
+        
+        write(file, catalog("gpt-5", 60), Instant.parse("2024-01-02T00:00:00Z"));
+        
+        assertTrue(catalog.reload());
+        ModelSpec spec = catalog.getSpec("gpt-5");
+        assertEquals(ModelType.OPENAI, spec.getModelType());
+        assertEquals(60, spec.getRequestsPerMinute());
+        assertEquals("gpt-5", catalog.getDefaultVersion(ModelType.OPENAI));
+        assertEquals(ModelType.GEMINI, catalog.getPreferredModel(TaskType.TEXT_GENERATION));
+    }
+
+    @Test
+    void reload_invalidFile_keepsPreviousCatalog() throws IOException {
+        Path file = tempDir.resolve("catalog.json");
+        write(file, catalog("gpt-4o", 0), Instant.parse("2024-01-01T00:00:00Z"));
+        ModelCatalog catalog = new ModelCatalog(file.toString());
+        
+        write(file, catalog("gpt-4o", 0).replace("\"defaultVersion\": \"gpt-4o\"", "\"defaultVersion\": \"gpt-6\""),
+                Instant.parse("2024-01-02T00:00:00Z"));
+        
+        assertFalse(catalog.reload());
+        assertEquals("gpt-4o", catalog.getDefaultVersion(ModelType.OPENAI));
+        assertEquals(List.of("gpt-4o"), catalog.getVersions(ModelType.OPENAI));
+    }
+
+    @Test
+    void constructor_invalidFile_failsFast() throws IOException {
+        Path file = tempDir.resolve("catalog.json");
+        Files.writeString(file, "{\"families\": {}}");
+        
+        assertThrows(IllegalStateException.class, () -> new ModelCatalog(file.toString()));
+    }
+
+    @Test
+    void constructor_missingFile_usesBundledCatalog() {
+        ModelCatalog catalog = new ModelCatalog(tempDir.resolve("missing.json").toString());
+        
+        assertEquals(ModelVersionValidator.DEFAULT_CLAUDE_VERSION, catalog.getDefaultVersion(ModelType.CLAUDE));
+    }
+
+    private static void write(Path file, String json, Instant modified) throws IOException {
+        Files.writeString(file, json);
+        Files.setLastModifiedTime(file, FileTime.from(modified));
+    }
+
+    private static String catalog(String openAiVersion, int requestsPerMinute) {
+        StringBuilder json = new StringBuilder("{\"taskRouting\": {\"TEXT_GENERATION\": \"GEMINI\"}, \"families\": {");
+        for (ModelType modelType : ModelType.values()) {
+            String version = modelType == ModelType.OPENAI ? openAiVersion : modelType.getValue() + "-small";
+            if (modelType.ordinal() > 0) {
+                json.append(", ");
+            }
+            json.append('"').append(modelType.name()).append("\": {\"defaultVersion\": \"").append(version)
+                    .append("\", \"versions\": [{\"version\": \"").append(version)
+                    .append("\", \"contextWindow\": 4000, \"requestsPerMinute\": ").append(requestsPerMinute)
+                    .append("}]}");
+        }
+        return json.append("}}").toString();
+    }
+}
@@ -53,6 +53,7 @@ class ModelVersionValidatorTest {
             case GEMINI -> ModelVersionValidator.DEFAULT_GEMINI_VERSION;
             case MISTRAL -> ModelVersionValidator.DEFAULT_MISTRAL_VERSION;
             case CLAUDE -> ModelVersionValidator.DEFAULT_CLAUDE_VERSION;
+            case SELF_HOSTED -> ModelVersionValidator.DEFAULT_SELF_HOSTED_VERSION;
         };
         
         assertEquals(defaultVersion, validator.validateModelVersion(modelType, version));
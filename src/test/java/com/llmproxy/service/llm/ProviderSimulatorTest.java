@@ -0,0 +1,131 @@
+package com.llmproxy.service.llm;
+
+import com.llmproxy.exception.ModelError;
+import com.llmproxy.model.ModelSpec;
+import com.llmproxy.model.ModelType;
+import com.llmproxy.service.warmup.WarmupContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProviderSimulatorTest {
+
+    private final TokenEstimator tokenEstimator = new TokenEstimator();
+    private final ModelVersionValidator modelVersionValidator = new ModelVersionValidator();
+    private final List<Long> sleeps = new ArrayList<>();
+
+    @Test
+    void complete_healthyProfile_sleepsForFirstTokenPlusDecodeAndReportsUsage() {
+        ProviderSimulator.Profile profile = new ProviderSimulator.Profile();
+        profile.ttftSigma = 0;
+        profile.outputTokensSigma = 0;
+        profile.ttftMs = 200;
+        profile.outputTokens = 100;
+        profile.tokensPerSecond = 50;
+        ProviderSimulator simulator = simulator(Map.of(ModelType.OPENAI, profile));
+        QueryResult result = new QueryResult();
+
+        simulator.complete(ModelType.OPENAI, "What is a token bucket?", spec(ModelType.OPENAI), result);
+
+        assertEquals(List.of(2200L), sleeps);
+        assertEquals(200, result.getStatusCode());
+        assertEquals(100, result.getOutputTokens());
+        assertEquals(tokenEstimator.estimateTokenCount("What is a token bucket?", ModelType.OPENAI), result.getInputTokens());
+        assertEquals(result.getInputTokens() + 100, result.getTotalTokens());
+        assertEquals(100, result.getResponse().split(" ").length);
+    }
+
+    @Test
+    void complete_outputLongerThanSpecAllows_capsAtMaxOutputTokens() {
+        ProviderSimulator.Profile profile = new ProviderSimulator.Profile();
+        profile.outputTokens = 100_000;
+        profile.outputTokensSigma = 0;
+        ModelSpec spec = spec(ModelType.CLAUDE);
+
+        QueryResult result = new QueryResult();
+        simulator(Map.of(ModelType.CLAUDE, profile)).complete(ModelType.CLAUDE, "hi", spec, result);
+
+        assertEquals(spec.getMaxOutputTokens(), result.getOutputTokens());
+    }
+
+    @Test
+    void complete_injectedFaults_throwRetryableModelErrors() {
+        ProviderSimulator.Profile rateLimited = new ProviderSimulator.Profile();
+        rateLimited.rateLimitRate = 1;
+        ProviderSimulator.Profile failing = new ProviderSimulator.Profile();
+        failing.errorRate = 1;
+        ProviderSimulator.Profile timingOut = new ProviderSimulator.Profile();
+        timingOut.timeoutRate = 1;
+        timingOut.timeoutMs = 5_000;
+        ProviderSimulator simulator = simulator(Map.of(
+                ModelType.OPENAI, rateLimited, ModelType.GEMINI, failing, ModelType.MISTRAL, timingOut));
+
+        ModelError rateLimit = assertThrows(ModelError.class,
+                () -> simulator.complete(ModelType.OPENAI, "q", spec(ModelType.OPENAI), new QueryResult()));
+        ModelError unavailable = assertThrows(ModelError.class,
+                () -> simulator.complete(ModelType.GEMINI, "q", spec(ModelType.GEMINI), new QueryResult()));
+        ModelError timeout = assertThrows(ModelError.class,
+                () -> simulator.complete(ModelType.MISTRAL, "q", spec(ModelType.MISTRAL), new QueryResult()));
+
+        assertEquals(429, rateLimit.getStatusCode());
+        assertEquals(503, unavailable.getStatusCode());
+        assertEquals(408, timeout.getStatusCode());
+        assertTrue(rateLimit.isRetryable() && unavailable.isRetryable() && timeout.isRetryable());
+        assertEquals(5_000L, sleeps.get(2));
+    }
+
+    @Test
+    void complete_duringWarmup_answersWithoutDelayOrFaults() {
+        ProviderSimulator.Profile failing = new ProviderSimulator.Profile();
+        failing.errorRate = 1;
+        ProviderSimulator simulator = new ProviderSimulator(false, Map.of(ModelType.GEMINI, failing), tokenEstimator,
+                () -> new Random(1), sleeps::add);
+        QueryResult result = new QueryResult();
+
+        assertFalse(simulator.isEnabled());
+        WarmupContext.run(() -> {
+            assertTrue(simulator.isEnabled());
+            simulator.complete(ModelType.GEMINI, "q", spec(ModelType.GEMINI), result);
+            return null;
+        });
+
+        assertEquals(200, result.getStatusCode());
+        assertEquals(150, result.getOutputTokens());
+        assertTrue(sleeps.isEmpty());
+    }
+
+    @Test
+    void readProfiles_providerSetting_overridesSharedSetting() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("simulator.ttft-ms", "300")
+                .withProperty("simulator.error-rate", "0.05")
+                .withProperty("simulator.self-hosted.ttft-ms", "80");
+
+        Map<ModelType, ProviderSimulator.Profile> profiles = ProviderSimulator.readProfiles(environment);
+
+        assertEquals(300, profiles.get(ModelType.OPENAI).ttftMs);
+        assertEquals(80, profiles.get(ModelType.SELF_HOSTED).ttftMs);
+        assertEquals(0.05, profiles.get(ModelType.SELF_HOSTED).errorRate);
+        assertEquals(60, profiles.get(ModelType.CLAUDE).tokensPerSecond);
+    }
+
+    @Test
+    void isEnabled_notConfigured_false() {
+        assertFalse(new ProviderSimulator(new MockEnvironment(), tokenEstimator).isEnabled());
+    }
+
+    private ProviderSimulator simulator(Map<ModelType, ProviderSimulator.Profile> profiles) {
+        Random random = new Random(42);
+        return new ProviderSimulator(true, profiles, tokenEstimator, () -> random, sleeps::add);
+    }
+
+    private ModelSpec spec(ModelType modelType) {
+        return modelVersionValidator.resolveModelSpec(modelType, null);
+    }
+}
@@ -0,0 +1,58 @@
+package com.llmproxy.service.llm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaPoolTest {
+
+    @Test
+    void parse_commaSeparatedUrls_trimsAndDropsTrailingSlash() {
+        ReplicaPool pool = ReplicaPool.parse(" http://gpu-1:8000/ , http://gpu-2:8000,,");
+        
+        assertEquals(List.of("http://gpu-1:8000", "http://gpu-2:8000"),
+                pool.getReplicas().stream().map(ReplicaPool.Replica::getBaseUrl).toList());
+        assertTrue(ReplicaPool.parse("").getReplicas().isEmpty());
+    }
+
+    @Test
+    void acquire_busyReplica_picksLeastOutstanding() {
+        ReplicaPool pool = ReplicaPool.parse("http://a,http://b,http://c");
+        ReplicaPool.Replica first = pool.acquire();
+        ReplicaPool.Replica second = pool.acquire();
+        ReplicaPool.Replica third = pool.acquire();
+        
+        assertEquals(3, List.of(first, second, third).stream().distinct().count());
+        
+        second.release(true);
+        assertSame(second, pool.acquire());
+    }
+
+    @Test
+    void acquire_failedReplica_isSkippedUntilHealthy() {
+        ReplicaPool pool = ReplicaPool.parse("http://a,http://b");
+        ReplicaPool.Replica failed = pool.acquire();
+        failed.release(false);
+        
+        for (int i = 0; i < 10; i++) {
+            ReplicaPool.Replica replica = pool.acquire();
+            assertNotSame(failed, replica);
+            replica.release(true);
+        }
+        assertEquals(1, pool.getStats().stream().filter(stats -> stats.getFailures() == 1).count());
+        
+        failed.setHealthy(true);
+        assertTrue(pool.getReplicas().stream().allMatch(ReplicaPool.Replica::isHealthy));
+    }
+
+    @Test
+    void acquire_noHealthyReplica_returnsNull() {
+        ReplicaPool pool = ReplicaPool.parse("http://a");
+        pool.acquire().release(false);
+        
+        assertNull(pool.acquire());
+        assertFalse(pool.hasHealthyReplica());
+    }
+}
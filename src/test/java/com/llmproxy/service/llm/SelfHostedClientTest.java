@@ -0,0 +1,129 @@
+package com.llmproxy.service.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.llmproxy.exception.ModelError;
+import com.llmproxy.model.ReplicaStats;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SelfHostedClientTest {
+
+    private static final String COMPLETION = """
+            {"choices": [{"message": {"role": "assistant", "content": "Paris"}}],
+             "usage": {"prompt_tokens": 7, "completion_tokens": 1, "total_tokens": 8}}""";
+
+    private final List<HttpServer> servers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    void query_healthyReplica_returnsCompletion() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        String replica = startStub(200, COMPLETION, calls);
+        SelfHostedClient client = client(replica);
+        
+        QueryResult result = client.query("What is the capital of France?", null);
+        
+        assertEquals("Paris", result.getResponse());
+        assertEquals(8, result.getTotalTokens());
+        assertEquals(1, calls.get());
+        assertTrue(client.checkAvailability());
+    }
+
+    @Test
+    void query_replicaFails_ejectsItAndUsesTheOther() throws IOException {
+        AtomicInteger failingCalls = new AtomicInteger();
+        AtomicInteger healthyCalls = new AtomicInteger();
+        String failing = startStub(500, "{\"error\": {\"message\": \"CUDA out of memory\"}}", failingCalls);
+        String healthy = startStub(200, COMPLETION, healthyCalls);
+        SelfHostedClient client = client(failing + "," + healthy);
+        
+        int errors = 0;
+        for (int i = 0; i < 5; i++) {
+            try {
+                client.query("What is the capital of France?", null);
+            } catch (ModelError e) {
+                assertTrue(e.isRetryable());
+                errors++;
+            }
+        }
+        
+        // At most the first request can land on the failing replica before it is ejected
+        assertTrue(errors <= 1);
+        assertEquals(errors, failingCalls.get());
+        assertEquals(5 - errors, healthyCalls.get());
+    }
+
+    @Test
+    void query_connectionDropped_throwsRetryableErrorAndEjectsReplica() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/chat/completions", exchange -> exchange.close());
+        server.start();
+        servers.add(server);
+        SelfHostedClient client = client("http://127.0.0.1:" + server.getAddress().getPort());
+        
+        ModelError error = assertThrows(ModelError.class, () -> client.query("Hello", null));
+        
+        assertTrue(error.isRetryable());
+        assertFalse(client.checkAvailability());
+    }
+
+    @Test
+    void checkReplicas_replicaRecovers_returnsItToRotation() throws IOException {
+        SelfHostedClient client = client(startStub(500, "{}", new AtomicInteger()));
+        assertThrows(ModelError.class, () -> client.query("Hello", null));
+        assertFalse(client.checkAvailability());
+        
+        client.checkReplicas();
+        
+        ReplicaStats stats = client.getReplicaStats().get(0);
+        assertTrue(stats.isHealthy());
+        assertEquals(0, stats.getOutstanding());
+        assertEquals(1, stats.getFailures());
+        assertTrue(client.checkAvailability());
+    }
+
+    private SelfHostedClient client(String replicas) {
+        TokenEstimator tokenEstimator = new TokenEstimator();
+        return new SelfHostedClient(new ObjectMapper(), new ModelVersionValidator(), tokenEstimator,
+                new UpstreamRateLimiter(), RestClient.create(), new ProviderSimulator(new MockEnvironment(), tokenEstimator),
+                true, replicas, "", "/v1/models");
+    }
+
+    private String startStub(int status, String body, AtomicInteger completionCalls) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/chat/completions", exchange -> {
+            completionCalls.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.createContext("/v1/models", exchange -> {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        servers.add(server);
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+}
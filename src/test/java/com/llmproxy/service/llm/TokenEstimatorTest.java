@@ -1,10 +1,17 @@
 package com.llmproxy.service.llm;
 
+import com.llmproxy.model.ModelType;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -62,13 +69,45 @@ class TokenEstimatorTest {
         assertEquals(30, result.getNumTokens());
     }
 
+    @Test
+    void estimateTokenCount_cjkText_countsRoughlyOnePerCharacter() {
+        assertEquals(4, tokenEstimator.estimateTokenCount("你好世界"));
+        assertTrue(tokenEstimator.estimateTokenCount("これは日本語のテキストです") >= 10);
+    }
+
+    @Test
+    void estimateTokenCount_code_countsSymbolsSeparately() {
+        int tokens = tokenEstimator.estimateTokenCount("for (int i = 0; i < n; i++) { sum += a[i]; }");
+
+        assertTrue(tokens > "for (int i = 0; i < n; i++) { sum += a[i]; }".length() / 4);
+    }
+
+    @Test
+    void estimateTokenCount_vocabularyDirectory_usesBpeVocabulary(@TempDir Path vocabularyDir) throws IOException {
+        StringBuilder file = new StringBuilder();
+        for (int b = 0; b < 256; b++) {
+            file.append(Base64.getEncoder().encodeToString(new byte[] {(byte) b})).append(' ').append(b).append('\n');
+        }
+        file.append(Base64.getEncoder().encodeToString(" world".getBytes(StandardCharsets.UTF_8))).append(" 256\n");
+        Files.writeString(vocabularyDir.resolve("cl100k_base.tiktoken"), file);
+
+        TokenEstimator estimator = new TokenEstimator(vocabularyDir.toString(), 100);
+
+        // "Hello" stays five single bytes; " world" is one token
+        assertEquals(6, estimator.estimateTokenCount("Hello world"));
+        assertEquals(6, estimator.estimateTokenCount("Hello world", ModelType.CLAUDE));
+        assertEquals(6, estimator.estimateTokenCount("Hello world", ModelType.OPENAI));
+    }
+
     private static Stream<Arguments> provideTextsForTokenEstimation() {
         return Stream.of(
                 Arguments.of("Hello world", 2),
-                Arguments.of("This is a longer text that should have more tokens", 12),
-                Arguments.of("A", 0),
-                Arguments.of("AB", 0),
-                Arguments.of("ABCD", 1)
+                Arguments.of("This is a longer text that should have more tokens", 10),
+                Arguments.of("A", 1),
+                Arguments.of("AB", 1),
+                Arguments.of("ABCD", 1),
+                Arguments.of("1234567", 3),
+                Arguments.of("Привет, мир", 6)
         );
     }
 }
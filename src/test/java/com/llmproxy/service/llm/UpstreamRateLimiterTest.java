@@ -0,0 +1,41 @@
+package com.llmproxy.service.llm;
+
+import com.llmproxy.model.ModelSpec;
+import com.llmproxy.model.ModelType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamRateLimiterTest {
+
+    private final UpstreamRateLimiter limiter = new UpstreamRateLimiter();
+
+    @Test
+    void tryAcquire_noLimit_alwaysAllows() {
+        ModelSpec spec = ModelSpec.builder().modelType(ModelType.OPENAI).version("gpt-4o").build();
+        
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(limiter.tryAcquire(spec));
+        }
+    }
+
+    @Test
+    void tryAcquire_limitReached_rejects() {
+        ModelSpec spec = ModelSpec.builder().modelType(ModelType.OPENAI).version("gpt-4o").requestsPerMinute(2).build();
+        
+        assertTrue(limiter.tryAcquire(spec));
+        assertTrue(limiter.tryAcquire(spec));
+        assertFalse(limiter.tryAcquire(spec));
+    }
+
+    @Test
+    void tryAcquire_limitChangedByReload_usesNewLimit() {
+        ModelSpec spec = ModelSpec.builder().modelType(ModelType.OPENAI).version("gpt-4o").requestsPerMinute(1).build();
+        assertTrue(limiter.tryAcquire(spec));
+        assertFalse(limiter.tryAcquire(spec));
+        
+        spec.setRequestsPerMinute(3);
+        
+        assertTrue(limiter.tryAcquire(spec));
+    }
+}
@@ -0,0 +1,176 @@
+package com.llmproxy.service.llm.tokenizer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class BpeTokenizerTest {
+
+    @Test
+    void encode_lowestRankMergedFirst() {
+        BpeTokenizer tokenizer = tokenizer("bc", "ab");
+
+        assertArrayEquals(new int[] {'a', 256}, tokenizer.encode("abc"));
+    }
+
+    @Test
+    void encode_mergesBuildOnEachOther() {
+        BpeTokenizer tokenizer = tokenizer("he", "ll", "hell");
+
+        assertArrayEquals(new int[] {258, 'o'}, tokenizer.encode("hello"));
+    }
+
+    @Test
+    void encode_wholeChunkInVocabulary_singleToken() {
+        BpeTokenizer tokenizer = tokenizer("He", "ll", " w", "or", "Hell", " wor", " world");
+
+        assertArrayEquals(new int[] {260, 'o', 262}, tokenizer.encode("Hello world"));
+    }
+
+    @Test
+    void encode_splitsOnPatternBeforeMerging() {
+        // "a b" would merge across the space if chunks were not split first
+        BpeTokenizer tokenizer = tokenizer("a ", " b");
+
+        assertArrayEquals(new int[] {'a', 257}, tokenizer.encode("a b"));
+    }
+
+    @Test
+    void encode_nonAscii_mergesUtf8Bytes() {
+        BpeTokenizer bytesOnly = tokenizer();
+        BpeTokenizer withMerge = tokenizer("é");
+
+        assertArrayEquals(new int[] {0xc3, 0xa9}, bytesOnly.encode("é"));
+        assertArrayEquals(new int[] {256}, withMerge.encode("é"));
+        assertEquals(4, bytesOnly.countTokens("😀"));
+        assertEquals(3, bytesOnly.countTokens("你"));
+    }
+
+    @Test
+    void encode_unicodeWhitespace_splitLikeAsciiWhitespace() {
+        // A no-break space is whitespace to tiktoken, so the second one starts the next word
+        BpeTokenizer tokenizer = tokenizer("\u00a0", "\u00a0b");
+
+        assertArrayEquals(new int[] {'a', 256, 257}, tokenizer.encode("a\u00a0\u00a0b"));
+    }
+
+    @Test
+    void countTokens_matchesEncodeAndIsStableAcrossCalls() {
+        BpeTokenizer tokenizer = tokenizer("th", "the", " the", "in", "ing", " s", "ay", " say");
+        String text = "the saying is that the sayings say things\n\n  twice, twice!";
+
+        int first = tokenizer.countTokens(text);
+        int second = tokenizer.countTokens(text);
+
+        assertEquals(tokenizer.encode(text).length, first);
+        assertEquals(first, second);
+    }
+
+    @Test
+    void countTokens_chunkLongerThanMergeWindow_stillMerged() {
+        BpeTokenizer tokenizer = tokenizer("aa");
+
+        assertEquals(5000, tokenizer.countTokens("a".repeat(10_000)));
+    }
+
+    @Test
+    void countTokens_mergeWindowEndsInsideCharacter_characterKeptWhole() {
+        BpeTokenizer tokenizer = tokenizer("é");
+        // With the leading "a", byte MAX_MERGE_BYTES is the second byte of an "é"
+        String text = "a" + "é".repeat(BpeTokenizer.MAX_MERGE_BYTES);
+
+        assertEquals(1 + BpeTokenizer.MAX_MERGE_BYTES, tokenizer.countTokens(text));
+    }
+
+    @Test
+    void countTokens_emptyOrNull_returnsZero() {
+        BpeTokenizer tokenizer = tokenizer();
+
+        assertEquals(0, tokenizer.countTokens(""));
+        assertEquals(0, tokenizer.countTokens(null));
+        assertEquals(0, tokenizer.encode("").length);
+    }
+
+    @Test
+    void load_gzippedTiktokenFile_readsRanks() throws IOException {
+        StringBuilder file = new StringBuilder();
+        for (int b = 0; b < 256; b++) {
+            file.append(Base64.getEncoder().encodeToString(new byte[] {(byte) b})).append(' ').append(b).append('\n');
+        }
+        file.append(Base64.getEncoder().encodeToString("hi".getBytes(StandardCharsets.UTF_8))).append(" 256\n");
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(file.toString().getBytes(StandardCharsets.US_ASCII));
+        }
+
+        BpeTokenizer tokenizer = BpeTokenizer.load(BpeEncoding.CL100K_BASE,
+                new ByteArrayInputStream(compressed.toByteArray()), true, 16);
+
+        assertArrayEquals(new int[] {256, '!'}, tokenizer.encode("hi!"));
+    }
+
+    @Test
+    void load_malformedLine_throws() {
+        byte[] file = "not-a-vocabulary-line\n".getBytes(StandardCharsets.US_ASCII);
+
+        assertThrows(IOException.class, () -> BpeTokenizer.load(BpeEncoding.CL100K_BASE,
+                new ByteArrayInputStream(file), false, 16));
+    }
+
+    @Test
+    void encode_cl100kBase_matchesTiktoken() throws IOException {
+        BpeTokenizer tokenizer = vocabulary(BpeEncoding.CL100K_BASE);
+
+        assertArrayEquals(new int[] {15339, 1917}, tokenizer.encode("hello world"));
+        assertArrayEquals(new int[] {9906, 11, 1917, 0}, tokenizer.encode("Hello, world!"));
+        assertArrayEquals(new int[] {83, 1609, 5963, 374, 2294, 0}, tokenizer.encode("tiktoken is great!"));
+        assertEquals(6, tokenizer.countTokens("tiktoken is great!"));
+    }
+
+    @Test
+    void encode_o200kBase_matchesTiktoken() throws IOException {
+        BpeTokenizer tokenizer = vocabulary(BpeEncoding.O200K_BASE);
+
+        assertArrayEquals(new int[] {24912, 2375}, tokenizer.encode("hello world"));
+        assertArrayEquals(new int[] {13225, 11, 2375, 0}, tokenizer.encode("Hello, world!"));
+        assertArrayEquals(new int[] {83, 8251, 2488, 382, 2212, 0}, tokenizer.encode("tiktoken is great!"));
+        assertEquals(6, tokenizer.countTokens("tiktoken is great!"));
+    }
+
+    /**
+     * The real vocabulary, bundled by building with -Ptokenizer-vocabularies. Tests using it
+     * are skipped without it.
+     */
+    private static BpeTokenizer vocabulary(BpeEncoding encoding) throws IOException {
+        InputStream resource = BpeTokenizerTest.class.getClassLoader()
+                .getResourceAsStream("tokenizer/" + encoding.getFileName());
+        assumeTrue(resource != null, encoding.getFileName() + " not bundled; build with -Ptokenizer-vocabularies");
+        try (InputStream in = resource) {
+            return BpeTokenizer.load(encoding, in, false, 1000);
+        }
+    }
+
+    /**
+     * Every single byte at its own value, followed by the given merges ranked 256 and up.
+     */
+    static BpeTokenizer tokenizer(String... merges) {
+        RankTable.Builder builder = new RankTable.Builder();
+        for (int b = 0; b < 256; b++) {
+            builder.add(new byte[] {(byte) b}, b);
+        }
+        for (int i = 0; i < merges.length; i++) {
+            builder.add(merges[i].getBytes(StandardCharsets.UTF_8), 256 + i);
+        }
+        return new BpeTokenizer(BpeEncoding.CL100K_BASE, builder.build(), 1000);
+    }
+}
@@ -0,0 +1,46 @@
+package com.llmproxy.service.llm.tokenizer;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankTableTest {
+
+    @Test
+    void get_lookupFromBufferRegion() {
+        RankTable table = new RankTable.Builder()
+                .add(bytes("a"), 0)
+                .add(bytes("ab"), 7)
+                .add(bytes("abc"), 9)
+                .build();
+        byte[] buffer = bytes("xxabcxx");
+
+        assertEquals(0, table.get(buffer, 2, 1));
+        assertEquals(7, table.get(buffer, 2, 2));
+        assertEquals(9, table.get(buffer, 2, 3));
+        assertEquals(RankTable.MISSING, table.get(buffer, 3, 2));
+        assertEquals(RankTable.MISSING, table.get(buffer, 0, 7));
+    }
+
+    @Test
+    void get_manyTokens_allFound() {
+        RankTable.Builder builder = new RankTable.Builder();
+        for (int i = 0; i < 50_000; i++) {
+            builder.add(bytes("token" + i), i);
+        }
+        RankTable table = builder.build();
+
+        for (int i = 0; i < 50_000; i++) {
+            byte[] token = bytes("token" + i);
+            assertEquals(i, table.get(token, 0, token.length));
+        }
+        assertEquals(RankTable.MISSING, table.get(bytes("token50000"), 0, 10));
+        assertEquals(50_000, table.size());
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,62 @@
+package com.llmproxy.service.metrics;
+
+import com.llmproxy.exception.ModelError;
+import com.llmproxy.model.ModelType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProxyMetricsTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final ProxyMetrics metrics = new ProxyMetrics(registry);
+
+    @Test
+    void recordUpstreamCall_success_recordsPercentiles() {
+        for (int i = 1; i <= 100; i++) {
+            metrics.recordUpstreamCall(ModelType.OPENAI, "gpt-4o", TimeUnit.MILLISECONDS.toNanos(i * 10L), null);
+        }
+
+        Timer timer = registry.get("llm.upstream.latency")
+                .tags("provider", "openai", "version", "gpt-4o", "outcome", "success").timer();
+        assertEquals(100, timer.count());
+        ValueAtPercentile[] percentiles = timer.takeSnapshot().percentileValues();
+        assertEquals(3, percentiles.length);
+        assertEquals(0.99, percentiles[2].percentile());
+        assertTrue(percentiles[2].value(TimeUnit.MILLISECONDS) >= 900, "p99 was " + percentiles[2].value(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void recordUpstreamCall_modelErrors_taggedByOutcome() {
+        metrics.recordUpstreamCall(ModelType.CLAUDE, null, 1_000_000, ModelError.rateLimitError("claude"));
+        metrics.recordUpstreamCall(ModelType.CLAUDE, null, 1_000_000, ModelError.timeoutError("claude"));
+        metrics.recordUpstreamCall(ModelType.CLAUDE, null, 1_000_000, ModelError.unavailableError("claude"));
+        metrics.recordUpstreamCall(ModelType.CLAUDE, null, 1_000_000, new IllegalStateException());
+
+        assertEquals(1, registry.get("llm.upstream.latency").tags("version", "default", "outcome", "rate_limited").timer().count());
+        assertEquals(1, registry.get("llm.upstream.latency").tags("outcome", "timeout").timer().count());
+        assertEquals(2, registry.get("llm.upstream.latency").tags("outcome", "error").timer().count());
+    }
+
+    @Test
+    void recordTokens_countsInputAndOutputSeparately() {
+        metrics.recordTokens(ModelType.MISTRAL, "mistral-small", 10, 25);
+        metrics.recordTokens(ModelType.MISTRAL, "mistral-small", 5, 5);
+
+        assertEquals(15, registry.get("llm.tokens").tags("provider", "mistral", "direction", "input").counter().count());
+        assertEquals(30, registry.get("llm.tokens").tags("provider", "mistral", "direction", "output").counter().count());
+    }
+
+    @Test
+    void recordFallback_unknownOriginalModel_taggedUnknown() {
+        metrics.recordFallback(null, ModelType.GEMINI);
+
+        assertEquals(1, registry.get("llm.fallbacks").tags("from", "unknown", "to", "gemini").counter().count());
+    }
+}
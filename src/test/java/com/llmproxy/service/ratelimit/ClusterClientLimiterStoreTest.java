@@ -0,0 +1,122 @@
+package com.llmproxy.service.ratelimit;
+
+import com.llmproxy.service.cluster.ClusterMembership;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterClientLimiterStoreTest {
+    private static final List<String> NODES = List.of("http://node-a", "http://node-b", "http://node-c");
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private final Map<String, ClusterClientLimiterStore> nodes = new HashMap<>();
+    private final AtomicInteger peerCalls = new AtomicInteger();
+    private final AtomicBoolean peersReachable = new AtomicBoolean(true);
+
+    @BeforeEach
+    void setUp() {
+        RateLimitPeerClient inProcessPeers = (peer, clientId, permits) -> {
+            peerCalls.incrementAndGet();
+            return peersReachable.get() ? nodes.get(peer).grant(clientId, permits) : -1;
+        };
+        
+        for (String node : NODES) {
+            ClusterMembership membership = new ClusterMembership(node, NODES, 64, "secret");
+            nodes.put(node, new ClusterClientLimiterStore(membership, inProcessPeers, 60, 12, 0, 1000, clock::get));
+        }
+    }
+
+    @Test
+    void tryAcquire_clientSpreadAcrossReplicas_sharesOneBudget() {
+        int allowed = 0;
+        List<ClusterClientLimiterStore> replicas = new ArrayList<>(nodes.values());
+        for (int i = 0; i < 90; i++) {
+            if (replicas.get(i % replicas.size()).acquire("10.0.0.1").isAllowed()) {
+                allowed++;
+            }
+        }
+        
+        assertTrue(allowed <= 12, "allowed " + allowed);
+        assertTrue(allowed >= 8, "allowed " + allowed);
+    }
+
+    @Test
+    void tryAcquire_leasedTokens_spentWithoutNetworkHop() {
+        ClusterClientLimiterStore nonOwner = nonOwnerOf("10.0.0.2");
+        
+        for (int i = 0; i < 4; i++) {
+            assertTrue(nonOwner.acquire("10.0.0.2").isAllowed());
+        }
+        
+        assertEquals(1, peerCalls.get());
+    }
+
+    @Test
+    void tryAcquire_exhaustedClient_refillsAfterTime() {
+        ClusterClientLimiterStore nonOwner = nonOwnerOf("10.0.0.3");
+        while (nonOwner.acquire("10.0.0.3").isAllowed()) {
+            // exhaust the cluster-wide budget
+        }
+        
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        
+        assertTrue(nonOwner.acquire("10.0.0.3").isAllowed());
+    }
+
+    @Test
+    void tryAcquire_ownerUnreachable_fallsBackToLocalShare() {
+        peersReachable.set(false);
+        ClusterClientLimiterStore nonOwner = nonOwnerOf("10.0.0.4");
+        
+        int allowed = 0;
+        for (int i = 0; i < 20; i++) {
+            if (nonOwner.acquire("10.0.0.4").isAllowed()) {
+                allowed++;
+            }
+        }
+        
+        assertEquals(12 / NODES.size(), allowed);
+    }
+
+    @Test
+    void tryAcquire_ownerUnreachable_notAskedAgainUntilLeaseTtlPassed() {
+        peersReachable.set(false);
+        ClusterClientLimiterStore nonOwner = nonOwnerOf("10.0.0.4");
+        
+        for (int i = 0; i < 20; i++) {
+            nonOwner.acquire("10.0.0.4");
+        }
+        assertEquals(1, peerCalls.get());
+        
+        peersReachable.set(true);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1001));
+        assertTrue(nonOwner.acquire("10.0.0.4").isAllowed());
+        assertEquals(2, peerCalls.get());
+    }
+
+    @Test
+    void grant_clientNotOwned_grantsNothing() {
+        ClusterClientLimiterStore nonOwner = nonOwnerOf("10.0.0.5");
+        
+        assertEquals(0, nonOwner.grant("10.0.0.5", 4));
+    }
+
+    private ClusterClientLimiterStore nonOwnerOf(String clientId) {
+        String owner = new ClusterMembership(NODES.get(0), NODES, 64, "secret").ownerOf(clientId);
+        return NODES.stream()
+                .filter(node -> !node.equals(owner))
+                .map(nodes::get)
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,76 @@
+package com.llmproxy.service.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GcraClientLimiterStoreTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void acquire_allowsBurstThenRejects() {
+        GcraClientLimiterStore store = new GcraClientLimiterStore(60, 5, clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            RateLimitDecision decision = store.acquire("client1");
+            assertTrue(decision.isAllowed());
+            assertEquals(4 - i, decision.getRemaining());
+        }
+
+        RateLimitDecision rejected = store.acquire("client1");
+        assertFalse(rejected.isAllowed());
+        assertEquals(0, rejected.getRemaining());
+        assertEquals(1, rejected.getRetryAfterSeconds());
+    }
+
+    @Test
+    void acquire_rejectedClient_allowedAfterEmissionInterval() {
+        GcraClientLimiterStore store = new GcraClientLimiterStore(60, 2, clock::get);
+        assertTrue(store.acquire("client1").isAllowed());
+        assertTrue(store.acquire("client1").isAllowed());
+        assertFalse(store.acquire("client1").isAllowed());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertFalse(store.acquire("client1").isAllowed());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertTrue(store.acquire("client1").isAllowed());
+        assertFalse(store.acquire("client1").isAllowed());
+    }
+
+    @Test
+    void acquire_reportsResetAsTimeUntilFullyReplenished() {
+        GcraClientLimiterStore store = new GcraClientLimiterStore(60, 10, clock::get);
+        store.acquire("client1");
+        store.acquire("client1");
+
+        RateLimitDecision decision = store.acquire("client1");
+
+        assertEquals(10, decision.getLimit());
+        assertEquals(7, decision.getRemaining());
+        assertEquals(3, decision.getResetSeconds());
+    }
+
+    @Test
+    void acquire_differentClients_independentLimits() {
+        GcraClientLimiterStore store = new GcraClientLimiterStore(60, 1, clock::get);
+
+        assertTrue(store.acquire("client1").isAllowed());
+        assertFalse(store.acquire("client1").isAllowed());
+        assertTrue(store.acquire("client2").isAllowed());
+    }
+
+    @Test
+    void acquire_zeroRate_neverRefills() {
+        GcraClientLimiterStore store = new GcraClientLimiterStore(0, 2, clock::get);
+        assertTrue(store.acquire("client1").isAllowed());
+        assertTrue(store.acquire("client1").isAllowed());
+
+        clock.addAndGet(TimeUnit.HOURS.toNanos(1));
+        assertFalse(store.acquire("client1").isAllowed());
+    }
+}
@@ -0,0 +1,124 @@
+package com.llmproxy.service.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SketchClientLimiterStoreTest {
+    private static final long ONE_MB = 1024 * 1024;
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    @Test
+    void tryAcquire_withinLimit_allowed() {
+        SketchClientLimiterStore store = new SketchClientLimiterStore(60, 10, ONE_MB, 0.5, clock::get, Runnable::run);
+        
+        assertTrue(store.acquire("client1").isAllowed());
+    }
+
+    @Test
+    void tryAcquire_heavyClient_limitedWhileOthersUnaffected() {
+        SketchClientLimiterStore store = new SketchClientLimiterStore(60, 10, ONE_MB, 0.5, clock::get, Runnable::run);
+        
+        int allowed = 0;
+        for (int i = 0; i < 200; i++) {
+            if (store.acquire("heavy").isAllowed()) {
+                allowed++;
+            }
+        }
+        
+        assertTrue(allowed <= 60, "allowed " + allowed);
+        assertTrue(store.acquire("light").isAllowed());
+        assertEquals(1, store.getHeavyHitterCount());
+    }
+
+    @Test
+    void tryAcquire_heavyClient_recoversAsWindowSlides() {
+        SketchClientLimiterStore store = new SketchClientLimiterStore(60, 10, ONE_MB, 0.5, clock::get, Runnable::run);
+        while (store.acquire("heavy").isAllowed()) {
+            // exhaust
+        }
+        
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        
+        assertTrue(store.acquire("heavy").isAllowed());
+    }
+
+    @Test
+    void tryAcquire_lightClientsNotYetPromoted_limitedBySlidingWindow() {
+        SketchClientLimiterStore store = new SketchClientLimiterStore(20, 5, ONE_MB, 1.0, clock::get, Runnable::run);
+        
+        int allowed = 0;
+        for (int i = 0; i < 50; i++) {
+            if (store.acquire("client").isAllowed()) {
+                allowed++;
+            }
+        }
+        
+        assertEquals(20, allowed);
+    }
+
+    @Test
+    void tryAcquire_hugeCardinality_boundedHeavyHitters() {
+        SketchClientLimiterStore store = new SketchClientLimiterStore(2, 2, 64 * 1024, 0.5, clock::get, Runnable::run);
+        
+        for (int i = 0; i < 100_000; i++) {
+            store.acquire("10." + (i >> 16) + "." + ((i >> 8) & 0xff) + "." + (i & 0xff));
+        }
+        
+        long capacity = (64 * 1024 / 4) / SketchClientLimiterStore.HEAVY_HITTER_BYTES;
+        assertTrue(store.getHeavyHitterCount() <= capacity, "heavy hitters " + store.getHeavyHitterCount());
+    }
+
+    @Test
+    void tryAcquire_manyLightClients_fewFalseRejections() {
+        SketchClientLimiterStore store = new SketchClientLimiterStore(60, 10, ONE_MB, 0.5, clock::get, Runnable::run);
+        
+        int rejected = 0;
+        for (int i = 0; i < 50_000; i++) {
+            if (!store.acquire("client-" + i).isAllowed()) {
+                rejected++;
+            }
+        }
+        
+        assertEquals(0, rejected);
+    }
+
+    @Test
+    void tryAcquire_windowRollover_retiredSketchClearedInBackground() {
+        List<Runnable> clears = new ArrayList<>();
+        SketchClientLimiterStore store = new SketchClientLimiterStore(20, 5, ONE_MB, 2.0, clock::get, clears::add);
+        while (store.acquire("heavy").isAllowed()) {
+            // exhaust
+        }
+        
+        // Each new window schedules the clear of the sketch the window after it will use
+        clock.addAndGet(SketchClientLimiterStore.WINDOW_NANOS);
+        store.acquire("other");
+        clock.addAndGet(SketchClientLimiterStore.WINDOW_NANOS);
+        store.acquire("other");
+        assertEquals(2, clears.size());
+        clears.forEach(Runnable::run);
+        
+        // Back on the sketch that counted the heavy client three windows ago
+        clock.addAndGet(SketchClientLimiterStore.WINDOW_NANOS);
+        assertTrue(store.acquire("heavy").isAllowed());
+    }
+
+    @Test
+    void tryAcquire_idleAcrossWindows_staleSketchClearedOnDemand() {
+        SketchClientLimiterStore store = new SketchClientLimiterStore(20, 5, ONE_MB, 2.0, clock::get, task -> { });
+        while (store.acquire("heavy").isAllowed()) {
+            // exhaust
+        }
+        
+        clock.addAndGet(3 * SketchClientLimiterStore.WINDOW_NANOS);
+        
+        assertTrue(store.acquire("heavy").isAllowed());
+    }
+}
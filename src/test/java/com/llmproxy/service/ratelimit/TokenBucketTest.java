@@ -0,0 +1,103 @@
+package com.llmproxy.service.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void tryAcquire_startsFull() {
+        TokenBucket bucket = new TokenBucket(1.0, 5, clock::get);
+        
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryAcquire());
+        }
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void tryAcquire_refillsOverTime() {
+        TokenBucket bucket = new TokenBucket(2.0, 2, clock::get);
+        assertTrue(bucket.tryAcquire(2));
+        assertFalse(bucket.tryAcquire());
+        
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void nanosUntilAvailable_drained_timeToRefillPermits() {
+        TokenBucket bucket = new TokenBucket(2.0, 4, clock::get);
+        assertEquals(0, bucket.nanosUntilAvailable(4));
+        assertTrue(bucket.tryAcquire(4));
+        
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1500), bucket.nanosUntilAvailable(3));
+    }
+
+    @Test
+    void tryAcquire_longIdle_neverExceedsCapacity() {
+        TokenBucket bucket = new TokenBucket(10.0, 3, clock::get);
+        
+        clock.addAndGet(TimeUnit.HOURS.toNanos(1));
+        
+        assertEquals(3, bucket.availableTokens());
+        assertTrue(bucket.tryAcquire(3));
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void tryAcquire_moreThanCapacity_returnsFalse() {
+        TokenBucket bucket = new TokenBucket(10.0, 3, clock::get);
+        
+        assertFalse(bucket.tryAcquire(4));
+        assertEquals(3, bucket.availableTokens());
+    }
+
+    @Test
+    void tryAcquire_zeroRate_neverRefills() {
+        TokenBucket bucket = new TokenBucket(0.0, 1, clock::get);
+        assertTrue(bucket.tryAcquire());
+        
+        clock.addAndGet(TimeUnit.DAYS.toNanos(365));
+        
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void tryAcquire_concurrentCallers_grantExactlyCapacity() throws Exception {
+        TokenBucket bucket = new TokenBucket(0.0, 10_000);
+        int threads = 16;
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 2_000; i++) {
+                    if (bucket.tryAcquire()) {
+                        granted.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        
+        assertEquals(10_000, granted.get());
+    }
+}
@@ -0,0 +1,75 @@
+package com.llmproxy.service.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenQuotaServiceTest {
+
+    @Test
+    void reserve_disabled_alwaysAdmits() {
+        TokenQuotaService quota = new TokenQuotaService(0, 0, 150);
+        
+        assertFalse(quota.isEnabled());
+        assertNotNull(quota.reserve("client1", 1_000_000));
+    }
+
+    @Test
+    void reserve_chargesEstimatePlusExpectedOutput() {
+        TokenQuotaService quota = new TokenQuotaService(60_000, 1_000, 100);
+        
+        TokenQuotaService.Reservation reservation = quota.reserve("client1", 400);
+        
+        assertNotNull(reservation);
+        assertEquals(500, reservation.getChargedTokens());
+        assertNotNull(quota.reserve("client1", 400));
+        assertNull(quota.reserve("client1", 400));
+    }
+
+    @Test
+    void reserve_clientsHaveSeparateBudgets() {
+        TokenQuotaService quota = new TokenQuotaService(60_000, 1_000, 0);
+        
+        assertNotNull(quota.reserve("client1", 1_000));
+        assertNull(quota.reserve("client1", 1));
+        assertNotNull(quota.reserve("client2", 1_000));
+    }
+
+    @Test
+    void getRetryAfterSeconds_budgetExhausted_untilEstimateRefilled() {
+        TokenQuotaService quota = new TokenQuotaService(60, 1_000, 0);
+        
+        assertNotNull(quota.reserve("client1", 1_000));
+        
+        assertEquals(10, quota.getRetryAfterSeconds("client1", 10));
+        assertEquals(1, quota.getRetryAfterSeconds("client2", 10));
+    }
+
+    @Test
+    void reconcile_unusedTokensRefunded() {
+        TokenQuotaService quota = new TokenQuotaService(60, 1_000, 0);
+        
+        TokenQuotaService.Reservation reservation = quota.reserve("client1", 800);
+        quota.reconcile(reservation, 100);
+        
+        assertNotNull(quota.reserve("client1", 800));
+    }
+
+    @Test
+    void reconcile_overrunChargedAsDebt() {
+        TokenQuotaService quota = new TokenQuotaService(60, 1_000, 0);
+        
+        TokenQuotaService.Reservation reservation = quota.reserve("client1", 100);
+        quota.reconcile(reservation, 1_500);
+        
+        assertNull(quota.reserve("client1", 1));
+    }
+
+    @Test
+    void reserve_requestLargerThanBurst_admittedFromFullBucket() {
+        TokenQuotaService quota = new TokenQuotaService(60, 1_000, 0);
+        
+        assertNotNull(quota.reserve("client1", 5_000));
+        assertNull(quota.reserve("client1", 1));
+    }
+}
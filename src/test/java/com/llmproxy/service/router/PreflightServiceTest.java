@@ -0,0 +1,81 @@
+package com.llmproxy.service.router;
+
+import com.llmproxy.model.ModelType;
+import com.llmproxy.model.QueryRequest;
+import com.llmproxy.service.llm.ModelCatalog;
+import com.llmproxy.service.llm.ModelVersionValidator;
+import com.llmproxy.service.llm.TokenEstimator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class PreflightServiceTest {
+
+    private final PreflightService preflightService =
+            new PreflightService(new TokenEstimator(), new ModelVersionValidator(), 0.1);
+
+    @Test
+    void plan_shortPrompt_keepsRequestedVersionForEveryFamily() {
+        PreflightPlan plan = preflightService.plan(QueryRequest.builder()
+                .query("What is the capital of France?")
+                .modelVersion("gpt-4")
+                .build());
+        
+        assertTrue(plan.fits());
+        assertEquals(EnumSet.allOf(ModelType.class), plan.getCandidates());
+        assertEquals("gpt-4", plan.getVersion(ModelType.OPENAI));
+        assertEquals(ModelVersionValidator.DEFAULT_CLAUDE_VERSION, plan.getVersion(ModelType.CLAUDE));
+        assertTrue(plan.getPromptTokens(ModelType.OPENAI) > 0);
+    }
+
+    @Test
+    void plan_promptOverflowsRequestedVersion_upgradesToDefaultVersion() {
+        // One token per ideograph: too long for gpt-4's 8k window
+        PreflightPlan plan = preflightService.plan(QueryRequest.builder()
+                .query("語".repeat(9000))
+                .modelVersion("gpt-4")
+                .build());
+        
+        assertEquals(ModelVersionValidator.DEFAULT_OPENAI_VERSION, plan.getVersion(ModelType.OPENAI));
+    }
+
+    @Test
+    void plan_promptOverflowsDefaultVersion_usesLargestWindow(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("catalog.json");
+        Files.writeString(file, """
+                {"families": {
+                  "OPENAI": {"defaultVersion": "small", "versions": [
+                    {"version": "small", "contextWindow": 200}, {"version": "large", "contextWindow": 4000}]},
+                  "GEMINI": {"defaultVersion": "g", "versions": [{"version": "g", "contextWindow": 200}]},
+                  "MISTRAL": {"defaultVersion": "m", "versions": [{"version": "m", "contextWindow": 200}]},
+                  "CLAUDE": {"defaultVersion": "c", "versions": [{"version": "c", "contextWindow": 200}]},
+                  "SELF_HOSTED": {"defaultVersion": "s", "versions": [{"version": "s", "contextWindow": 200}]}
+                }}""");
+        PreflightService service = new PreflightService(new TokenEstimator(),
+                new ModelVersionValidator(new ModelCatalog(file.toString())), 0.1);
+        
+        PreflightPlan plan = service.plan(QueryRequest.builder().query("word ".repeat(100)).build());
+        
+        assertEquals(EnumSet.of(ModelType.OPENAI), plan.getCandidates());
+        assertEquals("large", plan.getVersion(ModelType.OPENAI));
+        assertEquals(4000, plan.getLargestContextWindow());
+    }
+
+    @Test
+    void plan_promptOverflowsEveryWindow_doesNotFit() {
+        PreflightService service = new PreflightService(new TokenEstimator(), mock(ModelVersionValidator.class), 0.1);
+        
+        PreflightPlan plan = service.plan(QueryRequest.builder().query("Test query").build());
+        
+        assertFalse(plan.fits());
+        assertTrue(plan.getCandidates().isEmpty());
+        assertNull(plan.getVersion(ModelType.OPENAI));
+    }
+}
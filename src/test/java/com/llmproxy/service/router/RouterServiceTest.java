@@ -7,12 +7,15 @@ import com.llmproxy.model.StatusResponse;
 import com.llmproxy.model.TaskType;
 import com.llmproxy.service.llm.LlmClient;
 import com.llmproxy.service.llm.LlmClientFactory;
+import com.llmproxy.service.warmup.WarmupContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.EnumSet;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -163,6 +166,33 @@ class RouterServiceTest {
         assertThrows(ModelError.class, () -> routerService.routeRequest(request));
     }
 
+    @Test
+    void routeRequest_duringWarmup_treatsUnavailableModelAsAvailable() {
+        routerService.setModelAvailability(ModelType.OPENAI, false);
+        routerService.setModelAvailability(ModelType.CLAUDE, false);
+        
+        QueryRequest request = QueryRequest.builder()
+                .query("Test query")
+                .model(ModelType.CLAUDE)
+                .build();
+        
+        assertEquals(ModelType.CLAUDE, WarmupContext.run(() -> routerService.routeRequest(request)));
+        assertThrows(ModelError.class, () -> routerService.routeRequest(request));
+    }
+
+    @Test
+    void routeRequest_duringWarmupWithSelfHostedDisabled_skipsSelfHosted() {
+        routerService.setModelAvailability(ModelType.OPENAI, false);
+        
+        QueryRequest request = QueryRequest.builder()
+                .query("Test query")
+                .model(ModelType.SELF_HOSTED)
+                .build();
+        
+        assertFalse(routerService.getWarmupModels().contains(ModelType.SELF_HOSTED));
+        assertNotEquals(ModelType.SELF_HOSTED, WarmupContext.run(() -> routerService.routeRequest(request)));
+    }
+
     @Test
     void fallbackOnError_withRetryableError_returnsAlternativeModel() {
         routerService.setModelAvailability(ModelType.OPENAI, false);
@@ -320,4 +350,37 @@ class RouterServiceTest {
         ModelType result = routerService.fallbackOnError(ModelType.MISTRAL, request, error);
         assertTrue(result == ModelType.GEMINI || result == ModelType.CLAUDE);
     }
-}
\ No newline at end of file
+
+    @Test
+    void routeRequest_specifiedModelNotCandidate_routesToCandidate() {
+        routerService.setModelAvailability(ModelType.OPENAI, true);
+        routerService.setModelAvailability(ModelType.GEMINI, true);
+        routerService.setModelAvailability(ModelType.MISTRAL, true);
+        routerService.setModelAvailability(ModelType.CLAUDE, true);
+        
+        QueryRequest request = QueryRequest.builder()
+                .query("Test query")
+                .model(ModelType.OPENAI)
+                .taskType(TaskType.TEXT_GENERATION)
+                .build();
+        
+        ModelType result = routerService.routeRequest(request, EnumSet.of(ModelType.CLAUDE));
+        
+        assertEquals(ModelType.CLAUDE, result);
+    }
+
+    @Test
+    void fallbackOnError_noCandidateAlternatives_throwsException() {
+        routerService.setModelAvailability(ModelType.OPENAI, true);
+        routerService.setModelAvailability(ModelType.GEMINI, true);
+        
+        QueryRequest request = QueryRequest.builder()
+                .query("Test query")
+                .build();
+        
+        ModelError error = ModelError.rateLimitError(ModelType.OPENAI.toString());
+        
+        assertThrows(ModelError.class, () ->
+                routerService.fallbackOnError(ModelType.OPENAI, request, error, EnumSet.of(ModelType.OPENAI)));
+    }
+}
@@ -0,0 +1,81 @@
+package com.llmproxy.service.tracing;
+
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProxyTracerTest {
+
+    private InMemorySpanExporter exporter;
+    private ProxyTracer tracer;
+
+    @BeforeEach
+    void setUp() {
+        exporter = InMemorySpanExporter.create();
+        OpenTelemetrySdk openTelemetry = OpenTelemetrySdk.builder()
+                .setTracerProvider(SdkTracerProvider.builder()
+                        .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+                        .build())
+                .build();
+        tracer = new ProxyTracer(openTelemetry);
+    }
+
+    @Test
+    void call_nestedSpans_childHasParent() {
+        String result = tracer.call("outer", outer -> tracer.call("inner", inner -> "done"));
+
+        assertEquals("done", result);
+        List<SpanData> spans = exporter.getFinishedSpanItems();
+        assertEquals(2, spans.size());
+        SpanData inner = spans.get(0);
+        SpanData outer = spans.get(1);
+        assertEquals("inner", inner.getName());
+        assertEquals(outer.getSpanId(), inner.getParentSpanId());
+        assertEquals(outer.getTraceId(), inner.getTraceId());
+    }
+
+    @Test
+    void call_bodyThrows_recordsErrorAndRethrows() {
+        assertThrows(IllegalStateException.class, () -> tracer.run("failing", span -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        SpanData span = exporter.getFinishedSpanItems().get(0);
+        assertEquals(StatusCode.ERROR, span.getStatus().getStatusCode());
+        assertEquals("exception", span.getEvents().get(0).getName());
+    }
+
+    @Test
+    void recordRetry_retriedCall_countsRetriesOnCurrentSpan() {
+        Retry retry = Retry.of("test", RetryConfig.custom()
+                .maxAttempts(3)
+                .waitDuration(Duration.ofMillis(1))
+                .build());
+        retry.getEventPublisher().onRetry(ProxyTracer::recordRetry);
+        AtomicInteger attempts = new AtomicInteger();
+
+        tracer.call("llm.upstream", span -> retry.executeSupplier(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IllegalStateException("attempt " + attempts.get());
+            }
+            return "ok";
+        }));
+
+        SpanData span = exporter.getFinishedSpanItems().get(0);
+        assertEquals(2L, span.getAttributes().get(ProxyTracer.RETRY_COUNT));
+        assertEquals(2, span.getEvents().stream().filter(event -> event.getName().equals("retry")).count());
+    }
+}
@@ -0,0 +1,107 @@
+package com.llmproxy.service.warmup;
+
+import com.llmproxy.model.ModelType;
+import com.llmproxy.model.StatusResponse;
+import com.llmproxy.service.router.RouterService;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.context.ApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class WarmupServiceTest {
+
+    private final RouterService routerService = mock(RouterService.class);
+    private HttpServer server;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void run_disabled_doesNothing() {
+        WarmupService warmup = new WarmupService(false, 10, 60, routerService, RestClient.create(),
+                mock(ApplicationContext.class));
+
+        warmup.run(new DefaultApplicationArguments());
+
+        verifyNoInteractions(routerService);
+    }
+
+    @Test
+    void run_withoutWebServer_onlyPrimesAvailability() {
+        when(routerService.getAvailability()).thenReturn(new StatusResponse());
+        WarmupService warmup = new WarmupService(true, 10, 60, routerService, RestClient.create(),
+                mock(ApplicationContext.class));
+
+        warmup.run(new DefaultApplicationArguments());
+
+        verify(routerService).updateAvailability();
+    }
+
+    @Test
+    void run_webServer_sendsTokenAuthenticatedQueriesThatOnlyCountDuringWarmup() throws IOException {
+        when(routerService.getAvailability()).thenReturn(new StatusResponse());
+        when(routerService.getWarmupModels()).thenReturn(EnumSet.of(ModelType.OPENAI, ModelType.CLAUDE));
+        List<String> tokens = new CopyOnWriteArrayList<>();
+        List<Boolean> accepted = new CopyOnWriteArrayList<>();
+        WarmupService[] warmup = new WarmupService[1];
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/query", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            String token = exchange.getRequestHeaders().getFirst(WarmupService.TOKEN_HEADER);
+            tokens.add(token);
+            accepted.add(warmup[0].isWarmupRequest(request(token)));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        warmup[0] = new WarmupService(true, 5, 60, routerService, RestClient.create(),
+                webContext(server.getAddress().getPort()));
+
+        warmup[0].run(new DefaultApplicationArguments());
+
+        assertEquals(5, tokens.size());
+        assertEquals(List.of(true, true, true, true, true), accepted);
+        assertFalse(warmup[0].isWarmupRequest(request(tokens.get(0))), "token outlives the warm-up");
+    }
+
+    @Test
+    void isWarmupRequest_wrongOrMissingToken_false() {
+        WarmupService warmup = new WarmupService(true, 0, 60, routerService, RestClient.create(),
+                mock(ApplicationContext.class));
+
+        assertFalse(warmup.isWarmupRequest(request("guess")));
+        assertFalse(warmup.isWarmupRequest(new MockHttpServletRequest()));
+    }
+
+    private MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(WarmupService.TOKEN_HEADER, token);
+        return request;
+    }
+
+    private WebServerApplicationContext webContext(int port) {
+        WebServer webServer = mock(WebServer.class);
+        when(webServer.getPort()).thenReturn(port);
+        WebServerApplicationContext context = mock(WebServerApplicationContext.class);
+        when(context.getWebServer()).thenReturn(webServer);
+        return context;
+    }
+}